@@ -0,0 +1,81 @@
+package com.fdmgroup.schedulingproject.config;
+
+import java.sql.Connection;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Configures separate connection pools for the primary database and a read
+ * replica when {@code scheduling.datasource.replica.url} is set. Service
+ * methods marked {@code @Transactional(readOnly = true)} read from the replica
+ * and everything else uses the primary, which is configured by the usual
+ * {@code spring.datasource} properties. Without a replica URL the application
+ * uses a single pool as before.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+@Configuration
+@ConditionalOnProperty("scheduling.datasource.replica.url")
+public class DataSourceConfig {
+	@Value("${scheduling.datasource.replica.url}")
+	private String replicaUrl;
+	@Value("${scheduling.datasource.replica.username:${spring.datasource.username}}")
+	private String replicaUsername;
+	@Value("${scheduling.datasource.replica.password:${spring.datasource.password}}")
+	private String replicaPassword;
+
+	@Bean
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	@Bean
+	public HikariDataSource replicaDataSource(DataSourceProperties properties) {
+		HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+				.driverClassName(properties.determineDriverClassName()).url(replicaUrl).username(replicaUsername)
+				.password(replicaPassword).build();
+		dataSource.setPoolName("replica");
+		dataSource.setReadOnly(true);
+		return dataSource;
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource) {
+		return routingDataSource(primaryDataSource, replicaDataSource);
+	}
+
+	/**
+	 * Creates a data source routing between the specified pools. A connection is
+	 * only taken from a pool when the first statement is run, by which time the
+	 * transaction has been marked read-only or not.
+	 *
+	 * @param primary the primary pool
+	 * @param replica the replica pool
+	 * @return the routing data source
+	 */
+	static DataSource routingDataSource(DataSource primary, DataSource replica) {
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+		dataSource.setTargetDataSource(new ReadWriteRoutingDataSource(primary, replica));
+		// the MySQL defaults, given up front so that no connection is taken to
+		// find them out
+		dataSource.setDefaultAutoCommit(true);
+		dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+		dataSource.afterPropertiesSet();
+		return dataSource;
+	}
+}
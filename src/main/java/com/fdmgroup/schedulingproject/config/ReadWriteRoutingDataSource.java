@@ -0,0 +1,45 @@
+package com.fdmgroup.schedulingproject.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A data source that hands out connections from a replica pool inside
+ * read-only transactions and from the primary pool otherwise. The route is
+ * chosen when a connection is requested, so this data source should be wrapped
+ * in a lazy connection proxy that waits for the transaction to start before
+ * requesting one.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+	/**
+	 * The pools a connection can be routed to.
+	 */
+	public enum Route {
+		PRIMARY, REPLICA
+	}
+
+	/**
+	 * Creates a data source routing between the specified pools.
+	 *
+	 * @param primary the pool that takes writes and reads outside read-only
+	 *                transactions
+	 * @param replica the pool that takes reads inside read-only transactions
+	 */
+	public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+		setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Route determineCurrentLookupKey() {
+		return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.REPLICA : Route.PRIMARY;
+	}
+}
@@ -0,0 +1,68 @@
+package com.fdmgroup.schedulingproject.config;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.fdmgroup.schedulingproject.exception.UserNotFoundException;
+import com.fdmgroup.schedulingproject.model.UserPrincipal;
+import com.fdmgroup.schedulingproject.service.UserDetailsService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Keeps the snapshot of the logged in user stored in the session at login up to
+ * date. A snapshot is trusted for the configured interval, and after that it is
+ * checked against the user's version before the request is handled, so most
+ * requests do not touch the database at all. If the user has changed, the
+ * snapshot and the {@code current_user} attribute are replaced; if the user no
+ * longer exists, the session is invalidated and the user has to log in again.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public class SessionPrincipalInterceptor implements HandlerInterceptor {
+	private final UserDetailsService userDetailsService;
+	private final Duration revalidateInterval;
+
+	private Logger logger = LogManager.getLogger(SessionPrincipalInterceptor.class);
+
+	/**
+	 * Creates a new SessionPrincipalInterceptor instance.
+	 *
+	 * @param userDetailsService the service that revalidates snapshots
+	 * @param revalidateInterval how long a snapshot is trusted without checking
+	 *                           the user's version
+	 */
+	public SessionPrincipalInterceptor(UserDetailsService userDetailsService, Duration revalidateInterval) {
+		this.userDetailsService = userDetailsService;
+		this.revalidateInterval = revalidateInterval;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		HttpSession session = request.getSession(false);
+		if (session == null) {
+			return true;
+		}
+		UserPrincipal principal = (UserPrincipal) session.getAttribute("current_principal");
+		if (principal == null || !principal.isStale(revalidateInterval, Instant.now())) {
+			return true;
+		}
+		try {
+			UserPrincipal revalidated = userDetailsService.revalidatePrincipal(principal);
+			session.setAttribute("current_principal", revalidated);
+			session.setAttribute("current_user", revalidated.getUsername());
+		} catch (UserNotFoundException e) {
+			logger.info("Session of user with username " + principal.getUsername()
+					+ " ended as the user no longer exists");
+			session.invalidate();
+		}
+		return true;
+	}
+}
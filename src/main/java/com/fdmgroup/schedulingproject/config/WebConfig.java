@@ -0,0 +1,31 @@
+package com.fdmgroup.schedulingproject.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fdmgroup.schedulingproject.service.UserDetailsService;
+
+/**
+ * Registers the interceptors applied to every request.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+	@Autowired
+	private UserDetailsService userDetailsService;
+	@Value("${scheduling.session.revalidate-seconds:60}")
+	private long revalidateSeconds;
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(
+				new SessionPrincipalInterceptor(userDetailsService, Duration.ofSeconds(revalidateSeconds)));
+	}
+}
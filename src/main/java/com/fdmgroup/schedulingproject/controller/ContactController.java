@@ -1,5 +1,8 @@
 package com.fdmgroup.schedulingproject.controller;
 
+import java.util.List;
+import java.util.Map;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,23 +13,19 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.fdmgroup.schedulingproject.dto.UserContactRow;
 import com.fdmgroup.schedulingproject.exception.CannotInviteSelfException;
 import com.fdmgroup.schedulingproject.exception.UserAlreadyInContactsException;
 import com.fdmgroup.schedulingproject.exception.UserAlreadyInvitedException;
 import com.fdmgroup.schedulingproject.exception.UserNotFoundException;
 import com.fdmgroup.schedulingproject.exception.UserNotInvitedException;
-import com.fdmgroup.schedulingproject.model.User;
 import com.fdmgroup.schedulingproject.service.UserContactService;
-import com.fdmgroup.schedulingproject.service.UserDetailsService;
 
 import jakarta.servlet.http.HttpSession;
 
 @Controller
 public class ContactController {
 
-	@Autowired
-	private UserDetailsService userDetailsService;
-
 	@Autowired
 	private UserContactService userContactService;
 
@@ -41,10 +40,11 @@ public class ContactController {
 			return "redirect:/";
 		}
 		try {
-			User user = userDetailsService.getUserInfo(username);
-			model.addAttribute("contacts", user.getContacts());
-			model.addAttribute("receivedInvites", user.getReceivedContactInvites());
-			model.addAttribute("sentInvites", user.getSentContactInvites());
+			Map<UserContactRow.Relation, List<UserContactRow>> contactLists = userContactService
+					.getContactLists(username);
+			model.addAttribute("contacts", contactLists.get(UserContactRow.Relation.CONTACT));
+			model.addAttribute("receivedInvites", contactLists.get(UserContactRow.Relation.RECEIVED_INVITE));
+			model.addAttribute("sentInvites", contactLists.get(UserContactRow.Relation.SENT_INVITE));
 			logger.trace("User with username " + username + " loaded /contacts page");
 		} catch (UserNotFoundException e) {
 			return "redirect:/";
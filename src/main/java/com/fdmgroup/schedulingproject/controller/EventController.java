@@ -1,7 +1,7 @@
 package com.fdmgroup.schedulingproject.controller;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
@@ -17,11 +17,20 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import com.fdmgroup.schedulingproject.exception.EventAlreadyInCalendarException;
 import com.fdmgroup.schedulingproject.exception.EventClashException;
 import com.fdmgroup.schedulingproject.exception.EventNotFoundException;
+import com.fdmgroup.schedulingproject.exception.InvalidEventDetailsException;
+import com.fdmgroup.schedulingproject.exception.OccurrenceNotFoundException;
+import com.fdmgroup.schedulingproject.exception.RoomAlreadyExistsException;
+import com.fdmgroup.schedulingproject.exception.RoomUnavailableException;
 import com.fdmgroup.schedulingproject.exception.UserNotFoundException;
 import com.fdmgroup.schedulingproject.exception.UserNotInvitedException;
+import com.fdmgroup.schedulingproject.exception.UserNotOrganiserException;
+import com.fdmgroup.schedulingproject.exception.UsersNotFoundException;
 import com.fdmgroup.schedulingproject.model.Event;
-import com.fdmgroup.schedulingproject.model.Timeslot;
+import com.fdmgroup.schedulingproject.model.Recurrence;
+import com.fdmgroup.schedulingproject.model.RecurrenceFrequency;
+import com.fdmgroup.schedulingproject.model.TimeslotSearchResult;
 import com.fdmgroup.schedulingproject.model.User;
+import com.fdmgroup.schedulingproject.model.UserPrincipal;
 import com.fdmgroup.schedulingproject.service.EventService;
 import com.fdmgroup.schedulingproject.service.UserContactService;
 import com.fdmgroup.schedulingproject.service.UserDetailsService;
@@ -41,6 +50,9 @@ public class EventController {
 
 	private Logger logger = LogManager.getLogger(EventController.class);
 
+	// number of upcoming occurrences of a recurring event offered for cancelling
+	private static final int UPCOMING_OCCURRENCES = 10;
+
 	@GetMapping("/event/create")
 	public String createEventPage(HttpSession session, Model model, RedirectAttributes redirectAttributes) {
 		String username = (String) session.getAttribute("current_user");
@@ -52,6 +64,7 @@ public class EventController {
 		try {
 			List<User> contacts = userContactService.getContacts(username);
 			model.addAttribute("contacts", contacts);
+			model.addAttribute("rooms", eventService.getRooms());
 			logger.trace("User with username " + username + " loaded /event/create page");
 		} catch (UserNotFoundException e) {
 			redirectAttributes.addFlashAttribute("message", "Please log in");
@@ -60,6 +73,29 @@ public class EventController {
 		return "create-event";
 	}
 
+	@PostMapping("/room/create")
+	public String createRoom(HttpServletRequest req, HttpSession session, RedirectAttributes redirectAttributes) {
+		String username = (String) session.getAttribute("current_user");
+		if (username == null) {
+			// if user navigates manually to /room/create without logging in
+			redirectAttributes.addFlashAttribute("message", "Please log in");
+			return "redirect:/";
+		}
+		String name = req.getParameter("name");
+		if (name == null || name.isBlank()) {
+			redirectAttributes.addFlashAttribute("message", "Please enter a room name");
+			return "redirect:/event/create";
+		}
+		try {
+			eventService.createRoom(name);
+			logger.info("User " + username + " created room " + name.strip());
+			redirectAttributes.addFlashAttribute("message", "Room created");
+		} catch (RoomAlreadyExistsException e) {
+			redirectAttributes.addFlashAttribute("message", "Room already exists");
+		}
+		return "redirect:/event/create";
+	}
+
 	@PostMapping("/event/create-schedule")
 	public String selectEventTime(HttpServletRequest req, HttpSession session, Model model,
 			RedirectAttributes redirectAttributes) {
@@ -77,13 +113,21 @@ public class EventController {
 			Event event = createEventFromPostRequestParams(req);
 			model.addAttribute("event", event);
 
-			List<Timeslot> suggestedTimeslots = eventService.findTimeslots(user, event.getStartTime(),
-					event.getDurationMinutes(), potentialAttendingUsers);
-			model.addAttribute("suggestedTimeslots", suggestedTimeslots);
+			TimeslotSearchResult searchResult = eventService.searchTimeslots(user, event.getStartTime(),
+					event.getDurationMinutes(), potentialAttendingUsers, event.getLocation());
+			model.addAttribute("suggestedTimeslots", searchResult.getTimeslots());
+			model.addAttribute("searchExhausted", searchResult.isExhausted());
 			logger.trace("User with username " + username + " loaded /event/create-schedule page");
+		} catch (UsersNotFoundException e) {
+			redirectAttributes.addFlashAttribute("message",
+					"Could not find invited users: " + String.join(", ", e.getUsernames()));
+			return "redirect:/event/create";
 		} catch (UserNotFoundException e) {
 			redirectAttributes.addFlashAttribute("message", "Please log in");
 			return "redirect:/";
+		} catch (InvalidEventDetailsException e) {
+			redirectAttributes.addFlashAttribute("message", "Invalid event details");
+			return "redirect:/event/create";
 		}
 		return "create-event-schedule";
 	}
@@ -99,9 +143,10 @@ public class EventController {
 
 		// if event successfully created, navigate to that event's details page
 		// otherwise go to create event page with whatever error
-		Event createdEvent = createEventFromPostRequestParams(req);
+		Event createdEvent;
 		try {
-			eventService.createEvent(username, getInvitedUsersFromPostRequestParams(req), createdEvent);
+			createdEvent = createEventFromPostRequestParams(req);
+			eventService.createEvent(username, getInvitedUsernamesFromPostRequestParams(req), createdEvent);
 			logger.info("User " + username + " created new event with title " + createdEvent.getTitle());
 			logger.trace("New event created with parameters (title=" + createdEvent.getTitle() + ", description="
 					+ createdEvent.getDescription() + ", location=" + createdEvent.getLocation() + ", startTime="
@@ -113,28 +158,67 @@ public class EventController {
 		} catch (EventClashException e) {
 			redirectAttributes.addFlashAttribute("message", "Event clashes with other events in calendar");
 			return "redirect:/event/create";
+		} catch (RoomUnavailableException e) {
+			redirectAttributes.addFlashAttribute("message", "Room is already booked at this time");
+			return "redirect:/event/create";
+		} catch (InvalidEventDetailsException e) {
+			redirectAttributes.addFlashAttribute("message", "Invalid event details");
+			return "redirect:/event/create";
 		}
 		return "redirect:/event/" + createdEvent.getId();
 	}
 
-	private Event createEventFromPostRequestParams(HttpServletRequest req) {
+	private Event createEventFromPostRequestParams(HttpServletRequest req) throws InvalidEventDetailsException {
 		String eventTitle = req.getParameter("title");
 		String eventDescription = req.getParameter("description");
 		String eventLocation = req.getParameter("location");
-		LocalDateTime eventStartTime = LocalDateTime.parse(req.getParameter("startTime"));
-		int eventDurationMinutes = Integer.parseInt(req.getParameter("durationMinutes"));
-		return new Event(eventTitle, eventDescription, eventLocation, eventStartTime, eventDurationMinutes);
+		// the parameters are sent by the form but may be changed by the client, so
+		// any that cannot be read send the user back to the form
+		try {
+			LocalDateTime eventStartTime = LocalDateTime.parse(requireParameter(req, "startTime"));
+			int eventDurationMinutes = Integer.parseInt(requireParameter(req, "durationMinutes"));
+			if (eventDurationMinutes <= 0) {
+				throw new InvalidEventDetailsException();
+			}
+			Event event = new Event(eventTitle, eventDescription, eventLocation, eventStartTime, eventDurationMinutes);
+			String recurrenceFrequency = req.getParameter("recurrenceFrequency");
+			if (recurrenceFrequency != null && !recurrenceFrequency.isBlank()) {
+				String recurrenceCount = req.getParameter("recurrenceCount");
+				String recurrenceUntil = req.getParameter("recurrenceUntil");
+				Integer count = recurrenceCount == null || recurrenceCount.isBlank() ? null
+						: Integer.valueOf(recurrenceCount);
+				if (count != null && count < 1) {
+					throw new InvalidEventDetailsException();
+				}
+				event.setRecurrence(new Recurrence(RecurrenceFrequency.valueOf(recurrenceFrequency), count,
+						recurrenceUntil == null || recurrenceUntil.isBlank() ? null
+								: LocalDateTime.parse(recurrenceUntil)));
+			}
+			return event;
+		} catch (DateTimeParseException | IllegalArgumentException e) {
+			// NumberFormatException and unknown frequencies are both
+			// IllegalArgumentExceptions
+			throw new InvalidEventDetailsException();
+		}
 	}
 
-	private List<User> getInvitedUsersFromPostRequestParams(HttpServletRequest req) throws UserNotFoundException {
-		List<User> invitedUsers = new ArrayList<>();
-		String[] invitedContacts = req.getParameterValues("selectedContacts");
-		if (invitedContacts != null) {
-			for (String contact : invitedContacts) {
-				invitedUsers.add(userDetailsService.getUserInfo(contact));
-			}
+	private String requireParameter(HttpServletRequest req, String name) throws InvalidEventDetailsException {
+		String value = req.getParameter(name);
+		if (value == null || value.isBlank()) {
+			throw new InvalidEventDetailsException();
 		}
-		return invitedUsers;
+		return value;
+	}
+
+	private List<User> getInvitedUsersFromPostRequestParams(HttpServletRequest req) throws UsersNotFoundException {
+		// the whole selection is looked up in one query
+		return userDetailsService.findUsers(getInvitedUsernamesFromPostRequestParams(req));
+	}
+
+	private List<String> getInvitedUsernamesFromPostRequestParams(HttpServletRequest req) {
+		String[] invitedContacts = req.getParameterValues("selectedContacts");
+		// invitees are looked up by the event service, so no users are loaded here
+		return invitedContacts == null ? List.of() : List.of(invitedContacts);
 	}
 
 	@GetMapping("/event/{id}")
@@ -142,33 +226,33 @@ public class EventController {
 			RedirectAttributes redirectAttributes) {
 		try {
 			Event event = eventService.getEventFromId(id);
-			String username = (String) session.getAttribute("current_user");
-			if (username == null) {
+			// only the user's id is needed, so it is taken from the session rather
+			// than loading the user
+			UserPrincipal principal = (UserPrincipal) session.getAttribute("current_principal");
+			if (principal == null) {
 				// if user navigates manually to /event/accept without logging in
 				redirectAttributes.addFlashAttribute("message", "Please log in");
 				return "redirect:/";
 			}
-			User user = userDetailsService.getUserInfo(username);
-			if (!(event.getOrganiser().getId() == user.getId()) && !event.getAttendees().contains(user)
-					&& !event.getInvitees().contains(user)) {
+			if (!eventService.isUserInvolved(event, principal.getId())) {
 				// user not involved with this event so prevent them from viewing it
-				logger.error("User " + username + " attempted to access event without invitation");
+				logger.error("User " + principal.getUsername() + " attempted to access event without invitation");
 				redirectAttributes.addFlashAttribute("message", "No access to this event");
 				return "redirect:/home";
 			}
 
 			// TODO: additional controls for organiser (modify event, remove invites)
-			if (event.getOrganiser().getId() == user.getId()) {
-
+			if (event.getOrganiser().getId() == principal.getId() && event.isRecurring()) {
+				// the organiser may cancel any of the next few occurrences
+				model.addAttribute("upcomingOccurrences",
+						event.getOccurrencesFrom(LocalDateTime.now(), UPCOMING_OCCURRENCES));
 			}
 			model.addAttribute("event", event);
-			logger.trace("User with username " + username + " loaded /event page for event with id " + id);
+			logger.trace("User with username " + principal.getUsername() + " loaded /event page for event with id "
+					+ id);
 		} catch (EventNotFoundException e) {
 			redirectAttributes.addFlashAttribute("message", "Could not find event");
 			return "redirect:/home";
-		} catch (UserNotFoundException e) {
-			redirectAttributes.addFlashAttribute("message", "Please log in");
-			return "redirect:/";
 		}
 		return "event";
 	}
@@ -225,5 +309,32 @@ public class EventController {
 		return "redirect:/calendar";
 	}
 
+	@PostMapping("/event/cancel-occurrence/{id}")
+	public String cancelEventOccurrence(@PathVariable String id, HttpServletRequest req, HttpSession session,
+			RedirectAttributes redirectAttributes) {
+		String username = (String) session.getAttribute("current_user");
+		if (username == null) {
+			// if user navigates manually to /event/cancel-occurrence without logging in
+			redirectAttributes.addFlashAttribute("message", "Please log in");
+			return "redirect:/";
+		}
+		try {
+			LocalDateTime occurrenceStart = LocalDateTime.parse(requireParameter(req, "occurrenceStart"));
+			eventService.cancelOccurrence(username, id, occurrenceStart);
+			logger.info("User with username " + username + " cancelled occurrence at " + occurrenceStart
+					+ " of event with id " + id);
+			redirectAttributes.addFlashAttribute("message", "Occurrence cancelled");
+		} catch (EventNotFoundException e) {
+			redirectAttributes.addFlashAttribute("message", "Could not find event");
+			return "redirect:/home";
+		} catch (UserNotOrganiserException e) {
+			logger.error("User " + username + " attempted to cancel an occurrence of an event they do not organise");
+			redirectAttributes.addFlashAttribute("message", "Only the organiser can cancel an occurrence");
+		} catch (OccurrenceNotFoundException | InvalidEventDetailsException | DateTimeParseException e) {
+			redirectAttributes.addFlashAttribute("message", "Could not find occurrence to cancel");
+		}
+		return "redirect:/event/" + id;
+	}
+
 	// TODO: cancel event invite!
 }
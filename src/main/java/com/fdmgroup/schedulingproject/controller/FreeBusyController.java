@@ -0,0 +1,120 @@
+package com.fdmgroup.schedulingproject.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fdmgroup.schedulingproject.dto.FreeBusyRequest;
+import com.fdmgroup.schedulingproject.model.Timeslot;
+import com.fdmgroup.schedulingproject.service.EventService;
+
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Controller for the bulk free/busy endpoint. The FreeBusyController class
+ * reports the merged busy intervals of several users over a time range as
+ * JSON, writing each user as soon as the database has returned their busy
+ * time. Usernames that belong to no user are listed apart, so they cannot be
+ * mistaken for users who are free for the whole range.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+@RestController
+public class FreeBusyController {
+
+	public static final int MAX_USERNAMES = 500;
+
+	@Autowired
+	private EventService eventService;
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private Logger logger = LogManager.getLogger(FreeBusyController.class);
+
+	// writes {"start":..., "end":..., "users":[{"username":..., "busy":[{"start":..., "end":...}]}],
+	// "unknown":[...]} one user at a time
+	@PostMapping(value = "/api/freebusy", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public void getFreeBusy(@RequestBody FreeBusyRequest request, HttpSession session, HttpServletResponse response)
+			throws IOException {
+		String username = (String) session.getAttribute("current_user");
+		if (username == null) {
+			response.sendError(HttpStatus.UNAUTHORIZED.value(), "Please log in");
+			return;
+		}
+		LocalDateTime start = request.getStart();
+		LocalDateTime end = request.getEnd();
+		List<String> usernames = request.getUsernames() == null ? List.of()
+				: request.getUsernames().stream().distinct().toList();
+		if (start == null || end == null || !start.isBefore(end)) {
+			response.sendError(HttpStatus.BAD_REQUEST.value(), "start must be before end");
+			return;
+		}
+		if (usernames.isEmpty() || usernames.size() > MAX_USERNAMES) {
+			response.sendError(HttpStatus.BAD_REQUEST.value(),
+					"Between 1 and " + MAX_USERNAMES + " usernames must be given");
+			return;
+		}
+
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setCharacterEncoding("UTF-8");
+		try (JsonGenerator json = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+			json.writeStartObject();
+			json.writeStringField("start", start.toString());
+			json.writeStringField("end", end.toString());
+			json.writeArrayFieldStart("users");
+			// each user is written and sent as soon as their rows have been read
+			// from the database, rather than after every user has been loaded
+			List<String> unknownUsernames = eventService.streamBusyIntervals(usernames, start, end,
+					(busyUsername, busyIntervals) -> {
+						try {
+							writeBusyIntervals(json, busyUsername, busyIntervals);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					});
+			json.writeEndArray();
+			// usernames of no user, which are not reported as free
+			json.writeArrayFieldStart("unknown");
+			for (String unknownUsername : unknownUsernames) {
+				json.writeString(unknownUsername);
+			}
+			json.writeEndArray();
+			json.writeEndObject();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		logger.trace("User with username " + username + " requested free/busy for " + usernames.size()
+				+ " users between " + start + " and " + end);
+	}
+
+	// writes one user and sends everything written so far to the client
+	private void writeBusyIntervals(JsonGenerator json, String username, List<Timeslot> busyIntervals)
+			throws IOException {
+		json.writeStartObject();
+		json.writeStringField("username", username);
+		json.writeArrayFieldStart("busy");
+		for (Timeslot busy : busyIntervals) {
+			json.writeStartObject();
+			json.writeStringField("start", busy.getStart().toString());
+			json.writeStringField("end", busy.getEnd().toString());
+			json.writeEndObject();
+		}
+		json.writeEndArray();
+		json.writeEndObject();
+		json.flush();
+	}
+}
@@ -1,5 +1,7 @@
 package com.fdmgroup.schedulingproject.controller;
 
+import java.time.LocalDateTime;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,10 +12,16 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.fdmgroup.schedulingproject.dto.EventSummary;
+import com.fdmgroup.schedulingproject.dto.UserHomeSummary;
 import com.fdmgroup.schedulingproject.exception.PasswordDoesNotMatchException;
 import com.fdmgroup.schedulingproject.exception.UserAlreadyExistsException;
 import com.fdmgroup.schedulingproject.exception.UserNotFoundException;
-import com.fdmgroup.schedulingproject.model.User;
+import com.fdmgroup.schedulingproject.model.EventOccurrence;
+import com.fdmgroup.schedulingproject.model.KeysetPage;
+import com.fdmgroup.schedulingproject.model.PageCursor;
+import com.fdmgroup.schedulingproject.model.UserPrincipal;
+import com.fdmgroup.schedulingproject.service.EventService;
 import com.fdmgroup.schedulingproject.service.UserDetailsService;
 
 import jakarta.servlet.http.HttpSession;
@@ -21,8 +29,12 @@ import jakarta.servlet.http.HttpSession;
 @Controller
 public class UserController {
 
+	public static final int CALENDAR_PAGE_SIZE = 20;
+
 	@Autowired
 	private UserDetailsService userDetailsService;
+	@Autowired
+	private EventService eventService;
 
 	private Logger logger = LogManager.getLogger(UserController.class);
 
@@ -39,8 +51,10 @@ public class UserController {
 	public String verifyUser(@RequestParam String username, @RequestParam String password, HttpSession session,
 			RedirectAttributes redirectAttributes) {
 		try {
-			userDetailsService.verifyCredentials(username, password);
+			UserPrincipal principal = userDetailsService.verifyCredentials(username, password);
 			session.setAttribute("current_user", username);
+			// identity kept for pages that do not need to load the user
+			session.setAttribute("current_principal", principal);
 			logger.info("User with username " + username + " logged in");
 			return "redirect:/home";
 		} catch (UserNotFoundException | PasswordDoesNotMatchException e) {
@@ -74,10 +88,10 @@ public class UserController {
 			return "redirect:/";
 		}
 		try {
-			User user = userDetailsService.getUserInfo(username);
-			model.addAttribute("user", user.getDisplayName());
-			model.addAttribute("pending", user.getReceivedContactInvites().size());
-			model.addAttribute("eventInvites", user.getFutureEventInvites().size());
+			UserHomeSummary summary = userDetailsService.getHomeSummary(username);
+			model.addAttribute("user", summary.getDisplayName());
+			model.addAttribute("pending", summary.getPendingContactInvites());
+			model.addAttribute("eventInvites", summary.getPendingEventInvites());
 			logger.trace("User with username " + username + " loaded /home page");
 		} catch (UserNotFoundException e) {
 			// invalid session username
@@ -99,24 +113,17 @@ public class UserController {
 
 	@GetMapping("/profile")
 	public String userProfile(HttpSession session, Model model, RedirectAttributes redirectAttributes) {
-		String username = (String) session.getAttribute("current_user");
-		if (username == null) {
+		// the profile only shows the user's identity, so it is read from the
+		// session without loading the user, and holds no password
+		UserPrincipal principal = (UserPrincipal) session.getAttribute("current_principal");
+		if (principal == null) {
 			// if user navigates manually to /profile without logging in
 			redirectAttributes.addFlashAttribute("message", "Please log in");
 			return "redirect:/";
 		}
-		try {
-			// clone to prevent modifying user object in db
-			User userCopy = (User) userDetailsService.getUserInfo(username).clone();
-			// remove password for security
-			userCopy.setPassword(null);
-			model.addAttribute("user", userCopy);
-			logger.trace("User with username " + username + " loaded /profile page");
-			return "profile";
-		} catch (UserNotFoundException e) {
-			redirectAttributes.addFlashAttribute("message", "Please log in");
-			return "redirect:/";
-		}
+		model.addAttribute("user", principal);
+		logger.trace("User with username " + principal.getUsername() + " loaded /profile page");
+		return "profile";
 	}
 
 	@PostMapping("/profile/update-display-name")
@@ -130,7 +137,7 @@ public class UserController {
 			return "redirect:/";
 		}
 		try {
-			userDetailsService.updateDisplayName(username, displayName);
+			session.setAttribute("current_principal", userDetailsService.updateDisplayName(username, displayName));
 			logger.info("User with username " + username + " updated displayName");
 			logger.debug("User with username " + username + " changed displayName to " + displayName);
 		} catch (UserNotFoundException e) {
@@ -173,7 +180,10 @@ public class UserController {
 	}
 
 	@GetMapping("/calendar")
-	public String userCalendar(HttpSession session, Model model, RedirectAttributes redirectAttributes) {
+	public String userCalendar(@RequestParam(required = false) String after,
+			@RequestParam(required = false) String before, @RequestParam(required = false) String invitesAfter,
+			@RequestParam(required = false) String invitesBefore, HttpSession session, Model model,
+			RedirectAttributes redirectAttributes) {
 		String username = (String) session.getAttribute("current_user");
 		if (username == null) {
 			// if user navigates manually to /calendar without logging in
@@ -181,10 +191,38 @@ public class UserController {
 			return "redirect:/";
 		}
 		try {
-			User user = userDetailsService.getUserInfo(username);
-			model.addAttribute("calendar", user.getFutureCalendar());
-			model.addAttribute("calendarInvites", user.getFutureEventInvites());
+			// each list is read a page at a time from a cursor, so a long calendar is
+			// never read or counted through to reach a later page
+			PageCursor calendarBefore = PageCursor.parse(before);
+			PageCursor calendarAfter = PageCursor.parse(after);
+			KeysetPage<EventOccurrence> calendarPage;
+			if (calendarBefore != null) {
+				calendarPage = eventService.getCalendarPageBefore(username, calendarBefore, CALENDAR_PAGE_SIZE);
+			} else {
+				calendarPage = eventService.getCalendarPageAfter(username, calendarAfter == null
+						? new PageCursor(LocalDateTime.now().withSecond(0).withNano(0), 0) : calendarAfter,
+						CALENDAR_PAGE_SIZE);
+			}
+			PageCursor inviteCursor = PageCursor.parse(invitesBefore);
+			KeysetPage<EventSummary> invitePage = inviteCursor != null
+					? eventService.getEventInvitesBefore(username, inviteCursor, CALENDAR_PAGE_SIZE)
+					: eventService.getEventInvitesAfter(username, PageCursor.parse(invitesAfter), CALENDAR_PAGE_SIZE);
+			model.addAttribute("calendar", calendarPage.getItems());
+			model.addAttribute("calendarPrevious", calendarPage.getPrevious());
+			model.addAttribute("calendarNext", calendarPage.getNext());
+			model.addAttribute("calendarInvites", invitePage.getItems());
+			model.addAttribute("invitesPrevious", invitePage.getPrevious());
+			model.addAttribute("invitesNext", invitePage.getNext());
+			// so that paging through one list keeps the page shown of the other
+			model.addAttribute("after", after);
+			model.addAttribute("before", before);
+			model.addAttribute("invitesAfter", invitesAfter);
+			model.addAttribute("invitesBefore", invitesBefore);
 			logger.trace("User with username " + username + " loaded /calendar page");
+		} catch (IllegalArgumentException e) {
+			// cursor in the link was altered
+			redirectAttributes.addFlashAttribute("message", "Could not find page");
+			return "redirect:/calendar";
 		} catch (UserNotFoundException e) {
 			redirectAttributes.addFlashAttribute("message", "Please log in");
 			return "redirect:/";
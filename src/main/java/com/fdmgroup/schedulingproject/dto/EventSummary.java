@@ -0,0 +1,31 @@
+package com.fdmgroup.schedulingproject.dto;
+
+import java.time.LocalDateTime;
+
+import com.fdmgroup.schedulingproject.model.Recurrence;
+
+/**
+ * Projection of the columns of an event shown in a calendar or invite list.
+ * Only the event row is read, so none of its organiser, room, attendees or
+ * invitees are loaded. The recurrence rule is included so that a recurring
+ * event can be expanded over the range being shown.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public interface EventSummary {
+
+	Long getId();
+
+	String getTitle();
+
+	LocalDateTime getStartTime();
+
+	int getDurationMinutes();
+
+	LocalDateTime getEndTime();
+
+	String getLocation();
+
+	Recurrence getRecurrence();
+}
@@ -0,0 +1,60 @@
+package com.fdmgroup.schedulingproject.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request body for the bulk free/busy endpoint. The FreeBusyRequest class holds
+ * the usernames to look up and the time range to report on.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public class FreeBusyRequest {
+
+	private List<String> usernames = new ArrayList<>();
+	private LocalDateTime start;
+	private LocalDateTime end;
+
+	public FreeBusyRequest() {
+		super();
+	}
+
+	/**
+	 * Creates a new FreeBusyRequest instance for the given users and range.
+	 *
+	 * @param usernames the usernames of the users to report on
+	 * @param start     the start of the range
+	 * @param end       the end of the range
+	 */
+	public FreeBusyRequest(List<String> usernames, LocalDateTime start, LocalDateTime end) {
+		this.usernames = usernames;
+		this.start = start;
+		this.end = end;
+	}
+
+	public List<String> getUsernames() {
+		return usernames;
+	}
+
+	public void setUsernames(List<String> usernames) {
+		this.usernames = usernames;
+	}
+
+	public LocalDateTime getStart() {
+		return start;
+	}
+
+	public void setStart(LocalDateTime start) {
+		this.start = start;
+	}
+
+	public LocalDateTime getEnd() {
+		return end;
+	}
+
+	public void setEnd(LocalDateTime end) {
+		this.end = end;
+	}
+}
@@ -0,0 +1,19 @@
+package com.fdmgroup.schedulingproject.dto;
+
+/**
+ * Projection of the events that take up part of an interval, counted by kind
+ * rather than loaded. A one-off event counted here overlaps the interval, so
+ * it clashes with anything booked in it; a recurring event counted here only
+ * has a series covering part of the interval, so its occurrences still have to
+ * be compared. An event may be counted more than once when several of the
+ * users checked share it.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public interface SlotOccupancy {
+
+	long getOneOffEvents();
+
+	long getSeries();
+}
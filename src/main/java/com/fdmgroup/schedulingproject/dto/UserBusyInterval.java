@@ -0,0 +1,20 @@
+package com.fdmgroup.schedulingproject.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a single busy interval belonging to a user, as returned by the
+ * batched free/busy query. Only the columns needed to build a free/busy view
+ * are selected, so no Event or User entities are loaded.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public interface UserBusyInterval {
+
+	String getUsername();
+
+	LocalDateTime getStartTime();
+
+	LocalDateTime getEndTime();
+}
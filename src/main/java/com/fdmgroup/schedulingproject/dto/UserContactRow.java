@@ -0,0 +1,27 @@
+package com.fdmgroup.schedulingproject.dto;
+
+/**
+ * Projection of a user listed on another user's contacts page, together with
+ * how the two users are related. The contacts and both lists of contact
+ * invites are read in one query, with a {@link Relation#SELF} row for the
+ * user whose page it is so that an unknown username can be told apart from a
+ * user with no contacts.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public interface UserContactRow {
+
+	/**
+	 * How the listed user is related to the user whose contacts are being read.
+	 */
+	enum Relation {
+		SELF, CONTACT, SENT_INVITE, RECEIVED_INVITE
+	}
+
+	Relation getRelation();
+
+	String getUsername();
+
+	String getDisplayName();
+}
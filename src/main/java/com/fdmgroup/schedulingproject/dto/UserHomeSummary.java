@@ -0,0 +1,18 @@
+package com.fdmgroup.schedulingproject.dto;
+
+/**
+ * The figures shown on a user's home page: their display name and the number of
+ * contact invites and future event invites waiting for them. The counts are
+ * kept on the user, so no invites are loaded.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public interface UserHomeSummary {
+
+	String getDisplayName();
+
+	int getPendingContactInvites();
+
+	int getPendingEventInvites();
+}
@@ -0,0 +1,18 @@
+package com.fdmgroup.schedulingproject.dto;
+
+import com.fdmgroup.schedulingproject.model.Event;
+
+/**
+ * Projection of a recurring event that makes a user busy, as returned by the
+ * batched free/busy query. The occurrences of recurring events are not stored,
+ * so the event itself is loaded and expanded over the requested range.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public interface UserRecurringEvent {
+
+	String getUsername();
+
+	Event getEvent();
+}
@@ -0,0 +1,6 @@
+package com.fdmgroup.schedulingproject.exception;
+
+public class InvalidEventDetailsException extends RuntimeException {
+
+	private static final long serialVersionUID = 5186049372211846613L;
+}
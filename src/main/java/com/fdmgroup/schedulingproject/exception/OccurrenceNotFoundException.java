@@ -0,0 +1,6 @@
+package com.fdmgroup.schedulingproject.exception;
+
+public class OccurrenceNotFoundException extends RuntimeException {
+
+	private static final long serialVersionUID = 8630471925541087726L;
+}
@@ -0,0 +1,6 @@
+package com.fdmgroup.schedulingproject.exception;
+
+public class RoomAlreadyExistsException extends RuntimeException {
+
+	private static final long serialVersionUID = -1958264630175542081L;
+}
@@ -0,0 +1,6 @@
+package com.fdmgroup.schedulingproject.exception;
+
+public class RoomUnavailableException extends RuntimeException {
+
+	private static final long serialVersionUID = 2873540316649236710L;
+}
@@ -0,0 +1,6 @@
+package com.fdmgroup.schedulingproject.exception;
+
+public class UserNotOrganiserException extends RuntimeException {
+
+	private static final long serialVersionUID = -3402957161840213378L;
+}
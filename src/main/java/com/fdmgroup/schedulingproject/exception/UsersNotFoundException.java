@@ -0,0 +1,19 @@
+package com.fdmgroup.schedulingproject.exception;
+
+import java.util.List;
+
+public class UsersNotFoundException extends UserNotFoundException {
+
+	private static final long serialVersionUID = 3907526420981735214L;
+
+	private final List<String> usernames;
+
+	public UsersNotFoundException(List<String> usernames) {
+		this.usernames = List.copyOf(usernames);
+	}
+
+	public List<String> getUsernames() {
+		return usernames;
+	}
+
+}
@@ -0,0 +1,157 @@
+package com.fdmgroup.schedulingproject.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact free/busy representation of a single owner's busy intervals. The
+ * AvailabilityBitmap class holds one {@code long[]} per day with one bit per
+ * bucket of {@code bucketMinutes} (96 bits per day at 15 minutes), where a set
+ * bit means the owner is busy for at least part of that bucket.
+ *
+ * Days are built lazily from the owner's {@link BusyIntervalIndex} and are
+ * dropped individually when an event touching them is added or removed, so
+ * only the affected days are rebuilt. Recurring events are expanded one day at
+ * a time as each day is built, and adding or removing one drops every day.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public class AvailabilityBitmap {
+
+	public static final int MINUTES_PER_DAY = 24 * 60;
+
+	private final BusyIntervalIndex index;
+	private final int bucketMinutes;
+	private final int bucketsPerDay;
+	private final Map<Long, long[]> days = new HashMap<>();
+
+	/**
+	 * Creates a new AvailabilityBitmap backed by the given index.
+	 *
+	 * @param index         the busy interval index of the owner
+	 * @param bucketMinutes the number of minutes represented by each bit
+	 * @throws IllegalArgumentException if a day cannot be split into whole
+	 *                                  buckets of the given size
+	 */
+	public AvailabilityBitmap(BusyIntervalIndex index, int bucketMinutes) {
+		if (!supports(bucketMinutes)) {
+			throw new IllegalArgumentException("Bucket size must divide a day: " + bucketMinutes);
+		}
+		this.index = index;
+		this.bucketMinutes = bucketMinutes;
+		this.bucketsPerDay = MINUTES_PER_DAY / bucketMinutes;
+	}
+
+	/**
+	 * Checks if a day can be split into whole buckets of the given size.
+	 *
+	 * @param bucketMinutes the number of minutes represented by each bit
+	 * @return {@code true} if bitmaps can be built at this size, {@code false}
+	 *         otherwise
+	 */
+	public static boolean supports(int bucketMinutes) {
+		return bucketMinutes > 0 && MINUTES_PER_DAY % bucketMinutes == 0;
+	}
+
+	public int getBucketMinutes() {
+		return bucketMinutes;
+	}
+
+	public int getBucketsPerDay() {
+		return bucketsPerDay;
+	}
+
+	/**
+	 * Checks if this bitmap reflects the given index at the given bucket size.
+	 *
+	 * @param index         the busy interval index to compare
+	 * @param bucketMinutes the bucket size to compare
+	 * @return {@code true} if the bitmap can be reused, {@code false} otherwise
+	 */
+	public boolean isBuiltFrom(BusyIntervalIndex index, int bucketMinutes) {
+		return this.index == index && this.bucketMinutes == bucketMinutes;
+	}
+
+	/**
+	 * Retrieves the busy bits for a day, building them if necessary. The returned
+	 * array must not be modified.
+	 *
+	 * @param epochDay the day as a number of days since 1970-01-01
+	 * @return the busy bits for the day, one per bucket
+	 */
+	public long[] getDay(long epochDay) {
+		return days.computeIfAbsent(epochDay, this::buildDay);
+	}
+
+	/**
+	 * Drops the cached days touched by an event so that they are rebuilt from the
+	 * index on next use.
+	 *
+	 * @param event the event that was added or removed
+	 */
+	public void invalidate(Event event) {
+		if (event.isRecurring()) {
+			days.clear();
+			return;
+		}
+		long start = event.getStartMinute();
+		long end = event.getEndMinute();
+		long lastDay = Math.floorDiv(Math.max(start, end - 1), MINUTES_PER_DAY);
+		for (long day = Math.floorDiv(start, MINUTES_PER_DAY); day <= lastDay; day++) {
+			days.remove(day);
+		}
+	}
+
+	/**
+	 * Retrieves the first bucket in which the owner is busy.
+	 *
+	 * @return the bucket number since the epoch, or {@link Long#MAX_VALUE} if the
+	 *         owner is never busy
+	 */
+	public long getFirstBusyBucket() {
+		long earliest = index.getEarliestStartMinute();
+		return earliest == Long.MAX_VALUE ? Long.MAX_VALUE : Math.floorDiv(earliest, bucketMinutes);
+	}
+
+	/**
+	 * Retrieves the bucket after the last one in which the owner is busy.
+	 *
+	 * @return the bucket number since the epoch, or {@link Long#MIN_VALUE} if the
+	 *         owner is never busy
+	 */
+	public long getEndBusyBucket() {
+		long latest = index.getLatestEndMinute();
+		return latest == Long.MIN_VALUE ? Long.MIN_VALUE : -Math.floorDiv(-latest, bucketMinutes);
+	}
+
+	private long[] buildDay(long epochDay) {
+		long[] words = new long[(bucketsPerDay + 63) >>> 6];
+		long dayStart = epochDay * MINUTES_PER_DAY;
+		long dayEnd = dayStart + MINUTES_PER_DAY;
+		BusyIntervalIndex day = index.expand(dayStart, dayEnd);
+		// walk back from the last interval starting before the end of the day until
+		// no earlier interval can reach into it
+		for (int i = day.lastStartBefore(dayEnd); i >= 0 && day.getMaxEndMinute(i) > dayStart; i--) {
+			if (day.getEndMinute(i) <= dayStart) {
+				continue;
+			}
+			long start = Math.max(day.getStartMinute(i), dayStart) - dayStart;
+			long end = Math.min(day.getEndMinute(i), dayEnd) - dayStart;
+			// mark every bucket the interval touches, even partially
+			setBits(words, (int) (start / bucketMinutes), (int) ((end + bucketMinutes - 1) / bucketMinutes));
+		}
+		return words;
+	}
+
+	private static void setBits(long[] words, int from, int to) {
+		for (int i = from; i < to;) {
+			int word = i >>> 6;
+			int bit = i & 63;
+			int count = Math.min(64 - bit, to - i);
+			long mask = count == 64 ? -1L : ((1L << count) - 1) << bit;
+			words[word] |= mask;
+			i += count;
+		}
+	}
+}
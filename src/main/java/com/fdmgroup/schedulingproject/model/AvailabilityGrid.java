@@ -0,0 +1,228 @@
+package com.fdmgroup.schedulingproject.model;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Combined availability of a group of participants, built from their
+ * {@link AvailabilityBitmap}s. The AvailabilityGrid class ORs the busy bits of
+ * every participant a day at a time, so a set bit means somebody is busy, and
+ * searches for runs of clear bits a 64-bit word at a time.
+ *
+ * Candidate slots are whole buckets, so searches must start on a bucket
+ * boundary and step one bucket at a time. A bucket counts as busy if any
+ * participant is busy for any part of it.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public class AvailabilityGrid implements AvailabilityView {
+
+	private final List<AvailabilityBitmap> bitmaps;
+	private final int bucketMinutes;
+	private final int bucketsPerDay;
+	private final long[] emptyDay;
+	private final Map<Long, long[]> combinedDays = new HashMap<>();
+	// every bucket outside [firstBusyBucket, endBusyBucket) is free
+	private final long firstBusyBucket;
+	private final long endBusyBucket;
+
+	/**
+	 * Creates a new AvailabilityGrid from the bitmaps of each participant.
+	 *
+	 * @param bitmaps the availability bitmaps of each participant, all with the
+	 *                same bucket size
+	 * @throws IllegalArgumentException if no bitmaps are given or their bucket
+	 *                                  sizes differ
+	 */
+	public AvailabilityGrid(Collection<AvailabilityBitmap> bitmaps) {
+		if (bitmaps.isEmpty()) {
+			throw new IllegalArgumentException("At least one bitmap is required");
+		}
+		this.bitmaps = List.copyOf(bitmaps);
+		this.bucketMinutes = this.bitmaps.get(0).getBucketMinutes();
+		this.bucketsPerDay = this.bitmaps.get(0).getBucketsPerDay();
+		this.emptyDay = new long[(bucketsPerDay + 63) >>> 6];
+		long first = Long.MAX_VALUE;
+		long end = Long.MIN_VALUE;
+		for (AvailabilityBitmap bitmap : this.bitmaps) {
+			if (bitmap.getBucketMinutes() != bucketMinutes) {
+				throw new IllegalArgumentException("Bitmaps must share a bucket size");
+			}
+			first = Math.min(first, bitmap.getFirstBusyBucket());
+			end = Math.max(end, bitmap.getEndBusyBucket());
+		}
+		this.firstBusyBucket = first;
+		this.endBusyBucket = end;
+	}
+
+	/**
+	 * Checks if a search starting at the given minute with the given step can be
+	 * answered by bitmaps, i.e. the step is a whole number of buckets that divides
+	 * a day and the start lies on a bucket boundary.
+	 *
+	 * @param fromMinute  the first candidate start in epoch minutes
+	 * @param stepMinutes the interval between candidate starts in minutes
+	 * @return {@code true} if the search can use bitmaps, {@code false} otherwise
+	 */
+	public static boolean supports(long fromMinute, int stepMinutes) {
+		return AvailabilityBitmap.supports(stepMinutes) && Math.floorMod(fromMinute, stepMinutes) == 0;
+	}
+
+	@Override
+	public boolean isFree(long startMinute, long endMinute) {
+		long startBucket = Math.floorDiv(startMinute, bucketMinutes);
+		long endBucket = -Math.floorDiv(-endMinute, bucketMinutes);
+		return nextBusyBucket(startBucket) >= endBucket;
+	}
+
+	@Override
+	public long findFreeSlotForward(long fromMinute, int durationMinutes, int stepMinutes) {
+		checkAligned(fromMinute, stepMinutes);
+		long length = bucketsFor(durationMinutes);
+		long candidate = fromMinute / bucketMinutes;
+		while (true) {
+			long busy = nextBusyBucket(candidate);
+			if (busy >= candidate + length) {
+				return candidate * bucketMinutes;
+			}
+			candidate = nextFreeBucket(busy);
+		}
+	}
+
+	@Override
+	public long findFreeSlotBackward(long fromMinute, int durationMinutes, int stepMinutes) {
+		checkAligned(fromMinute, stepMinutes);
+		long length = bucketsFor(durationMinutes);
+		long candidate = fromMinute / bucketMinutes;
+		while (true) {
+			long busy = previousBusyBucket(candidate + length - 1);
+			if (busy < candidate) {
+				return candidate * bucketMinutes;
+			}
+			candidate = previousFreeBucket(busy) - length + 1;
+		}
+	}
+
+	private void checkAligned(long fromMinute, int stepMinutes) {
+		if (stepMinutes != bucketMinutes || Math.floorMod(fromMinute, bucketMinutes) != 0) {
+			throw new IllegalArgumentException("Search must start on a bucket boundary and step one bucket");
+		}
+	}
+
+	private long bucketsFor(int durationMinutes) {
+		return Math.max(1, (durationMinutes + bucketMinutes - 1) / bucketMinutes);
+	}
+
+	private long[] combinedDay(long epochDay) {
+		long dayStartBucket = epochDay * bucketsPerDay;
+		if (dayStartBucket + bucketsPerDay <= firstBusyBucket || dayStartBucket >= endBusyBucket) {
+			return emptyDay;
+		}
+		return combinedDays.computeIfAbsent(epochDay, day -> {
+			long[] combined = new long[emptyDay.length];
+			for (AvailabilityBitmap bitmap : bitmaps) {
+				long[] words = bitmap.getDay(day);
+				for (int i = 0; i < combined.length; i++) {
+					combined[i] |= words[i];
+				}
+			}
+			return combined;
+		});
+	}
+
+	private long nextBusyBucket(long bucket) {
+		if (bucket >= endBusyBucket) {
+			return Long.MAX_VALUE;
+		}
+		bucket = Math.max(bucket, firstBusyBucket);
+		long day = Math.floorDiv(bucket, bucketsPerDay);
+		int position = (int) (bucket - day * bucketsPerDay);
+		while (day * bucketsPerDay < endBusyBucket) {
+			long[] words = combinedDay(day);
+			long mask = -1L << (position & 63);
+			for (int word = position >>> 6; word < words.length; word++) {
+				long bits = words[word] & mask;
+				if (bits != 0) {
+					return day * bucketsPerDay + (word << 6) + Long.numberOfTrailingZeros(bits);
+				}
+				mask = -1L;
+			}
+			day++;
+			position = 0;
+		}
+		return Long.MAX_VALUE;
+	}
+
+	private long nextFreeBucket(long bucket) {
+		if (bucket < firstBusyBucket || bucket >= endBusyBucket) {
+			return bucket;
+		}
+		long day = Math.floorDiv(bucket, bucketsPerDay);
+		int position = (int) (bucket - day * bucketsPerDay);
+		while (day * bucketsPerDay < endBusyBucket) {
+			long[] words = combinedDay(day);
+			long mask = -1L << (position & 63);
+			for (int word = position >>> 6; word < words.length; word++) {
+				long bits = ~words[word] & mask;
+				if (bits != 0) {
+					int found = (word << 6) + Long.numberOfTrailingZeros(bits);
+					if (found < bucketsPerDay) {
+						return day * bucketsPerDay + found;
+					}
+				}
+				mask = -1L;
+			}
+			day++;
+			position = 0;
+		}
+		return Math.max(bucket, day * bucketsPerDay);
+	}
+
+	private long previousBusyBucket(long bucket) {
+		if (bucket < firstBusyBucket) {
+			return Long.MIN_VALUE;
+		}
+		bucket = Math.min(bucket, endBusyBucket - 1);
+		long day = Math.floorDiv(bucket, bucketsPerDay);
+		int position = (int) (bucket - day * bucketsPerDay);
+		while ((day + 1) * bucketsPerDay > firstBusyBucket) {
+			long[] words = combinedDay(day);
+			long mask = -1L >>> (63 - (position & 63));
+			for (int word = position >>> 6; word >= 0; word--) {
+				long bits = words[word] & mask;
+				if (bits != 0) {
+					return day * bucketsPerDay + (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+				}
+				mask = -1L;
+			}
+			day--;
+			position = bucketsPerDay - 1;
+		}
+		return Long.MIN_VALUE;
+	}
+
+	private long previousFreeBucket(long bucket) {
+		if (bucket < firstBusyBucket || bucket >= endBusyBucket) {
+			return bucket;
+		}
+		long day = Math.floorDiv(bucket, bucketsPerDay);
+		int position = (int) (bucket - day * bucketsPerDay);
+		while ((day + 1) * bucketsPerDay > firstBusyBucket) {
+			long[] words = combinedDay(day);
+			long mask = -1L >>> (63 - (position & 63));
+			for (int word = position >>> 6; word >= 0; word--) {
+				long bits = ~words[word] & mask;
+				if (bits != 0) {
+					return day * bucketsPerDay + (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+				}
+				mask = -1L;
+			}
+			day--;
+			position = bucketsPerDay - 1;
+		}
+		return Math.min(bucket, day * bucketsPerDay + bucketsPerDay - 1);
+	}
+}
@@ -0,0 +1,44 @@
+package com.fdmgroup.schedulingproject.model;
+
+/**
+ * Read-only view of the combined availability of a group of participants,
+ * used to search for timeslots that suit everyone. Times are minutes since the
+ * epoch and intervals are half-open.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public interface AvailabilityView {
+
+	/**
+	 * Checks if every participant is free for the whole of [start, end).
+	 *
+	 * @param startMinute the start of the interval in epoch minutes
+	 * @param endMinute   the end of the interval in epoch minutes
+	 * @return {@code true} if nobody is busy during the interval, {@code false}
+	 *         otherwise
+	 */
+	boolean isFree(long startMinute, long endMinute);
+
+	/**
+	 * Finds the earliest free slot starting at {@code fromMinute} plus a whole
+	 * number of steps.
+	 *
+	 * @param fromMinute      the earliest candidate start in epoch minutes
+	 * @param durationMinutes the duration of the slot in minutes
+	 * @param stepMinutes     the interval between candidate starts in minutes
+	 * @return the start of the earliest free slot in epoch minutes
+	 */
+	long findFreeSlotForward(long fromMinute, int durationMinutes, int stepMinutes);
+
+	/**
+	 * Finds the latest free slot starting at {@code fromMinute} minus a whole
+	 * number of steps.
+	 *
+	 * @param fromMinute      the latest candidate start in epoch minutes
+	 * @param durationMinutes the duration of the slot in minutes
+	 * @param stepMinutes     the interval between candidate starts in minutes
+	 * @return the start of the latest free slot in epoch minutes
+	 */
+	long findFreeSlotBackward(long fromMinute, int durationMinutes, int stepMinutes);
+}
@@ -0,0 +1,312 @@
+package com.fdmgroup.schedulingproject.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-memory index of the busy intervals belonging to a single owner (e.g. a
+ * user's calendar and pending invites). Intervals are stored in parallel
+ * arrays sorted by start time, together with a running maximum of the end
+ * times, so that an overlap probe is a single binary search rather than a scan
+ * of every event.
+ *
+ * Recurring events are kept to one side rather than expanded, since a series
+ * may never end; {@link #expand(long, long)} adds their occurrences within a
+ * given range when a search needs every interval in order.
+ *
+ * Times are held as minutes since the epoch, which is the resolution used by
+ * the scheduling pages. Intervals are half-open, so an event ending at the
+ * same minute another starts does not clash with it.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public class BusyIntervalIndex {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private Event[] events = new Event[INITIAL_CAPACITY];
+	private long[] starts = new long[INITIAL_CAPACITY];
+	private long[] ends = new long[INITIAL_CAPACITY];
+	// maxEnds[i] is the latest end time of any interval in positions 0..i
+	private long[] maxEnds = new long[INITIAL_CAPACITY];
+	private int size;
+	private final List<Event> recurringEvents = new ArrayList<>();
+
+	/**
+	 * Converts a date-time to whole minutes since the epoch, ignoring any seconds.
+	 *
+	 * @param dateTime the date-time to convert
+	 * @return the number of minutes since 1970-01-01T00:00
+	 */
+	public static long toEpochMinute(LocalDateTime dateTime) {
+		return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+	}
+
+	/**
+	 * Converts whole minutes since the epoch back to a date-time.
+	 *
+	 * @param epochMinute the number of minutes since 1970-01-01T00:00
+	 * @return the date-time
+	 */
+	public static LocalDateTime toDateTime(long epochMinute) {
+		return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+	}
+
+	/**
+	 * Adds an event to the index.
+	 *
+	 * @param event the event to add
+	 */
+	public void add(Event event) {
+		if (event.isRecurring()) {
+			recurringEvents.add(event);
+			return;
+		}
+		insert(event, event.getStartMinute(), event.getEndMinute());
+	}
+
+	private void insert(Event event, long start, long end) {
+		ensureCapacity(size + 1);
+		// insert after any intervals with the same start to keep insertion order
+		int position = firstStartAfter(start);
+		int moved = size - position;
+		System.arraycopy(events, position, events, position + 1, moved);
+		System.arraycopy(starts, position, starts, position + 1, moved);
+		System.arraycopy(ends, position, ends, position + 1, moved);
+		events[position] = event;
+		starts[position] = start;
+		ends[position] = end;
+		size++;
+		updateMaxEnds(position);
+	}
+
+	/**
+	 * Removes a single occurrence of an event from the index.
+	 *
+	 * @param event the event to remove
+	 * @return {@code true} if the event was found and removed, {@code false}
+	 *         otherwise
+	 */
+	public boolean remove(Event event) {
+		if (event.isRecurring()) {
+			return recurringEvents.remove(event);
+		}
+		for (int i = 0; i < size; i++) {
+			if (events[i].equals(event)) {
+				int moved = size - i - 1;
+				System.arraycopy(events, i + 1, events, i, moved);
+				System.arraycopy(starts, i + 1, starts, i, moved);
+				System.arraycopy(ends, i + 1, ends, i, moved);
+				size--;
+				events[size] = null;
+				updateMaxEnds(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if any indexed interval overlaps the half-open interval [start, end).
+	 * Runs in O(log n), plus a check of each recurring event.
+	 *
+	 * @param startMinute the start of the interval in epoch minutes
+	 * @param endMinute   the end of the interval in epoch minutes
+	 * @return {@code true} if there is an overlap, {@code false} otherwise
+	 */
+	public boolean overlaps(long startMinute, long endMinute) {
+		int last = firstStartAtOrAfter(endMinute) - 1;
+		if (last >= 0 && maxEnds[last] > startMinute) {
+			return true;
+		}
+		for (int i = 0; i < recurringEvents.size(); i++) {
+			if (recurringEvents.get(i).overlaps(startMinute, endMinute)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Retrieves an index holding the intervals of this one with the occurrences of
+	 * every recurring event that overlap the half-open interval [start, end) added
+	 * as intervals of their own. Only that range of the result is complete, so it
+	 * should only be searched within it.
+	 *
+	 * @param startMinute the start of the range in epoch minutes
+	 * @param endMinute   the end of the range in epoch minutes
+	 * @return this index if there are no recurring events, otherwise a new index
+	 */
+	public BusyIntervalIndex expand(long startMinute, long endMinute) {
+		if (recurringEvents.isEmpty()) {
+			return this;
+		}
+		BusyIntervalIndex expanded = new BusyIntervalIndex();
+		expanded.ensureCapacity(size);
+		System.arraycopy(events, 0, expanded.events, 0, size);
+		System.arraycopy(starts, 0, expanded.starts, 0, size);
+		System.arraycopy(ends, 0, expanded.ends, 0, size);
+		System.arraycopy(maxEnds, 0, expanded.maxEnds, 0, size);
+		expanded.size = size;
+		for (Event event : recurringEvents) {
+			for (Timeslot occurrence : event.getOccurrences(startMinute, endMinute)) {
+				expanded.insert(event, occurrence.getStartMinute(), occurrence.getEndMinute());
+			}
+		}
+		return expanded;
+	}
+
+	public boolean hasRecurringEvents() {
+		return !recurringEvents.isEmpty();
+	}
+
+	/**
+	 * Retrieves every indexed event that overlaps the half-open interval [start,
+	 * end), ordered by start time, followed by any recurring events with an
+	 * occurrence in the interval.
+	 *
+	 * @param startMinute the start of the interval in epoch minutes
+	 * @param endMinute   the end of the interval in epoch minutes
+	 * @return the list of overlapping events
+	 */
+	public List<Event> findOverlapping(long startMinute, long endMinute) {
+		List<Event> overlapping = new ArrayList<>();
+		// walk back from the last interval starting before the end until no earlier
+		// interval can reach the start
+		for (int i = firstStartAtOrAfter(endMinute) - 1; i >= 0 && maxEnds[i] > startMinute; i--) {
+			if (ends[i] > startMinute) {
+				overlapping.add(events[i]);
+			}
+		}
+		Collections.reverse(overlapping);
+		for (Event event : recurringEvents) {
+			if (event.overlaps(startMinute, endMinute)) {
+				overlapping.add(event);
+			}
+		}
+		return overlapping;
+	}
+
+	/**
+	 * Retrieves the number of intervals in the index, which doesn't include
+	 * recurring events unless they have been expanded.
+	 *
+	 * @return the number of intervals
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Retrieves the number of events added to the index, including recurring
+	 * events.
+	 *
+	 * @return the number of events
+	 */
+	public int getEventCount() {
+		return size + recurringEvents.size();
+	}
+
+	/**
+	 * Retrieves the earliest start time of any indexed interval.
+	 *
+	 * @return the earliest start in epoch minutes, or {@link Long#MAX_VALUE} if
+	 *         the index is empty
+	 */
+	public long getEarliestStartMinute() {
+		long earliest = size == 0 ? Long.MAX_VALUE : starts[0];
+		for (Event event : recurringEvents) {
+			earliest = Math.min(earliest, event.getStartMinute());
+		}
+		return earliest;
+	}
+
+	/**
+	 * Retrieves the latest end time of any indexed interval.
+	 *
+	 * @return the latest end in epoch minutes, {@link Long#MIN_VALUE} if the
+	 *         index is empty, or {@link Long#MAX_VALUE} if a recurring event
+	 *         repeats forever
+	 */
+	public long getLatestEndMinute() {
+		long latest = size == 0 ? Long.MIN_VALUE : maxEnds[size - 1];
+		for (Event event : recurringEvents) {
+			LocalDateTime seriesEnd = event.getSeriesEnd();
+			latest = Math.max(latest, seriesEnd == null ? Long.MAX_VALUE : toEpochMinute(seriesEnd));
+		}
+		return latest;
+	}
+
+	long getStartMinute(int position) {
+		return starts[position];
+	}
+
+	long getEndMinute(int position) {
+		return ends[position];
+	}
+
+	long getMaxEndMinute(int position) {
+		return maxEnds[position];
+	}
+
+	/**
+	 * Retrieves the position of the last interval starting before the given time.
+	 *
+	 * @param minute the time in epoch minutes
+	 * @return the position, or -1 if no interval starts before the time
+	 */
+	int lastStartBefore(long minute) {
+		return firstStartAtOrAfter(minute) - 1;
+	}
+
+	private int firstStartAtOrAfter(long minute) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (starts[mid] < minute) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private int firstStartAfter(long minute) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (starts[mid] <= minute) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private void updateMaxEnds(int from) {
+		long max = from == 0 ? Long.MIN_VALUE : maxEnds[from - 1];
+		for (int i = from; i < size; i++) {
+			max = Math.max(max, ends[i]);
+			maxEnds[i] = max;
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > starts.length) {
+			int newCapacity = Math.max(capacity, starts.length * 2);
+			events = Arrays.copyOf(events, newCapacity);
+			starts = Arrays.copyOf(starts, newCapacity);
+			ends = Arrays.copyOf(ends, newCapacity);
+			maxEnds = Arrays.copyOf(maxEnds, newCapacity);
+		}
+	}
+}
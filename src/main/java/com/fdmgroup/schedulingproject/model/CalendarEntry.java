@@ -0,0 +1,97 @@
+package com.fdmgroup.schedulingproject.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.*;
+
+/**
+ * Read-only view of a row of the event_attendees table, which places an event
+ * in a user's calendar. The attendees themselves are saved through
+ * {@link Event#getAttendees()}; this view is only read, so that the calendar
+ * page can be queried from the join table. Each row also holds the start time
+ * of its event, kept up to date by the database, so that a user's calendar is
+ * read in start time order by seeking through the (user_id, start_time,
+ * event_id) index rather than by sorting every event the user attends.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+@Entity
+@Immutable
+@Table(name = "event_attendees")
+@IdClass(CalendarEntry.Key.class)
+public class CalendarEntry {
+	@Id
+	@Column(name = "event_id")
+	private long eventId;
+	@Id
+	@Column(name = "user_id")
+	private long userId;
+	// copied from the event by the database when the row is inserted and
+	// whenever the event moves
+	@Column(name = "start_time")
+	private LocalDateTime startTime;
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "event_id", insertable = false, updatable = false)
+	private Event event;
+
+	public CalendarEntry() {
+		super();
+	}
+
+	public long getEventId() {
+		return eventId;
+	}
+
+	public long getUserId() {
+		return userId;
+	}
+
+	public LocalDateTime getStartTime() {
+		return startTime;
+	}
+
+	public Event getEvent() {
+		return event;
+	}
+
+	/**
+	 * Composite identifier of a calendar entry: the event and the user.
+	 */
+	public static class Key implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private long eventId;
+		private long userId;
+
+		public Key() {
+			super();
+		}
+
+		public Key(long eventId, long userId) {
+			this.eventId = eventId;
+			this.userId = userId;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			return eventId == other.eventId && userId == other.userId;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(eventId, userId);
+		}
+	}
+}
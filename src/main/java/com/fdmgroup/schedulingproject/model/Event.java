@@ -2,10 +2,15 @@ package com.fdmgroup.schedulingproject.model;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
-import org.springframework.data.annotation.Transient;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import jakarta.persistence.*;
 
@@ -19,6 +24,9 @@ import jakarta.persistence.*;
  * @version 1.0
  */
 @Entity
+// the table and its indexes are defined by the migrations in db/migration
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Event {
 	@Id
 	@SequenceGenerator(name = "EVENT_SEQ_GEN", sequenceName = "event_seq")
@@ -29,18 +37,44 @@ public class Event {
 	private String location;
 	@Temporal(TemporalType.TIMESTAMP)
 	private LocalDateTime startTime;
-	@Transient
+	// derived from startTime and durationMinutes, but persisted so the database
+	// can answer overlap queries
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "end_time")
 	private LocalDateTime endTime;
 	private int durationMinutes = 30;
+	// null for a one-off event
+	@Embedded
+	private Recurrence recurrence;
+	// end of the last occurrence, equal to endTime for a one-off event and null
+	// for a series that never ends, so the database can find series overlapping
+	// a range without expanding them
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "series_end")
+	private LocalDateTime seriesEnd;
+	// startTime and endTime as minutes since the epoch, so clash checks compare
+	// primitives rather than LocalDateTime objects
+	@Transient
+	private long startMinute;
+	@Transient
+	private long endMinute;
 	@ManyToOne
 	@JoinColumn(name = "organiser_id")
 	private User organiser;
+	// set when location names a bookable room
+	@ManyToOne
+	@JoinColumn(name = "room_id")
+	private Location room;
+	// the owning sides of the users' calendars and event invites; the organiser
+	// is one of the attendees
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 	@ManyToMany
 	@JoinTable(name = "event_attendees", joinColumns = @JoinColumn(name = "event_id"), inverseJoinColumns = @JoinColumn(name = "user_id"))
-	private List<User> attendees = new ArrayList<>();
+	private Set<User> attendees = new LinkedHashSet<>();
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 	@ManyToMany
 	@JoinTable(name = "event_invitees", joinColumns = @JoinColumn(name = "event_id"), inverseJoinColumns = @JoinColumn(name = "user_id"))
-	private List<User> invitees = new ArrayList<>();
+	private Set<User> invitees = new LinkedHashSet<>();
 
 	public static int minIntervalMinutes = 15;
 
@@ -64,6 +98,7 @@ public class Event {
 		this.location = location;
 		this.startTime = startTime;
 		this.durationMinutes = durationMinutes;
+		updateEndTime();
 	}
 
 	public long getId() {
@@ -104,14 +139,21 @@ public class Event {
 
 	public void setStartTime(LocalDateTime startTime) {
 		this.startTime = startTime;
+		updateEndTime();
 	}
 
 	public LocalDateTime getEndTime() {
 		return getStartTime().plusMinutes(getDurationMinutes());
 	}
 
+	/**
+	 * Sets the end time of the event by adjusting its duration, so that the end
+	 * time always equals the start time plus the duration.
+	 *
+	 * @param endTime the end time of the event
+	 */
 	public void setEndTime(LocalDateTime endTime) {
-		this.endTime = endTime;
+		setDurationMinutes((int) Duration.between(getStartTime(), endTime).toMinutes());
 	}
 
 	public int getDurationMinutes() {
@@ -120,6 +162,105 @@ public class Event {
 
 	public void setDurationMinutes(int durationMinutes) {
 		this.durationMinutes = durationMinutes;
+		updateEndTime();
+	}
+
+	public Recurrence getRecurrence() {
+		return recurrence;
+	}
+
+	/**
+	 * Sets the recurrence rule of the event, making it repeat. The start time of
+	 * the event is the start of the first occurrence.
+	 *
+	 * @param recurrence the recurrence rule, or null for a one-off event
+	 */
+	public void setRecurrence(Recurrence recurrence) {
+		this.recurrence = recurrence;
+		updateEndTime();
+	}
+
+	/**
+	 * Checks if the event repeats.
+	 *
+	 * @return {@code true} if the event has a recurrence rule, {@code false}
+	 *         otherwise
+	 */
+	public boolean isRecurring() {
+		return recurrence != null && recurrence.getFrequency() != null;
+	}
+
+	/**
+	 * Retrieves the end of the last occurrence of the event.
+	 *
+	 * @return the end of the last occurrence, which is the end time for a one-off
+	 *         event, or null if the event repeats forever
+	 */
+	public LocalDateTime getSeriesEnd() {
+		return seriesEnd;
+	}
+
+	/**
+	 * Checks if an invite to the event is still pending at a time, which is the
+	 * case if the event starts after it or is a series still running after it.
+	 *
+	 * @param time the time to check
+	 * @return {@code true} if the event is upcoming at the time, {@code false}
+	 *         otherwise
+	 */
+	public boolean isUpcomingAt(LocalDateTime time) {
+		if (startTime != null && startTime.isAfter(time)) {
+			return true;
+		}
+		return isRecurring() && (seriesEnd == null || seriesEnd.isAfter(time));
+	}
+
+	/**
+	 * Recalculates the persisted end time and series end from the start time,
+	 * duration and recurrence. Also run before every insert and update so rows
+	 * written before the columns existed are filled in when next saved.
+	 */
+	@PrePersist
+	@PreUpdate
+	void updateEndTime() {
+		endTime = startTime == null ? null : startTime.plusMinutes(durationMinutes);
+		if (endTime == null || !isRecurring()) {
+			seriesEnd = endTime;
+		} else {
+			LocalDateTime lastStart = recurrence.getLastOccurrenceStart(startTime);
+			seriesEnd = lastStart == null ? null : lastStart.plusMinutes(durationMinutes);
+		}
+		updateEpochMinutes();
+	}
+
+	/**
+	 * Recalculates the cached epoch-minute start and end times. Also run after the
+	 * event is loaded, since loading sets the fields directly.
+	 */
+	@PostLoad
+	void updateEpochMinutes() {
+		if (startTime != null) {
+			startMinute = BusyIntervalIndex.toEpochMinute(startTime);
+			endMinute = startMinute + durationMinutes;
+		}
+	}
+
+	/**
+	 * Retrieves the start time of the event as whole minutes since the epoch.
+	 *
+	 * @return the start time in epoch minutes
+	 */
+	public long getStartMinute() {
+		return startMinute;
+	}
+
+	/**
+	 * Retrieves the end time of the event as whole minutes since the epoch.
+	 *
+	 * @return the end time in epoch minutes
+	 */
+	public long getEndMinute() {
+		return endMinute;
 	}
 
 	public User getOrganiser() {
@@ -130,6 +271,14 @@ public class Event {
 		this.organiser = organiser;
 	}
 
+	public Location getRoom() {
+		return room;
+	}
+
+	public void setRoom(Location room) {
+		this.room = room;
+	}
+
 	public void addAttendee(User attendee) {
 		attendees.add(attendee);
 	}
@@ -138,7 +287,7 @@ public class Event {
 		attendees.remove(attendee);
 	}
 
-	public List<User> getAttendees() {
+	public Set<User> getAttendees() {
 		return attendees;
 	}
 
@@ -150,13 +299,14 @@ public class Event {
 		invitees.remove(invitee);
 	}
 
-	public List<User> getInvitees() {
+	public Set<User> getInvitees() {
 		return invitees;
 	}
 
 	/**
 	 * Checks if this event clashes with another event given their start time and
-	 * duration.
+	 * duration. Events are half-open, so an event starting as this one ends does
+	 * not clash with it.
 	 *
 	 * @param compareStartTime       the start time of the other event to compare
 	 * @param compareDurationMinutes the duration of the other event to compare in
@@ -164,14 +314,8 @@ public class Event {
 	 * @return {@code true} if there is a clash, {@code false} otherwise
 	 */
 	public boolean doesEventClash(LocalDateTime compareStartTime, int compareDurationMinutes) {
-		LocalDateTime thisEndTime = getStartTime().plusMinutes(getDurationMinutes());
-		LocalDateTime compareEndTime = compareStartTime.plusMinutes(compareDurationMinutes);
-		return (((compareStartTime.isBefore(getStartTime()) || compareStartTime.isEqual(getStartTime()))
-				&& compareEndTime.isAfter(getStartTime()))
-				|| (compareStartTime.isBefore(thisEndTime)
-						&& (compareEndTime.isAfter(thisEndTime) || compareEndTime.isEqual(thisEndTime)))
-				|| (compareStartTime.isEqual(getStartTime()) || compareStartTime.isAfter(getStartTime()))
-						&& (compareEndTime.isEqual(thisEndTime) || compareEndTime.isBefore(thisEndTime)));
+		long compareStartMinute = BusyIntervalIndex.toEpochMinute(compareStartTime);
+		return overlaps(compareStartMinute, compareStartMinute + compareDurationMinutes);
 	}
 
 	/**
@@ -181,8 +325,182 @@ public class Event {
 	 * @return {@code true} if there is a clash, {@code false} otherwise
 	 */
 	public boolean doesEventClash(Timeslot timeslot) {
-		LocalDateTime eventStartTime = timeslot.getStart();
-		int durationMinutes = (int) Math.abs(Duration.between(eventStartTime, timeslot.getEnd()).toMinutes());
-		return doesEventClash(eventStartTime, durationMinutes);
+		return overlaps(timeslot.getStartMinute(), timeslot.getEndMinute());
+	}
+
+	/**
+	 * Checks if this event overlaps the half-open interval [start, end). For a
+	 * one-off event this compares the cached epoch-minute times only, so it
+	 * allocates nothing. For a recurring event only the occurrences near the
+	 * interval are worked out.
+	 *
+	 * @param startMinute the start of the interval in epoch minutes
+	 * @param endMinute   the end of the interval in epoch minutes
+	 * @return {@code true} if there is an overlap, {@code false} otherwise
+	 */
+	public boolean overlaps(long startMinute, long endMinute) {
+		if (!isRecurring()) {
+			return this.startMinute < endMinute && startMinute < this.endMinute;
+		}
+		return nextOccurrenceIndex(firstOccurrenceIndex(startMinute), startMinute, endMinute) >= 0;
+	}
+
+	/**
+	 * Checks if the event has an occurrence starting after the given time.
+	 *
+	 * @param time the time to compare
+	 * @return {@code true} if an occurrence starts after the time, {@code false}
+	 *         otherwise
+	 */
+	public boolean hasOccurrenceAfter(LocalDateTime time) {
+		if (!isRecurring()) {
+			return startTime.isAfter(time);
+		}
+		// an occurrence starts after the time if it ends later than an occurrence
+		// starting at that time would
+		long afterMinute = BusyIntervalIndex.toEpochMinute(time) + durationMinutes;
+		return overlaps(afterMinute, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Retrieves the occurrences of the event that overlap the half-open interval
+	 * [from, to), in start order. A one-off event has a single occurrence.
+	 *
+	 * @param from the start of the interval
+	 * @param to   the end of the interval
+	 * @return the overlapping occurrences
+	 */
+	public List<Timeslot> getOccurrences(LocalDateTime from, LocalDateTime to) {
+		return getOccurrences(BusyIntervalIndex.toEpochMinute(from), BusyIntervalIndex.toEpochMinute(to));
+	}
+
+	/**
+	 * Retrieves the occurrences of the event that overlap the half-open interval
+	 * [start, end), in start order.
+	 *
+	 * @param startMinute the start of the interval in epoch minutes
+	 * @param endMinute   the end of the interval in epoch minutes
+	 * @return the overlapping occurrences
+	 */
+	public List<Timeslot> getOccurrences(long startMinute, long endMinute) {
+		List<Timeslot> occurrences = new ArrayList<>();
+		if (!isRecurring()) {
+			if (overlaps(startMinute, endMinute)) {
+				occurrences.add(new Timeslot(startTime, durationMinutes));
+			}
+			return occurrences;
+		}
+		long index = nextOccurrenceIndex(firstOccurrenceIndex(startMinute), startMinute, endMinute);
+		while (index >= 0) {
+			occurrences.add(new Timeslot(recurrence.getFrequency().getOccurrenceStart(startTime, index),
+					durationMinutes));
+			index = nextOccurrenceIndex(index + 1, startMinute, endMinute);
+		}
+		return occurrences;
+	}
+
+	/**
+	 * Retrieves the first occurrences of the event that start at or after the
+	 * given time, in start order. Only as many occurrences as asked for are
+	 * worked out, so this can be used on a series that repeats forever.
+	 *
+	 * @param time  the earliest start time to include
+	 * @param limit the largest number of occurrences to return
+	 * @return the occurrences, at most limit of them
+	 */
+	public List<Timeslot> getOccurrencesFrom(LocalDateTime time, int limit) {
+		List<Timeslot> occurrences = new ArrayList<>();
+		if (!isRecurring()) {
+			if (limit > 0 && !startTime.isBefore(time)) {
+				occurrences.add(new Timeslot(startTime, durationMinutes));
+			}
+			return occurrences;
+		}
+		RecurrenceFrequency frequency = recurrence.getFrequency();
+		// every occurrence before this one starts before the time
+		long index = Math.max(frequency.estimateIndexAt(startTime, time), 0);
+		for (; occurrences.size() < limit; index++) {
+			LocalDateTime occurrenceStart = frequency.getOccurrenceStart(startTime, index);
+			if (!recurrence.isInSeries(index, occurrenceStart)) {
+				break;
+			}
+			if (!occurrenceStart.isBefore(time) && !recurrence.isException(occurrenceStart)) {
+				occurrences.add(new Timeslot(occurrenceStart, durationMinutes));
+			}
+		}
+		return occurrences;
+	}
+
+	/**
+	 * Retrieves the last occurrences of the event that start at or before the
+	 * given time, in start order. Only as many occurrences as asked for are
+	 * worked out, counting back from the time or from the end of the series if
+	 * that is earlier.
+	 *
+	 * @param time  the latest start time to include
+	 * @param limit the largest number of occurrences to return
+	 * @return the occurrences, at most limit of them
+	 */
+	public List<Timeslot> getOccurrencesUntil(LocalDateTime time, int limit) {
+		List<Timeslot> occurrences = new ArrayList<>();
+		if (!isRecurring()) {
+			if (limit > 0 && !startTime.isAfter(time)) {
+				occurrences.add(new Timeslot(startTime, durationMinutes));
+			}
+			return occurrences;
+		}
+		RecurrenceFrequency frequency = recurrence.getFrequency();
+		LocalDateTime lastStart = recurrence.getLastOccurrenceStart(startTime);
+		LocalDateTime countBackFrom = lastStart != null && lastStart.isBefore(time) ? lastStart : time;
+		// the occurrence after the estimate may still start before the time
+		for (long index = frequency.estimateIndexAt(startTime, countBackFrom) + 1; index >= 0
+				&& occurrences.size() < limit; index--) {
+			LocalDateTime occurrenceStart = frequency.getOccurrenceStart(startTime, index);
+			if (!occurrenceStart.isAfter(time) && recurrence.isInSeries(index, occurrenceStart)
+					&& !recurrence.isException(occurrenceStart)) {
+				occurrences.add(new Timeslot(occurrenceStart, durationMinutes));
+			}
+		}
+		Collections.reverse(occurrences);
+		return occurrences;
+	}
+
+	/**
+	 * Retrieves the number of an occurrence at or before the first one that can
+	 * end after the given time, so that a search need not start from the first
+	 * occurrence of a long series.
+	 *
+	 * @param startMinute the time in epoch minutes
+	 * @return the number of the occurrence to start searching from
+	 */
+	private long firstOccurrenceIndex(long startMinute) {
+		// an occurrence starting before this time ends at or before startMinute
+		LocalDateTime latestMissed = LocalDateTime.ofEpochSecond((startMinute - durationMinutes) * 60, 0,
+				ZoneOffset.UTC);
+		return Math.max(recurrence.getFrequency().estimateIndexAt(startTime, latestMissed), 0);
+	}
+
+	/**
+	 * Finds the next occurrence, from the given one onwards, that is part of the
+	 * series, has not been cancelled and overlaps the half-open interval [start,
+	 * end).
+	 *
+	 * @param index       the number of the first occurrence to check
+	 * @param startMinute the start of the interval in epoch minutes
+	 * @param endMinute   the end of the interval in epoch minutes
+	 * @return the number of the occurrence, or -1 if there is none
+	 */
+	private long nextOccurrenceIndex(long index, long startMinute, long endMinute) {
+		RecurrenceFrequency frequency = recurrence.getFrequency();
+		for (;; index++) {
+			LocalDateTime occurrenceStart = frequency.getOccurrenceStart(startTime, index);
+			long occurrenceStartMinute = BusyIntervalIndex.toEpochMinute(occurrenceStart);
+			if (occurrenceStartMinute >= endMinute || !recurrence.isInSeries(index, occurrenceStart)) {
+				return -1;
+			}
+			if (occurrenceStartMinute + durationMinutes > startMinute && !recurrence.isException(occurrenceStart)) {
+				return index;
+			}
+		}
 	}
 }
@@ -0,0 +1,55 @@
+package com.fdmgroup.schedulingproject.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single occurrence of an event, as shown in a calendar. A one-off event has
+ * one occurrence at its own start time; a recurring event has one for each time
+ * it repeats. Occurrences are worked out when needed and are not persisted.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public class EventOccurrence {
+
+	private final Event event;
+	private final LocalDateTime startTime;
+	private final LocalDateTime endTime;
+
+	/**
+	 * Creates a new EventOccurrence instance for the given event and time.
+	 *
+	 * @param event    the event that occurs
+	 * @param timeslot the time of the occurrence
+	 */
+	public EventOccurrence(Event event, Timeslot timeslot) {
+		this.event = event;
+		this.startTime = timeslot.getStart();
+		this.endTime = timeslot.getEnd();
+	}
+
+	public Event getEvent() {
+		return event;
+	}
+
+	public long getId() {
+		return event.getId();
+	}
+
+	public String getTitle() {
+		return event.getTitle();
+	}
+
+	public LocalDateTime getStartTime() {
+		return startTime;
+	}
+
+	public LocalDateTime getEndTime() {
+		return endTime;
+	}
+
+	@Override
+	public String toString() {
+		return "EventOccurrence [title=" + getTitle() + ", startTime=" + startTime + ", endTime=" + endTime + "]";
+	}
+}
@@ -0,0 +1,195 @@
+package com.fdmgroup.schedulingproject.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.PriorityQueue;
+
+/**
+ * Merged busy time of a group of participants. The FreeBusyTimeline class
+ * sweeps the busy intervals of every participant once, in start order, and
+ * coalesces them into a sorted list of disjoint busy intervals. The gaps
+ * between them are the times at which everyone is free, so suggested
+ * timeslots can be read straight off the list instead of re-checking every
+ * calendar for each candidate.
+ *
+ * Times are held as minutes since the epoch and intervals are half-open, as
+ * in {@link BusyIntervalIndex}.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public class FreeBusyTimeline implements AvailabilityView {
+
+	private final long[] busyStarts;
+	private final long[] busyEnds;
+	private final int size;
+
+	private FreeBusyTimeline(long[] busyStarts, long[] busyEnds, int size) {
+		this.busyStarts = busyStarts;
+		this.busyEnds = busyEnds;
+		this.size = size;
+	}
+
+	/**
+	 * Merges the busy intervals of several participants into a single timeline.
+	 * Each index is already sorted by start time, so the intervals are swept in
+	 * global start order with a k-way merge and overlapping or touching
+	 * intervals are joined as they are reached.
+	 *
+	 * @param indexes the busy interval indexes of each participant
+	 * @return the merged timeline
+	 */
+	public static FreeBusyTimeline merge(Collection<BusyIntervalIndex> indexes) {
+		int total = 0;
+		PriorityQueue<Cursor> sweep = new PriorityQueue<>();
+		for (BusyIntervalIndex index : indexes) {
+			if (index.size() > 0) {
+				sweep.add(new Cursor(index));
+				total += index.size();
+			}
+		}
+		long[] starts = new long[total];
+		long[] ends = new long[total];
+		int size = 0;
+		while (!sweep.isEmpty()) {
+			Cursor cursor = sweep.poll();
+			long start = cursor.start();
+			long end = cursor.end();
+			if (size > 0 && start <= ends[size - 1]) {
+				// overlaps or touches the previous busy interval, so extend it
+				ends[size - 1] = Math.max(ends[size - 1], end);
+			} else {
+				starts[size] = start;
+				ends[size] = end;
+				size++;
+			}
+			if (cursor.advance()) {
+				sweep.add(cursor);
+			}
+		}
+		return new FreeBusyTimeline(starts, ends, size);
+	}
+
+	@Override
+	public boolean isFree(long startMinute, long endMinute) {
+		int next = firstEndAfter(startMinute);
+		return next == size || busyStarts[next] >= endMinute;
+	}
+
+	/**
+	 * {@inheritDoc} Busy intervals are skipped in one jump rather than one step at
+	 * a time.
+	 */
+	@Override
+	public long findFreeSlotForward(long fromMinute, int durationMinutes, int stepMinutes) {
+		long candidate = fromMinute;
+		int next = firstEndAfter(candidate);
+		while (next < size && busyStarts[next] < candidate + durationMinutes) {
+			// jump to the first step at or after the end of the blocking interval
+			candidate += ceilDiv(busyEnds[next] - candidate, stepMinutes) * stepMinutes;
+			next = firstEndAfter(candidate);
+		}
+		return candidate;
+	}
+
+	/**
+	 * {@inheritDoc} Busy intervals are skipped in one jump rather than one step at
+	 * a time.
+	 */
+	@Override
+	public long findFreeSlotBackward(long fromMinute, int durationMinutes, int stepMinutes) {
+		long candidate = fromMinute;
+		int previous = firstStartAtOrAfter(candidate + durationMinutes) - 1;
+		while (previous >= 0 && busyEnds[previous] > candidate) {
+			// jump to the first step at or before the start of the blocking interval,
+			// leaving room for the whole slot
+			candidate -= ceilDiv(candidate + durationMinutes - busyStarts[previous], stepMinutes) * stepMinutes;
+			previous = firstStartAtOrAfter(candidate + durationMinutes) - 1;
+		}
+		return candidate;
+	}
+
+	/**
+	 * Retrieves the merged busy intervals as pairs of epoch minutes.
+	 *
+	 * @return an array of {start, end} pairs ordered by start time
+	 */
+	public long[][] getBusyIntervals() {
+		long[][] intervals = new long[size][];
+		for (int i = 0; i < size; i++) {
+			intervals[i] = new long[] { busyStarts[i], busyEnds[i] };
+		}
+		return intervals;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private int firstEndAfter(long minute) {
+		// busy intervals are disjoint and sorted, so their ends are sorted too
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (busyEnds[mid] <= minute) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private int firstStartAtOrAfter(long minute) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (busyStarts[mid] < minute) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static long ceilDiv(long dividend, long divisor) {
+		return -Math.floorDiv(-dividend, divisor);
+	}
+
+	@Override
+	public String toString() {
+		return "FreeBusyTimeline" + Arrays.deepToString(getBusyIntervals());
+	}
+
+	/**
+	 * Position of the sweep within one participant's index.
+	 */
+	private static class Cursor implements Comparable<Cursor> {
+		private final BusyIntervalIndex index;
+		private int position;
+
+		Cursor(BusyIntervalIndex index) {
+			this.index = index;
+		}
+
+		long start() {
+			return index.getStartMinute(position);
+		}
+
+		long end() {
+			return index.getEndMinute(position);
+		}
+
+		boolean advance() {
+			return ++position < index.size();
+		}
+
+		@Override
+		public int compareTo(Cursor other) {
+			return Long.compare(start(), other.start());
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.fdmgroup.schedulingproject.model;
+
+import java.util.List;
+
+/**
+ * One page of a list ordered by start time and id. The KeysetPage class holds
+ * the items on the page together with the cursors for the pages before and
+ * after it, either of which is null when there is no page to go to.
+ *
+ * @param <T> the type of item on the page
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public class KeysetPage<T> {
+
+	private final List<T> items;
+	private final PageCursor previous;
+	private final PageCursor next;
+
+	/**
+	 * Constructs a new KeysetPage instance.
+	 *
+	 * @param items    the items on the page in order
+	 * @param previous the cursor to read the page before this one from, or null
+	 * @param next     the cursor to read the page after this one from, or null
+	 */
+	public KeysetPage(List<T> items, PageCursor previous, PageCursor next) {
+		this.items = List.copyOf(items);
+		this.previous = previous;
+		this.next = next;
+	}
+
+	public List<T> getItems() {
+		return items;
+	}
+
+	public PageCursor getPrevious() {
+		return previous;
+	}
+
+	public PageCursor getNext() {
+		return next;
+	}
+
+	@Override
+	public String toString() {
+		return "KeysetPage [items=" + items + ", previous=" + previous + ", next=" + next + "]";
+	}
+}
@@ -0,0 +1,42 @@
+package com.fdmgroup.schedulingproject.model;
+
+import java.time.LocalDateTime;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a set of date-times in a single column as a comma-separated list of
+ * ISO-8601 values, so that the cancelled occurrences of a recurring event are
+ * kept on the event row rather than in a separate table.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+@Converter
+public class LocalDateTimeSetConverter implements AttributeConverter<SortedSet<LocalDateTime>, String> {
+
+	private static final String SEPARATOR = ",";
+
+	@Override
+	public String convertToDatabaseColumn(SortedSet<LocalDateTime> dateTimes) {
+		if (dateTimes == null || dateTimes.isEmpty()) {
+			return null;
+		}
+		return dateTimes.stream().map(LocalDateTime::toString).collect(Collectors.joining(SEPARATOR));
+	}
+
+	@Override
+	public SortedSet<LocalDateTime> convertToEntityAttribute(String column) {
+		SortedSet<LocalDateTime> dateTimes = new TreeSet<>();
+		if (column != null && !column.isBlank()) {
+			for (String value : column.split(SEPARATOR)) {
+				dateTimes.add(LocalDateTime.parse(value.strip()));
+			}
+		}
+		return dateTimes;
+	}
+}
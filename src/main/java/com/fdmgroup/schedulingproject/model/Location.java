@@ -0,0 +1,175 @@
+package com.fdmgroup.schedulingproject.model;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import jakarta.persistence.*;
+
+/**
+ * Represents a bookable location, such as a meeting room, in the scheduling
+ * system. The Location class stores the name of the location and the events
+ * booked into it, and keeps an index of those bookings so that the location
+ * can take part in timeslot searches like any other participant. A saved
+ * location takes part in searches through the bookings within the searched
+ * range instead, which are read and cached by
+ * {@link com.fdmgroup.schedulingproject.service.BusyIntervalCache}, so its
+ * whole booking history is never loaded for a search.
+ *
+ * Locations are equal when their names are, the name being unique and the
+ * id only assigned when a location is saved.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+@Entity
+public class Location implements Schedulable {
+	@Id
+	@SequenceGenerator(name = "LOCATION_SEQ_GEN", sequenceName = "location_seq")
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "LOCATION_SEQ_GEN")
+	private long id;
+
+	@Column(unique = true)
+	private String name;
+	// moves on whenever an event is booked into the room or an occurrence booked
+	// into it is cancelled, so busy intervals cached for one version are never
+	// used once the room is busy at other times; only changed by relative updates
+	// in LocationRepository so that two changes never leave the same version
+	@Column(updatable = false)
+	private long bookingVersion;
+	@OneToMany(mappedBy = "room")
+	private Set<Event> events = new HashSet<>();
+	// built on first availability check from events
+	@Transient
+	private BusyIntervalIndex busyIndex;
+	@Transient
+	private AvailabilityBitmap availabilityBitmap;
+
+	public Location() {
+		super();
+	}
+
+	/**
+	 * Creates a new Location instance with the specified name.
+	 *
+	 * @param name the name of the location
+	 */
+	public Location(String name) {
+		this.name = name;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public void setId(long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public long getBookingVersion() {
+		return bookingVersion;
+	}
+
+	public void setBookingVersion(long bookingVersion) {
+		this.bookingVersion = bookingVersion;
+	}
+
+	/**
+	 * Retrieves the events booked into this location. The set cannot be
+	 * modified, so that every change goes through the methods that keep the busy
+	 * interval index in step.
+	 *
+	 * @return a view of the booked events
+	 */
+	public Set<Event> getEvents() {
+		return Collections.unmodifiableSet(events);
+	}
+
+	public void addEvent(Event event) {
+		events.add(event);
+		if (busyIndex != null) {
+			busyIndex.add(event);
+			if (availabilityBitmap != null) {
+				availabilityBitmap.invalidate(event);
+			}
+		}
+	}
+
+	public void removeEvent(Event event) {
+		if (events.remove(event) && busyIndex != null) {
+			busyIndex.remove(event);
+			if (availabilityBitmap != null) {
+				availabilityBitmap.invalidate(event);
+			}
+		}
+	}
+
+	/**
+	 * Checks if the given timeslot is free in this location.
+	 *
+	 * @param timeslot the timeslot to check availability for
+	 * @return {@code true} if no event is booked into the location during the
+	 *         timeslot, {@code false} otherwise
+	 */
+	public boolean isTimeslotAvailable(Timeslot timeslot) {
+		return !getBusyIndex().overlaps(timeslot.getStartMinute(), timeslot.getEndMinute());
+	}
+
+	/**
+	 * Retrieves the index of the events booked into this location, building it if
+	 * it has not been built yet. The events only change through
+	 * {@link #addEvent(Event)} and {@link #removeEvent(Event)}, which keep the
+	 * index in step.
+	 *
+	 * @return the busy interval index for this location
+	 */
+	@Override
+	public BusyIntervalIndex getBusyIndex() {
+		if (busyIndex == null) {
+			BusyIntervalIndex index = new BusyIntervalIndex();
+			events.forEach(index::add);
+			busyIndex = index;
+		}
+		return busyIndex;
+	}
+
+	@Override
+	public AvailabilityBitmap getAvailabilityBitmap() {
+		BusyIntervalIndex index = getBusyIndex();
+		if (availabilityBitmap == null || !availabilityBitmap.isBuiltFrom(index, Event.minIntervalMinutes)) {
+			availabilityBitmap = new AvailabilityBitmap(index, Event.minIntervalMinutes);
+		}
+		return availabilityBitmap;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(name);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Location other = (Location) obj;
+		return Objects.equals(name, other.name);
+	}
+
+	@Override
+	public String toString() {
+		return "Location [id=" + id + ", name=" + name + "]";
+	}
+}
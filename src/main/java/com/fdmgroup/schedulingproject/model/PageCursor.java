@@ -0,0 +1,114 @@
+package com.fdmgroup.schedulingproject.model;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+/**
+ * A position in a list of events ordered by start time and then id, used to
+ * fetch the page before or after it. A page is read by comparing the start
+ * time and id with this position, so the database can seek to it through an
+ * index instead of counting past every row on earlier pages.
+ *
+ * A cursor is written in links as the start time and id separated by
+ * {@value #SEPARATOR}, and read back with {@link #parse(String)}.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public class PageCursor {
+
+	public static final String SEPARATOR = "_";
+
+	private final LocalDateTime startTime;
+	private final long id;
+
+	/**
+	 * Creates a new PageCursor instance at the given position.
+	 *
+	 * @param startTime the start time at the position
+	 * @param id        the event id at the position, which orders events with the
+	 *                  same start time
+	 */
+	public PageCursor(LocalDateTime startTime, long id) {
+		this.startTime = Objects.requireNonNull(startTime);
+		this.id = id;
+	}
+
+	/**
+	 * Reads a cursor written by {@link #toString()}.
+	 *
+	 * @param cursor the written cursor
+	 * @return the cursor, or null if the text is null or blank
+	 * @throws IllegalArgumentException if the text is not a cursor
+	 */
+	public static PageCursor parse(String cursor) {
+		if (cursor == null || cursor.isBlank()) {
+			return null;
+		}
+		int separator = cursor.lastIndexOf(SEPARATOR);
+		if (separator < 0) {
+			throw new IllegalArgumentException("Invalid page cursor " + cursor);
+		}
+		try {
+			return new PageCursor(LocalDateTime.parse(cursor.substring(0, separator)),
+					Long.parseLong(cursor.substring(separator + 1)));
+		} catch (DateTimeParseException | NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid page cursor " + cursor, e);
+		}
+	}
+
+	public LocalDateTime getStartTime() {
+		return startTime;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Checks if an event starting at the given time comes after this position.
+	 *
+	 * @param otherStartTime the start time of the event
+	 * @param otherId        the id of the event
+	 * @return {@code true} if the event is later in the order, {@code false}
+	 *         otherwise
+	 */
+	public boolean isBefore(LocalDateTime otherStartTime, long otherId) {
+		int compare = startTime.compareTo(otherStartTime);
+		return compare < 0 || compare == 0 && id < otherId;
+	}
+
+	/**
+	 * Checks if an event starting at the given time comes before this position.
+	 *
+	 * @param otherStartTime the start time of the event
+	 * @param otherId        the id of the event
+	 * @return {@code true} if the event is earlier in the order, {@code false}
+	 *         otherwise
+	 */
+	public boolean isAfter(LocalDateTime otherStartTime, long otherId) {
+		int compare = startTime.compareTo(otherStartTime);
+		return compare > 0 || compare == 0 && id > otherId;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(startTime, id);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof PageCursor))
+			return false;
+		PageCursor other = (PageCursor) obj;
+		return id == other.id && startTime.equals(other.startTime);
+	}
+
+	@Override
+	public String toString() {
+		return startTime + SEPARATOR + id;
+	}
+}
@@ -0,0 +1,161 @@
+package com.fdmgroup.schedulingproject.model;
+
+import java.time.LocalDateTime;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import jakarta.persistence.*;
+
+/**
+ * Recurrence rule of a repeating event. The Recurrence class stores how often
+ * the event repeats, when the series ends (after a number of occurrences, at a
+ * date, both or neither) and the start times of any occurrences that have been
+ * cancelled. The rule is stored once on the {@link Event}; occurrences are only
+ * worked out for the times being looked at.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+@Embeddable
+public class Recurrence {
+	@Enumerated(EnumType.STRING)
+	@Column(name = "recurrence_frequency")
+	private RecurrenceFrequency frequency;
+	// total number of occurrences including the first, or null for no limit
+	@Column(name = "recurrence_count")
+	private Integer count;
+	// latest time an occurrence may start, or null for no limit
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "recurrence_until")
+	private LocalDateTime until;
+	// start times of cancelled occurrences
+	@Lob
+	@Convert(converter = LocalDateTimeSetConverter.class)
+	@Column(name = "recurrence_exceptions")
+	private SortedSet<LocalDateTime> exceptions = new TreeSet<>();
+
+	public Recurrence() {
+		super();
+	}
+
+	/**
+	 * Creates a new Recurrence instance with the specified frequency and limits.
+	 *
+	 * @param frequency how often the event repeats
+	 * @param count     the total number of occurrences, or null for no limit
+	 * @param until     the latest time an occurrence may start, or null for no
+	 *                  limit
+	 */
+	public Recurrence(RecurrenceFrequency frequency, Integer count, LocalDateTime until) {
+		this.frequency = frequency;
+		this.count = count;
+		this.until = until;
+	}
+
+	public RecurrenceFrequency getFrequency() {
+		return frequency;
+	}
+
+	public void setFrequency(RecurrenceFrequency frequency) {
+		this.frequency = frequency;
+	}
+
+	public Integer getCount() {
+		return count;
+	}
+
+	public void setCount(Integer count) {
+		this.count = count;
+	}
+
+	public LocalDateTime getUntil() {
+		return until;
+	}
+
+	public void setUntil(LocalDateTime until) {
+		this.until = until;
+	}
+
+	public SortedSet<LocalDateTime> getExceptions() {
+		return exceptions;
+	}
+
+	public void setExceptions(SortedSet<LocalDateTime> exceptions) {
+		this.exceptions = exceptions == null ? new TreeSet<>() : exceptions;
+	}
+
+	/**
+	 * Cancels the occurrence starting at the given time.
+	 *
+	 * @param occurrenceStart the start time of the occurrence
+	 */
+	public void addException(LocalDateTime occurrenceStart) {
+		exceptions.add(occurrenceStart);
+	}
+
+	public void removeException(LocalDateTime occurrenceStart) {
+		exceptions.remove(occurrenceStart);
+	}
+
+	/**
+	 * Checks if the series is limited by a count or an end date.
+	 *
+	 * @return {@code true} if the series ends, {@code false} if it repeats forever
+	 */
+	public boolean isBounded() {
+		return count != null || until != null;
+	}
+
+	/**
+	 * Checks if an occurrence falls within the limits of the series. Occurrences
+	 * are checked in order, so once one falls outside every later one does too.
+	 * Cancelled occurrences are still within the series.
+	 *
+	 * @param index           the number of the occurrence, starting at 0
+	 * @param occurrenceStart the start time of the occurrence
+	 * @return {@code true} if the occurrence is part of the series, {@code false}
+	 *         otherwise
+	 */
+	public boolean isInSeries(long index, LocalDateTime occurrenceStart) {
+		return index >= 0 && (count == null || index < count) && (until == null || !occurrenceStart.isAfter(until));
+	}
+
+	/**
+	 * Checks if the occurrence starting at the given time has been cancelled.
+	 *
+	 * @param occurrenceStart the start time of the occurrence
+	 * @return {@code true} if the occurrence is cancelled, {@code false} otherwise
+	 */
+	public boolean isException(LocalDateTime occurrenceStart) {
+		return !exceptions.isEmpty() && exceptions.contains(occurrenceStart);
+	}
+
+	/**
+	 * Retrieves the start time of the last occurrence in the series, ignoring
+	 * cancellations.
+	 *
+	 * @param first the start time of the first occurrence
+	 * @return the start time of the last occurrence, the first occurrence if the
+	 *         series is empty, or null if the series repeats forever
+	 */
+	public LocalDateTime getLastOccurrenceStart(LocalDateTime first) {
+		if (!isBounded()) {
+			return null;
+		}
+		long last = count == null ? Long.MAX_VALUE : count - 1L;
+		if (until != null) {
+			long index = frequency.estimateIndexAt(first, until);
+			if (index >= 0 && frequency.getOccurrenceStart(first, index).isAfter(until)) {
+				index--;
+			}
+			last = Math.min(last, index);
+		}
+		return frequency.getOccurrenceStart(first, Math.max(last, 0));
+	}
+
+	@Override
+	public String toString() {
+		return "Recurrence [frequency=" + frequency + ", count=" + count + ", until=" + until + ", exceptions="
+				+ exceptions + "]";
+	}
+}
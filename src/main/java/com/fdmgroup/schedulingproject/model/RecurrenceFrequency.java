@@ -0,0 +1,78 @@
+package com.fdmgroup.schedulingproject.model;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * How often a recurring event repeats. Daily and weekly occurrences are a
+ * fixed number of minutes apart, so the occurrence near a given time can be
+ * found by division; monthly occurrences fall on the same day of each month
+ * (or the last day of shorter months) and are found by counting months.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public enum RecurrenceFrequency {
+	DAILY(24 * 60), WEEKLY(7 * 24 * 60), MONTHLY(0);
+
+	private final long periodMinutes;
+
+	private RecurrenceFrequency(long periodMinutes) {
+		this.periodMinutes = periodMinutes;
+	}
+
+	/**
+	 * Checks if occurrences are a fixed number of minutes apart.
+	 *
+	 * @return {@code true} for daily and weekly recurrence, {@code false}
+	 *         otherwise
+	 */
+	public boolean hasFixedPeriod() {
+		return periodMinutes > 0;
+	}
+
+	/**
+	 * Retrieves the number of minutes between occurrences.
+	 *
+	 * @return the period in minutes, or 0 if it varies
+	 */
+	public long getPeriodMinutes() {
+		return periodMinutes;
+	}
+
+	/**
+	 * Retrieves the start of an occurrence. Each occurrence is counted from the
+	 * first rather than the previous one, so a monthly event on the 31st returns
+	 * to the 31st after a shorter month.
+	 *
+	 * @param first the start of the first occurrence
+	 * @param index the number of the occurrence, starting at 0
+	 * @return the start of the occurrence
+	 */
+	public LocalDateTime getOccurrenceStart(LocalDateTime first, long index) {
+		return switch (this) {
+		case DAILY -> first.plusDays(index);
+		case WEEKLY -> first.plusWeeks(index);
+		case MONTHLY -> first.plusMonths(index);
+		};
+	}
+
+	/**
+	 * Retrieves the number of the occurrence in the same day, week or month as a
+	 * time. Every earlier occurrence starts before the time; this one may start
+	 * after it for monthly recurrence, since the day of the month is not compared.
+	 *
+	 * @param first the start of the first occurrence
+	 * @param time  the time to compare
+	 * @return the number of the occurrence, which is negative if the first
+	 *         occurrence is after the time
+	 */
+	long estimateIndexAt(LocalDateTime first, LocalDateTime time) {
+		if (hasFixedPeriod()) {
+			return Math.floorDiv(BusyIntervalIndex.toEpochMinute(time) - BusyIntervalIndex.toEpochMinute(first),
+					periodMinutes);
+		}
+		return YearMonth.from(first).until(YearMonth.from(time), ChronoUnit.MONTHS);
+	}
+}
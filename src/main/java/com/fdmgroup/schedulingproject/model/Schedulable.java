@@ -0,0 +1,27 @@
+package com.fdmgroup.schedulingproject.model;
+
+/**
+ * Something whose time can be booked by events, such as a user or a room. Each
+ * participant in a timeslot search is a Schedulable, so the busy time of people
+ * and rooms is combined in the same pass.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public interface Schedulable {
+
+	/**
+	 * Retrieves the index of the intervals during which this participant is busy.
+	 *
+	 * @return the busy interval index
+	 */
+	BusyIntervalIndex getBusyIndex();
+
+	/**
+	 * Retrieves the free/busy bitmap of this participant at
+	 * {@link Event#minIntervalMinutes} granularity.
+	 *
+	 * @return the availability bitmap
+	 */
+	AvailabilityBitmap getAvailabilityBitmap();
+}
@@ -15,6 +15,8 @@ public class Timeslot {
 
 	private final LocalDateTime start;
 	private final LocalDateTime end;
+	private final long startMinute;
+	private final long endMinute;
 
 	/**
 	 * Constructs a new Timeslot instance with the given start time and duration in
@@ -26,6 +28,8 @@ public class Timeslot {
 	public Timeslot(LocalDateTime startTime, int durationMinutes) {
 		start = startTime;
 		end = startTime.plusMinutes(durationMinutes);
+		startMinute = BusyIntervalIndex.toEpochMinute(startTime);
+		endMinute = startMinute + durationMinutes;
 	}
 
 	public LocalDateTime getStart() {
@@ -36,6 +40,24 @@ public class Timeslot {
 		return end;
 	}
 
+	/**
+	 * Retrieves the start time of the timeslot as whole minutes since the epoch.
+	 *
+	 * @return the start time in epoch minutes
+	 */
+	public long getStartMinute() {
+		return startMinute;
+	}
+
+	/**
+	 * Retrieves the end time of the timeslot as whole minutes since the epoch.
+	 *
+	 * @return the end time in epoch minutes
+	 */
+	public long getEndMinute() {
+		return endMinute;
+	}
+
 	/**
 	 * Returns a string representation of the timeslot in the format "start - end".
 	 * The start and end times are represented as strings using their respective
@@ -0,0 +1,43 @@
+package com.fdmgroup.schedulingproject.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a bounded timeslot search. The TimeslotSearchResult class holds
+ * the suggested timeslots that were found, together with a flag recording
+ * whether the search stopped early because it reached its horizon, deadline or
+ * candidate limit, in which case the suggestions may be incomplete.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public class TimeslotSearchResult {
+
+	private final List<Timeslot> timeslots;
+	private final boolean exhausted;
+
+	/**
+	 * Constructs a new TimeslotSearchResult instance.
+	 *
+	 * @param timeslots the suggested timeslots in chronological order
+	 * @param exhausted {@code true} if the search stopped before finding every
+	 *                  suggestion, {@code false} otherwise
+	 */
+	public TimeslotSearchResult(List<Timeslot> timeslots, boolean exhausted) {
+		this.timeslots = List.copyOf(timeslots);
+		this.exhausted = exhausted;
+	}
+
+	public List<Timeslot> getTimeslots() {
+		return timeslots;
+	}
+
+	public boolean isExhausted() {
+		return exhausted;
+	}
+
+	@Override
+	public String toString() {
+		return "TimeslotSearchResult [timeslots=" + timeslots + ", exhausted=" + exhausted + "]";
+	}
+}
@@ -2,8 +2,20 @@ package com.fdmgroup.schedulingproject.model;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.OptimisticLock;
+
+import com.fdmgroup.schedulingproject.dto.UserHomeSummary;
 
 import jakarta.persistence.*;
 
@@ -22,31 +34,82 @@ import jakarta.persistence.Id;
  * @version 1.0
  */
 @Entity
-public class User implements Cloneable {
+// users and their associations are read on every page, so they are kept in the
+// second-level cache; username lookups resolve through the natural-id cache
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
+public class User implements Cloneable, Schedulable, UserHomeSummary {
 	@Id
 	@SequenceGenerator(name = "USER_SEQ_GEN", sequenceName = "user_seq")
 	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "USER_SEQ_GEN")
 	private long id;
 
+	@NaturalId
 	@Column(unique = true)
 	private String username;
 	private String password;
 	private String displayName;
-	@ManyToMany
-	@JoinTable(name = "user_calendar", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "event_id"))
-	private List<Event> calendar = new ArrayList<>();
+	// changes with the username, password or display name, so a session's
+	// snapshot of the user can be checked against this column alone; counts are
+	// never saved with the user and associations are excluded, so that invites
+	// never conflict with each other
+	@Version
+	private long version;
+	// shown on the home page; only ever changed by relative updates in
+	// UserRepository, so concurrent invites never overwrite each other's counts,
+	// and never written when the user is saved
+	@Column(updatable = false)
+	private int pendingContactInvites;
+	@Column(updatable = false)
+	private int pendingEventInvites;
+	// moves on whenever the calendar or event invites change, so busy intervals
+	// cached for one version are never used once the user is busy at other times;
+	// like the counts, only changed by relative updates in UserRepository so that
+	// two changes never leave the same version
+	@Column(updatable = false)
+	private long calendarVersion;
+	// associations are sets so that adding or removing one element is a
+	// single-row change to the join table, whose primary key is both ids
+	// the calendar and event invites are the inverse sides of the event's
+	// attendees and invitees, so each is stored once and only changes made on
+	// the event side are saved
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+	@ManyToMany(mappedBy = "attendees")
+	private Set<Event> calendar = new LinkedHashSet<>();
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 	@OneToMany(mappedBy = "organiser")
-	private List<Event> createdEvents = new ArrayList<>();
-	@OneToMany
-	private List<Event> eventInvites = new ArrayList<>();
-	@ManyToMany(fetch = FetchType.EAGER)
+	private Set<Event> createdEvents = new LinkedHashSet<>();
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+	@ManyToMany(mappedBy = "invitees")
+	private Set<Event> eventInvites = new LinkedHashSet<>();
+	// contacts are lazy so loading a user does not pull in their contacts'
+	// contacts
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+	@OptimisticLock(excluded = true)
+	@ManyToMany
 	@JoinTable(name = "user_contacts", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "contact_id"))
-	private List<User> contacts = new ArrayList<>();
-	@ManyToMany(fetch = FetchType.EAGER)
+	private Set<User> contacts = new LinkedHashSet<>();
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+	@OptimisticLock(excluded = true)
+	@ManyToMany
 	@JoinTable(name = "contact_requests_sent", joinColumns = @JoinColumn(name = "sender_id"), inverseJoinColumns = @JoinColumn(name = "recipient_id"))
-	private List<User> sentContactInvites = new ArrayList<>();
-	@ManyToMany(mappedBy = "sentContactInvites", fetch = FetchType.EAGER)
-	private List<User> receivedContactInvites = new ArrayList<>();
+	private Set<User> sentContactInvites = new LinkedHashSet<>();
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+	@ManyToMany(mappedBy = "sentContactInvites")
+	private Set<User> receivedContactInvites = new LinkedHashSet<>();
+	// built on first availability check from calendar and eventInvites
+	@Transient
+	private BusyIntervalIndex busyIndex;
+	@Transient
+	private AvailabilityBitmap availabilityBitmap;
+	// moves on with every change to the calendar or event invites; the index is
+	// rebuilt when next used unless it was kept in step with the change
+	@Transient
+	private long busyChanges;
+	// the number of changes the index reflects
+	@Transient
+	private long indexedBusyChanges;
 
 	public User() {
 		super();
@@ -78,6 +141,14 @@ public class User implements Cloneable {
 		return username;
 	}
 
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
 	public void setUsername(String username) {
 		this.username = username;
 	}
@@ -90,6 +161,7 @@ public class User implements Cloneable {
 		this.password = password;
 	}
 
+	@Override
 	public String getDisplayName() {
 		return displayName;
 	}
@@ -98,8 +170,41 @@ public class User implements Cloneable {
 		this.displayName = displayName;
 	}
 
-	public List<Event> getCalendar() {
-		return calendar;
+	@Override
+	public int getPendingContactInvites() {
+		return pendingContactInvites;
+	}
+
+	public void setPendingContactInvites(int pendingContactInvites) {
+		this.pendingContactInvites = pendingContactInvites;
+	}
+
+	@Override
+	public int getPendingEventInvites() {
+		return pendingEventInvites;
+	}
+
+	public void setPendingEventInvites(int pendingEventInvites) {
+		this.pendingEventInvites = pendingEventInvites;
+	}
+
+	public long getCalendarVersion() {
+		return calendarVersion;
+	}
+
+	public void setCalendarVersion(long calendarVersion) {
+		this.calendarVersion = calendarVersion;
+	}
+
+	/**
+	 * Retrieves the events in the user's calendar. The set cannot be modified, so
+	 * that every change goes through the methods that keep the busy interval
+	 * index in step.
+	 *
+	 * @return a view of the calendar events
+	 */
+	public Set<Event> getCalendar() {
+		return Collections.unmodifiableSet(calendar);
 	}
 
 	/**
@@ -111,19 +216,44 @@ public class User implements Cloneable {
 		return getFutureEvents(calendar);
 	}
 
-	public void setCalendar(List<Event> calendar) {
+	/**
+	 * Retrieves the occurrences of the events in the user's calendar that overlap
+	 * the given range, in start order. Recurring events are only expanded within
+	 * the range.
+	 *
+	 * @param from the start of the range
+	 * @param to   the end of the range
+	 * @return the list of calendar occurrences
+	 */
+	public List<EventOccurrence> getCalendarOccurrences(LocalDateTime from, LocalDateTime to) {
+		List<EventOccurrence> occurrences = new ArrayList<>();
+		for (Event event : calendar) {
+			for (Timeslot timeslot : event.getOccurrences(from, to)) {
+				occurrences.add(new EventOccurrence(event, timeslot));
+			}
+		}
+		occurrences.sort(Comparator.comparing(EventOccurrence::getStartTime));
+		return occurrences;
+	}
+
+	public void setCalendar(Set<Event> calendar) {
 		this.calendar = calendar;
+		busyChanges++;
 	}
 
 	public void addCalendarEvent(Event event) {
-		calendar.add(event);
+		if (calendar.add(event)) {
+			indexBusyEvent(event);
+		}
 	}
 
 	public void removeCalendarEvent(Event event) {
-		calendar.remove(event);
+		if (calendar.remove(event)) {
+			unindexBusyEvent(event);
+		}
 	}
 
-	public List<Event> getCreatedEvents() {
+	public Set<Event> getCreatedEvents() {
 		return createdEvents;
 	}
 
@@ -145,8 +275,15 @@ public class User implements Cloneable {
 		createdEvents.remove(event);
 	}
 
-	public List<Event> getEventInvites() {
-		return eventInvites;
+	/**
+	 * Retrieves the events the user is invited to. The set cannot be modified, so
+	 * that every change goes through the methods that keep the busy interval
+	 * index in step.
+	 *
+	 * @return a view of the event invites
+	 */
+	public Set<Event> getEventInvites() {
+		return Collections.unmodifiableSet(eventInvites);
 	}
 
 	/**
@@ -159,23 +296,28 @@ public class User implements Cloneable {
 		return getFutureEvents(eventInvites);
 	}
 
-	public void setEventInvites(List<Event> eventInvites) {
+	public void setEventInvites(Set<Event> eventInvites) {
 		this.eventInvites = eventInvites;
+		busyChanges++;
 	}
 
 	public void addEventInvite(Event event) {
-		eventInvites.add(event);
+		if (eventInvites.add(event)) {
+			indexBusyEvent(event);
+		}
 	}
 
 	public void removeEventInvite(Event event) {
-		eventInvites.remove(event);
+		if (eventInvites.remove(event)) {
+			unindexBusyEvent(event);
+		}
 	}
 
-	public List<User> getContacts() {
+	public Set<User> getContacts() {
 		return contacts;
 	}
 
-	public void setContacts(List<User> contacts) {
+	public void setContacts(Set<User> contacts) {
 		this.contacts = contacts;
 	}
 
@@ -187,11 +329,11 @@ public class User implements Cloneable {
 		contacts.remove(user);
 	}
 
-	public List<User> getSentContactInvites() {
+	public Set<User> getSentContactInvites() {
 		return sentContactInvites;
 	}
 
-	public void setSentContactInvites(List<User> sentContactInvites) {
+	public void setSentContactInvites(Set<User> sentContactInvites) {
 		this.sentContactInvites = sentContactInvites;
 	}
 
@@ -203,11 +345,11 @@ public class User implements Cloneable {
 		sentContactInvites.remove(user);
 	}
 
-	public List<User> getReceivedContactInvites() {
+	public Set<User> getReceivedContactInvites() {
 		return receivedContactInvites;
 	}
 
-	public void setReceivedContactInvites(List<User> receivedContactInvites) {
+	public void setReceivedContactInvites(Set<User> receivedContactInvites) {
 		this.receivedContactInvites = receivedContactInvites;
 	}
 
@@ -226,12 +368,14 @@ public class User implements Cloneable {
 		cloned.setPassword(password);
 		cloned.setDisplayName(displayName);
 		cloned.setUsername(username);
-		cloned.calendar = new ArrayList<>(calendar);
-		cloned.contacts = new ArrayList<>(contacts);
-		cloned.createdEvents = new ArrayList<>(createdEvents);
-		cloned.eventInvites = new ArrayList<>(eventInvites);
-		cloned.receivedContactInvites = new ArrayList<>(receivedContactInvites);
-		cloned.sentContactInvites = new ArrayList<>(sentContactInvites);
+		cloned.setVersion(version);
+		cloned.setCalendarVersion(calendarVersion);
+		cloned.calendar = new LinkedHashSet<>(calendar);
+		cloned.contacts = new LinkedHashSet<>(contacts);
+		cloned.createdEvents = new LinkedHashSet<>(createdEvents);
+		cloned.eventInvites = new LinkedHashSet<>(eventInvites);
+		cloned.receivedContactInvites = new LinkedHashSet<>(receivedContactInvites);
+		cloned.sentContactInvites = new LinkedHashSet<>(sentContactInvites);
 		return cloned;
 	}
 
@@ -243,45 +387,118 @@ public class User implements Cloneable {
 	 * @return {@code true} if the timeslot is available, {@code false} otherwise
 	 */
 	public boolean isTimeslotAvailable(Timeslot timeslot) {
-		for (Event e : getCalendar()) {
-			if (e.doesEventClash(timeslot)) {
-				return false;
+		return !getBusyIndex().overlaps(timeslot.getStartMinute(), timeslot.getEndMinute());
+	}
+
+	/**
+	 * Retrieves the index of busy intervals covering the user's calendar and
+	 * pending event invites, building it if it has not been built yet or if the
+	 * calendar or event invites have changed in a way it was not kept in step
+	 * with, such as being replaced.
+	 *
+	 * @return the busy interval index for this user
+	 */
+	@Override
+	public BusyIntervalIndex getBusyIndex() {
+		if (busyIndex == null || indexedBusyChanges != busyChanges) {
+			busyIndex = buildBusyIndex();
+			indexedBusyChanges = busyChanges;
+		}
+		return busyIndex;
+	}
+
+	/**
+	 * Builds a new index of busy intervals covering the user's calendar and
+	 * pending event invites, which is not kept by the user and so is not changed
+	 * when the user's calendar is.
+	 *
+	 * @return a new busy interval index for this user
+	 */
+	public BusyIntervalIndex buildBusyIndex() {
+		BusyIntervalIndex index = new BusyIntervalIndex();
+		calendar.forEach(index::add);
+		eventInvites.forEach(index::add);
+		return index;
+	}
+
+	/**
+	 * Retrieves the free/busy bitmap of the user's calendar and pending event
+	 * invites at {@link Event#minIntervalMinutes} granularity. Days are built on
+	 * first use and rebuilt only when an event touching them changes.
+	 *
+	 * @return the availability bitmap for this user
+	 */
+	@Override
+	public AvailabilityBitmap getAvailabilityBitmap() {
+		BusyIntervalIndex index = getBusyIndex();
+		if (availabilityBitmap == null || !availabilityBitmap.isBuiltFrom(index, Event.minIntervalMinutes)) {
+			availabilityBitmap = new AvailabilityBitmap(index, Event.minIntervalMinutes);
+		}
+		return availabilityBitmap;
+	}
+
+	private void indexBusyEvent(Event event) {
+		// only an index that is up to date is kept in step; any other is rebuilt
+		if (busyIndex != null && indexedBusyChanges == busyChanges) {
+			busyIndex.add(event);
+			indexedBusyChanges++;
+			if (availabilityBitmap != null) {
+				availabilityBitmap.invalidate(event);
 			}
 		}
-		for (Event e : getEventInvites()) {
-			if (e.doesEventClash(timeslot)) {
-				return false;
+		busyChanges++;
+	}
+
+	private void unindexBusyEvent(Event event) {
+		if (busyIndex != null && indexedBusyChanges == busyChanges) {
+			busyIndex.remove(event);
+			indexedBusyChanges++;
+			if (availabilityBitmap != null) {
+				availabilityBitmap.invalidate(event);
 			}
 		}
-		return true;
+		busyChanges++;
 	}
 
-	private List<Event> getFutureEvents(List<Event> events) {
-		return events.stream().filter(x -> x.getStartTime().isAfter(LocalDateTime.now())).toList();
+	private List<Event> getFutureEvents(Set<Event> events) {
+		LocalDateTime now = LocalDateTime.now();
+		// a series that started in the past is still shown while it has occurrences
+		// to come
+		return events.stream()
+				.filter(x -> x.getStartTime().isAfter(now) || x.isRecurring() && x.hasOccurrenceAfter(now)).toList();
 	}
 
+	/**
+	 * Returns a hash code based on the username, which is the natural key of a
+	 * user. It does not change when the user's collections do, so a user keeps
+	 * its place in the hash sets of other users and events.
+	 *
+	 * @return the hash code of the username
+	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(calendar, contacts, createdEvents, displayName, eventInvites, id, password,
-				receivedContactInvites, sentContactInvites, username);
+		return Objects.hashCode(username);
 	}
 
+	/**
+	 * Compares users by username, which is unique and never changed once set.
+	 * Collections are not compared, so checking whether a user is in another
+	 * user's contacts costs the same however many contacts either has. A user
+	 * without a username is only equal to itself.
+	 *
+	 * @param obj the object to compare with
+	 * @return {@code true} if the object is a user with the same username,
+	 *         {@code false} otherwise
+	 */
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
+		// instanceof rather than getClass() so a lazy-loading proxy equals the user
+		if (!(obj instanceof User))
 			return false;
 		User other = (User) obj;
-		return Objects.equals(calendar, other.calendar) && Objects.equals(contacts, other.contacts)
-				&& Objects.equals(createdEvents, other.createdEvents) && Objects.equals(displayName, other.displayName)
-				&& Objects.equals(eventInvites, other.eventInvites) && id == other.id
-				&& Objects.equals(password, other.password)
-				&& Objects.equals(receivedContactInvites, other.receivedContactInvites)
-				&& Objects.equals(sentContactInvites, other.sentContactInvites)
-				&& Objects.equals(username, other.username);
+		return username != null && username.equals(other.getUsername());
 	}
 
 }
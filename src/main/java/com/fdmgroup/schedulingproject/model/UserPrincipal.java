@@ -0,0 +1,105 @@
+package com.fdmgroup.schedulingproject.model;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * An immutable snapshot of the logged in user's identity, kept in the session
+ * so that pages which only need to know who the user is can be served without
+ * loading the user. The snapshot records the user's version, which changes
+ * whenever the username, password or display name is updated, so it is
+ * revalidated by comparing a single column rather than reloading the user.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public class UserPrincipal implements Serializable {
+
+	private static final long serialVersionUID = 4181559023742613029L;
+
+	private final long id;
+	private final String username;
+	private final String displayName;
+	private final long version;
+	private final Instant validatedAt;
+
+	/**
+	 * Creates a new UserPrincipal instance with the specified identity, validated
+	 * at the specified time.
+	 *
+	 * @param id          the id of the user
+	 * @param username    the username of the user
+	 * @param displayName the display name of the user
+	 * @param version     the version of the user the snapshot was taken from
+	 * @param validatedAt when the snapshot was last known to match the user
+	 */
+	public UserPrincipal(long id, String username, String displayName, long version, Instant validatedAt) {
+		this.id = id;
+		this.username = username;
+		this.displayName = displayName;
+		this.version = version;
+		this.validatedAt = validatedAt;
+	}
+
+	/**
+	 * Takes a snapshot of a user's identity, validated now.
+	 *
+	 * @param user the user
+	 * @return the snapshot of the user
+	 */
+	public static UserPrincipal of(User user) {
+		return new UserPrincipal(user.getId(), user.getUsername(), user.getDisplayName(), user.getVersion(),
+				Instant.now());
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public String getDisplayName() {
+		return displayName;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public Instant getValidatedAt() {
+		return validatedAt;
+	}
+
+	/**
+	 * Checks if the snapshot has gone longer than the given interval without
+	 * being validated.
+	 *
+	 * @param interval the longest time a snapshot is trusted without validating
+	 *                 it
+	 * @param now      the current time
+	 * @return {@code true} if the snapshot should be validated again,
+	 *         {@code false} otherwise
+	 */
+	public boolean isStale(Duration interval, Instant now) {
+		return !validatedAt.plus(interval).isAfter(now);
+	}
+
+	/**
+	 * Returns a copy of this snapshot validated at the given time, for when the
+	 * user's version is found to be unchanged.
+	 *
+	 * @param now the current time
+	 * @return the revalidated snapshot
+	 */
+	public UserPrincipal validatedAt(Instant now) {
+		return new UserPrincipal(id, username, displayName, version, now);
+	}
+
+	@Override
+	public String toString() {
+		return "UserPrincipal [id=" + id + ", username=" + username + ", version=" + version + "]";
+	}
+}
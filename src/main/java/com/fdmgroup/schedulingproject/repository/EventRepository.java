@@ -1,20 +1,435 @@
 package com.fdmgroup.schedulingproject.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.fdmgroup.schedulingproject.dto.EventSummary;
+import com.fdmgroup.schedulingproject.dto.SlotOccupancy;
+import com.fdmgroup.schedulingproject.dto.UserBusyInterval;
+import com.fdmgroup.schedulingproject.dto.UserRecurringEvent;
 import com.fdmgroup.schedulingproject.model.Event;
 
+import jakarta.persistence.QueryHint;
+
 /**
  * Repository interface for managing Event entities. The EventRepository
  * interface extends the JpaRepository interface provided by Spring Data JPA,
- * allowing for CRUD (Create, Read, Update, Delete) operations on Event
- * entities. It provides methods for accessing and manipulating Event data in
- * the underlying database.
- * 
+ * allowing for CRUD (Create, Read, Update, Delete) operations on Event entities.
+ * It provides methods for accessing and manipulating Event data in the
+ * underlying database, including range queries for events overlapping a given
+ * interval.
+ *
+ * Intervals are half-open, so an event ending at the same time another starts
+ * does not overlap it. The occurrences of a recurring event are not stored, so
+ * the spanning queries return the recurring events whose series covers part of
+ * an interval, along with the one-off events overlapping it, so that their
+ * occurrences can be checked with {@link Event#overlaps(long, long)}. The
+ * occupancy queries count both kinds instead of loading them, so that a slot
+ * taken by a one-off event, or covered by no series at all, is settled by one
+ * query.
+ *
  * @author Sam Artigolle
  * @version 1.0
  */
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long> {
+	// the columns of an EventSummary, for queries reading events e
+	String SUMMARY_COLUMNS = "select e.id as id, e.title as title, e.startTime as startTime,"
+			+ " e.durationMinutes as durationMinutes, e.endTime as endTime, e.location as location,"
+			+ " e.recurrence as recurrence";
+	// the columns of a SlotOccupancy, for queries reading events e spanning an
+	// interval, where a one-off event spans it only if it overlaps it
+	String OCCUPANCY_COLUMNS = "select coalesce(sum(case when e.recurrence.frequency is null then 1 else 0 end), 0)"
+			+ " as oneOffEvents, coalesce(sum(case when e.recurrence.frequency is null then 0 else 1 end), 0)"
+			+ " as series";
+
+	/**
+	 * Retrieves the events attended by a user that overlap the interval [start,
+	 * end).
+	 *
+	 * @param userId the ID of the attendee
+	 * @param start  the start of the interval
+	 * @param end    the end of the interval
+	 * @return the overlapping events ordered by start time
+	 */
+	@Query("select e from Event e join e.attendees a where a.id = :userId"
+			+ " and e.startTime < :end and e.endTime > :start order by e.startTime")
+	List<Event> findOverlappingByAttendee(@Param("userId") long userId, @Param("start") LocalDateTime start,
+			@Param("end") LocalDateTime end);
+
+	/**
+	 * Retrieves the events a user is invited to that overlap the interval [start,
+	 * end).
+	 *
+	 * @param userId the ID of the invitee
+	 * @param start  the start of the interval
+	 * @param end    the end of the interval
+	 * @return the overlapping events ordered by start time
+	 */
+	@Query("select e from Event e join e.invitees i where i.id = :userId"
+			+ " and e.startTime < :end and e.endTime > :start order by e.startTime")
+	List<Event> findOverlappingByInvitee(@Param("userId") long userId, @Param("start") LocalDateTime start,
+			@Param("end") LocalDateTime end);
+
+	/**
+	 * Retrieves the events organised by a user that overlap the interval [start,
+	 * end).
+	 *
+	 * @param userId the ID of the organiser
+	 * @param start  the start of the interval
+	 * @param end    the end of the interval
+	 * @return the overlapping events ordered by start time
+	 */
+	@Query("select e from Event e where e.organiser.id = :userId"
+			+ " and e.startTime < :end and e.endTime > :start order by e.startTime")
+	List<Event> findOverlappingByOrganiser(@Param("userId") long userId, @Param("start") LocalDateTime start,
+			@Param("end") LocalDateTime end);
+
+	/**
+	 * Checks if a user attends or is invited to an event. Each is looked up by
+	 * the event and user in the primary key of its join table, so neither the
+	 * attendees nor the invitees of the event are loaded.
+	 *
+	 * @param eventId the ID of the event
+	 * @param userId  the ID of the user
+	 * @return {@code true} if the user attends or is invited to the event,
+	 *         {@code false} otherwise
+	 */
+	@Query("select case when count(e) > 0 then true else false end from Event e where e.id = :eventId"
+			+ " and (exists (select a.id from e.attendees a where a.id = :userId)"
+			+ " or exists (select i.id from e.invitees i where i.id = :userId))")
+	boolean existsAttendeeOrInvitee(@Param("eventId") long eventId, @Param("userId") long userId);
+
+	/**
+	 * Counts the events booked into a room that take up part of the interval
+	 * [start, end): the one-off events overlapping it and the recurring events
+	 * whose series covers part of it.
+	 *
+	 * @param roomId the ID of the room
+	 * @param start  the start of the interval
+	 * @param end    the end of the interval
+	 * @return the number of each kind of event
+	 */
+	@Query(OCCUPANCY_COLUMNS + " from Event e where e.room.id = :roomId"
+			+ " and e.startTime < :end and (e.seriesEnd is null or e.seriesEnd > :start)")
+	SlotOccupancy findOccupancyInRoom(@Param("roomId") long roomId, @Param("start") LocalDateTime start,
+			@Param("end") LocalDateTime end);
+
+	/**
+	 * Counts the events in a user's calendar, i.e. ones they attend or organise,
+	 * that take up part of the interval [start, end), as with
+	 * {@link #findOccupancyInRoom}.
+	 *
+	 * @param userId the ID of the user
+	 * @param start  the start of the interval
+	 * @param end    the end of the interval
+	 * @return the number of each kind of event
+	 */
+	@Query(OCCUPANCY_COLUMNS + " from Event e left join e.attendees a"
+			+ " where (e.organiser.id = :userId or a.id = :userId) and e.startTime < :end and (e.seriesEnd is null or e.seriesEnd > :start)")
+	SlotOccupancy findOccupancyInCalendar(@Param("userId") long userId, @Param("start") LocalDateTime start,
+			@Param("end") LocalDateTime end);
+
+	/**
+	 * Counts the events in the calendars or pending invites of any of the given
+	 * users that take up part of the interval [start, end), as with
+	 * {@link #findOccupancyInRoom}.
+	 *
+	 * @param userIds the IDs of the users
+	 * @param start   the start of the interval
+	 * @param end     the end of the interval
+	 * @return the number of each kind of event
+	 */
+	@Query(OCCUPANCY_COLUMNS + " from Event e left join e.attendees a left join e.invitees i"
+			+ " where (e.organiser.id in :userIds or a.id in :userIds or i.id in :userIds)"
+			+ " and e.startTime < :end and (e.seriesEnd is null or e.seriesEnd > :start)")
+	SlotOccupancy findOccupancyForAnyUser(@Param("userIds") Collection<Long> userIds,
+			@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+	/**
+	 * Retrieves the events booked into a room whose series covers part of the
+	 * interval [start, end). One-off events are returned if they overlap it.
+	 *
+	 * @param roomId the ID of the room
+	 * @param start  the start of the interval
+	 * @param end    the end of the interval
+	 * @return the spanning events
+	 */
+	@Query("select e from Event e where e.room.id = :roomId"
+			+ " and e.startTime < :end and (e.seriesEnd is null or e.seriesEnd > :start)")
+	List<Event> findSpanningInRoom(@Param("roomId") long roomId, @Param("start") LocalDateTime start,
+			@Param("end") LocalDateTime end);
+
+	/**
+	 * Retrieves the recurring events booked into a room whose series covers part
+	 * of the interval [start, end), leaving out the one-off events that
+	 * {@link #findSpanningInRoom} also returns.
+	 *
+	 * @param roomId the ID of the room
+	 * @param start  the start of the interval
+	 * @param end    the end of the interval
+	 * @return the spanning recurring events
+	 */
+	@Query("select e from Event e where e.room.id = :roomId and e.recurrence.frequency is not null"
+			+ " and e.startTime < :end and (e.seriesEnd is null or e.seriesEnd > :start)")
+	List<Event> findRecurringSpanningInRoom(@Param("roomId") long roomId, @Param("start") LocalDateTime start,
+			@Param("end") LocalDateTime end);
+
+	/**
+	 * Retrieves the events in a user's calendar, i.e. ones they attend or
+	 * organise, whose series covers part of the interval [start, end). One-off
+	 * events are returned if they overlap it.
+	 *
+	 * @param userId the ID of the user
+	 * @param start  the start of the interval
+	 * @param end    the end of the interval
+	 * @return the spanning events
+	 */
+	@Query("select distinct e from Event e left join e.attendees a where (e.organiser.id = :userId or a.id = :userId)"
+			+ " and e.startTime < :end and (e.seriesEnd is null or e.seriesEnd > :start)")
+	List<Event> findSpanningInCalendar(@Param("userId") long userId, @Param("start") LocalDateTime start,
+			@Param("end") LocalDateTime end);
+
+	/**
+	 * Retrieves the recurring events in a user's calendar whose series covers
+	 * part of the interval [start, end), leaving out the one-off events that
+	 * {@link #findSpanningInCalendar} also returns.
+	 *
+	 * @param userId the ID of the user
+	 * @param start  the start of the interval
+	 * @param end    the end of the interval
+	 * @return the spanning recurring events
+	 */
+	@Query("select distinct e from Event e left join e.attendees a where (e.organiser.id = :userId or a.id = :userId)"
+			+ " and e.recurrence.frequency is not null"
+			+ " and e.startTime < :end and (e.seriesEnd is null or e.seriesEnd > :start)")
+	List<Event> findRecurringSpanningInCalendar(@Param("userId") long userId, @Param("start") LocalDateTime start,
+			@Param("end") LocalDateTime end);
+
+	/**
+	 * Retrieves the events in the calendars or pending invites of any of the
+	 * given users whose series covers part of the interval [start, end). One-off
+	 * events are returned if they overlap it.
+	 *
+	 * @param userIds the IDs of the users
+	 * @param start   the start of the interval
+	 * @param end     the end of the interval
+	 * @return the spanning events
+	 */
+	@Query("select distinct e from Event e left join e.attendees a left join e.invitees i"
+			+ " where (e.organiser.id in :userIds or a.id in :userIds or i.id in :userIds)"
+			+ " and e.startTime < :end and (e.seriesEnd is null or e.seriesEnd > :start)")
+	List<Event> findSpanningForAnyUser(@Param("userIds") Collection<Long> userIds,
+			@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+	/**
+	 * Retrieves the recurring events in the calendars or pending invites of any
+	 * of the given users whose series covers part of the interval [start, end),
+	 * leaving out the one-off events that {@link #findSpanningForAnyUser} also
+	 * returns.
+	 *
+	 * @param userIds the IDs of the users
+	 * @param start   the start of the interval
+	 * @param end     the end of the interval
+	 * @return the spanning recurring events
+	 */
+	@Query("select distinct e from Event e left join e.attendees a left join e.invitees i"
+			+ " where (e.organiser.id in :userIds or a.id in :userIds or i.id in :userIds)"
+			+ " and e.recurrence.frequency is not null"
+			+ " and e.startTime < :end and (e.seriesEnd is null or e.seriesEnd > :start)")
+	List<Event> findRecurringSpanningForAnyUser(@Param("userIds") Collection<Long> userIds,
+			@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+	/**
+	 * Streams the busy intervals of several users that overlap the interval
+	 * [start, end) from a single query. A user is busy for every one-off event
+	 * they organise or attend and for every one-off event they are invited to.
+	 * Rows come ordered by username and then start time, so all the rows of one
+	 * user are together, and the same interval may appear more than once. Rows
+	 * are fetched from the database in blocks as the stream is read, which must
+	 * be done inside a transaction and the stream closed afterwards.
+	 *
+	 * @param usernames the usernames of the users
+	 * @param start     the start of the interval
+	 * @param end       the end of the interval
+	 * @return the busy intervals of every user
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("select o.username as username, e.startTime as startTime, e.endTime as endTime from Event e"
+			+ " join e.organiser o where o.username in :usernames and e.recurrence.frequency is null"
+			+ " and e.startTime < :end and e.endTime > :start"
+			+ " union all select a.username as username, e.startTime as startTime, e.endTime as endTime from Event e"
+			+ " join e.attendees a where a.username in :usernames and e.recurrence.frequency is null"
+			+ " and e.startTime < :end and e.endTime > :start"
+			+ " union all select i.username as username, e.startTime as startTime, e.endTime as endTime from Event e"
+			+ " join e.invitees i where i.username in :usernames and e.recurrence.frequency is null"
+			+ " and e.startTime < :end and e.endTime > :start"
+			+ " order by username, startTime")
+	Stream<UserBusyInterval> streamBusyIntervalsForUsers(@Param("usernames") Collection<String> usernames,
+			@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+	/**
+	 * Retrieves the recurring events that make several users busy and whose
+	 * series covers part of the interval [start, end), in a single query. A user
+	 * is busy for every recurring event they organise, attend or are invited to.
+	 *
+	 * @param usernames the usernames of the users
+	 * @param start     the start of the interval
+	 * @param end       the end of the interval
+	 * @return the recurring events of every user
+	 */
+	@Query("select o.username as username, e as event from Event e join e.organiser o"
+			+ " where o.username in :usernames and e.recurrence.frequency is not null"
+			+ " and e.startTime < :end and (e.seriesEnd is null or e.seriesEnd > :start)"
+			+ " union all select a.username as username, e as event from Event e join e.attendees a"
+			+ " where a.username in :usernames and e.recurrence.frequency is not null"
+			+ " and e.startTime < :end and (e.seriesEnd is null or e.seriesEnd > :start)"
+			+ " union all select i.username as username, e as event from Event e join e.invitees i"
+			+ " where i.username in :usernames and e.recurrence.frequency is not null"
+			+ " and e.startTime < :end and (e.seriesEnd is null or e.seriesEnd > :start)")
+	List<UserRecurringEvent> findRecurringEventsForUsers(@Param("usernames") Collection<String> usernames,
+			@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+	/**
+	 * Retrieves the columns shown on the calendar page for the one-off events in
+	 * a user's calendar that come after a position in start time and id order.
+	 * The query is driven from the user's calendar entries, which hold the start
+	 * time of their events, and the position is compared with the start time and
+	 * id rather than skipped with an offset, so it seeks through the (user_id,
+	 * start_time, event_id) index however far into the calendar the page is and
+	 * only joins the events on the page.
+	 *
+	 * @param userId    the ID of the user
+	 * @param startTime the start time at the position
+	 * @param id        the event id at the position
+	 * @param page      the number of rows to read, from the first page
+	 * @return the events in start time and id order
+	 */
+	@Query(SUMMARY_COLUMNS + " from CalendarEntry c join c.event e where c.userId = :userId"
+			+ " and (c.startTime > :startTime or (c.startTime = :startTime and c.eventId > :id))"
+			+ " and e.recurrence.frequency is null order by c.startTime, c.eventId")
+	List<EventSummary> findCalendarSummariesAfter(@Param("userId") long userId,
+			@Param("startTime") LocalDateTime startTime, @Param("id") long id, Pageable page);
+
+	/**
+	 * Retrieves the columns shown on the calendar page for the one-off events in
+	 * a user's calendar that come before a position, nearest first, seeking back
+	 * through the same index as {@link #findCalendarSummariesAfter}.
+	 *
+	 * @param userId    the ID of the user
+	 * @param startTime the start time at the position
+	 * @param id        the event id at the position
+	 * @param page      the number of rows to read, from the first page
+	 * @return the events in reverse start time and id order
+	 */
+	@Query(SUMMARY_COLUMNS + " from CalendarEntry c join c.event e where c.userId = :userId"
+			+ " and (c.startTime < :startTime or (c.startTime = :startTime and c.eventId < :id))"
+			+ " and e.recurrence.frequency is null order by c.startTime desc, c.eventId desc")
+	List<EventSummary> findCalendarSummariesBefore(@Param("userId") long userId,
+			@Param("startTime") LocalDateTime startTime, @Param("id") long id, Pageable page);
+
+	/**
+	 * Retrieves the columns shown on the calendar page for the recurring events
+	 * in a user's calendar that are still running after the given time, earliest
+	 * starting first. No occurrence starts before its series does, so a page can
+	 * stop reading once it has enough occurrences before the start of the last
+	 * series read. Their occurrences are worked out from these columns.
+	 *
+	 * @param userId the ID of the user
+	 * @param time   the time to compare
+	 * @param page   the number of rows to read and which page of them
+	 * @return the recurring events in start time and id order
+	 */
+	@Query(SUMMARY_COLUMNS + " from CalendarEntry c join c.event e where c.userId = :userId"
+			+ " and e.recurrence.frequency is not null and (e.seriesEnd is null or e.seriesEnd > :time)"
+			+ " order by c.startTime, c.eventId")
+	List<EventSummary> findCalendarSeriesSummariesAfter(@Param("userId") long userId,
+			@Param("time") LocalDateTime time, Pageable page);
+
+	/**
+	 * Retrieves the columns shown on the calendar page for the recurring events
+	 * in a user's calendar that started before the given time, latest ending
+	 * first, with series that never end before the rest. Every occurrence starts
+	 * before its series ends, so a page can stop reading once it has enough
+	 * occurrences after the end of the last series read.
+	 *
+	 * @param userId the ID of the user
+	 * @param time   the time to compare
+	 * @param page   the number of rows to read and which page of them
+	 * @return the recurring events in reverse series end and id order
+	 */
+	@Query(SUMMARY_COLUMNS + " from CalendarEntry c join c.event e where c.userId = :userId"
+			+ " and c.startTime < :time and e.recurrence.frequency is not null"
+			+ " order by e.seriesEnd desc nulls first, e.id desc")
+	List<EventSummary> findCalendarSeriesSummariesBefore(@Param("userId") long userId,
+			@Param("time") LocalDateTime time, Pageable page);
+
+	/**
+	 * Retrieves the columns shown on the calendar page for a user's pending event
+	 * invites that start after the given time, or are series still running after
+	 * it, and that come after a position in start time and id order. The query
+	 * starts from the user, so a user with no such invites returns a single row
+	 * with a null id.
+	 *
+	 * @param username  the username of the user
+	 * @param now       the current time
+	 * @param startTime the start time at the position
+	 * @param id        the event id at the position
+	 * @param page      the number of rows to read, from the first page
+	 * @return the event invites in start time and id order
+	 */
+	@Query(SUMMARY_COLUMNS + " from User u"
+			+ " left join u.eventInvites e on (e.startTime > :now"
+			+ " or (e.recurrence.frequency is not null and (e.seriesEnd is null or e.seriesEnd > :now)))"
+			+ " and (e.startTime > :startTime or (e.startTime = :startTime and e.id > :id))"
+			+ " where u.username = :username order by e.startTime, e.id")
+	List<EventSummary> findInviteSummariesAfter(@Param("username") String username, @Param("now") LocalDateTime now,
+			@Param("startTime") LocalDateTime startTime, @Param("id") long id, Pageable page);
+
+	/**
+	 * Retrieves the columns shown on the calendar page for a user's pending event
+	 * invites, as with {@link #findInviteSummariesAfter}, that come before a
+	 * position, nearest first.
+	 *
+	 * @param username  the username of the user
+	 * @param now       the current time
+	 * @param startTime the start time at the position
+	 * @param id        the event id at the position
+	 * @param page      the number of rows to read, from the first page
+	 * @return the event invites in reverse start time and id order
+	 */
+	@Query(SUMMARY_COLUMNS + " from User u"
+			+ " left join u.eventInvites e on (e.startTime > :now"
+			+ " or (e.recurrence.frequency is not null and (e.seriesEnd is null or e.seriesEnd > :now)))"
+			+ " and (e.startTime < :startTime or (e.startTime = :startTime and e.id < :id))"
+			+ " where u.username = :username order by e.startTime desc, e.id desc")
+	List<EventSummary> findInviteSummariesBefore(@Param("username") String username, @Param("now") LocalDateTime now,
+			@Param("startTime") LocalDateTime startTime, @Param("id") long id, Pageable page);
+
+	/**
+	 * Invites users to an event with a single multi-row insert, without loading
+	 * or merging the users. The event must already be flushed, and the
+	 * invitations take effect when the enclosing transaction commits. Only the
+	 * cached invitee collections are evicted from the second-level cache.
+	 *
+	 * @param eventId the ID of the event
+	 * @param userIds the IDs of the users to invite
+	 * @return the number of invitations written
+	 */
+	@Modifying
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "event_invitees"))
+	@Query(value = "insert into event_invitees (event_id, user_id)"
+			+ " select :eventId, u.id from user u where u.id in :userIds", nativeQuery = true)
+	int insertInvitations(@Param("eventId") long eventId, @Param("userIds") Collection<Long> userIds);
 }
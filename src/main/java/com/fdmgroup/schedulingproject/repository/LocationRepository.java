@@ -0,0 +1,69 @@
+package com.fdmgroup.schedulingproject.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.fdmgroup.schedulingproject.model.Location;
+
+import jakarta.persistence.LockModeType;
+
+/**
+ * Repository interface for managing Location entities. The LocationRepository
+ * interface extends the JpaRepository interface provided by Spring Data JPA,
+ * allowing for CRUD (Create, Read, Update, Delete) operations on Location
+ * entities, including methods to look up bookable rooms by name.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+@Repository
+public interface LocationRepository extends JpaRepository<Location, Long> {
+	/**
+	 * Retrieves an optional Location entity by its name.
+	 *
+	 * @param name the name of the location to retrieve
+	 * @return an Optional containing the Location entity, or an empty Optional if
+	 *         not found
+	 */
+	Optional<Location> findByName(String name);
+
+	/**
+	 * Retrieves an optional Location entity by its name, locking its row until the
+	 * end of the transaction. A booking takes this lock before checking that the
+	 * room is free, so bookings of the same room are checked one at a time and
+	 * each sees the bookings committed before it.
+	 *
+	 * @param name the name of the location to retrieve
+	 * @return an Optional containing the locked Location entity, or an empty
+	 *         Optional if not found
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select l from Location l where l.name = :name")
+	Optional<Location> findByNameForUpdate(@Param("name") String name);
+
+	/**
+	 * Moves on the booking version of a location, so its cached busy intervals
+	 * are no longer used, as when an event is booked into it. The change is
+	 * relative, so two changes at once never leave the same version.
+	 *
+	 * @param id the ID of the location whose bookings changed
+	 * @return the number of locations updated
+	 */
+	@Modifying
+	@Query("update Location l set l.bookingVersion = l.bookingVersion + 1 where l.id = :id")
+	int incrementBookingVersion(@Param("id") long id);
+
+	/**
+	 * Retrieves every location ordered by name.
+	 *
+	 * @return the list of locations
+	 */
+	List<Location> findAllByOrderByNameAsc();
+}
@@ -0,0 +1,25 @@
+package com.fdmgroup.schedulingproject.repository;
+
+import java.util.Optional;
+
+import com.fdmgroup.schedulingproject.model.User;
+
+/**
+ * Repository fragment that looks users up by their natural id, the username.
+ * It is mixed into {@link UserRepository} so that callers keep using
+ * findByUsername, which resolves through Hibernate's natural-id cache instead
+ * of querying the database on every request.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public interface NaturalIdUserRepository {
+	/**
+	 * Retrieves an optional User entity by its username.
+	 *
+	 * @param username the username of the user to retrieve
+	 * @return an Optional containing the User entity, or an empty Optional if not
+	 *         found
+	 */
+	Optional<User> findByUsername(String username);
+}
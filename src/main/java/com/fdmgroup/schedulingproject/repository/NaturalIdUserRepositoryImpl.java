@@ -0,0 +1,31 @@
+package com.fdmgroup.schedulingproject.repository;
+
+import java.util.Optional;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fdmgroup.schedulingproject.model.User;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Implementation of {@link NaturalIdUserRepository}. A username is resolved to
+ * an id through the natural-id cache and the user is then read from the
+ * second-level cache, so a user seen recently is found without a query. Both
+ * caches are updated by Hibernate when a user is saved.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public class NaturalIdUserRepositoryImpl implements NaturalIdUserRepository {
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<User> findByUsername(String username) {
+		return entityManager.unwrap(Session.class).bySimpleNaturalId(User.class).loadOptional(username);
+	}
+}
@@ -0,0 +1,79 @@
+package com.fdmgroup.schedulingproject.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Repository fragment that changes the invite counts and calendar versions of
+ * users in the database without loading them. It is mixed into
+ * {@link UserRepository}. Each change is a single relative update, so
+ * concurrent changes are all counted, and only the users it updates are
+ * evicted from the second-level cache, once when the update runs and again
+ * when the transaction commits.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public interface UserCounterRepository {
+	/**
+	 * Records that each of the given users has been invited to a new event: their
+	 * calendar version moves on, so their cached busy intervals are no longer
+	 * used, and their pending event invites go up by the given amount, which is
+	 * one for an upcoming event and zero otherwise.
+	 *
+	 * @param userIds          the IDs of the invited users
+	 * @param pendingIncrement the amount to add to each pending event invite count
+	 * @return the number of users updated
+	 */
+	int recordEventInvites(Collection<Long> userIds, int pendingIncrement);
+
+	/**
+	 * Moves on the calendar version of each of the given users, so their cached
+	 * busy intervals are no longer used, as when an event is added to or removed
+	 * from their calendar or event invites. The change is relative, so two
+	 * changes at once never leave the same version.
+	 *
+	 * @param userIds the IDs of the users whose calendars changed
+	 * @return the number of users updated
+	 */
+	int incrementCalendarVersions(Collection<Long> userIds);
+
+	/**
+	 * Adds the given amount to the pending contact invites of a user in the
+	 * database, never going below zero. The change is relative, so concurrent
+	 * invites are all counted.
+	 *
+	 * @param userId the ID of the user
+	 * @param delta  the amount to add, negative when an invite is answered
+	 * @return the number of users updated
+	 */
+	int adjustPendingContactInvites(long userId, int delta);
+
+	/**
+	 * Adds the given amount to the pending event invites of a user in the
+	 * database, never going below zero, as
+	 * {@link #adjustPendingContactInvites(long, int)} does for contact invites.
+	 *
+	 * @param userId the ID of the user
+	 * @param delta  the amount to add, negative when an invite is answered
+	 * @return the number of users updated
+	 */
+	int adjustPendingEventInvites(long userId, int delta);
+
+	/**
+	 * Recounts the event invites waiting for the users invited to an event that
+	 * stopped being upcoming after {@code from} and no later than {@code to},
+	 * which drops those invites from the counts. Other users are not touched.
+	 * An event invite is counted if it starts after {@code to} or is a series
+	 * still running after it, as in
+	 * {@link com.fdmgroup.schedulingproject.model.Event#isUpcomingAt}. A one-off
+	 * event stops being upcoming when it starts and a series when it ends. The
+	 * recount does not depend on the previous counts, so running it again over
+	 * the same range, or on more than one instance, changes nothing.
+	 *
+	 * @param from the end of the range already recounted
+	 * @param to   the current time
+	 * @return the number of users recounted
+	 */
+	int reconcileExpiredEventInvites(LocalDateTime from, LocalDateTime to);
+}
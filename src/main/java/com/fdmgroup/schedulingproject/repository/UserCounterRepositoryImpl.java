@@ -0,0 +1,152 @@
+package com.fdmgroup.schedulingproject.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fdmgroup.schedulingproject.model.User;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+/**
+ * Implementation of {@link UserCounterRepository}. The updates are native, and
+ * a native update names the query spaces it touches so that Hibernate can
+ * evict what it may have changed; given the user table, Hibernate would evict
+ * every cached user and every cached username. The updates here name a space
+ * no entity uses instead, so Hibernate evicts nothing, and the users each
+ * update changes are evicted by id along with their usernames.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+public class UserCounterRepositoryImpl implements UserCounterRepository {
+	// not a table, so no cached entity or collection is taken to be touched
+	static final String COUNTER_SPACE = "user_counters";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	@Transactional
+	public int recordEventInvites(Collection<Long> userIds, int pendingIncrement) {
+		return updateUsers("update user set calendar_version = calendar_version + 1,"
+				+ " pending_event_invites = pending_event_invites + :pendingIncrement where id in :userIds", userIds,
+				Map.of("pendingIncrement", pendingIncrement));
+	}
+
+	@Override
+	@Transactional
+	public int incrementCalendarVersions(Collection<Long> userIds) {
+		return updateUsers("update user set calendar_version = calendar_version + 1 where id in :userIds", userIds,
+				Map.of());
+	}
+
+	@Override
+	@Transactional
+	public int adjustPendingContactInvites(long userId, int delta) {
+		return updateUsers("update user set pending_contact_invites = greatest(pending_contact_invites + :delta, 0)"
+				+ " where id in :userIds", List.of(userId), Map.of("delta", delta));
+	}
+
+	@Override
+	@Transactional
+	public int adjustPendingEventInvites(long userId, int delta) {
+		return updateUsers("update user set pending_event_invites = greatest(pending_event_invites + :delta, 0)"
+				+ " where id in :userIds", List.of(userId), Map.of("delta", delta));
+	}
+
+	@Override
+	@Transactional
+	public int reconcileExpiredEventInvites(LocalDateTime from, LocalDateTime to) {
+		@SuppressWarnings("unchecked")
+		List<Number> userIds = entityManager.createNativeQuery("select distinct i.user_id from event_invitees i"
+				+ " join event e on e.id = i.event_id"
+				+ " where (e.recurrence_frequency is null and e.start_time > :from and e.start_time <= :to)"
+				+ " or (e.recurrence_frequency is not null and e.series_end > :from and e.series_end <= :to)")
+				.setParameter("from", from).setParameter("to", to).getResultList();
+		if (userIds.isEmpty()) {
+			return 0;
+		}
+		return updateUsers("update user u set u.pending_event_invites = (select count(*) from event_invitees i"
+				+ " join event e on e.id = i.event_id where i.user_id = u.id and (e.start_time > :to"
+				+ " or (e.recurrence_frequency is not null and (e.series_end is null or e.series_end > :to))))"
+				+ " where u.id in :userIds", userIds.stream().map(Number::longValue).toList(), Map.of("to", to));
+	}
+
+	/**
+	 * Runs a native update of the given users, then evicts them from the
+	 * second-level cache.
+	 *
+	 * @param sql        the update, which selects the users by the
+	 *                   {@code userIds} parameter
+	 * @param userIds    the IDs of the users to update
+	 * @param parameters the other parameters of the update
+	 * @return the number of users updated
+	 */
+	private int updateUsers(String sql, Collection<Long> userIds, Map<String, Object> parameters) {
+		Query query = entityManager.createNativeQuery(sql).setHint(HibernateHints.HINT_NATIVE_SPACES, COUNTER_SPACE)
+				.setParameter("userIds", userIds);
+		parameters.forEach(query::setParameter);
+		int updated = query.executeUpdate();
+		evictUsers(userIds);
+		return updated;
+	}
+
+	/**
+	 * Evicts the given users and their usernames from the second-level cache, at
+	 * once and again after the transaction commits, so a user read by another
+	 * transaction before the commit is not left cached with the old values.
+	 *
+	 * @param userIds the IDs of the users to evict
+	 */
+	private void evictUsers(Collection<Long> userIds) {
+		SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+		EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(User.class);
+		NaturalIdDataAccess naturalIds = persister.getNaturalIdCacheAccessStrategy();
+		List<Object> naturalIdKeys = new ArrayList<>();
+		if (naturalIds != null) {
+			for (String username : findUsernames(userIds)) {
+				naturalIdKeys.add(naturalIds.generateCacheKey(
+						persister.getNaturalIdMapping().normalizeInput(username), persister, session));
+			}
+		}
+		Cache cache = entityManager.getEntityManagerFactory().getCache();
+		Runnable evict = () -> {
+			userIds.forEach(userId -> cache.evict(User.class, userId));
+			naturalIdKeys.forEach(key -> naturalIds.evict(key));
+		};
+		evict.run();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					evict.run();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Retrieves the usernames of the given users from the database.
+	 *
+	 * @param userIds the IDs of the users
+	 * @return the usernames found, in no particular order
+	 */
+	private List<String> findUsernames(Collection<Long> userIds) {
+		return entityManager.createQuery("select u.username from User u where u.id in :userIds", String.class)
+				.setParameter("userIds", userIds).getResultList();
+	}
+}
@@ -1,10 +1,16 @@
 package com.fdmgroup.schedulingproject.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.fdmgroup.schedulingproject.dto.UserContactRow;
 import com.fdmgroup.schedulingproject.model.User;
 
 /**
@@ -14,17 +20,90 @@ import com.fdmgroup.schedulingproject.model.User;
  * methods for accessing and manipulating User data in the underlying database,
  * including a custom method findByUsername to retrieve a user by username.
  * 
+ * findByUsername is implemented in {@link NaturalIdUserRepository} and is
+ * usually answered from the second-level cache.
+ * 
+ * The associations of a user are loaded lazily, so findByUsername only reads
+ * the user row. Code that needs the user's contacts as entities uses
+ * findWithContactsByUsername, which fetches them through an entity graph;
+ * pages that only display contacts or counts read projections instead.
+ * 
+ * Invite counts and calendar versions are changed in the database by the
+ * updates in {@link UserCounterRepository}, which evict only the users they
+ * change from the second-level cache.
+ * 
  * @author Sam Artigolle
  * @version 1.0
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, NaturalIdUserRepository, UserCounterRepository {
 	/**
-	 * Retrieves an optional User entity by its username.
+	 * Retrieves a user by username together with their contacts.
 	 *
 	 * @param username the username of the user to retrieve
 	 * @return an Optional containing the User entity, or an empty Optional if not
 	 *         found
 	 */
-	Optional<User> findByUsername(String username);
+	@EntityGraph(attributePaths = "contacts")
+	Optional<User> findWithContactsByUsername(String username);
+
+	/**
+	 * Retrieves the version of a user, which changes whenever their username,
+	 * password or display name does, without loading the user.
+	 *
+	 * @param id the ID of the user
+	 * @return an Optional containing the version, or an empty Optional if the user
+	 *         is not found
+	 */
+	@Query("select u.version from User u where u.id = :id")
+	Optional<Long> findVersionById(@Param("id") long id);
+
+	/**
+	 * Retrieves the users with the given usernames in a single query. Unknown
+	 * usernames are left out of the result rather than reported.
+	 *
+	 * @param usernames the usernames of the users to retrieve
+	 * @return the users found, in no particular order
+	 */
+	List<User> findAllByUsernameIn(Collection<String> usernames);
+
+	/**
+	 * Retrieves the IDs of the users with the given usernames, without loading
+	 * the users.
+	 *
+	 * @param usernames the usernames to look up
+	 * @return the IDs of the users found, in no particular order
+	 */
+	@Query("select u.id from User u where u.username in :usernames")
+	List<Long> findIdsByUsernameIn(@Param("usernames") Collection<String> usernames);
+
+	/**
+	 * Retrieves the usernames of the users with the given usernames, without
+	 * loading the users, as they are stored.
+	 *
+	 * @param usernames the usernames to look up
+	 * @return the usernames found, in no particular order
+	 */
+	@Query("select u.username from User u where u.username in :usernames")
+	List<String> findUsernamesIn(@Param("usernames") Collection<String> usernames);
+
+	/**
+	 * Retrieves the username and display name of a user's contacts, of the users
+	 * they have sent contact invites to and of the users who have sent them
+	 * contact invites, each tagged with its relation. The user's own row is
+	 * included as {@link UserContactRow.Relation#SELF}, so an unknown username
+	 * returns no rows.
+	 *
+	 * @param username the username of the user
+	 * @return the rows for the user and everyone on their contacts page
+	 */
+	@Query("select 'SELF' as relation, u.username as username, u.displayName as displayName from User u"
+			+ " where u.username = :username"
+			+ " union all select 'CONTACT' as relation, c.username as username, c.displayName as displayName"
+			+ " from User u join u.contacts c where u.username = :username"
+			+ " union all select 'SENT_INVITE' as relation, c.username as username, c.displayName as displayName"
+			+ " from User u join u.sentContactInvites c where u.username = :username"
+			+ " union all select 'RECEIVED_INVITE' as relation, c.username as username, c.displayName as displayName"
+			+ " from User u join u.receivedContactInvites c where u.username = :username")
+	List<UserContactRow> findContactRowsByUsername(@Param("username") String username);
 }
@@ -0,0 +1,180 @@
+package com.fdmgroup.schedulingproject.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fdmgroup.schedulingproject.model.BusyIntervalIndex;
+import com.fdmgroup.schedulingproject.model.Event;
+import com.fdmgroup.schedulingproject.model.Location;
+import com.fdmgroup.schedulingproject.model.Schedulable;
+import com.fdmgroup.schedulingproject.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * In-process cache of the busy intervals of users and rooms, shared by every
+ * timeslot search so that a user or shared room that takes part in many
+ * searches has its calendar or bookings indexed once. Each user and each room
+ * has one entry, holding the index and the version it was built from: the
+ * calendar version of a user, which moves on whenever their calendar or event
+ * invites change, and the booking version of a room, which moves on whenever
+ * an event is booked into it. A room's entry only covers the bookings around
+ * the searches it was read for, so a room's history is never loaded. An entry
+ * built from another version is rebuilt rather than used. Entries are also evicted once a change is committed, and
+ * the cache is bounded, dropping the entries least likely to be used again
+ * when it is full.
+ *
+ * The cached indexes are not changed once built and may be read by many
+ * searches at once.
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+@Component
+public class BusyIntervalCache {
+	private final Cache<Key, Entry> cache;
+
+	/**
+	 * Creates a new BusyIntervalCache instance holding the indexes of at most the
+	 * specified number of users and rooms.
+	 *
+	 * @param maximumSize the largest number of indexes kept
+	 */
+	public BusyIntervalCache(@Value("${scheduling.search.busy-cache-size:10000}") long maximumSize) {
+		cache = Caffeine.newBuilder().maximumSize(maximumSize).build();
+	}
+
+	/**
+	 * Retrieves the busy intervals of a participant in a search, from the cache
+	 * for a saved user and otherwise from the participant itself. Saved rooms are
+	 * read over a window by {@link #getRoomBusyIndex}; unsaved users and rooms
+	 * are not cached.
+	 *
+	 * @param participant the user or room taking part in the search
+	 * @return the busy interval index of the participant
+	 */
+	public BusyIntervalIndex getBusyIndex(Schedulable participant) {
+		if (!(participant instanceof User user) || user.getId() == 0) {
+			return participant.getBusyIndex();
+		}
+		Key key = new Key(User.class, user.getId());
+		Entry entry = cache.getIfPresent(key);
+		if (entry == null || entry.version() != user.getCalendarVersion()) {
+			// a search holding an older copy of the user may replace a newer entry,
+			// which is then rebuilt by the next search holding the newer copy
+			entry = new Entry(user.getCalendarVersion(), Long.MIN_VALUE, Long.MAX_VALUE, user.buildBusyIndex());
+			cache.put(key, entry);
+		}
+		return entry.index();
+	}
+
+	/**
+	 * Retrieves the busy intervals of a room over the window of a search, from
+	 * the cache for a saved room and otherwise from the room itself. A saved room
+	 * is indexed from the bookings within a range around a window only, read by
+	 * the given query over the window widened by its own length on each side, so
+	 * that searches made around the same time share them. The entry is used by
+	 * every search whose window lies within its range while the room's booking
+	 * version is unchanged, and is read again otherwise.
+	 *
+	 * @param room         the room taking part in the search
+	 * @param windowStart  the start of the window in epoch minutes
+	 * @param windowEnd    the end of the window in epoch minutes
+	 * @param findBookings reads the events booked into the room whose series
+	 *                     covers part of a range
+	 * @return the busy interval index of the room, covering at least the window
+	 */
+	public BusyIntervalIndex getRoomBusyIndex(Location room, long windowStart, long windowEnd,
+			BiFunction<LocalDateTime, LocalDateTime, List<Event>> findBookings) {
+		if (room.getId() == 0) {
+			return room.getBusyIndex();
+		}
+		Key key = new Key(Location.class, room.getId());
+		Entry entry = cache.getIfPresent(key);
+		if (entry == null || entry.version() != room.getBookingVersion() || windowStart < entry.from()
+				|| windowEnd > entry.to()) {
+			long length = windowEnd - windowStart;
+			long from = windowStart - length;
+			long to = windowEnd + length;
+			BusyIntervalIndex index = new BusyIntervalIndex();
+			findBookings.apply(BusyIntervalIndex.toDateTime(from), BusyIntervalIndex.toDateTime(to))
+					.forEach(index::add);
+			entry = new Entry(room.getBookingVersion(), from, to, index);
+			cache.put(key, entry);
+		}
+		return entry.index();
+	}
+
+	/**
+	 * Checks if the busy intervals of a participant are kept in the cache.
+	 *
+	 * @param participant the user or room taking part in a search
+	 * @return {@code true} if the participant is a saved user or room,
+	 *         {@code false} otherwise
+	 */
+	public boolean caches(Schedulable participant) {
+		return participant instanceof User user && user.getId() != 0
+				|| participant instanceof Location room && room.getId() != 0;
+	}
+
+	/**
+	 * Evicts the busy intervals cached for the given users, whose calendars are
+	 * changing. Inside a transaction the users are evicted once it commits, so a
+	 * search running meanwhile cannot cache the old calendar again after the
+	 * eviction; otherwise they are evicted at once.
+	 *
+	 * @param userIds the IDs of the users whose calendars are changing
+	 */
+	public void evict(Collection<Long> userIds) {
+		invalidate(userIds.stream().map(userId -> new Key(User.class, userId)).toList());
+	}
+
+	/**
+	 * Evicts the busy intervals cached for a room whose bookings are changing,
+	 * once the transaction commits as {@link #evict(Collection)} does for users.
+	 *
+	 * @param roomId the ID of the room whose bookings are changing
+	 */
+	public void evictRoom(long roomId) {
+		invalidate(List.of(new Key(Location.class, roomId)));
+	}
+
+	private void invalidate(List<Key> keys) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					cache.invalidateAll(keys);
+				}
+			});
+		} else {
+			cache.invalidateAll(keys);
+		}
+	}
+
+	/**
+	 * Retrieves the approximate number of indexes in the cache.
+	 *
+	 * @return the number of cached indexes
+	 */
+	public long size() {
+		cache.cleanUp();
+		return cache.estimatedSize();
+	}
+
+	// users and rooms are numbered separately, so each is keyed by its type too
+	private record Key(Class<? extends Schedulable> type, long id) {
+	}
+
+	// the index holds every busy interval in [from, to), which for a user is
+	// their whole calendar
+	private record Entry(long version, long from, long to, BusyIntervalIndex index) {
+	}
+}
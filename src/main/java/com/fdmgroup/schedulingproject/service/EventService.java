@@ -3,26 +3,65 @@ package com.fdmgroup.schedulingproject.service;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.fdmgroup.schedulingproject.model.TimeslotTimeComparator;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.fdmgroup.schedulingproject.dto.EventSummary;
+import com.fdmgroup.schedulingproject.dto.SlotOccupancy;
+import com.fdmgroup.schedulingproject.dto.UserBusyInterval;
+import com.fdmgroup.schedulingproject.dto.UserRecurringEvent;
 import com.fdmgroup.schedulingproject.exception.EventAlreadyInCalendarException;
 import com.fdmgroup.schedulingproject.exception.EventClashException;
 import com.fdmgroup.schedulingproject.exception.EventNotFoundException;
+import com.fdmgroup.schedulingproject.exception.OccurrenceNotFoundException;
+import com.fdmgroup.schedulingproject.exception.RoomAlreadyExistsException;
+import com.fdmgroup.schedulingproject.exception.RoomUnavailableException;
 import com.fdmgroup.schedulingproject.exception.UserNotFoundException;
 import com.fdmgroup.schedulingproject.exception.UserNotInvitedException;
+import com.fdmgroup.schedulingproject.exception.UserNotOrganiserException;
+import com.fdmgroup.schedulingproject.model.AvailabilityBitmap;
+import com.fdmgroup.schedulingproject.model.AvailabilityGrid;
+import com.fdmgroup.schedulingproject.model.AvailabilityView;
+import com.fdmgroup.schedulingproject.model.BusyIntervalIndex;
 import com.fdmgroup.schedulingproject.model.Event;
+import com.fdmgroup.schedulingproject.model.EventOccurrence;
+import com.fdmgroup.schedulingproject.model.FreeBusyTimeline;
+import com.fdmgroup.schedulingproject.model.KeysetPage;
+import com.fdmgroup.schedulingproject.model.Location;
+import com.fdmgroup.schedulingproject.model.PageCursor;
+import com.fdmgroup.schedulingproject.model.Schedulable;
 import com.fdmgroup.schedulingproject.model.Timeslot;
+import com.fdmgroup.schedulingproject.model.TimeslotSearchResult;
 import com.fdmgroup.schedulingproject.model.User;
 import com.fdmgroup.schedulingproject.repository.EventRepository;
+import com.fdmgroup.schedulingproject.repository.LocationRepository;
 import com.fdmgroup.schedulingproject.repository.UserRepository;
 
 /**
@@ -40,9 +79,33 @@ public class EventService {
 	private EventRepository eventRepo;
 	@Autowired
 	private UserRepository userRepo;
+	@Autowired
+	private LocationRepository locationRepo;
+	@Autowired
+	private BusyIntervalCache busyIntervalCache;
+	@Value("${scheduling.availability.bitmaps:false}")
+	private boolean useAvailabilityBitmaps;
+	@Value("${scheduling.search.horizon-days:14}")
+	private int searchHorizonDays = 14;
+	@Value("${scheduling.search.deadline-millis:2000}")
+	private long searchDeadlineMillis = 2000;
+	@Value("${scheduling.search.max-candidates:100}")
+	private int searchMaxCandidates = 100;
+	@Value("${scheduling.recurrence.check-days:365}")
+	private int recurrenceCheckDays = 365;
 
 	private Logger logger = LogManager.getLogger(EventService.class);
 
+	// pages of the calendar and invites are in start time order, then event id
+	private static final Comparator<EventOccurrence> OCCURRENCE_ORDER = Comparator
+			.comparing(EventOccurrence::getStartTime).thenComparingLong(EventOccurrence::getId);
+	// before the start of any invite, so the first page reads from the beginning
+	private static final PageCursor FIRST_INVITE = new PageCursor(LocalDateTime.of(1970, 1, 1, 0, 0), 0);
+
+	// timeslot searches that are running, by what they search for
+	private final ConcurrentMap<SearchKey, CompletableFuture<TimeslotSearchResult>> inFlightSearches =
+			new ConcurrentHashMap<>();
+
 	public void setEventRepository(EventRepository eventRepo) {
 		this.eventRepo = eventRepo;
 	}
@@ -51,6 +114,34 @@ public class EventService {
 		this.userRepo = userRepo;
 	}
 
+	public void setLocationRepository(LocationRepository locationRepo) {
+		this.locationRepo = locationRepo;
+	}
+
+	public void setBusyIntervalCache(BusyIntervalCache busyIntervalCache) {
+		this.busyIntervalCache = busyIntervalCache;
+	}
+
+	public void setUseAvailabilityBitmaps(boolean useAvailabilityBitmaps) {
+		this.useAvailabilityBitmaps = useAvailabilityBitmaps;
+	}
+
+	public void setSearchHorizonDays(int searchHorizonDays) {
+		this.searchHorizonDays = searchHorizonDays;
+	}
+
+	public void setSearchDeadlineMillis(long searchDeadlineMillis) {
+		this.searchDeadlineMillis = searchDeadlineMillis;
+	}
+
+	public void setSearchMaxCandidates(int searchMaxCandidates) {
+		this.searchMaxCandidates = searchMaxCandidates;
+	}
+
+	public void setRecurrenceCheckDays(int recurrenceCheckDays) {
+		this.recurrenceCheckDays = recurrenceCheckDays;
+	}
+
 	/**
 	 * Accepts an event invitation for a user.
 	 *
@@ -77,6 +168,7 @@ public class EventService {
 			if (user.getCalendar().contains(event)) {
 				// event already accepted, remove invite
 				user.removeEventInvite(event);
+				event.removeInvitee(user);
 				throw new EventAlreadyInCalendarException();
 			}
 			if (!user.getEventInvites().contains(event)) {
@@ -85,12 +177,16 @@ public class EventService {
 			if (doesEventClashWithCalendar(user, event)) {
 				throw new EventClashException();
 			}
+			recordCalendarChange(user);
+			// the event owns its attendees and invitees, so only its join tables
+			// are written; the user's side is kept in step for the rest of the
+			// transaction
 			user.removeEventInvite(event);
 			user.addCalendarEvent(event);
 			event.removeInvitee(user);
 			event.addAttendee(user);
+			decrementPendingEventInvites(user, event);
 
-			userRepo.save(user);
 			eventRepo.save(event);
 		} catch (NumberFormatException nfe) {
 			throw new EventNotFoundException();
@@ -120,35 +216,204 @@ public class EventService {
 			if (user.getCalendar().contains(event)) {
 				// event already accepted, remove invite
 				user.removeEventInvite(event);
+				event.removeInvitee(user);
 				throw new EventAlreadyInCalendarException();
 			}
 			if (!user.getEventInvites().contains(event)) {
 				throw new UserNotInvitedException();
 			}
+			recordCalendarChange(user);
 			user.removeEventInvite(event);
 			event.removeInvitee(user);
+			decrementPendingEventInvites(user, event);
 
-			userRepo.save(user);
 			eventRepo.save(event);
 		} catch (NumberFormatException nfe) {
 			throw new EventNotFoundException();
 		}
 	}
 
+	/**
+	 * Cancels a single occurrence of a recurring event, leaving the rest of the
+	 * series in place. Only the organiser may cancel an occurrence. The attendees
+	 * and invitees, and any room the event is booked into, are no longer busy
+	 * during the occurrence, so their calendar and booking versions are moved on
+	 * and their cached busy intervals evicted once the change is committed.
+	 *
+	 * @param username        the username of the organiser
+	 * @param eventId         the ID of the recurring event
+	 * @param occurrenceStart the start time of the occurrence to cancel
+	 * @throws EventNotFoundException      if the event is not found
+	 * @throws UserNotOrganiserException   if the user is not the organiser of the
+	 *                                     event
+	 * @throws OccurrenceNotFoundException if the event is not recurring or has no
+	 *                                     occurrence starting at the given time
+	 */
+	@Transactional
+	public void cancelOccurrence(String username, String eventId, LocalDateTime occurrenceStart)
+			throws EventNotFoundException, UserNotOrganiserException, OccurrenceNotFoundException {
+		try {
+			long longId = Long.parseLong(eventId);
+			Event event = eventRepo.findById(longId).orElseThrow(EventNotFoundException::new);
+			if (!event.getOrganiser().getUsername().equalsIgnoreCase(username)) {
+				throw new UserNotOrganiserException();
+			}
+			if (!event.isRecurring()) {
+				throw new OccurrenceNotFoundException();
+			}
+			List<Timeslot> next = event.getOccurrencesFrom(occurrenceStart, 1);
+			if (next.isEmpty() || !next.get(0).getStart().equals(occurrenceStart)) {
+				// no occurrence at that time, or it is already cancelled
+				throw new OccurrenceNotFoundException();
+			}
+			List<Long> userIds = new ArrayList<>();
+			event.getAttendees().forEach(attendee -> userIds.add(attendee.getId()));
+			event.getInvitees().forEach(invitee -> userIds.add(invitee.getId()));
+			userRepo.incrementCalendarVersions(userIds);
+			busyIntervalCache.evict(userIds);
+			if (event.getRoom() != null) {
+				recordBookingChange(event.getRoom());
+			}
+			// replaced rather than changed in place, so the new exceptions are
+			// written when the event is flushed
+			SortedSet<LocalDateTime> exceptions = new TreeSet<>(event.getRecurrence().getExceptions());
+			exceptions.add(occurrenceStart);
+			event.getRecurrence().setExceptions(exceptions);
+
+			eventRepo.save(event);
+		} catch (NumberFormatException nfe) {
+			throw new EventNotFoundException();
+		}
+	}
+
+	/**
+	 * Moves on the calendar version of a user whose calendar or event invites are
+	 * about to change, and evicts their cached busy intervals once the change is
+	 * committed.
+	 *
+	 * @param user the user whose calendar is changing
+	 */
+	private void recordCalendarChange(User user) {
+		userRepo.incrementCalendarVersions(List.of(user.getId()));
+		busyIntervalCache.evict(List.of(user.getId()));
+	}
+
+	/**
+	 * Moves on the booking version of a room whose bookings are about to change,
+	 * and evicts its cached busy intervals once the change is committed.
+	 *
+	 * @param room the room whose bookings are changing
+	 */
+	private void recordBookingChange(Location room) {
+		locationRepo.incrementBookingVersion(room.getId());
+		busyIntervalCache.evictRoom(room.getId());
+	}
+
+	/**
+	 * Reduces the number of pending event invites of a user in the database after
+	 * they answer an invite. An invite to an event that is no longer upcoming is
+	 * not counted, or stops being counted at the next recount, so is left alone.
+	 *
+	 * @param user  the user who answered the invite
+	 * @param event the event the user was invited to
+	 */
+	private void decrementPendingEventInvites(User user, Event event) {
+		if (event.isUpcomingAt(LocalDateTime.now())) {
+			userRepo.adjustPendingEventInvites(user.getId(), -1);
+		}
+	}
+
 	/**
 	 * Checks if an event clashes with any existing events in a user's calendar.
+	 * The calendar is never loaded; see {@link #doesEventClash} for the queries
+	 * run.
 	 *
 	 * @param user  the user to check
 	 * @param event the event to check for clashes
 	 * @return true if the event clashes with any existing events, false otherwise
 	 */
 	private boolean doesEventClashWithCalendar(User user, Event event) {
-		return user.getCalendar().stream().anyMatch(
-				calendarEvent -> calendarEvent.doesEventClash(event.getStartTime(), event.getDurationMinutes()));
+		return doesEventClash(event, (start, end) -> eventRepo.findOccupancyInCalendar(user.getId(), start, end),
+				(start, end) -> eventRepo.findSpanningInCalendar(user.getId(), start, end),
+				(start, end) -> eventRepo.findRecurringSpanningInCalendar(user.getId(), start, end));
+	}
+
+	/**
+	 * Checks if an event clashes with any of the events found by the given
+	 * queries. A one-off event is checked by first counting the events that take
+	 * up its slot: it clashes if a one-off event overlaps it and is free if no
+	 * series covers it, both settled by that one query, and only otherwise are
+	 * the recurring events covering it loaded and their occurrences compared. A
+	 * recurring event loads every event spanning the range it is checked over.
+	 *
+	 * @param event                 the event to check
+	 * @param findOccupancy         counts the events taking up part of a range
+	 * @param findSpanning          finds the events spanning a range
+	 * @param findRecurringSpanning finds the recurring events spanning a range
+	 * @return true if the event clashes with any of the events, false otherwise
+	 */
+	private boolean doesEventClash(Event event,
+			BiFunction<LocalDateTime, LocalDateTime, SlotOccupancy> findOccupancy,
+			BiFunction<LocalDateTime, LocalDateTime, List<Event>> findSpanning,
+			BiFunction<LocalDateTime, LocalDateTime, List<Event>> findRecurringSpanning) {
+		LocalDateTime checkEnd = getClashCheckEnd(event);
+		if (event.isRecurring()) {
+			return doesEventOverlapAny(event, checkEnd, findSpanning.apply(event.getStartTime(), checkEnd));
+		}
+		SlotOccupancy occupancy = findOccupancy.apply(event.getStartTime(), checkEnd);
+		if (occupancy.getOneOffEvents() > 0) {
+			return true;
+		}
+		return occupancy.getSeries() > 0
+				&& doesEventOverlapAny(event, checkEnd, findRecurringSpanning.apply(event.getStartTime(), checkEnd));
+	}
+
+	/**
+	 * Retrieves the end of the range over which an event is checked for clashes.
+	 * A recurring event is only checked for the configured number of days from
+	 * its first occurrence, since its series may never end.
+	 *
+	 * @param event the event to check
+	 * @return the end of the range
+	 */
+	private LocalDateTime getClashCheckEnd(Event event) {
+		if (!event.isRecurring()) {
+			return event.getEndTime();
+		}
+		LocalDateTime checkEnd = event.getStartTime().plusDays(recurrenceCheckDays);
+		LocalDateTime seriesEnd = event.getSeriesEnd();
+		return seriesEnd != null && seriesEnd.isBefore(checkEnd) ? seriesEnd : checkEnd;
+	}
+
+	/**
+	 * Checks if any occurrence of an event before the given time overlaps any
+	 * occurrence of the other events.
+	 *
+	 * @param event    the event to check
+	 * @param checkEnd the end of the range to check
+	 * @param others   the events to compare against
+	 * @return true if there is an overlap, false otherwise
+	 */
+	private boolean doesEventOverlapAny(Event event, LocalDateTime checkEnd, List<Event> others) {
+		if (others.isEmpty()) {
+			return false;
+		}
+		List<Timeslot> occurrences = event.getOccurrences(event.getStartTime(), checkEnd);
+		for (Event other : others) {
+			for (Timeslot occurrence : occurrences) {
+				if (other.overlaps(occurrence.getStartMinute(), occurrence.getEndMinute())) {
+					return true;
+				}
+			}
+		}
+		return false;
 	}
 
 	/**
 	 * Finds suggested timeslots for an event based on the availability of users.
+	 * This is the bounded search of
+	 * {@link #searchTimeslots(User, LocalDateTime, int, List)} without the
+	 * exhausted flag.
 	 *
 	 * @param organiser            the organiser of the event
 	 * @param eventStartTime       the desired start time of the event
@@ -158,100 +423,717 @@ public class EventService {
 	 */
 	public List<Timeslot> findTimeslots(User organiser, LocalDateTime eventStartTime, int eventDurationMinutes,
 			List<User> invitees) {
+		return searchTimeslots(organiser, eventStartTime, eventDurationMinutes, invitees).getTimeslots();
+	}
+
+	/**
+	 * Finds suggested timeslots for an event based on the availability of users.
+	 * The busy time of the organiser and every invitee is combined once, and the
+	 * suggestions are read off the free gaps that remain: the first three free
+	 * slots at or after the requested time, plus any free slots before it that are
+	 * closer than the first of those (or the nearest earlier slot if there are
+	 * none).
+	 *
+	 * The search only looks within the configured horizon either side of the
+	 * requested time, and stops once the deadline passes or the maximum number of
+	 * suggestions has been collected. If it stops early the suggestions found so
+	 * far are returned and the result is marked as exhausted. Recurring events are
+	 * only expanded within the horizon.
+	 *
+	 * @param organiser            the organiser of the event
+	 * @param eventStartTime       the desired start time of the event
+	 * @param eventDurationMinutes the duration of the event in minutes
+	 * @param invitees             the list of users to invite to the event
+	 * @return the suggested timeslots and whether the search was exhausted
+	 */
+	public TimeslotSearchResult searchTimeslots(User organiser, LocalDateTime eventStartTime,
+			int eventDurationMinutes, List<User> invitees) {
+		return searchTimeslots(organiser, eventStartTime, eventDurationMinutes, invitees, null);
+	}
+
+	/**
+	 * Finds suggested timeslots for an event as in
+	 * {@link #searchTimeslots(User, LocalDateTime, int, List)}, also requiring the
+	 * room to be free if the location names a bookable room. The room's bookings
+	 * are combined with the busy time of the people, so a single search finds
+	 * times that suit everyone and the room.
+	 *
+	 * Searches made at the same time for the same people, each with the same
+	 * calendar version, and the same start, duration, granularity and location
+	 * share one run and its result, as when several people propose the same
+	 * meeting at once. Searches involving unsaved users are never shared.
+	 *
+	 * @param organiser            the organiser of the event
+	 * @param eventStartTime       the desired start time of the event
+	 * @param eventDurationMinutes the duration of the event in minutes
+	 * @param invitees             the list of users to invite to the event
+	 * @param location             the location of the event, which may be null
+	 * @return the suggested timeslots and whether the search was exhausted
+	 */
+	public TimeslotSearchResult searchTimeslots(User organiser, LocalDateTime eventStartTime,
+			int eventDurationMinutes, List<User> invitees, String location) {
+		Optional<SearchKey> key = SearchKey.of(organiser, invitees, eventStartTime, eventDurationMinutes, location,
+				useAvailabilityBitmaps);
+		if (key.isEmpty()) {
+			return runTimeslotSearch(organiser, eventStartTime, eventDurationMinutes, invitees, location);
+		}
+		// identical searches made while one is running wait for its result rather
+		// than repeating it; a search that has finished is not kept, so the next
+		// one sees any bookings made since
+		CompletableFuture<TimeslotSearchResult> search = new CompletableFuture<>();
+		CompletableFuture<TimeslotSearchResult> inFlight = inFlightSearches.putIfAbsent(key.get(), search);
+		if (inFlight != null) {
+			try {
+				return inFlight.join();
+			} catch (CompletionException | CancellationException e) {
+				// the shared search failed, so this one is made alone
+				return runTimeslotSearch(organiser, eventStartTime, eventDurationMinutes, invitees, location);
+			}
+		}
+		try {
+			TimeslotSearchResult result = runTimeslotSearch(organiser, eventStartTime, eventDurationMinutes, invitees,
+					location);
+			search.complete(result);
+			return result;
+		} catch (RuntimeException | Error e) {
+			search.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlightSearches.remove(key.get(), search);
+		}
+	}
+
+	/**
+	 * Runs the timeslot search described by
+	 * {@link #searchTimeslots(User, LocalDateTime, int, List, String)}.
+	 *
+	 * @param organiser            the organiser of the event
+	 * @param eventStartTime       the desired start time of the event
+	 * @param eventDurationMinutes the duration of the event in minutes
+	 * @param invitees             the list of users to invite to the event
+	 * @param location             the location of the event, which may be null
+	 * @return the suggested timeslots and whether the search was exhausted
+	 */
+	private TimeslotSearchResult runTimeslotSearch(User organiser, LocalDateTime eventStartTime,
+			int eventDurationMinutes, List<User> invitees, String location) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(searchDeadlineMillis);
+		long horizonMinutes = TimeUnit.DAYS.toMinutes(searchHorizonDays);
+		long requestedMinute = BusyIntervalIndex.toEpochMinute(eventStartTime);
+		int step = Event.minIntervalMinutes;
+		List<Schedulable> participants = new ArrayList<>();
+		participants.add(organiser);
+		participants.addAll(invitees);
+		findRoom(location).ifPresent(participants::add);
+		AvailabilityView availability = getAvailability(participants, requestedMinute,
+				requestedMinute - horizonMinutes, requestedMinute + horizonMinutes + eventDurationMinutes);
+
 		List<Timeslot> suggestedTimes = new ArrayList<>();
-		int offset = 0;
+		boolean exhausted = false;
+		long candidate = availability.findFreeSlotForward(requestedMinute, eventDurationMinutes, step);
+		long maxBackwardsOffset = Math.min(candidate - requestedMinute, horizonMinutes);
 		while (suggestedTimes.size() < 3) {
-			Timeslot testTimeslot = new Timeslot(eventStartTime.plusMinutes(offset), eventDurationMinutes);
-			if (isTimeslotValidForAllUsers(testTimeslot, invitees, organiser)) {
-				suggestedTimes.add(testTimeslot);
+			if (candidate - requestedMinute > horizonMinutes || isSearchLimitReached(suggestedTimes, deadline)) {
+				exhausted = true;
+				break;
 			}
-			offset += Event.minIntervalMinutes;
-		}
-		offset = Event.minIntervalMinutes;
-		long maxBackwardsOffset = Math
-				.abs(Duration.between(suggestedTimes.get(0).getStart(), eventStartTime).toMinutes());
-		if (maxBackwardsOffset == 0) {
-			// don't need to sort since they were added in chronological order
-			logger.trace("Found timeslot suggestions for users " + organiser.getUsername() + ","
-					+ invitees.stream().map(User::getUsername).collect(Collectors.joining(", ")) + ": "
-					+ "requested timeslot=" + eventStartTime + " - " + eventStartTime.plusMinutes(eventDurationMinutes)
-					+ " | valid timeslots="
-					+ suggestedTimes.stream().map(Timeslot::toString).collect(Collectors.joining(", ")));
-			return suggestedTimes;
-		}
-		while (offset <= maxBackwardsOffset || suggestedTimes.size() < 4) {
-			// show a slot before the requested time if it is closer to the suggested time
-			// than the nearest later slot
-			Timeslot testTimeslot = new Timeslot(eventStartTime.minusMinutes(offset), eventDurationMinutes);
-			if (isTimeslotValidForAllUsers(testTimeslot, invitees, organiser)) {
-				suggestedTimes.add(testTimeslot);
+			suggestedTimes.add(
+					new Timeslot(eventStartTime.plusMinutes(candidate - requestedMinute), eventDurationMinutes));
+			candidate = availability.findFreeSlotForward(candidate + step, eventDurationMinutes, step);
+		}
+		if (maxBackwardsOffset != 0) {
+			// show slots before the requested time if they are closer to the suggested
+			// time than the nearest later slot, and at least one earlier slot
+			int forwardCount = suggestedTimes.size();
+			candidate = availability.findFreeSlotBackward(requestedMinute - step, eventDurationMinutes, step);
+			while (requestedMinute - candidate <= maxBackwardsOffset || suggestedTimes.size() == forwardCount) {
+				if (requestedMinute - candidate > horizonMinutes || isSearchLimitReached(suggestedTimes, deadline)) {
+					exhausted = true;
+					break;
+				}
+				suggestedTimes.add(
+						new Timeslot(eventStartTime.minusMinutes(requestedMinute - candidate), eventDurationMinutes));
+				candidate = availability.findFreeSlotBackward(candidate - step, eventDurationMinutes, step);
 			}
-			offset += Event.minIntervalMinutes;
+			suggestedTimes.sort(new TimeslotTimeComparator());
 		}
-		suggestedTimes.sort(new TimeslotTimeComparator());
+		// otherwise don't need to sort since they were added in chronological order
 		logger.trace("Found timeslot suggestions for users " + organiser.getUsername() + ","
 				+ invitees.stream().map(User::getUsername).collect(Collectors.joining(", ")) + ": "
 				+ "requested timeslot=" + eventStartTime + " - " + eventStartTime.plusMinutes(eventDurationMinutes)
 				+ " | valid timeslots="
 				+ suggestedTimes.stream().map(Timeslot::toString).collect(Collectors.joining(", ")));
-		return suggestedTimes;
+		if (exhausted) {
+			logger.warn("Timeslot search for organiser " + organiser.getUsername() + " stopped early at "
+					+ suggestedTimes.size() + " suggestions (horizon=" + searchHorizonDays + " days, deadline="
+					+ searchDeadlineMillis + "ms, max candidates=" + searchMaxCandidates + ")");
+		}
+		return new TimeslotSearchResult(suggestedTimes, exhausted);
 	}
 
 	/**
-	 * Checks if a timeslot is valid for all users.
+	 * Checks if a timeslot search must stop, either because it already holds the
+	 * maximum number of suggestions or because its deadline has passed.
 	 *
-	 * @param timeslot  the timeslot to check
-	 * @param users     the list of users to check for availability
-	 * @param organizer the organizer of the event
-	 * @return true if the timeslot is valid for all users, false otherwise
+	 * @param suggestedTimes the suggestions found so far
+	 * @param deadline       the deadline as a {@link System#nanoTime()} value
+	 * @return true if the search must stop, false otherwise
 	 */
-	private boolean isTimeslotValidForAllUsers(Timeslot timeslot, List<User> users, User organizer) {
-		if (timeslot == null) {
-			return false;
+	private boolean isSearchLimitReached(List<Timeslot> suggestedTimes, long deadline) {
+		return suggestedTimes.size() >= searchMaxCandidates || System.nanoTime() - deadline >= 0;
+	}
+
+	/**
+	 * Combines the busy time of every participant within a window into a single
+	 * view. Availability bitmaps are used when enabled and the search starts on a
+	 * {@link Event#minIntervalMinutes} boundary; otherwise the exact busy
+	 * intervals are merged into a {@link FreeBusyTimeline}. Recurring events are
+	 * expanded within the window only, so the view must not be searched outside
+	 * it.
+	 *
+	 * @param participants the users and rooms taking part in the event
+	 * @param startMinute  the first candidate start in epoch minutes
+	 * @param windowStart  the start of the window in epoch minutes
+	 * @param windowEnd    the end of the window in epoch minutes
+	 * @return the combined availability of all participants
+	 */
+	private AvailabilityView getAvailability(List<Schedulable> participants, long startMinute, long windowStart,
+			long windowEnd) {
+		if (useAvailabilityBitmaps && AvailabilityGrid.supports(startMinute, Event.minIntervalMinutes)) {
+			List<AvailabilityBitmap> bitmaps = new ArrayList<>();
+			for (Schedulable participant : participants) {
+				BusyIntervalIndex index = getBusyIndex(participant, windowStart, windowEnd);
+				// a series that never ends would leave the cached bitmap no free end, so
+				// build one for the window instead; a bitmap fills in its days as they
+				// are searched, so one over a shared index is not shared itself
+				if (index.hasRecurringEvents()) {
+					bitmaps.add(new AvailabilityBitmap(index.expand(windowStart, windowEnd), Event.minIntervalMinutes));
+				} else if (busyIntervalCache.caches(participant)) {
+					bitmaps.add(new AvailabilityBitmap(index, Event.minIntervalMinutes));
+				} else {
+					bitmaps.add(participant.getAvailabilityBitmap());
+				}
+			}
+			return new AvailabilityGrid(bitmaps);
 		}
-		if (!organizer.isTimeslotAvailable(timeslot)) {
-			return false;
+		List<BusyIntervalIndex> busyIndexes = new ArrayList<>();
+		for (Schedulable participant : participants) {
+			busyIndexes.add(getBusyIndex(participant, windowStart, windowEnd).expand(windowStart, windowEnd));
 		}
-		for (User u : users) {
-			if (!u.isTimeslotAvailable(timeslot)) {
-				return false;
-			}
+		return FreeBusyTimeline.merge(busyIndexes);
+	}
+
+	/**
+	 * Retrieves the busy intervals of a participant in a search from the shared
+	 * cache. A room is indexed from its bookings within the window only.
+	 *
+	 * @param participant the user or room taking part in the search
+	 * @param windowStart the start of the window in epoch minutes
+	 * @param windowEnd   the end of the window in epoch minutes
+	 * @return the busy interval index of the participant
+	 */
+	private BusyIntervalIndex getBusyIndex(Schedulable participant, long windowStart, long windowEnd) {
+		if (participant instanceof Location room) {
+			return busyIntervalCache.getRoomBusyIndex(room, windowStart, windowEnd,
+					(from, to) -> eventRepo.findSpanningInRoom(room.getId(), from, to));
+		}
+		return busyIntervalCache.getBusyIndex(participant);
+	}
+
+	/**
+	 * Finds the bookable room named by an event's location.
+	 *
+	 * @param location the location of the event, which may be null
+	 * @return an Optional containing the room, or an empty Optional if the
+	 *         location is not a bookable room
+	 */
+	public Optional<Location> findRoom(String location) {
+		if (location == null || location.isBlank()) {
+			return Optional.empty();
 		}
-		return true;
+		return locationRepo.findByName(location.strip());
+	}
+
+	/**
+	 * Finds the bookable room named by an event's location and locks it until the
+	 * end of the transaction, so that no other booking of the room is checked or
+	 * made meanwhile.
+	 *
+	 * @param location the location of the event, which may be null
+	 * @return an Optional containing the locked room, or an empty Optional if the
+	 *         location is not a bookable room
+	 */
+	private Optional<Location> lockRoom(String location) {
+		if (location == null || location.isBlank()) {
+			return Optional.empty();
+		}
+		return locationRepo.findByNameForUpdate(location.strip());
+	}
+
+	/**
+	 * Creates a bookable room with the specified name. Events whose location is
+	 * the name of the room are booked into it.
+	 *
+	 * @param name the name of the room
+	 * @return the created room
+	 * @throws RoomAlreadyExistsException if a room with the specified name already
+	 *                                    exists
+	 */
+	@Transactional
+	public Location createRoom(String name) throws RoomAlreadyExistsException {
+		String roomName = name.strip();
+		if (locationRepo.findByName(roomName).isPresent()) {
+			throw new RoomAlreadyExistsException();
+		}
+		return locationRepo.save(new Location(roomName));
+	}
+
+	/**
+	 * Retrieves every bookable room.
+	 *
+	 * @return the list of rooms ordered by name
+	 */
+	public List<Location> getRooms() {
+		return locationRepo.findAllByOrderByNameAsc();
+	}
+
+	/**
+	 * Checks if an event is free for the organiser and all invitees, i.e. it
+	 * doesn't overlap any event in their calendars or any pending invite. The
+	 * events are checked for every user at once, as in {@link #doesEventClash}.
+	 *
+	 * @param event      the event to check
+	 * @param inviteeIds the IDs of the invitees to check for availability
+	 * @param organizer  the organizer of the event
+	 * @return true if the event is free for all users, false otherwise
+	 */
+	private boolean isEventFreeForAllUsers(Event event, List<Long> inviteeIds, User organizer) {
+		List<Long> userIds = new ArrayList<>();
+		userIds.add(organizer.getId());
+		userIds.addAll(inviteeIds);
+		return !doesEventClash(event, (start, end) -> eventRepo.findOccupancyForAnyUser(userIds, start, end),
+				(start, end) -> eventRepo.findSpanningForAnyUser(userIds, start, end),
+				(start, end) -> eventRepo.findRecurringSpanningForAnyUser(userIds, start, end));
+	}
+
+	/**
+	 * Checks if a room is free for every occurrence of an event, as in
+	 * {@link #doesEventClash}.
+	 *
+	 * @param event the event to check
+	 * @param room  the room to check
+	 * @return true if the room is free, false otherwise
+	 */
+	private boolean isRoomFree(Event event, Location room) {
+		return !doesEventClash(event, (start, end) -> eventRepo.findOccupancyInRoom(room.getId(), start, end),
+				(start, end) -> eventRepo.findSpanningInRoom(room.getId(), start, end),
+				(start, end) -> eventRepo.findRecurringSpanningInRoom(room.getId(), start, end));
 	}
 
 	/**
 	 * Creates an event with the specified organizer, invitees, and event details.
-	 * The method checks if the event timeslot is valid for all users and throws an
-	 * exception if there is a clash. If the event creation is successful, it
-	 * updates the organizer's calendar and invitees' event invites and saves the
-	 * event.
+	 * The method checks if the event timeslot is free for all users and throws an
+	 * exception if there is a clash. A recurring event is checked for the
+	 * configured number of days from its first occurrence. If the location names
+	 * a bookable room, the room is locked until the event is committed, must also
+	 * be free and the event is booked into it. If the event creation is successful, it updates the organizer's
+	 * calendar and saves the event.
+	 *
+	 * Invitees are never loaded: their IDs are looked up by username, and every
+	 * invitation is written by one insert and recorded against the invitees by
+	 * one update in the same transaction as the event, so all invitees see the
+	 * event at once. Busy intervals cached for the organiser, invitees and room
+	 * are evicted once the event is committed.
 	 *
 	 * @param organiserUsername the username of the event organizer
-	 * @param invitees          the list of users to invite to the event
+	 * @param inviteeUsernames  the usernames of the users to invite to the event
 	 * @param event             the event to create
-	 * @throws UserNotFoundException if the organizer is not found
-	 * @throws EventClashException   if the event timeslot clashes with existing
-	 *                               events
+	 * @throws UserNotFoundException     if the organizer or an invitee is not
+	 *                                   found
+	 * @throws EventClashException       if the event timeslot clashes with
+	 *                                   existing events
+	 * @throws RoomUnavailableException if the event's location is a room that is
+	 *                                   already booked during the event
 	 */
 	@Transactional
-	public void createEvent(String organiserUsername, List<User> invitees, Event event)
-			throws UserNotFoundException, EventClashException {
+	public void createEvent(String organiserUsername, List<String> inviteeUsernames, Event event)
+			throws UserNotFoundException, EventClashException, RoomUnavailableException {
+		// the room is locked before anything else is read, so the transaction reads
+		// every booking committed before the lock was granted
+		Optional<Location> room = lockRoom(event.getLocation());
 		User organiser = userRepo.findByUsername(organiserUsername).orElseThrow(UserNotFoundException::new);
-		if (!isTimeslotValidForAllUsers(new Timeslot(event.getStartTime(), event.getDurationMinutes()), invitees,
-				organiser)) {
+		List<Long> inviteeIds = findInviteeIds(inviteeUsernames);
+		if (!isEventFreeForAllUsers(event, inviteeIds, organiser)) {
 			throw new EventClashException();
 		}
+		if (room.isPresent()) {
+			if (!isRoomFree(event, room.get())) {
+				throw new RoomUnavailableException();
+			}
+			recordBookingChange(room.get());
+			event.setRoom(room.get());
+			room.get().addEvent(event);
+		}
+		recordCalendarChange(organiser);
 		event.setOrganiser(organiser);
+		event.addAttendee(organiser);
 		organiser.addCalendarEvent(event);
 		organiser.addCreatedEvent(event);
-		for (User invitee : invitees) {
-			event.addInvitee(invitee);
-			invitee.addEventInvite(event);
+		// flushed so the event row exists before its invitations refer to it
+		eventRepo.saveAndFlush(event);
+		if (!inviteeIds.isEmpty()) {
+			eventRepo.insertInvitations(event.getId(), inviteeIds);
+			userRepo.recordEventInvites(inviteeIds, event.isUpcomingAt(LocalDateTime.now()) ? 1 : 0);
+			busyIntervalCache.evict(inviteeIds);
+		}
+	}
+
+	/**
+	 * Retrieves the IDs of the users to invite to an event without loading them.
+	 *
+	 * @param inviteeUsernames the usernames of the invitees
+	 * @return the IDs of the invitees, each once
+	 * @throws UserNotFoundException if an invitee is not found
+	 */
+	private List<Long> findInviteeIds(List<String> inviteeUsernames) throws UserNotFoundException {
+		// compared as the database compares usernames, so a name given twice in
+		// different cases is only looked up once
+		Set<String> usernames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		usernames.addAll(inviteeUsernames);
+		if (usernames.isEmpty()) {
+			return List.of();
+		}
+		List<Long> inviteeIds = userRepo.findIdsByUsernameIn(usernames);
+		if (inviteeIds.size() != usernames.size()) {
+			throw new UserNotFoundException();
+		}
+		return inviteeIds;
+	}
+
+	/**
+	 * Streams the merged busy intervals of several users over a range, handing
+	 * each user's intervals to the given action as soon as the user's rows have
+	 * been read. The recurring events of every user are loaded first and expanded
+	 * over the range; the one-off busy time of every user is then read from a
+	 * single query ordered by username, a block of rows at a time, so only one
+	 * user's intervals are held at once. For each user the overlapping and
+	 * touching intervals are joined and clipped to the range. A user is busy for
+	 * the events in their calendar and for pending invites, as in timeslot
+	 * search.
+	 *
+	 * Users with one-off busy time are handed over in username order, followed
+	 * by the remaining users in the order requested. Each user is handed over
+	 * once, by the username as requested. The remaining users are looked up in
+	 * one query, and those that do not exist are returned rather than handed over
+	 * as free.
+	 *
+	 * @param usernames the usernames of the users
+	 * @param start     the start of the range
+	 * @param end       the end of the range
+	 * @param action    called with each username and its busy intervals in
+	 *                  start order
+	 * @return the requested usernames that belong to no user, in the order
+	 *         requested
+	 */
+	@Transactional(readOnly = true)
+	public List<String> streamBusyIntervals(List<String> usernames, LocalDateTime start, LocalDateTime end,
+			BiConsumer<String, List<Timeslot>> action) {
+		// usernames are compared case-insensitively by the database
+		Map<String, String> requested = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (String username : usernames) {
+			requested.putIfAbsent(username, username);
+		}
+		Map<String, List<Timeslot>> occurrencesByUser = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (UserRecurringEvent row : eventRepo.findRecurringEventsForUsers(usernames, start, end)) {
+			occurrencesByUser.computeIfAbsent(row.getUsername(), username -> new ArrayList<>())
+					.addAll(row.getEvent().getOccurrences(start, end));
+		}
+		Set<String> handed = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		try (Stream<UserBusyInterval> rows = eventRepo.streamBusyIntervalsForUsers(usernames, start, end)) {
+			String current = null;
+			List<Timeslot> busy = new ArrayList<>();
+			for (UserBusyInterval row : (Iterable<UserBusyInterval>) rows::iterator) {
+				if (current != null && !current.equals(row.getUsername())) {
+					handBusyIntervals(requested.getOrDefault(current, current), busy, occurrencesByUser, start, end,
+							action);
+					handed.add(current);
+					busy = new ArrayList<>();
+				}
+				current = row.getUsername();
+				busy.add(new Timeslot(row.getStartTime(),
+						(int) Duration.between(row.getStartTime(), row.getEndTime()).toMinutes()));
+			}
+			if (current != null) {
+				handBusyIntervals(requested.getOrDefault(current, current), busy, occurrencesByUser, start, end,
+						action);
+				handed.add(current);
+			}
+		}
+		List<String> remaining = new ArrayList<>();
+		for (String username : usernames) {
+			if (handed.add(username)) {
+				remaining.add(username);
+			}
+		}
+		// a user with no one-off busy time may not exist at all
+		Set<String> known = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		if (!remaining.isEmpty()) {
+			known.addAll(userRepo.findUsernamesIn(remaining));
+		}
+		List<String> unknownUsernames = new ArrayList<>();
+		for (String username : remaining) {
+			if (known.contains(username)) {
+				handBusyIntervals(username, new ArrayList<>(), occurrencesByUser, start, end, action);
+			} else {
+				unknownUsernames.add(username);
+			}
+		}
+		logger.trace("Found busy intervals for " + usernames.size() + " users between " + start + " and " + end);
+		return unknownUsernames;
+	}
+
+	/**
+	 * Merges the one-off busy intervals of a user with the occurrences of their
+	 * recurring events, clips them to a range and hands them to an action.
+	 *
+	 * @param username          the username of the user
+	 * @param busy              the one-off busy intervals of the user
+	 * @param occurrencesByUser the recurring occurrences of every user
+	 * @param start             the start of the range
+	 * @param end               the end of the range
+	 * @param action            called with the username and its busy intervals
+	 */
+	private void handBusyIntervals(String username, List<Timeslot> busy, Map<String, List<Timeslot>> occurrencesByUser,
+			LocalDateTime start, LocalDateTime end, BiConsumer<String, List<Timeslot>> action) {
+		List<Timeslot> occurrences = occurrencesByUser.remove(username);
+		if (occurrences != null) {
+			busy.addAll(occurrences);
+			busy.sort(Comparator.comparing(Timeslot::getStart));
+		}
+		List<Timeslot> merged = new ArrayList<>();
+		LocalDateTime busyStart = null;
+		LocalDateTime busyEnd = null;
+		for (Timeslot row : busy) {
+			if (busyEnd != null && !row.getStart().isAfter(busyEnd)) {
+				// overlaps or touches the current busy interval, so extend it
+				if (row.getEnd().isAfter(busyEnd)) {
+					busyEnd = row.getEnd();
+				}
+				continue;
+			}
+			if (busyEnd != null) {
+				merged.add(clipBusyInterval(busyStart, busyEnd, start, end));
+			}
+			busyStart = row.getStart();
+			busyEnd = row.getEnd();
 		}
-		eventRepo.save(event);
-		userRepo.saveAll(invitees);
-		userRepo.save(organiser);
+		if (busyEnd != null) {
+			merged.add(clipBusyInterval(busyStart, busyEnd, start, end));
+		}
+		action.accept(username, merged);
+	}
+
+	/**
+	 * Clips a busy interval to a range.
+	 *
+	 * @param busyStart  the start of the busy interval
+	 * @param busyEnd    the end of the busy interval
+	 * @param rangeStart the start of the range
+	 * @param rangeEnd   the end of the range
+	 * @return the part of the busy interval within the range
+	 */
+	private Timeslot clipBusyInterval(LocalDateTime busyStart, LocalDateTime busyEnd, LocalDateTime rangeStart,
+			LocalDateTime rangeEnd) {
+		LocalDateTime clippedStart = busyStart.isBefore(rangeStart) ? rangeStart : busyStart;
+		LocalDateTime clippedEnd = busyEnd.isAfter(rangeEnd) ? rangeEnd : busyEnd;
+		return new Timeslot(clippedStart, (int) Duration.between(clippedStart, clippedEnd).toMinutes());
+	}
+
+	/**
+	 * Retrieves a page of the occurrences in a user's calendar that come after a
+	 * position, ordered by start time and then event id. One-off events are read
+	 * a page at a time by seeking to the position; recurring events still running
+	 * after it are read earliest starting first, only until the page is full,
+	 * and only as many of their occurrences as fit on the page are worked out.
+	 * Only the columns shown on the calendar are read.
+	 *
+	 * @param username the username of the user
+	 * @param after    the position to read from
+	 * @param size     the number of occurrences on a page
+	 * @return the page of occurrences
+	 * @throws UserNotFoundException if the user is not found
+	 */
+	@Transactional(readOnly = true)
+	public KeysetPage<EventOccurrence> getCalendarPageAfter(String username, PageCursor after, int size)
+			throws UserNotFoundException {
+		long userId = userRepo.findByUsername(username).orElseThrow(UserNotFoundException::new).getId();
+		// one more than a page shows whether there is a next page
+		List<EventOccurrence> occurrences = toOccurrences(eventRepo.findCalendarSummariesAfter(userId,
+				after.getStartTime(), after.getId(), PageRequest.ofSize(size + 1)));
+		// series are read a batch at a time, earliest starting first, until the
+		// page and one more are filled by occurrences before the start of every
+		// series still to be read, so series far ahead are not read at all
+		for (int batch = 0;; batch++) {
+			List<EventSummary> seriesRows = eventRepo.findCalendarSeriesSummariesAfter(userId,
+					after.getStartTime(), PageRequest.of(batch, size + 1));
+			LocalDateTime lastSeriesStart = null;
+			for (EventSummary row : seriesRows) {
+				Event event = toEvent(row);
+				// one more again in case the first starts at the position and is dropped
+				for (Timeslot timeslot : event.getOccurrencesFrom(after.getStartTime(), size + 2)) {
+					if (after.isBefore(timeslot.getStart(), event.getId())) {
+						occurrences.add(new EventOccurrence(event, timeslot));
+					}
+				}
+				lastSeriesStart = event.getStartTime();
+			}
+			if (seriesRows.size() <= size || countStartingBefore(occurrences, lastSeriesStart) > size) {
+				break;
+			}
+		}
+		occurrences.sort(OCCURRENCE_ORDER);
+		boolean hasNext = occurrences.size() > size;
+		List<EventOccurrence> items = occurrences.subList(0, Math.min(size, occurrences.size()));
+		PageCursor previous = items.isEmpty() ? after : toCursor(items.get(0));
+		PageCursor next = hasNext ? toCursor(items.get(items.size() - 1)) : null;
+		return new KeysetPage<>(items, previous, next);
+	}
+
+	/**
+	 * Retrieves a page of the occurrences in a user's calendar that come before a
+	 * position, as with {@link #getCalendarPageAfter}, in start order. Recurring
+	 * events are read latest ending first, and only until the page is full.
+	 *
+	 * @param username the username of the user
+	 * @param before   the position to read back from
+	 * @param size     the number of occurrences on a page
+	 * @return the page of occurrences
+	 * @throws UserNotFoundException if the user is not found
+	 */
+	@Transactional(readOnly = true)
+	public KeysetPage<EventOccurrence> getCalendarPageBefore(String username, PageCursor before, int size)
+			throws UserNotFoundException {
+		long userId = userRepo.findByUsername(username).orElseThrow(UserNotFoundException::new).getId();
+		List<EventOccurrence> occurrences = toOccurrences(eventRepo.findCalendarSummariesBefore(userId,
+				before.getStartTime(), before.getId(), PageRequest.ofSize(size + 1)));
+		// series are read a batch at a time, latest ending first, until the page
+		// and one more are filled by occurrences after the end of every series
+		// still to be read, so series that ended long ago are not read at all
+		for (int batch = 0;; batch++) {
+			List<EventSummary> seriesRows = eventRepo.findCalendarSeriesSummariesBefore(userId,
+					before.getStartTime(), PageRequest.of(batch, size + 1));
+			LocalDateTime lastSeriesEnd = null;
+			for (EventSummary row : seriesRows) {
+				Event event = toEvent(row);
+				for (Timeslot timeslot : event.getOccurrencesUntil(before.getStartTime(), size + 2)) {
+					if (before.isAfter(timeslot.getStart(), event.getId())) {
+						occurrences.add(new EventOccurrence(event, timeslot));
+					}
+				}
+				lastSeriesEnd = event.getSeriesEnd();
+			}
+			if (seriesRows.size() <= size || lastSeriesEnd != null
+					&& countStartingFrom(occurrences, lastSeriesEnd) > size) {
+				break;
+			}
+		}
+		occurrences.sort(OCCURRENCE_ORDER);
+		boolean hasPrevious = occurrences.size() > size;
+		List<EventOccurrence> items = occurrences.subList(Math.max(occurrences.size() - size, 0),
+				occurrences.size());
+		PageCursor previous = hasPrevious ? toCursor(items.get(0)) : null;
+		PageCursor next = items.isEmpty() ? before : toCursor(items.get(items.size() - 1));
+		return new KeysetPage<>(items, previous, next);
+	}
+
+	/**
+	 * Retrieves a page of a user's pending event invites that start in the future
+	 * or are series still running, ordered by start time and then event id. Only
+	 * the columns shown on the calendar are read.
+	 *
+	 * @param username the username of the user
+	 * @param after    the position to read from, or null for the first page
+	 * @param size     the number of invites on a page
+	 * @return the page of event invites
+	 */
+	@Transactional(readOnly = true)
+	public KeysetPage<EventSummary> getEventInvitesAfter(String username, PageCursor after, int size) {
+		PageCursor from = after == null ? FIRST_INVITE : after;
+		List<EventSummary> rows = eventRepo.findInviteSummariesAfter(username, LocalDateTime.now(),
+				from.getStartTime(), from.getId(), PageRequest.ofSize(size + 1)).stream()
+				.filter(row -> row.getId() != null).toList();
+		boolean hasNext = rows.size() > size;
+		List<EventSummary> items = rows.subList(0, Math.min(size, rows.size()));
+		PageCursor previous = after == null ? null : items.isEmpty() ? after : toCursor(items.get(0));
+		PageCursor next = hasNext ? toCursor(items.get(items.size() - 1)) : null;
+		return new KeysetPage<>(items, previous, next);
+	}
+
+	/**
+	 * Retrieves a page of a user's pending event invites that come before a
+	 * position, as with {@link #getEventInvitesAfter}, in start order.
+	 *
+	 * @param username the username of the user
+	 * @param before   the position to read back from
+	 * @param size     the number of invites on a page
+	 * @return the page of event invites
+	 */
+	@Transactional(readOnly = true)
+	public KeysetPage<EventSummary> getEventInvitesBefore(String username, PageCursor before, int size) {
+		List<EventSummary> rows = new ArrayList<>(eventRepo.findInviteSummariesBefore(username, LocalDateTime.now(),
+				before.getStartTime(), before.getId(), PageRequest.ofSize(size + 1)).stream()
+				.filter(row -> row.getId() != null).toList());
+		boolean hasPrevious = rows.size() > size;
+		// rows are read nearest first
+		Collections.reverse(rows);
+		List<EventSummary> items = rows.subList(Math.max(rows.size() - size, 0), rows.size());
+		PageCursor previous = hasPrevious ? toCursor(items.get(0)) : null;
+		PageCursor next = items.isEmpty() ? before : toCursor(items.get(items.size() - 1));
+		return new KeysetPage<>(items, previous, next);
+	}
+
+	/**
+	 * Creates the occurrences of one-off events from their event summaries.
+	 *
+	 * @param rows the event summaries
+	 * @return the occurrences
+	 */
+	private List<EventOccurrence> toOccurrences(List<EventSummary> rows) {
+		List<EventOccurrence> occurrences = new ArrayList<>();
+		for (EventSummary row : rows) {
+			occurrences.add(new EventOccurrence(toEvent(row),
+					new Timeslot(row.getStartTime(), row.getDurationMinutes())));
+		}
+		return occurrences;
+	}
+
+	private static long countStartingBefore(List<EventOccurrence> occurrences, LocalDateTime time) {
+		return occurrences.stream().filter(occurrence -> occurrence.getStartTime().isBefore(time)).count();
+	}
+
+	private static long countStartingFrom(List<EventOccurrence> occurrences, LocalDateTime time) {
+		return occurrences.stream().filter(occurrence -> !occurrence.getStartTime().isBefore(time)).count();
+	}
+
+	private static PageCursor toCursor(EventOccurrence occurrence) {
+		return new PageCursor(occurrence.getStartTime(), occurrence.getId());
+	}
+
+	private static PageCursor toCursor(EventSummary row) {
+		return new PageCursor(row.getStartTime(), row.getId());
+	}
+
+	/**
+	 * Creates an unsaved event from the columns of an event summary, so that its
+	 * occurrences can be worked out without loading the event.
+	 *
+	 * @param row the event summary
+	 * @return the event described by the summary
+	 */
+	private Event toEvent(EventSummary row) {
+		Event event = new Event(row.getTitle(), null, row.getLocation(), row.getStartTime(), row.getDurationMinutes());
+		event.setId(row.getId());
+		event.setRecurrence(row.getRecurrence());
+		return event;
 	}
 
 	/**
@@ -261,6 +1143,7 @@ public class EventService {
 	 * @return the event with the specified ID
 	 * @throws EventNotFoundException if the event is not found
 	 */
+	@Transactional(readOnly = true)
 	public Event getEventFromId(String id) throws EventNotFoundException {
 		try {
 			long longId = Long.parseLong(id);
@@ -269,4 +1152,47 @@ public class EventService {
 			throw new EventNotFoundException();
 		}
 	}
+
+	/**
+	 * Checks if a user organises, attends or is invited to an event. The
+	 * organiser is read with the event, so is compared by id; the attendees and
+	 * invitees are looked up by the event and user in the database rather than
+	 * loaded.
+	 *
+	 * @param event  the event to check
+	 * @param userId the ID of the user
+	 * @return true if the user is involved with the event, false otherwise
+	 */
+	@Transactional(readOnly = true)
+	public boolean isUserInvolved(Event event, long userId) {
+		if (event.getOrganiser() != null && event.getOrganiser().getId() == userId) {
+			return true;
+		}
+		return eventRepo.existsAttendeeOrInvitee(event.getId(), userId);
+	}
+
+	/**
+	 * What a timeslot search looks for: the calendar version of each person
+	 * taking part, by user ID, and the start, duration, granularity, location
+	 * and mode of the search. The organiser is not told apart from the invitees,
+	 * as the suggestions do not depend on who organises.
+	 */
+	private record SearchKey(Map<Long, Long> calendarVersions, LocalDateTime start, int durationMinutes,
+			int stepMinutes, String location, boolean bitmaps) {
+
+		static Optional<SearchKey> of(User organiser, List<User> invitees, LocalDateTime start, int durationMinutes,
+				String location, boolean bitmaps) {
+			Map<Long, Long> calendarVersions = new TreeMap<>();
+			calendarVersions.put(organiser.getId(), organiser.getCalendarVersion());
+			for (User invitee : invitees) {
+				calendarVersions.put(invitee.getId(), invitee.getCalendarVersion());
+			}
+			if (calendarVersions.containsKey(0L)) {
+				// unsaved users all have ID 0, so cannot be told apart
+				return Optional.empty();
+			}
+			return Optional.of(new SearchKey(calendarVersions, start, durationMinutes, Event.minIntervalMinutes,
+					location == null ? null : location.strip(), bitmaps));
+		}
+	}
 }
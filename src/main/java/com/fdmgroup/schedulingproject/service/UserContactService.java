@@ -1,9 +1,14 @@
 package com.fdmgroup.schedulingproject.service;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.fdmgroup.schedulingproject.dto.UserContactRow;
 import com.fdmgroup.schedulingproject.exception.CannotInviteSelfException;
 import com.fdmgroup.schedulingproject.exception.UserAlreadyInContactsException;
 import com.fdmgroup.schedulingproject.exception.UserAlreadyInvitedException;
@@ -36,6 +41,7 @@ public class UserContactService extends UserService {
 	 * @throws CannotInviteSelfException      if the sender and receiver are the
 	 *                                        same user
 	 */
+	@Transactional
 	public void sendContactInvite(String sender, String receiver) throws UserNotFoundException,
 			UserAlreadyInContactsException, UserAlreadyInvitedException, CannotInviteSelfException {
 		if (sender.equals(receiver)) {
@@ -52,11 +58,13 @@ public class UserContactService extends UserService {
 		if (receivingUser.getSentContactInvites().contains(sendingUser)) {
 			// receiver also sent sender a request, so directly add to contacts for both
 			receivingUser.removeSentContactInvite(sendingUser);
+			userRepo.adjustPendingContactInvites(sendingUser.getId(), -1);
 			sendingUser.addContact(receivingUser);
 			receivingUser.addContact(sendingUser);
 		} else {
 			// otherwise send invite
 			receivingUser.addReceivedContactInvite(sendingUser);
+			userRepo.adjustPendingContactInvites(receivingUser.getId(), 1);
 			sendingUser.addSentContactInvite(receivingUser);
 		}
 		saveUserPair(sendingUser, receivingUser);
@@ -71,6 +79,7 @@ public class UserContactService extends UserService {
 	 * @throws UserNotFoundException if the current user or the contact to be
 	 *                               removed is not found
 	 */
+	@Transactional
 	public void removeFromContacts(String myUsername, String username) throws UserNotFoundException {
 		User user1 = findUser(myUsername);
 		User user2 = findUser(username);
@@ -96,6 +105,7 @@ public class UserContactService extends UserService {
 	 * @throws CannotInviteSelfException if the current user and the inviting user
 	 *                                   are the same user
 	 */
+	@Transactional
 	public void acceptContact(String myUsername, String username)
 			throws UserNotFoundException, UserNotInvitedException, CannotInviteSelfException {
 		if (myUsername.equals(username)) {
@@ -110,6 +120,7 @@ public class UserContactService extends UserService {
 			throw new UserNotInvitedException();
 		}
 		user1.removeReceivedContactInvite(user2);
+		userRepo.adjustPendingContactInvites(user1.getId(), -1);
 		user2.removeSentContactInvite(user1);
 		user1.addContact(user2);
 		user2.addContact(user1);
@@ -129,6 +140,7 @@ public class UserContactService extends UserService {
 	 * @throws CannotInviteSelfException if the current user and the invited user
 	 *                                   are the same user
 	 */
+	@Transactional
 	public void cancelContactInvite(String myUsername, String username)
 			throws UserNotFoundException, UserNotInvitedException, CannotInviteSelfException {
 		if (myUsername.equals(username)) {
@@ -142,6 +154,7 @@ public class UserContactService extends UserService {
 		}
 		user1.removeSentContactInvite(user2);
 		user2.removeReceivedContactInvite(user1);
+		userRepo.adjustPendingContactInvites(user2.getId(), -1);
 		saveUserPair(user1, user2);
 	}
 
@@ -153,7 +166,33 @@ public class UserContactService extends UserService {
 	 * @throws UserNotFoundException if the user is not found
 	 */
 	public List<User> getContacts(String username) throws UserNotFoundException {
-		User user = findUser(username);
-		return user.getContacts();
+		User user = userRepo.findWithContactsByUsername(username).orElseThrow(UserNotFoundException::new);
+		return new ArrayList<>(user.getContacts());
+	}
+
+	/**
+	 * Retrieves the contacts and sent and received contact invites of the
+	 * specified user, as listed on the contacts page. All three lists are read in
+	 * one query that selects only the username and display name of each user.
+	 *
+	 * @param username the username of the user
+	 * @return the listed users grouped by their relation to the user, with an
+	 *         empty list for a relation with no users
+	 * @throws UserNotFoundException if the user is not found
+	 */
+	@Transactional(readOnly = true)
+	public Map<UserContactRow.Relation, List<UserContactRow>> getContactLists(String username)
+			throws UserNotFoundException {
+		Map<UserContactRow.Relation, List<UserContactRow>> contactLists = new EnumMap<>(UserContactRow.Relation.class);
+		for (UserContactRow.Relation relation : UserContactRow.Relation.values()) {
+			contactLists.put(relation, new ArrayList<>());
+		}
+		for (UserContactRow row : userRepo.findContactRowsByUsername(username)) {
+			contactLists.get(row.getRelation()).add(row);
+		}
+		if (contactLists.get(UserContactRow.Relation.SELF).isEmpty()) {
+			throw new UserNotFoundException();
+		}
+		return contactLists;
 	}
 }
@@ -1,13 +1,22 @@
 package com.fdmgroup.schedulingproject.service;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.fdmgroup.schedulingproject.dto.UserHomeSummary;
 import com.fdmgroup.schedulingproject.exception.PasswordDoesNotMatchException;
 import com.fdmgroup.schedulingproject.exception.UserAlreadyExistsException;
 import com.fdmgroup.schedulingproject.exception.UserNotFoundException;
 import com.fdmgroup.schedulingproject.model.User;
+import com.fdmgroup.schedulingproject.model.UserPrincipal;
 
 /**
  * Service class for managing user details and related operations. The
@@ -20,22 +29,56 @@ import com.fdmgroup.schedulingproject.model.User;
  */
 @Service
 public class UserDetailsService extends UserService {
+	private Logger logger = LogManager.getLogger(UserDetailsService.class);
+	@Value("${scheduling.invite-counts.startup-lookback-hours:168}")
+	private long reconcileStartupLookbackHours = 168;
+	// the time the last recount of expired event invites ran up to
+	private LocalDateTime lastReconciledAt;
+
+	public void setReconcileStartupLookbackHours(long reconcileStartupLookbackHours) {
+		this.reconcileStartupLookbackHours = reconcileStartupLookbackHours;
+	}
+
 	/**
 	 * Verifies the credentials of a user by checking if the provided password
 	 * matches the user's password.
 	 *
 	 * @param username the username of the user
 	 * @param password the password to verify against the user's password
+	 * @return a snapshot of the user's identity to keep in their session
 	 * @throws UserNotFoundException         if the user is not found
 	 * @throws PasswordDoesNotMatchException if the provided password does not match
 	 *                                       the user's password
 	 */
-	public void verifyCredentials(String username, String password)
+	public UserPrincipal verifyCredentials(String username, String password)
 			throws UserNotFoundException, PasswordDoesNotMatchException {
 		User user = findUser(username);
 		if (!user.getPassword().equals(password)) {
 			throw new PasswordDoesNotMatchException();
 		}
+		return UserPrincipal.of(user);
+	}
+
+	/**
+	 * Checks a session's snapshot of a user against the user's current version.
+	 * If the version is unchanged only that column is read and the same snapshot
+	 * is returned, validated now; otherwise the user is reloaded and a new
+	 * snapshot taken.
+	 *
+	 * Not read-only, so that the version is read from the primary database and a
+	 * change the user has just made is never missed on a lagging replica.
+	 *
+	 * @param principal the snapshot of the user
+	 * @return the snapshot, validated now
+	 * @throws UserNotFoundException if the user no longer exists
+	 */
+	@Transactional
+	public UserPrincipal revalidatePrincipal(UserPrincipal principal) throws UserNotFoundException {
+		long version = userRepo.findVersionById(principal.getId()).orElseThrow(UserNotFoundException::new);
+		if (version == principal.getVersion()) {
+			return principal.validatedAt(Instant.now());
+		}
+		return UserPrincipal.of(userRepo.findById(principal.getId()).orElseThrow(UserNotFoundException::new));
 	}
 
 	/**
@@ -69,17 +112,56 @@ public class UserDetailsService extends UserService {
 		return user;
 	}
 
+	/**
+	 * Retrieves the display name of the user with the specified username and the
+	 * numbers of contact invites and future event invites waiting for them, as
+	 * shown on the home page. The counts are kept on the user, so this is a
+	 * single lookup of the user, usually answered from the cache.
+	 *
+	 * @param username the username of the user
+	 * @return the home page summary of the user
+	 * @throws UserNotFoundException if the user is not found
+	 */
+	@Transactional(readOnly = true)
+	public UserHomeSummary getHomeSummary(String username) throws UserNotFoundException {
+		return findUser(username);
+	}
+
+	/**
+	 * Recounts the pending event invites of the users whose invites have expired
+	 * since the last recount. The counts are updated as invites are sent and
+	 * answered, but an event invite also stops being pending once the event has
+	 * started, which only a recount notices. Only the users invited to those
+	 * events are updated, and the recount can run on every instance at once. The
+	 * first recount after startup looks back over the configured number of hours
+	 * to catch invites that expired while no instance was running.
+	 */
+	@Scheduled(initialDelayString = "${scheduling.invite-counts.reconcile-millis:900000}",
+			fixedDelayString = "${scheduling.invite-counts.reconcile-millis:900000}")
+	@Transactional
+	public void reconcilePendingInviteCounts() {
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime from = lastReconciledAt != null ? lastReconciledAt
+				: now.minusHours(reconcileStartupLookbackHours);
+		int changed = userRepo.reconcileExpiredEventInvites(from, now);
+		lastReconciledAt = now;
+		logger.debug("Recounted pending event invites expired since " + from + ", " + changed + " users recounted");
+	}
+
 	/**
 	 * Updates the display name of the user with the specified username.
 	 *
 	 * @param username    the username of the user
 	 * @param displayName the new display name to set for the user
+	 * @return a snapshot of the updated user to replace the one in their session
 	 * @throws UserNotFoundException if the user is not found
 	 */
-	public void updateDisplayName(String username, String displayName) throws UserNotFoundException {
+	@Transactional
+	public UserPrincipal updateDisplayName(String username, String displayName) throws UserNotFoundException {
 		User user = findUser(username);
 		user.setDisplayName(displayName);
-		userRepo.save(user);
+		// flushed so the snapshot has the version the update gives the user
+		return UserPrincipal.of(userRepo.saveAndFlush(user));
 	}
 
 	/**
@@ -92,6 +174,7 @@ public class UserDetailsService extends UserService {
 	 * @throws PasswordDoesNotMatchException if the provided current password does
 	 *                                       not match the user's password
 	 */
+	@Transactional
 	public void updatePassword(String username, String currentPassword, String newPassword)
 			throws UserNotFoundException, PasswordDoesNotMatchException {
 		User user = findUser(username);
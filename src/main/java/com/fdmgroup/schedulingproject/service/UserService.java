@@ -1,9 +1,18 @@
 package com.fdmgroup.schedulingproject.service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.fdmgroup.schedulingproject.exception.UserNotFoundException;
+import com.fdmgroup.schedulingproject.exception.UsersNotFoundException;
 import com.fdmgroup.schedulingproject.model.User;
 import com.fdmgroup.schedulingproject.repository.UserRepository;
 
@@ -20,4 +29,33 @@ public class UserService {
 		return userRepo.findByUsername(username).orElseThrow(UserNotFoundException::new);
 	}
 
+	// resolves every username with one query, in the order given and without
+	// repeats, and reports all the unknown usernames at once
+	@Transactional(readOnly = true)
+	public List<User> findUsers(List<String> usernames) throws UsersNotFoundException {
+		Set<String> distinctUsernames = new LinkedHashSet<>(usernames);
+		if (distinctUsernames.isEmpty()) {
+			return new ArrayList<>();
+		}
+		// usernames are compared case-insensitively by the database
+		Map<String, User> usersByUsername = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (User user : userRepo.findAllByUsernameIn(distinctUsernames)) {
+			usersByUsername.put(user.getUsername(), user);
+		}
+		Set<User> users = new LinkedHashSet<>();
+		List<String> unknownUsernames = new ArrayList<>();
+		for (String username : distinctUsernames) {
+			User user = usersByUsername.get(username);
+			if (user == null) {
+				unknownUsernames.add(username);
+			} else {
+				users.add(user);
+			}
+		}
+		if (!unknownUsernames.isEmpty()) {
+			throw new UsersNotFoundException(unknownUsernames);
+		}
+		return new ArrayList<>(users);
+	}
+
 }
@@ -0,0 +1,68 @@
+-- Adds what the application gained before migrations were introduced: the
+-- persisted end time, recurrence rules and series end of events, and bookable
+-- rooms. Databases baselined at V1 were created by ddl-auto=update from
+-- whichever version of the application last ran, so they may already have
+-- some of these, and each is only added when missing.
+
+drop procedure if exists run_statement;
+drop procedure if exists add_column_if_missing;
+drop procedure if exists add_foreign_key_if_missing;
+
+delimiter //
+
+create procedure run_statement(in statement_text text)
+begin
+	set @statement_text = statement_text;
+	prepare statement from @statement_text;
+	execute statement;
+	deallocate prepare statement;
+end //
+
+create procedure add_column_if_missing(in table_name_in varchar(64), in column_name_in varchar(64),
+		in definition text)
+begin
+	if not exists (select 1 from information_schema.columns where table_schema = database()
+			and table_name = table_name_in and column_name = column_name_in) then
+		call run_statement(concat('alter table `', table_name_in, '` add column `', column_name_in, '` ',
+				definition));
+	end if;
+end //
+
+-- a foreign key generated by Hibernate has a name that is not known, so the
+-- column is checked for any key referencing the table
+create procedure add_foreign_key_if_missing(in table_name_in varchar(64), in column_name_in varchar(64),
+		in referenced_table varchar(64), in key_name varchar(64))
+begin
+	if not exists (select 1 from information_schema.key_column_usage where table_schema = database()
+			and table_name = table_name_in and column_name = column_name_in
+			and referenced_table_name = referenced_table) then
+		call run_statement(concat('alter table `', table_name_in, '` add constraint `', key_name,
+				'` foreign key (`', column_name_in, '`) references `', referenced_table, '` (id)'));
+	end if;
+end //
+
+delimiter ;
+
+create table if not exists location_seq (next_val bigint) engine=InnoDB;
+insert into location_seq select 1 from dual where not exists (select 1 from location_seq);
+
+create table if not exists location (
+	id bigint not null,
+	name varchar(255),
+	primary key (id),
+	constraint uk_location_name unique (name)
+) engine=InnoDB;
+
+-- end_time and series_end are filled in for existing rows by V2
+call add_column_if_missing('event', 'end_time', 'datetime(6)');
+call add_column_if_missing('event', 'recurrence_frequency', 'enum (''DAILY'',''MONTHLY'',''WEEKLY'')');
+call add_column_if_missing('event', 'recurrence_count', 'integer');
+call add_column_if_missing('event', 'recurrence_until', 'datetime(6)');
+call add_column_if_missing('event', 'recurrence_exceptions', 'longtext');
+call add_column_if_missing('event', 'series_end', 'datetime(6)');
+call add_column_if_missing('event', 'room_id', 'bigint');
+call add_foreign_key_if_missing('event', 'room_id', 'location', 'fk_event_room');
+
+drop procedure run_statement;
+drop procedure add_column_if_missing;
+drop procedure add_foreign_key_if_missing;
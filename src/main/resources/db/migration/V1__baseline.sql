@@ -0,0 +1,77 @@
+-- The schema as created by spring.jpa.hibernate.ddl-auto=update before
+-- migrations were introduced. Databases created that way are baselined at this
+-- version (spring.flyway.baseline-on-migrate), so this script only runs on an
+-- empty database. Columns and tables the application gained since then are
+-- added in V1.1, and indexes beyond primary and unique keys in V2.
+
+-- MySQL has no sequences, so ids are allocated from single-row tables
+create table user_seq (next_val bigint) engine=InnoDB;
+insert into user_seq values (1);
+create table event_seq (next_val bigint) engine=InnoDB;
+insert into event_seq values (1);
+
+create table user (
+	id bigint not null,
+	display_name varchar(255),
+	password varchar(255),
+	username varchar(255),
+	primary key (id),
+	constraint uk_user_username unique (username)
+) engine=InnoDB;
+
+create table event (
+	id bigint not null,
+	title varchar(255),
+	description varchar(255),
+	location varchar(255),
+	start_time datetime(6),
+	duration_minutes integer not null,
+	organiser_id bigint,
+	primary key (id),
+	constraint fk_event_organiser foreign key (organiser_id) references user (id)
+) engine=InnoDB;
+
+create table user_calendar (
+	user_id bigint not null,
+	event_id bigint not null,
+	constraint fk_user_calendar_user foreign key (user_id) references user (id),
+	constraint fk_user_calendar_event foreign key (event_id) references event (id)
+) engine=InnoDB;
+
+-- event invites were mapped one-to-many, so an event could only be in one
+-- user's invites
+create table user_event_invites (
+	user_id bigint not null,
+	event_invites_id bigint not null,
+	constraint uk_user_event_invites_event unique (event_invites_id),
+	constraint fk_user_event_invites_user foreign key (user_id) references user (id),
+	constraint fk_user_event_invites_event foreign key (event_invites_id) references event (id)
+) engine=InnoDB;
+
+create table user_contacts (
+	user_id bigint not null,
+	contact_id bigint not null,
+	constraint fk_user_contacts_user foreign key (user_id) references user (id),
+	constraint fk_user_contacts_contact foreign key (contact_id) references user (id)
+) engine=InnoDB;
+
+create table contact_requests_sent (
+	sender_id bigint not null,
+	recipient_id bigint not null,
+	constraint fk_contact_requests_sent_sender foreign key (sender_id) references user (id),
+	constraint fk_contact_requests_sent_recipient foreign key (recipient_id) references user (id)
+) engine=InnoDB;
+
+create table event_attendees (
+	event_id bigint not null,
+	user_id bigint not null,
+	constraint fk_event_attendees_event foreign key (event_id) references event (id),
+	constraint fk_event_attendees_user foreign key (user_id) references user (id)
+) engine=InnoDB;
+
+create table event_invitees (
+	event_id bigint not null,
+	user_id bigint not null,
+	constraint fk_event_invitees_event foreign key (event_id) references event (id),
+	constraint fk_event_invitees_user foreign key (user_id) references user (id)
+) engine=InnoDB;
@@ -0,0 +1,97 @@
+-- Fills in derived columns left empty on rows saved before they existed and
+-- adds the indexes the calendar, invite, contact and clash-check queries use.
+-- Databases created by ddl-auto=update may already have some of these keys, so
+-- each is only added when missing.
+
+update event set end_time = start_time + interval duration_minutes minute
+	where end_time is null and start_time is not null;
+-- a recurring series without series_end is treated as never ending, which
+-- errs on the side of a clash until the event is next saved
+update event set series_end = end_time where series_end is null and recurrence_frequency is null;
+
+drop procedure if exists run_statement;
+drop procedure if exists add_key_if_missing;
+drop procedure if exists add_join_table_key;
+drop procedure if exists drop_single_column_unique_key;
+
+delimiter //
+
+create procedure run_statement(in statement_text text)
+begin
+	set @statement_text = statement_text;
+	prepare statement from @statement_text;
+	execute statement;
+	deallocate prepare statement;
+end //
+
+create procedure add_key_if_missing(in table_name_in varchar(64), in key_name varchar(64), in definition text)
+begin
+	if not exists (select 1 from information_schema.statistics where table_schema = database()
+			and table_name = table_name_in and index_name = key_name) then
+		call run_statement(concat('alter table `', table_name_in, '` add ', definition));
+	end if;
+end //
+
+-- join tables were lists when first created, so they have no primary key and
+-- may hold duplicate rows, which are removed before the key is added
+create procedure add_join_table_key(in table_name_in varchar(64), in first_column varchar(64),
+		in second_column varchar(64))
+begin
+	if not exists (select 1 from information_schema.statistics where table_schema = database()
+			and table_name = table_name_in and index_name = 'PRIMARY') then
+		call run_statement(concat('create temporary table distinct_rows as select distinct ', first_column, ', ',
+				second_column, ' from `', table_name_in, '`'));
+		call run_statement(concat('delete from `', table_name_in, '`'));
+		call run_statement(concat('insert into `', table_name_in, '` (', first_column, ', ', second_column,
+				') select ', first_column, ', ', second_column, ' from distinct_rows'));
+		drop temporary table distinct_rows;
+		call run_statement(concat('alter table `', table_name_in, '` add primary key (', first_column, ', ',
+				second_column, ')'));
+	end if;
+	call add_key_if_missing(table_name_in, concat('idx_', table_name_in, '_', second_column),
+			concat('index idx_', table_name_in, '_', second_column, ' (', second_column, ', ', first_column, ')'));
+end //
+
+-- drops a unique key generated by Hibernate, whose name is not known, on the
+-- single specified column
+create procedure drop_single_column_unique_key(in table_name_in varchar(64), in column_name_in varchar(64))
+begin
+	declare key_name varchar(64);
+	select index_name into key_name from information_schema.statistics
+		where table_schema = database() and table_name = table_name_in and non_unique = 0
+			and index_name <> 'PRIMARY'
+		group by index_name having count(*) = 1 and max(column_name) = column_name_in
+		limit 1;
+	if key_name is not null then
+		call run_statement(concat('alter table `', table_name_in, '` drop index `', key_name, '`'));
+	end if;
+end //
+
+delimiter ;
+
+-- overlap checks by time, by organiser and by room, and keyset paging by
+-- (start_time, id); the organiser and room indexes also serve their foreign keys
+call add_key_if_missing('event', 'idx_event_start_end', 'index idx_event_start_end (start_time, end_time)');
+call add_key_if_missing('event', 'idx_event_start_id', 'index idx_event_start_id (start_time, id)');
+call add_key_if_missing('event', 'idx_event_organiser_start_end',
+		'index idx_event_organiser_start_end (organiser_id, start_time, end_time)');
+call add_key_if_missing('event', 'idx_event_room_start_end',
+		'index idx_event_room_start_end (room_id, start_time, end_time)');
+
+-- each join table is keyed from the side that owns it and indexed from the
+-- other, so it can be read from either end without a scan
+call add_join_table_key('user_calendar', 'user_id', 'event_id');
+call add_join_table_key('user_event_invites', 'user_id', 'event_invites_id');
+call add_join_table_key('user_contacts', 'user_id', 'contact_id');
+call add_join_table_key('contact_requests_sent', 'sender_id', 'recipient_id');
+call add_join_table_key('event_attendees', 'event_id', 'user_id');
+call add_join_table_key('event_invitees', 'event_id', 'user_id');
+
+-- left over from when event invites were mapped one-to-many, and stops an event
+-- being sent to more than one user; the foreign key is served by the index above
+call drop_single_column_unique_key('user_event_invites', 'event_invites_id');
+
+drop procedure run_statement;
+drop procedure add_key_if_missing;
+drop procedure add_join_table_key;
+drop procedure drop_single_column_unique_key;
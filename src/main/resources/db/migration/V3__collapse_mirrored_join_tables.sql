@@ -0,0 +1,12 @@
+-- A user's calendar and event invites were stored twice, once from each side
+-- of the association. The event now owns both, so the user side tables are
+-- merged into event_attendees and event_invitees and dropped. The organiser
+-- was only recorded in user_calendar, and becomes an attendee of their events.
+
+insert ignore into event_attendees (event_id, user_id)
+	select event_id, user_id from user_calendar;
+insert ignore into event_invitees (event_id, user_id)
+	select event_invites_id, user_id from user_event_invites;
+
+drop table user_calendar;
+drop table user_event_invites;
@@ -0,0 +1,13 @@
+-- Counts of the contact invites and upcoming event invites waiting for each
+-- user, read by the home page instead of counting the invites themselves.
+-- The counting rule matches UserRepository.reconcileExpiredEventInvites.
+
+alter table user
+	add column pending_contact_invites integer not null default 0,
+	add column pending_event_invites integer not null default 0;
+
+update user u set
+	u.pending_contact_invites = (select count(*) from contact_requests_sent c where c.recipient_id = u.id),
+	u.pending_event_invites = (select count(*) from event_invitees i join event e on e.id = i.event_id
+		where i.user_id = u.id and (e.start_time > now() or (e.recurrence_frequency is not null
+			and (e.series_end is null or e.series_end > now()))));
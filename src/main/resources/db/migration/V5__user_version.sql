@@ -0,0 +1,5 @@
+-- Version of each user, incremented by Hibernate when the username, password
+-- or display name changes. Sessions keep a snapshot of the logged in user and
+-- compare it with this column to tell whether the snapshot is out of date.
+
+alter table user add column version bigint not null default 0;
@@ -0,0 +1,6 @@
+-- Version of each user's calendar and event invites, incremented whenever an
+-- event is added to or removed from either. Busy intervals are cached in
+-- memory by user and calendar version, so a cached entry is never read once
+-- the user's calendar has moved on.
+
+alter table user add column calendar_version bigint not null default 0;
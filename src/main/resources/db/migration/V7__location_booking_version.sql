@@ -0,0 +1,6 @@
+-- Version of the bookings of each room, incremented whenever an event is
+-- booked into the room or an occurrence booked into it is cancelled. Busy
+-- intervals of rooms are cached in memory by room and booking version, as
+-- those of users are by calendar version.
+
+alter table location add column booking_version bigint not null default 0;
@@ -0,0 +1,18 @@
+-- Start time of the event of each calendar entry, copied into event_attendees
+-- so that a page of a user's calendar seeks through (user_id, start_time,
+-- event_id) instead of joining every event the user attends and sorting them.
+-- The application never writes the column: it is filled when an attendee is
+-- added and follows the event whenever its start time changes.
+
+alter table event_attendees add column start_time datetime(6);
+
+update event_attendees a join event e on e.id = a.event_id set a.start_time = e.start_time;
+
+create index idx_event_attendees_user_start on event_attendees (user_id, start_time, event_id);
+
+create trigger event_attendees_start_time before insert on event_attendees for each row
+	set new.start_time = (select e.start_time from event e where e.id = new.event_id);
+
+create trigger event_start_time_to_attendees after update on event for each row
+	update event_attendees set start_time = new.start_time
+		where event_id = new.id and not (new.start_time <=> old.start_time);
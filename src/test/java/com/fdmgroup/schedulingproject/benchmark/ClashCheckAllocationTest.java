@@ -0,0 +1,103 @@
+package com.fdmgroup.schedulingproject.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fdmgroup.schedulingproject.model.BusyIntervalIndex;
+import com.fdmgroup.schedulingproject.model.Event;
+import com.fdmgroup.schedulingproject.model.Timeslot;
+import com.sun.management.ThreadMXBean;
+
+// runs the clash checks of ClashCheckBenchmark as a plain test, counting the
+// bytes the test thread allocates, so that the checks are seen to allocate
+// nothing per comparison on every build and not only when the benchmark is run
+public class ClashCheckAllocationTest {
+
+	private static final int EVENTS = 1000;
+	private static final int TIMESLOTS = 1024;
+	private static final int ROUNDS = 10;
+	// allows for the few bytes the allocation counter itself may take
+	private static final double MAX_BYTES_PER_CHECK = 0.5;
+	private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	private Event[] events;
+	private Timeslot[] timeslots;
+	private BusyIntervalIndex index;
+	private int clashes;
+
+	@BeforeEach
+	void setUp() {
+		assumeTrue(THREADS.isThreadAllocatedMemorySupported());
+		THREADS.setThreadAllocatedMemoryEnabled(true);
+		LocalDateTime start = LocalDateTime.of(2024, 5, 6, 9, 0);
+		events = new Event[EVENTS];
+		index = new BusyIntervalIndex();
+		for (int i = 0; i < EVENTS; i++) {
+			events[i] = new Event("title", "description", "location", start.plusMinutes(45L * i), 30);
+			index.add(events[i]);
+		}
+		timeslots = new Timeslot[TIMESLOTS];
+		for (int i = 0; i < TIMESLOTS; i++) {
+			timeslots[i] = new Timeslot(start.plusMinutes(Event.minIntervalMinutes * (long) i), 30);
+		}
+	}
+
+	@Test
+	@DisplayName("Event.overlaps() allocates nothing per comparison")
+	void testEventOverlaps_AllocatesNothing() {
+		assertAllocatesNothing((long) ROUNDS * TIMESLOTS * EVENTS, () -> {
+			for (int round = 0; round < ROUNDS; round++) {
+				for (Timeslot timeslot : timeslots) {
+					long startMinute = timeslot.getStartMinute();
+					long endMinute = timeslot.getEndMinute();
+					for (Event event : events) {
+						clashes += event.overlaps(startMinute, endMinute) ? 1 : 0;
+					}
+				}
+			}
+		});
+	}
+
+	@Test
+	@DisplayName("Event.doesEventClash(Timeslot) allocates nothing per comparison")
+	void testEventDoesEventClashTimeslot_AllocatesNothing() {
+		assertAllocatesNothing((long) ROUNDS * TIMESLOTS * EVENTS, () -> {
+			for (int round = 0; round < ROUNDS; round++) {
+				for (Timeslot timeslot : timeslots) {
+					for (Event event : events) {
+						clashes += event.doesEventClash(timeslot) ? 1 : 0;
+					}
+				}
+			}
+		});
+	}
+
+	@Test
+	@DisplayName("BusyIntervalIndex.overlaps() allocates nothing per probe")
+	void testBusyIndexOverlaps_AllocatesNothing() {
+		assertAllocatesNothing((long) ROUNDS * TIMESLOTS, () -> {
+			for (int round = 0; round < ROUNDS; round++) {
+				for (Timeslot timeslot : timeslots) {
+					clashes += index.overlaps(timeslot.getStartMinute(), timeslot.getEndMinute()) ? 1 : 0;
+				}
+			}
+		});
+	}
+
+	private void assertAllocatesNothing(long checks, Runnable run) {
+		// the first run loads and compiles what the checks use
+		run.run();
+		long before = THREADS.getCurrentThreadAllocatedBytes();
+		run.run();
+		long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+		assertTrue(allocated <= checks * MAX_BYTES_PER_CHECK,
+				allocated + " bytes allocated over " + checks + " checks");
+	}
+}
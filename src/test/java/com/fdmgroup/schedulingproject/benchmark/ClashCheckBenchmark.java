@@ -0,0 +1,122 @@
+package com.fdmgroup.schedulingproject.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fdmgroup.schedulingproject.model.BusyIntervalIndex;
+import com.fdmgroup.schedulingproject.model.Event;
+import com.fdmgroup.schedulingproject.model.Timeslot;
+
+/**
+ * Measures the clash checks used by timeslot search, which compare cached
+ * epoch-minute times and should allocate nothing per comparison. Running
+ * {@link #main(String[])} attaches the GC profiler, whose allocation figures
+ * the runner reports with the timings, and fails if any benchmark allocates on
+ * its hot path. The benchmark is run by hand; the same checks are run on every
+ * build by {@link ClashCheckAllocationTest}.
+ *
+ * Run with:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.fdmgroup.schedulingproject.benchmark.ClashCheckBenchmark}
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClashCheckBenchmark {
+
+	private static final int EVENTS = 1000;
+	private static final int TIMESLOTS = 1024;
+	// allows for rounding in the profiler's per-operation figure
+	private static final double MAX_BYTES_PER_OP = 0.5;
+
+	private Event[] events;
+	private Timeslot[] timeslots;
+	private BusyIntervalIndex index;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		LocalDateTime start = LocalDateTime.of(2024, 5, 6, 9, 0);
+		events = new Event[EVENTS];
+		index = new BusyIntervalIndex();
+		for (int i = 0; i < EVENTS; i++) {
+			events[i] = new Event("title", "description", "location", start.plusMinutes(45L * i), 30);
+			index.add(events[i]);
+		}
+		timeslots = new Timeslot[TIMESLOTS];
+		for (int i = 0; i < TIMESLOTS; i++) {
+			timeslots[i] = new Timeslot(start.plusMinutes(Event.minIntervalMinutes * (long) i), 30);
+		}
+	}
+
+	private Timeslot nextTimeslot() {
+		next = (next + 1) & (TIMESLOTS - 1);
+		return timeslots[next];
+	}
+
+	@Benchmark
+	public void eventOverlaps(Blackhole blackhole) {
+		Timeslot timeslot = nextTimeslot();
+		long startMinute = timeslot.getStartMinute();
+		long endMinute = timeslot.getEndMinute();
+		for (Event event : events) {
+			blackhole.consume(event.overlaps(startMinute, endMinute));
+		}
+	}
+
+	@Benchmark
+	public void eventDoesEventClashTimeslot(Blackhole blackhole) {
+		Timeslot timeslot = nextTimeslot();
+		for (Event event : events) {
+			blackhole.consume(event.doesEventClash(timeslot));
+		}
+	}
+
+	@Benchmark
+	public boolean busyIndexOverlaps() {
+		Timeslot timeslot = nextTimeslot();
+		return index.overlaps(timeslot.getStartMinute(), timeslot.getEndMinute());
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder().include(ClashCheckBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class).build();
+		Collection<RunResult> results = new Runner(options).run();
+		for (RunResult result : results) {
+			Result<?> allocated = result.getSecondaryResults().get("gc.alloc.rate.norm");
+			String benchmark = result.getParams().getBenchmark();
+			if (allocated == null) {
+				throw new IllegalStateException("No allocation figure recorded for " + benchmark);
+			}
+			if (allocated.getScore() > MAX_BYTES_PER_OP) {
+				throw new IllegalStateException(
+						benchmark + " allocated " + allocated.getScore() + " bytes per operation");
+			}
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.fdmgroup.schedulingproject.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fdmgroup.schedulingproject.exception.CannotInviteSelfException;
+import com.fdmgroup.schedulingproject.exception.UserAlreadyInContactsException;
+import com.fdmgroup.schedulingproject.exception.UserAlreadyInvitedException;
+import com.fdmgroup.schedulingproject.exception.UserNotFoundException;
+import com.fdmgroup.schedulingproject.exception.UserNotInvitedException;
+import com.fdmgroup.schedulingproject.model.User;
+import com.fdmgroup.schedulingproject.repository.UserRepository;
+import com.fdmgroup.schedulingproject.service.UserContactService;
+
+/**
+ * Measures contact operations for two users whose contact networks grow from a
+ * handful of users to thousands. Users are compared by username, so the
+ * membership checks these operations make should cost the same however large
+ * the network is. Running {@link #main(String[])} fails if the largest network
+ * is more than {@link #MAX_SLOWDOWN} times slower than the smallest.
+ *
+ * The service is given an in-memory repository, so only the work done on the
+ * loaded users is measured and not the database.
+ *
+ * Run with:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.fdmgroup.schedulingproject.benchmark.ContactOperationBenchmark}
+ *
+ * @author Sam Artigolle
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContactOperationBenchmark {
+
+	// allows for noise between runs; a check that walked the networks would be
+	// hundreds of times slower at the largest size
+	private static final double MAX_SLOWDOWN = 3.0;
+
+	@Param({ "10", "1000", "10000" })
+	public int networkSize;
+
+	private UserContactService userContactService;
+	private User sender, receiver;
+
+	@Setup
+	public void setUp() {
+		Map<String, User> users = new HashMap<>();
+		sender = new User("sender", "password", "displayName");
+		receiver = new User("receiver", "password", "displayName");
+		users.put(sender.getUsername(), sender);
+		users.put(receiver.getUsername(), receiver);
+		for (int i = 0; i < networkSize; i++) {
+			// every contact knows both users, so comparing users by their
+			// collections would have to walk the whole network
+			User contact = new User("contact" + i, "password", "displayName");
+			contact.addContact(sender);
+			contact.addContact(receiver);
+			sender.addContact(contact);
+			receiver.addContact(contact);
+			User invited = new User("invited" + i, "password", "displayName");
+			sender.addSentContactInvite(invited);
+			invited.addReceivedContactInvite(sender);
+			User inviting = new User("inviting" + i, "password", "displayName");
+			receiver.addReceivedContactInvite(inviting);
+			inviting.addSentContactInvite(receiver);
+		}
+		userContactService = new UserContactService();
+		userContactService.setUserRepository(inMemoryRepository(users));
+	}
+
+	private static UserRepository inMemoryRepository(Map<String, User> users) {
+		return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+				new Class<?>[] { UserRepository.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "findByUsername":
+						return Optional.ofNullable(users.get((String) args[0]));
+					case "save":
+					case "saveAll":
+						return args[0];
+					default:
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+	@Benchmark
+	public boolean contactsContains() {
+		return sender.getContacts().contains(receiver) || sender.getSentContactInvites().contains(receiver);
+	}
+
+	@Benchmark
+	public void sendAndCancelContactInvite() throws UserNotFoundException, UserAlreadyInContactsException,
+			UserAlreadyInvitedException, CannotInviteSelfException, UserNotInvitedException {
+		userContactService.sendContactInvite("sender", "receiver");
+		userContactService.cancelContactInvite("sender", "receiver");
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder().include(ContactOperationBenchmark.class.getSimpleName()).build();
+		Collection<RunResult> results = new Runner(options).run();
+		Map<String, Double> smallest = new HashMap<>();
+		Map<String, Double> largest = new HashMap<>();
+		for (RunResult result : results) {
+			String benchmark = result.getParams().getBenchmark();
+			int size = Integer.parseInt(result.getParams().getParam("networkSize"));
+			double score = result.getPrimaryResult().getScore();
+			System.out.println(benchmark + " with " + size + " contacts took " + score + " ns per operation");
+			if (size == 10) {
+				smallest.put(benchmark, score);
+			} else if (size == 10000) {
+				largest.put(benchmark, score);
+			}
+		}
+		for (Map.Entry<String, Double> entry : largest.entrySet()) {
+			double slowdown = entry.getValue() / smallest.get(entry.getKey());
+			if (slowdown > MAX_SLOWDOWN) {
+				throw new IllegalStateException(
+						entry.getKey() + " was " + slowdown + " times slower with 10000 contacts than with 10");
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.fdmgroup.schedulingproject.config;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// the two pools stand in for the primary and replica databases
+@ExtendWith(MockitoExtension.class)
+public class ReadWriteRoutingDataSourceTest {
+
+	@Mock
+	DataSource mockPrimary;
+
+	@Mock
+	DataSource mockReplica;
+
+	@Mock
+	Connection mockConnection;
+
+	private DataSource dataSource;
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void setUp() {
+		dataSource = DataSourceConfig.routingDataSource(mockPrimary, mockReplica);
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+	}
+
+	private void runStatement() {
+		try {
+			DataSourceUtils.getConnection(dataSource).createStatement();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Test
+	@DisplayName("Verify a read-only transaction takes its connection from the replica")
+	void testReadOnlyTransaction_UsesReplica() throws Exception {
+		when(mockReplica.getConnection()).thenReturn(mockConnection);
+		transactionTemplate.setReadOnly(true);
+
+		transactionTemplate.executeWithoutResult(status -> runStatement());
+
+		verify(mockReplica).getConnection();
+		verify(mockPrimary, never()).getConnection();
+	}
+
+	@Test
+	@DisplayName("Verify a read-write transaction takes its connection from the primary")
+	void testReadWriteTransaction_UsesPrimary() throws Exception {
+		when(mockPrimary.getConnection()).thenReturn(mockConnection);
+
+		transactionTemplate.executeWithoutResult(status -> runStatement());
+
+		verify(mockPrimary).getConnection();
+		verify(mockReplica, never()).getConnection();
+	}
+
+	@Test
+	@DisplayName("Verify a statement outside a transaction uses the primary")
+	void testWithoutTransaction_UsesPrimary() throws Exception {
+		when(mockPrimary.getConnection()).thenReturn(mockConnection);
+
+		dataSource.getConnection().createStatement();
+
+		verify(mockPrimary).getConnection();
+		verify(mockReplica, never()).getConnection();
+	}
+
+	@Test
+	@DisplayName("Verify a transaction that takes no connection takes none from either pool")
+	void testTransactionWithoutStatements_TakesNoConnection() throws Exception {
+		transactionTemplate.setReadOnly(true);
+
+		transactionTemplate.executeWithoutResult(status -> {
+		});
+
+		verify(mockPrimary, never()).getConnection();
+		verify(mockReplica, never()).getConnection();
+	}
+}
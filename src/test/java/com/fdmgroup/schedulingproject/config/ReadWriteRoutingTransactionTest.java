@@ -0,0 +1,85 @@
+package com.fdmgroup.schedulingproject.config;
+
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fdmgroup.schedulingproject.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+// runs transactions one after another in a single entity manager, as the
+// requests of a web page do, against the real pools and transaction manager
+@SpringBootTest
+public class ReadWriteRoutingTransactionTest {
+	@SpyBean(name = "primaryDataSource")
+	private HikariDataSource primaryDataSource;
+	@SpyBean(name = "replicaDataSource")
+	private HikariDataSource replicaDataSource;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private UserRepository userRepo;
+
+	private EntityManager entityManager;
+	private TransactionTemplate readWrite;
+	private TransactionTemplate readOnly;
+
+	@BeforeEach
+	void setUp() {
+		// what the open-in-view interceptor does at the start of a request
+		entityManager = entityManagerFactory.createEntityManager();
+		TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		clearInvocations(primaryDataSource, replicaDataSource);
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+		entityManager.close();
+	}
+
+	@Test
+	@DisplayName("Verify a read-only transaction after a read-write one in the same request uses the replica")
+	void testReadOnlyAfterReadWrite_UsesReplica() throws Exception {
+		readWrite.executeWithoutResult(status -> userRepo.findVersionById(-1));
+		verify(primaryDataSource, times(1)).getConnection();
+		verify(replicaDataSource, never()).getConnection();
+
+		readOnly.executeWithoutResult(status -> userRepo.findVersionById(-1));
+		verify(primaryDataSource, times(1)).getConnection();
+		verify(replicaDataSource, times(1)).getConnection();
+	}
+
+	@Test
+	@DisplayName("Verify a read-write transaction after a read-only one in the same request uses the primary")
+	void testReadWriteAfterReadOnly_UsesPrimary() throws Exception {
+		readOnly.executeWithoutResult(status -> userRepo.findVersionById(-1));
+		verify(replicaDataSource, times(1)).getConnection();
+		verify(primaryDataSource, never()).getConnection();
+
+		readWrite.executeWithoutResult(status -> userRepo.findVersionById(-1));
+		verify(replicaDataSource, times(1)).getConnection();
+		verify(primaryDataSource, times(1)).getConnection();
+	}
+}
@@ -0,0 +1,87 @@
+package com.fdmgroup.schedulingproject.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import com.fdmgroup.schedulingproject.exception.UserNotFoundException;
+import com.fdmgroup.schedulingproject.model.UserPrincipal;
+import com.fdmgroup.schedulingproject.service.UserDetailsService;
+
+@ExtendWith(MockitoExtension.class)
+public class SessionPrincipalInterceptorTest {
+
+	@Mock
+	UserDetailsService mockUserDetailsService;
+
+	private SessionPrincipalInterceptor interceptor;
+	private MockHttpSession session;
+	private MockHttpServletRequest request;
+
+	@BeforeEach
+	void setUp() {
+		interceptor = new SessionPrincipalInterceptor(mockUserDetailsService, Duration.ofSeconds(60));
+		session = new MockHttpSession();
+		request = new MockHttpServletRequest();
+		request.setSession(session);
+	}
+
+	@Test
+	@DisplayName("preHandle() trusts a recently validated snapshot without revalidating it")
+	void testPreHandle_WithFreshPrincipal() {
+		UserPrincipal principal = new UserPrincipal(1, "username", "displayName", 0, Instant.now());
+		session.setAttribute("current_user", "username");
+		session.setAttribute("current_principal", principal);
+		assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+		assertEquals(principal, session.getAttribute("current_principal"));
+		verifyNoInteractions(mockUserDetailsService);
+	}
+
+	@Test
+	@DisplayName("preHandle() replaces a stale snapshot with the revalidated one")
+	void testPreHandle_WithStalePrincipal() {
+		UserPrincipal principal = new UserPrincipal(1, "username", "displayName", 0,
+				Instant.now().minusSeconds(120));
+		UserPrincipal revalidated = new UserPrincipal(1, "username", "newDisplayName", 1, Instant.now());
+		session.setAttribute("current_user", "username");
+		session.setAttribute("current_principal", principal);
+		when(mockUserDetailsService.revalidatePrincipal(principal)).thenReturn(revalidated);
+		assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+		assertEquals(revalidated, session.getAttribute("current_principal"));
+		assertEquals("username", session.getAttribute("current_user"));
+	}
+
+	@Test
+	@DisplayName("preHandle() ends the session of a user who no longer exists")
+	void testPreHandle_WithDeletedUser() {
+		UserPrincipal principal = new UserPrincipal(1, "username", "displayName", 0,
+				Instant.now().minusSeconds(120));
+		session.setAttribute("current_user", "username");
+		session.setAttribute("current_principal", principal);
+		when(mockUserDetailsService.revalidatePrincipal(principal)).thenThrow(new UserNotFoundException());
+		assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+		assertTrue(session.isInvalid());
+	}
+
+	@Test
+	@DisplayName("preHandle() does nothing for a request without a logged in user")
+	void testPreHandle_WithoutPrincipal() {
+		assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), null));
+		assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+		verifyNoInteractions(mockUserDetailsService);
+	}
+}
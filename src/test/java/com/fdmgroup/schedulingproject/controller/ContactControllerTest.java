@@ -7,12 +7,13 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -25,12 +26,12 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.web.servlet.FlashMap;
 import org.springframework.web.servlet.ModelAndView;
 
+import com.fdmgroup.schedulingproject.dto.UserContactRow;
 import com.fdmgroup.schedulingproject.exception.CannotInviteSelfException;
 import com.fdmgroup.schedulingproject.exception.UserAlreadyInContactsException;
 import com.fdmgroup.schedulingproject.exception.UserAlreadyInvitedException;
 import com.fdmgroup.schedulingproject.exception.UserNotFoundException;
 import com.fdmgroup.schedulingproject.exception.UserNotInvitedException;
-import com.fdmgroup.schedulingproject.model.User;
 import com.fdmgroup.schedulingproject.service.*;
 
 @WebMvcTest
@@ -47,9 +48,6 @@ public class ContactControllerTest {
 	@MockBean
 	EventService mockEventService;
 
-	@Mock
-	User mockUser1;
-
 	@Test
 	@DisplayName("Test GET request to \"/contacts\" redirects to index.html if user not logged in")
 	void testGetContacts_RedirectsToIndex_IfNotLoggedIn() throws Exception {
@@ -60,7 +58,7 @@ public class ContactControllerTest {
 	@Test
 	@DisplayName("Test GET request to \"/contacts\" redirects to index.html for invalid username")
 	void testGetContacts_RedirectsToIndex_IfSessionNotValid() throws Exception {
-		doThrow(new UserNotFoundException()).when(mockUserDetailsService).getUserInfo("invalid");
+		doThrow(new UserNotFoundException()).when(mockUserDetailsService).getHomeSummary("invalid");
 
 		MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/home").sessionAttr("current_user", "invalid"))
 				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
@@ -73,13 +71,15 @@ public class ContactControllerTest {
 	@Test
 	@DisplayName("Test GET request to \"/contacts\" for valid user populates correct params")
 	void testGetContacts_HasCorrectAttributes_ForLoggedInUser() throws Exception {
-		when(mockUserDetailsService.getUserInfo("valid")).thenReturn(mockUser1);
-		ArrayList<User> mockContacts = new ArrayList<>();
-		ArrayList<User> mockReceivedContactInvites = new ArrayList<>();
-		ArrayList<User> mockSentContactInvites = new ArrayList<>();
-		when(mockUser1.getContacts()).thenReturn(mockContacts);
-		when(mockUser1.getReceivedContactInvites()).thenReturn(mockReceivedContactInvites);
-		when(mockUser1.getSentContactInvites()).thenReturn(mockSentContactInvites);
+		List<UserContactRow> mockContacts = new ArrayList<>();
+		List<UserContactRow> mockReceivedContactInvites = new ArrayList<>();
+		List<UserContactRow> mockSentContactInvites = new ArrayList<>();
+		Map<UserContactRow.Relation, List<UserContactRow>> mockContactLists = new EnumMap<>(
+				UserContactRow.Relation.class);
+		mockContactLists.put(UserContactRow.Relation.CONTACT, mockContacts);
+		mockContactLists.put(UserContactRow.Relation.RECEIVED_INVITE, mockReceivedContactInvites);
+		mockContactLists.put(UserContactRow.Relation.SENT_INVITE, mockSentContactInvites);
+		when(mockUserContactService.getContactLists("valid")).thenReturn(mockContactLists);
 		MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/contacts").sessionAttr("current_user", "valid"))
 				.andExpect(MockMvcResultMatchers.view().name("contacts")).andReturn();
 
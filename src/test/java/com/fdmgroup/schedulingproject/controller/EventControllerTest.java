@@ -3,12 +3,16 @@ package com.fdmgroup.schedulingproject.controller;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -33,11 +37,19 @@ import org.springframework.web.servlet.ModelAndView;
 import com.fdmgroup.schedulingproject.exception.EventAlreadyInCalendarException;
 import com.fdmgroup.schedulingproject.exception.EventClashException;
 import com.fdmgroup.schedulingproject.exception.EventNotFoundException;
+import com.fdmgroup.schedulingproject.exception.RoomAlreadyExistsException;
+import com.fdmgroup.schedulingproject.exception.RoomUnavailableException;
 import com.fdmgroup.schedulingproject.exception.UserNotFoundException;
 import com.fdmgroup.schedulingproject.exception.UserNotInvitedException;
+import com.fdmgroup.schedulingproject.exception.UserNotOrganiserException;
+import com.fdmgroup.schedulingproject.exception.UsersNotFoundException;
 import com.fdmgroup.schedulingproject.model.Event;
+import com.fdmgroup.schedulingproject.model.Recurrence;
+import com.fdmgroup.schedulingproject.model.RecurrenceFrequency;
 import com.fdmgroup.schedulingproject.model.Timeslot;
+import com.fdmgroup.schedulingproject.model.TimeslotSearchResult;
 import com.fdmgroup.schedulingproject.model.User;
+import com.fdmgroup.schedulingproject.model.UserPrincipal;
 import com.fdmgroup.schedulingproject.service.*;
 
 @WebMvcTest
@@ -132,14 +144,15 @@ public class EventControllerTest {
 	@DisplayName("Test POST request to \"/event/create-schedule\" for valid username populates correct params")
 	void testPostEventCreateSchedule_HasCorrectAttributes_ForValidUser() throws Exception {
 		when(mockUserDetailsService.getUserInfo("username")).thenReturn(mockUser1);
-		when(mockUserDetailsService.getUserInfo("invitee1")).thenReturn(mockUser2);
+		when(mockUserDetailsService.findUsers(List.of("invitee1"))).thenReturn(List.of(mockUser2));
 		LocalDateTime now = LocalDateTime.now();
 		List<Timeslot> mockTimeslots = new ArrayList<>();
 		mockTimeslots.add(mockTimeslot1);
 		mockTimeslots.add(mockTimeslot2);
 		mockTimeslots.add(mockTimeslot3);
-		when(mockEventService.findTimeslots(eq(mockUser1), eq(now), eq(30), argThat(x -> x.contains(mockUser2))))
-				.thenReturn(mockTimeslots);
+		when(mockEventService.searchTimeslots(eq(mockUser1), eq(now), eq(30), argThat(x -> x.contains(mockUser2)),
+				eq("location")))
+				.thenReturn(new TimeslotSearchResult(mockTimeslots, true));
 		MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/event/create-schedule")
 				.contentType(MediaType.APPLICATION_FORM_URLENCODED)
 				.param("selectedContacts", "invitee1").param("title", "title")
@@ -159,6 +172,27 @@ public class EventControllerTest {
 		assertEquals(now, createdEvent.getStartTime());
 		assertEquals(30, createdEvent.getDurationMinutes());
 		assertEquals(mockTimeslots, model.get("suggestedTimeslots"));
+		assertEquals(true, model.get("searchExhausted"));
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/event/create-schedule\" redirects to create-event.html naming unknown invitees")
+	void testPostEventCreateSchedule_RedirectsToCreate_ForUnknownInvitees() throws Exception {
+		when(mockUserDetailsService.getUserInfo("username")).thenReturn(mockUser1);
+		when(mockUserDetailsService.findUsers(List.of("invitee1", "unknown1", "unknown2")))
+				.thenThrow(new UsersNotFoundException(List.of("unknown1", "unknown2")));
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/event/create-schedule")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED)
+				.param("selectedContacts", "invitee1", "unknown1", "unknown2").param("title", "title")
+				.param("description", "description").param("location", "location")
+				.param("startTime", LocalDateTime.now().toString()).param("durationMinutes", "30")
+				.sessionAttr("current_user", "username"))
+				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
+						MockMvcResultMatchers.redirectedUrl("/event/create"))
+				.andReturn();
+		FlashMap flashMap = result.getFlashMap();
+		assertEquals("Could not find invited users: unknown1, unknown2", flashMap.get("message"));
+		verify(mockEventService, never()).searchTimeslots(any(), any(), anyInt(), any(), any());
 	}
 
 	@Test
@@ -179,7 +213,6 @@ public class EventControllerTest {
 	void testPostEventCreateFinal_RedirectsToIndex_IfSessionNotValid() throws Exception {
 		doThrow(new UserNotFoundException()).when(mockEventService).createEvent(eq("invalid"), any(), any());
 		LocalDateTime now = LocalDateTime.now();
-		when(mockUserDetailsService.getUserInfo("invitee1")).thenReturn(mockUser2);
 
 		MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/event/create-final")
 				.contentType(MediaType.APPLICATION_FORM_URLENCODED).sessionAttr("current_user", "invalid")
@@ -197,7 +230,6 @@ public class EventControllerTest {
 	@DisplayName("Test POST request to \"/event/create-final\" redirects to specific event.html for valid user")
 	void testPostEventCreateFinal_RedirectsToEvent_ForValidUser() throws Exception {
 		LocalDateTime now = LocalDateTime.now();
-		when(mockUserDetailsService.getUserInfo("invitee1")).thenReturn(mockUser2);
 
 		mvc.perform(MockMvcRequestBuilders.post("/event/create-final")
 				.contentType(MediaType.APPLICATION_FORM_URLENCODED).sessionAttr("current_user", "username")
@@ -207,10 +239,231 @@ public class EventControllerTest {
 				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
 						MockMvcResultMatchers.redirectedUrlPattern("/event/*"))
 				.andReturn();
-		verify(mockEventService).createEvent(eq("username"), argThat(x -> x.contains(mockUser2)),
+		verify(mockEventService).createEvent(eq("username"), eq(List.of("invitee1")),
 				argThat(e -> e.getTitle().equals("title") && e.getDescription().equals("description")
 						&& e.getLocation().equals("location") && e.getStartTime().equals(now)
 						&& e.getDurationMinutes() == 30));
+		verify(mockUserDetailsService, never()).getUserInfo("invitee1");
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/event/create-final\" creates a recurring event from the recurrence fields")
+	void testPostEventCreateFinal_WithRecurrence() throws Exception {
+		LocalDateTime now = LocalDateTime.now();
+
+		mvc.perform(MockMvcRequestBuilders.post("/event/create-final")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED).param("title", "title")
+				.param("description", "description").param("location", "location").param("startTime", now.toString())
+				.param("durationMinutes", "30").param("recurrenceFrequency", "WEEKLY").param("recurrenceCount", "4")
+				.param("recurrenceUntil", "").sessionAttr("current_user", "username"))
+				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
+						MockMvcResultMatchers.redirectedUrlPattern("/event/*"));
+		verify(mockEventService).createEvent(eq("username"), any(),
+				argThat(e -> e.isRecurring() && e.getRecurrence().getFrequency() == RecurrenceFrequency.WEEKLY
+						&& e.getRecurrence().getCount() == 4 && e.getRecurrence().getUntil() == null));
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/event/create-final\" redirects to create-event.html if the room is booked")
+	void testPostEventCreateFinal_RedirectsToCreate_IfRoomUnavailable() throws Exception {
+		doThrow(new RoomUnavailableException()).when(mockEventService).createEvent(eq("username"), any(), any());
+		LocalDateTime now = LocalDateTime.now();
+
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/event/create-final")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED).param("title", "title")
+				.param("description", "description").param("location", "Room 1").param("startTime", now.toString())
+				.param("durationMinutes", "30").sessionAttr("current_user", "username"))
+				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
+						MockMvcResultMatchers.redirectedUrl("/event/create"))
+				.andReturn();
+		FlashMap flashMap = result.getFlashMap();
+		assertEquals("Room is already booked at this time", flashMap.get("message"));
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/event/create-final\" redirects to create-event.html for an unknown recurrence frequency")
+	void testPostEventCreateFinal_RedirectsToCreate_ForInvalidRecurrenceFrequency() throws Exception {
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/event/create-final")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED).param("title", "title")
+				.param("description", "description").param("location", "location")
+				.param("startTime", LocalDateTime.now().toString()).param("durationMinutes", "30")
+				.param("recurrenceFrequency", "FORTNIGHTLY").sessionAttr("current_user", "username"))
+				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
+						MockMvcResultMatchers.redirectedUrl("/event/create"))
+				.andReturn();
+		assertEquals("Invalid event details", result.getFlashMap().get("message"));
+		verifyNoInteractions(mockEventService);
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/event/create-final\" redirects to create-event.html for an invalid recurrence count")
+	void testPostEventCreateFinal_RedirectsToCreate_ForInvalidRecurrenceCount() throws Exception {
+		for (String count : List.of("four", "0")) {
+			MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/event/create-final")
+					.contentType(MediaType.APPLICATION_FORM_URLENCODED).param("title", "title")
+					.param("description", "description").param("location", "location")
+					.param("startTime", LocalDateTime.now().toString()).param("durationMinutes", "30")
+					.param("recurrenceFrequency", "WEEKLY").param("recurrenceCount", count)
+					.sessionAttr("current_user", "username"))
+					.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
+							MockMvcResultMatchers.redirectedUrl("/event/create"))
+					.andReturn();
+			assertEquals("Invalid event details", result.getFlashMap().get("message"));
+		}
+		verifyNoInteractions(mockEventService);
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/event/create-schedule\" redirects to create-event.html for an invalid start time")
+	void testPostEventCreateSchedule_RedirectsToCreate_ForInvalidStartTime() throws Exception {
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/event/create-schedule")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED).param("title", "title")
+				.param("description", "description").param("location", "location").param("startTime", "tomorrow")
+				.param("durationMinutes", "30").sessionAttr("current_user", "username"))
+				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
+						MockMvcResultMatchers.redirectedUrl("/event/create"))
+				.andReturn();
+		assertEquals("Invalid event details", result.getFlashMap().get("message"));
+		verifyNoInteractions(mockEventService);
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/event/cancel-occurrence/{event-id}\" cancels the occurrence and redirects to event.html")
+	void testPostCancelOccurrence() throws Exception {
+		LocalDateTime occurrenceStart = LocalDateTime.of(2024, 5, 13, 9, 0);
+
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/event/cancel-occurrence/4321")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED).param("occurrenceStart", "2024-05-13T09:00")
+				.sessionAttr("current_user", "organiser"))
+				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
+						MockMvcResultMatchers.redirectedUrl("/event/4321"))
+				.andReturn();
+		assertEquals("Occurrence cancelled", result.getFlashMap().get("message"));
+		verify(mockEventService).cancelOccurrence("organiser", "4321", occurrenceStart);
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/event/cancel-occurrence/{event-id}\" redirects to event.html for a user who does not organise the event")
+	void testPostCancelOccurrence_ForUserNotOrganiser() throws Exception {
+		doThrow(new UserNotOrganiserException()).when(mockEventService).cancelOccurrence(eq("username"), eq("4321"),
+				any());
+
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/event/cancel-occurrence/4321")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED).param("occurrenceStart", "2024-05-13T09:00")
+				.sessionAttr("current_user", "username"))
+				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
+						MockMvcResultMatchers.redirectedUrl("/event/4321"))
+				.andReturn();
+		assertEquals("Only the organiser can cancel an occurrence", result.getFlashMap().get("message"));
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/event/cancel-occurrence/{event-id}\" redirects to event.html for an invalid occurrence time")
+	void testPostCancelOccurrence_ForInvalidOccurrenceStart() throws Exception {
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/event/cancel-occurrence/4321")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED).param("occurrenceStart", "next week")
+				.sessionAttr("current_user", "organiser"))
+				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
+						MockMvcResultMatchers.redirectedUrl("/event/4321"))
+				.andReturn();
+		assertEquals("Could not find occurrence to cancel", result.getFlashMap().get("message"));
+		verifyNoInteractions(mockEventService);
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/room/create\" creates the room and redirects to create-event.html")
+	void testPostRoomCreate() throws Exception {
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/room/create")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED).param("name", "Room 1")
+				.sessionAttr("current_user", "username"))
+				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
+						MockMvcResultMatchers.redirectedUrl("/event/create"))
+				.andReturn();
+		assertEquals("Room created", result.getFlashMap().get("message"));
+		verify(mockEventService).createRoom("Room 1");
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/room/create\" redirects to create-event.html if the room already exists")
+	void testPostRoomCreate_WithExistingRoom() throws Exception {
+		when(mockEventService.createRoom("Room 1")).thenThrow(new RoomAlreadyExistsException());
+
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/room/create")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED).param("name", "Room 1")
+				.sessionAttr("current_user", "username"))
+				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
+						MockMvcResultMatchers.redirectedUrl("/event/create"))
+				.andReturn();
+		assertEquals("Room already exists", result.getFlashMap().get("message"));
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/room/create\" redirects to index.html if user not logged in")
+	void testPostRoomCreate_RedirectsToIndex_IfNotLoggedIn() throws Exception {
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/room/create")
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED).param("name", "Room 1"))
+				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
+						MockMvcResultMatchers.redirectedUrl("/"))
+				.andReturn();
+		assertEquals("Please log in", result.getFlashMap().get("message"));
+		verifyNoInteractions(mockEventService);
+	}
+
+	@Test
+	@DisplayName("Test GET request to \"/event/{event-id}\" shows the event to an invitee without loading the user")
+	void testGetEvent_ForInvitee() throws Exception {
+		User organiser = new User("organiser", "password", "displayName");
+		organiser.setId(1);
+		User invitee = new User("username", "password", "displayName");
+		invitee.setId(2);
+		Event event = new Event("title", "description", "location", LocalDateTime.now(), 30);
+		event.setOrganiser(organiser);
+		event.addAttendee(organiser);
+		event.addInvitee(invitee);
+		when(mockEventService.getEventFromId("4321")).thenReturn(event);
+		when(mockEventService.isUserInvolved(event, 2)).thenReturn(true);
+
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/event/4321").sessionAttr("current_user", "username")
+				.sessionAttr("current_principal", new UserPrincipal(2, "username", "displayName", 0, Instant.now())))
+				.andExpect(MockMvcResultMatchers.view().name("event")).andReturn();
+		assertEquals(event, result.getModelAndView().getModel().get("event"));
+		verifyNoInteractions(mockUserDetailsService);
+	}
+
+	@Test
+	@DisplayName("Test GET request to \"/event/{event-id}\" offers the organiser of a recurring event its upcoming occurrences")
+	void testGetEvent_ForOrganiserOfRecurringEvent() throws Exception {
+		User organiser = new User("organiser", "password", "displayName");
+		organiser.setId(1);
+		Event event = new Event("title", "description", "location", LocalDateTime.now().plusDays(1), 30);
+		event.setRecurrence(new Recurrence(RecurrenceFrequency.DAILY, 3, null));
+		event.setOrganiser(organiser);
+		event.addAttendee(organiser);
+		when(mockEventService.getEventFromId("4321")).thenReturn(event);
+		when(mockEventService.isUserInvolved(event, 1)).thenReturn(true);
+
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/event/4321").sessionAttr("current_user", "organiser")
+				.sessionAttr("current_principal", new UserPrincipal(1, "organiser", "displayName", 0, Instant.now())))
+				.andExpect(MockMvcResultMatchers.view().name("event")).andReturn();
+		assertEquals(3, ((List<?>) result.getModelAndView().getModel().get("upcomingOccurrences")).size());
+	}
+
+	@Test
+	@DisplayName("Test GET request to \"/event/{event-id}\" redirects to home.html for a user not involved with the event")
+	void testGetEvent_RedirectsToHome_ForUninvolvedUser() throws Exception {
+		User organiser = new User("organiser", "password", "displayName");
+		organiser.setId(1);
+		Event event = new Event("title", "description", "location", LocalDateTime.now(), 30);
+		event.setOrganiser(organiser);
+		when(mockEventService.getEventFromId("4321")).thenReturn(event);
+		when(mockEventService.isUserInvolved(event, 2)).thenReturn(false);
+
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/event/4321").sessionAttr("current_user", "username")
+				.sessionAttr("current_principal", new UserPrincipal(2, "username", "displayName", 0, Instant.now())))
+				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
+						MockMvcResultMatchers.redirectedUrl("/home"))
+				.andReturn();
+		assertEquals("No access to this event", result.getFlashMap().get("message"));
 	}
 
 	@Test
@@ -0,0 +1,96 @@
+package com.fdmgroup.schedulingproject.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.fdmgroup.schedulingproject.model.Timeslot;
+import com.fdmgroup.schedulingproject.service.*;
+
+@WebMvcTest
+public class FreeBusyControllerTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@MockBean
+	UserDetailsService mockUserDetailsService;
+	@MockBean
+	UserContactService mockUserContactService;
+	@MockBean
+	EventService mockEventService;
+
+	private static final String REQUEST = "{\"usernames\":[\"user1\",\"user2\",\"ghost\",\"user1\"],"
+			+ "\"start\":\"2024-05-06T00:00:00\",\"end\":\"2024-05-07T00:00:00\"}";
+
+	@Test
+	@DisplayName("Test POST request to \"/api/freebusy\" is unauthorized if user not logged in")
+	void testPostFreeBusy_IsUnauthorized_IfNotLoggedIn() throws Exception {
+		mvc.perform(MockMvcRequestBuilders.post("/api/freebusy").contentType(MediaType.APPLICATION_JSON)
+				.content(REQUEST)).andExpect(MockMvcResultMatchers.status().isUnauthorized());
+		verify(mockEventService, never()).streamBusyIntervals(anyList(), any(), any(), any());
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/api/freebusy\" is a bad request if the range is empty")
+	void testPostFreeBusy_IsBadRequest_ForEmptyRange() throws Exception {
+		mvc.perform(MockMvcRequestBuilders.post("/api/freebusy").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"usernames\":[\"user1\"],\"start\":\"2024-05-06T00:00:00\","
+						+ "\"end\":\"2024-05-06T00:00:00\"}")
+				.sessionAttr("current_user", "username"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/api/freebusy\" is a bad request if no usernames are given")
+	void testPostFreeBusy_IsBadRequest_ForNoUsernames() throws Exception {
+		mvc.perform(MockMvcRequestBuilders.post("/api/freebusy").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"usernames\":[],\"start\":\"2024-05-06T00:00:00\",\"end\":\"2024-05-07T00:00:00\"}")
+				.sessionAttr("current_user", "username"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	@DisplayName("Test POST request to \"/api/freebusy\" writes the busy intervals of each distinct user and lists unknown users")
+	void testPostFreeBusy_WritesBusyIntervals() throws Exception {
+		LocalDateTime start = LocalDateTime.of(2024, 5, 6, 0, 0);
+		doAnswer(invocation -> {
+			BiConsumer<String, List<Timeslot>> action = invocation.getArgument(3);
+			action.accept("user1", List.of(new Timeslot(start.plusHours(9), 60), new Timeslot(start.plusHours(13), 30)));
+			action.accept("user2", List.of());
+			return List.of("ghost");
+		}).when(mockEventService).streamBusyIntervals(eq(List.of("user1", "user2", "ghost")), eq(start),
+				eq(start.plusDays(1)), any());
+
+		mvc.perform(MockMvcRequestBuilders.post("/api/freebusy").contentType(MediaType.APPLICATION_JSON)
+				.content(REQUEST).sessionAttr("current_user", "username"))
+				.andExpectAll(MockMvcResultMatchers.status().isOk(),
+						MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON),
+						MockMvcResultMatchers.jsonPath("$.users.length()").value(2),
+						MockMvcResultMatchers.jsonPath("$.users[0].username").value("user1"),
+						MockMvcResultMatchers.jsonPath("$.users[0].busy[0].start").value("2024-05-06T09:00"),
+						MockMvcResultMatchers.jsonPath("$.users[0].busy[0].end").value("2024-05-06T10:00"),
+						MockMvcResultMatchers.jsonPath("$.users[0].busy[1].start").value("2024-05-06T13:00"),
+						MockMvcResultMatchers.jsonPath("$.users[1].username").value("user2"),
+						MockMvcResultMatchers.jsonPath("$.users[1].busy").isEmpty(),
+						MockMvcResultMatchers.jsonPath("$.unknown.length()").value(1),
+						MockMvcResultMatchers.jsonPath("$.unknown[0]").value("ghost"));
+	}
+}
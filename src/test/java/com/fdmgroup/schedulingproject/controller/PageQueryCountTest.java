@@ -0,0 +1,124 @@
+package com.fdmgroup.schedulingproject.controller;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fdmgroup.schedulingproject.model.Event;
+import com.fdmgroup.schedulingproject.model.User;
+import com.fdmgroup.schedulingproject.repository.EventRepository;
+import com.fdmgroup.schedulingproject.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Transactional
+public class PageQueryCountTest {
+
+	// statements allowed per page view, however many contacts and events the
+	// user and their contacts have
+	private static final int MAX_STATEMENTS = 2;
+	// the home page reads the counts kept on the user, so it only looks up the
+	// user
+	private static final int MAX_HOME_STATEMENTS = 1;
+	// the calendar reads a page of one-off events, the recurring events and a
+	// page of invites separately
+	private static final int MAX_CALENDAR_STATEMENTS = 3;
+	private static final int CONTACTS = 10;
+	private static final int EVENTS = 10;
+
+	@Autowired
+	private MockMvc mvc;
+	@Autowired
+	private UserRepository userRepo;
+	@Autowired
+	private EventRepository eventRepo;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		User user = userRepo.save(new User("pageUser", "password", "displayName"));
+		LocalDateTime start = LocalDateTime.now().plusDays(1).withSecond(0).withNano(0);
+		for (int i = 0; i < CONTACTS; i++) {
+			// every contact has contacts and invites of their own, which the pages
+			// should not load
+			User contact = userRepo.save(new User("pageContact" + i, "password", "displayName"));
+			User sender = userRepo.save(new User("pageSender" + i, "password", "displayName"));
+			User recipient = userRepo.save(new User("pageRecipient" + i, "password", "displayName"));
+			user.addContact(contact);
+			contact.addContact(user);
+			contact.addContact(sender);
+			sender.addContact(contact);
+			sender.addSentContactInvite(user);
+			user.addReceivedContactInvite(sender);
+			user.addSentContactInvite(recipient);
+			recipient.addReceivedContactInvite(user);
+			recipient.addSentContactInvite(contact);
+			contact.addReceivedContactInvite(recipient);
+		}
+		for (int i = 0; i < EVENTS; i++) {
+			User organiser = userRepo.save(new User("pageOrganiser" + i, "password", "displayName"));
+			Event confirmed = new Event("confirmed" + i, "description", "location", start.plusHours(i), 30);
+			confirmed.setOrganiser(organiser);
+			confirmed.addAttendee(user);
+			user.addCalendarEvent(eventRepo.save(confirmed));
+			Event invite = new Event("invite" + i, "description", "location", start.plusHours(i).plusMinutes(30),
+					30);
+			invite.setOrganiser(organiser);
+			invite.addInvitee(user);
+			user.addEventInvite(eventRepo.save(invite));
+		}
+		userRepo.save(user);
+		entityManager.flush();
+		entityManager.clear();
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	private long countStatements(String url, String view) throws Exception {
+		mvc.perform(MockMvcRequestBuilders.get(url).sessionAttr("current_user", "pageUser"))
+				.andExpect(MockMvcResultMatchers.view().name(view));
+		return statistics.getPrepareStatementCount();
+	}
+
+	@Test
+	@DisplayName("Test GET request to \"/home\" runs a bounded number of SQL statements")
+	void testGetHome_RunsBoundedStatements() throws Exception {
+		long statements = countStatements("/home", "home");
+		assertTrue(statements <= MAX_HOME_STATEMENTS, "/home ran " + statements + " statements");
+	}
+
+	@Test
+	@DisplayName("Test GET request to \"/calendar\" runs a bounded number of SQL statements")
+	void testGetCalendar_RunsBoundedStatements() throws Exception {
+		long statements = countStatements("/calendar", "calendar");
+		assertTrue(statements <= MAX_CALENDAR_STATEMENTS, "/calendar ran " + statements + " statements");
+	}
+
+	@Test
+	@DisplayName("Test GET request to \"/contacts\" runs a bounded number of SQL statements")
+	void testGetContacts_RunsBoundedStatements() throws Exception {
+		long statements = countStatements("/contacts", "contacts");
+		assertTrue(statements <= MAX_STATEMENTS, "/contacts ran " + statements + " statements");
+	}
+}
@@ -3,11 +3,16 @@ package com.fdmgroup.schedulingproject.controller;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -28,10 +33,14 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.web.servlet.FlashMap;
 import org.springframework.web.servlet.ModelAndView;
 
+import com.fdmgroup.schedulingproject.dto.EventSummary;
+import com.fdmgroup.schedulingproject.dto.UserHomeSummary;
 import com.fdmgroup.schedulingproject.exception.PasswordDoesNotMatchException;
 import com.fdmgroup.schedulingproject.exception.UserNotFoundException;
-import com.fdmgroup.schedulingproject.model.Event;
-import com.fdmgroup.schedulingproject.model.User;
+import com.fdmgroup.schedulingproject.model.EventOccurrence;
+import com.fdmgroup.schedulingproject.model.KeysetPage;
+import com.fdmgroup.schedulingproject.model.PageCursor;
+import com.fdmgroup.schedulingproject.model.UserPrincipal;
 import com.fdmgroup.schedulingproject.service.*;
 
 import jakarta.servlet.http.HttpSession;
@@ -51,7 +60,7 @@ public class UserControllerTest {
 	EventService mockEventService;
 
 	@Mock
-	User mockUser;
+	UserHomeSummary mockHomeSummary;
 
 	@Test
 	@DisplayName("Test get request to \"/\" returns index.html")
@@ -93,6 +102,8 @@ public class UserControllerTest {
 	@Test
 	@DisplayName("Test POST request to \"/login\" redirects to home.html for valid credentials and saves username to session")
 	void testPostLogin_RedirectsToHome_WithValidCredentials() throws Exception {
+		UserPrincipal principal = new UserPrincipal(1, "valid", "display", 0, Instant.now());
+		when(mockUserDetailsService.verifyCredentials("valid", "password")).thenReturn(principal);
 		MvcResult result = mvc
 				.perform(MockMvcRequestBuilders.post("/login").contentType(MediaType.APPLICATION_FORM_URLENCODED)
 						.param("username", "valid").param("password", "password"))
@@ -103,6 +114,7 @@ public class UserControllerTest {
 		HttpSession session = result.getRequest().getSession();
 		assertNotNull(session);
 		assertEquals("valid", session.getAttribute("current_user"));
+		assertEquals(principal, session.getAttribute("current_principal"));
 	}
 
 	@Test
@@ -129,10 +141,10 @@ public class UserControllerTest {
 	@Test
 	@DisplayName("Test GET request to \"/home\" for valid user populates correct params")
 	void testGetHome_HasCorrectAttributes_ForLoggedInUser() throws Exception {
-		when(mockUserDetailsService.getUserInfo("valid")).thenReturn(mockUser);
-		when(mockUser.getDisplayName()).thenReturn("display");
-		when(mockUser.getReceivedContactInvites()).thenReturn(new ArrayList<>());
-		when(mockUser.getFutureEventInvites()).thenReturn(new ArrayList<>());
+		when(mockUserDetailsService.getHomeSummary("valid")).thenReturn(mockHomeSummary);
+		when(mockHomeSummary.getDisplayName()).thenReturn("display");
+		when(mockHomeSummary.getPendingContactInvites()).thenReturn(0);
+		when(mockHomeSummary.getPendingEventInvites()).thenReturn(0);
 		MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/home").sessionAttr("current_user", "valid"))
 				.andExpect(MockMvcResultMatchers.view().name("home")).andReturn();
 
@@ -165,9 +177,8 @@ public class UserControllerTest {
 	}
 
 	@Test
-	@DisplayName("Test GET request to \"/profile\" redirects to index.html if session user is invalid")
+	@DisplayName("Test GET request to \"/profile\" redirects to index.html if the session has no snapshot of the user")
 	void testGetProfile_RedirectsToIndex_IfSessionInvalid() throws Exception {
-		doThrow(new UserNotFoundException()).when(mockUserDetailsService).getUserInfo("invalid");
 		MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/profile").sessionAttr("current_user", "invalid"))
 				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
 						MockMvcResultMatchers.redirectedUrl("/"))
@@ -178,16 +189,17 @@ public class UserControllerTest {
 	}
 
 	@Test
-	@DisplayName("Test GET request to \"/profile\" loads profile.html and passes user to model")
+	@DisplayName("Test GET request to \"/profile\" loads profile.html from the session without loading the user")
 	void testGetProfile_WithValidUsername() throws Exception {
-		User realUser = new User();
-		when(mockUserDetailsService.getUserInfo("username")).thenReturn(realUser);
-		MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/profile").sessionAttr("current_user", "username"))
+		UserPrincipal principal = new UserPrincipal(1, "username", "displayName", 0, Instant.now());
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/profile").sessionAttr("current_user", "username")
+				.sessionAttr("current_principal", principal))
 				.andExpect(MockMvcResultMatchers.view().name("profile")).andReturn();
 
 		ModelAndView modelAndView = result.getModelAndView();
 		assertNotNull(modelAndView);
-		assertEquals(realUser, modelAndView.getModel().get("user"));
+		assertEquals(principal, modelAndView.getModel().get("user"));
+		verifyNoInteractions(mockUserDetailsService);
 	}
 
 	@Test
@@ -222,12 +234,16 @@ public class UserControllerTest {
 	@Test
 	@DisplayName("Test POST request to \"/profile/update-display-name\" redirects to profile.html for valid credentials and updates user's display name")
 	void testPostUpdateDisplayName_RedirectsToProfileAndUpdatesRepo_WithValidCredentials() throws Exception {
-		mvc.perform(MockMvcRequestBuilders.post("/profile/update-display-name")
+		UserPrincipal updated = new UserPrincipal(1, "username", "newDisplayName", 1, Instant.now());
+		when(mockUserDetailsService.updateDisplayName("username", "newDisplayName")).thenReturn(updated);
+		MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/profile/update-display-name")
 				.contentType(MediaType.APPLICATION_FORM_URLENCODED).param("displayName", "newDisplayName")
-				.sessionAttr("current_user", "username"))
+				.sessionAttr("current_user", "username")
+				.sessionAttr("current_principal", new UserPrincipal(1, "username", "displayName", 0, Instant.now())))
 				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
-						MockMvcResultMatchers.redirectedUrl("/profile"));
-		verify(mockUserDetailsService).updateDisplayName("username", "newDisplayName");
+						MockMvcResultMatchers.redirectedUrl("/profile"))
+				.andReturn();
+		assertEquals(updated, result.getRequest().getSession().getAttribute("current_principal"));
 	}
 
 	@Test
@@ -326,7 +342,8 @@ public class UserControllerTest {
 	@Test
 	@DisplayName("Test GET request to \"/calendar\" redirects to index.html if session user is invalid")
 	void testGetCalendar_RedirectsToIndex_IfSessionInvalid() throws Exception {
-		doThrow(new UserNotFoundException()).when(mockUserDetailsService).getUserInfo("invalid");
+		doThrow(new UserNotFoundException()).when(mockEventService).getCalendarPageAfter(eq("invalid"), any(),
+				anyInt());
 		MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/calendar").sessionAttr("current_user", "invalid"))
 				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
 						MockMvcResultMatchers.redirectedUrl("/"))
@@ -339,17 +356,56 @@ public class UserControllerTest {
 	@Test
 	@DisplayName("Test GET request to \"/calendar\" loads calendar.html and passes user's calendar info to model")
 	void testGetCalendar_WithValidUsername() throws Exception {
-		when(mockUserDetailsService.getUserInfo("username")).thenReturn(mockUser);
-		List<Event> mockCalendar = new ArrayList<>();
-		List<Event> mockInvites = new ArrayList<>();
-		when(mockUser.getFutureCalendar()).thenReturn(mockCalendar);
-		when(mockUser.getFutureEventInvites()).thenReturn(mockInvites);
+		PageCursor next = new PageCursor(LocalDateTime.of(2024, 5, 6, 9, 0), 1);
+		KeysetPage<EventOccurrence> calendarPage = new KeysetPage<>(new ArrayList<>(), null, next);
+		KeysetPage<EventSummary> invitePage = new KeysetPage<>(new ArrayList<>(), null, null);
+		when(mockEventService.getCalendarPageAfter(eq("username"), any(), eq(UserController.CALENDAR_PAGE_SIZE)))
+				.thenReturn(calendarPage);
+		when(mockEventService.getEventInvitesAfter("username", null, UserController.CALENDAR_PAGE_SIZE))
+				.thenReturn(invitePage);
 		MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/calendar").sessionAttr("current_user", "username"))
 				.andExpect(MockMvcResultMatchers.view().name("calendar")).andReturn();
 
 		ModelAndView modelAndView = result.getModelAndView();
 		assertNotNull(modelAndView);
-		assertEquals(mockCalendar, modelAndView.getModel().get("calendar"));
-		assertEquals(mockInvites, modelAndView.getModel().get("calendarInvites"));
+		assertEquals(calendarPage.getItems(), modelAndView.getModel().get("calendar"));
+		assertEquals(next, modelAndView.getModel().get("calendarNext"));
+		assertEquals(invitePage.getItems(), modelAndView.getModel().get("calendarInvites"));
+	}
+
+	@Test
+	@DisplayName("Test GET request to \"/calendar\" with cursors reads the pages before and after them")
+	void testGetCalendar_WithCursors() throws Exception {
+		PageCursor before = new PageCursor(LocalDateTime.of(2024, 5, 6, 9, 0), 3);
+		PageCursor invitesAfter = new PageCursor(LocalDateTime.of(2024, 6, 1, 12, 0), 8);
+		KeysetPage<EventOccurrence> calendarPage = new KeysetPage<>(new ArrayList<>(), null, before);
+		KeysetPage<EventSummary> invitePage = new KeysetPage<>(new ArrayList<>(), invitesAfter, null);
+		when(mockEventService.getCalendarPageBefore("username", before, UserController.CALENDAR_PAGE_SIZE))
+				.thenReturn(calendarPage);
+		when(mockEventService.getEventInvitesAfter("username", invitesAfter, UserController.CALENDAR_PAGE_SIZE))
+				.thenReturn(invitePage);
+		MvcResult result = mvc
+				.perform(MockMvcRequestBuilders.get("/calendar").param("before", before.toString())
+						.param("invitesAfter", invitesAfter.toString()).sessionAttr("current_user", "username"))
+				.andExpect(MockMvcResultMatchers.view().name("calendar")).andReturn();
+
+		ModelAndView modelAndView = result.getModelAndView();
+		assertNotNull(modelAndView);
+		assertEquals(before, modelAndView.getModel().get("calendarNext"));
+		assertEquals(invitesAfter, modelAndView.getModel().get("invitesPrevious"));
+		assertEquals(invitesAfter.toString(), modelAndView.getModel().get("invitesAfter"));
+	}
+
+	@Test
+	@DisplayName("Test GET request to \"/calendar\" with an invalid cursor redirects to the first page")
+	void testGetCalendar_WithInvalidCursor() throws Exception {
+		MvcResult result = mvc
+				.perform(MockMvcRequestBuilders.get("/calendar").param("after", "invalid")
+						.sessionAttr("current_user", "username"))
+				.andExpectAll(MockMvcResultMatchers.status().is3xxRedirection(),
+						MockMvcResultMatchers.redirectedUrl("/calendar"))
+				.andReturn();
+
+		assertEquals("Could not find page", result.getFlashMap().get("message"));
 	}
 }
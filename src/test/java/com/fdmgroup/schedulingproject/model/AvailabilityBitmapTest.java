@@ -0,0 +1,80 @@
+package com.fdmgroup.schedulingproject.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class AvailabilityBitmapTest {
+
+	private User user;
+	private LocalDate date;
+
+	@BeforeEach
+	void setUp() {
+		user = new User();
+		date = LocalDate.of(2024, 5, 6);
+	}
+
+	@Test
+	@DisplayName("constructor rejects bucket sizes that do not divide a day")
+	void testConstructor_WithUnsupportedBucketSize() {
+		assertThrows(IllegalArgumentException.class, () -> new AvailabilityBitmap(new BusyIntervalIndex(), 7));
+	}
+
+	@Test
+	@DisplayName("getDay() sets one bit for each bucket an event touches")
+	void testGetDay() {
+		user.addCalendarEvent(new Event("title", "description", "location", date.atTime(0, 15), 30));
+		user.addEventInvite(new Event("title", "description", "location", date.atTime(16, 10), 10));
+		AvailabilityBitmap bitmap = new AvailabilityBitmap(user.getBusyIndex(), 15);
+
+		long[] day = bitmap.getDay(date.toEpochDay());
+		assertEquals(2, day.length);
+		assertEquals(0b110L, day[0]);
+		// 16:00 and 16:15 are buckets 64 and 65
+		assertEquals(0b11L, day[1]);
+	}
+
+	@Test
+	@DisplayName("getDay() splits events that cross midnight between both days")
+	void testGetDay_WithEventOverMidnight() {
+		user.addCalendarEvent(new Event("title", "description", "location", date.atTime(23, 30), 60));
+		AvailabilityBitmap bitmap = new AvailabilityBitmap(user.getBusyIndex(), 15);
+
+		assertEquals(0b11L << 30, bitmap.getDay(date.toEpochDay())[1]);
+		assertEquals(0b11L, bitmap.getDay(date.plusDays(1).toEpochDay())[0]);
+	}
+
+	@Test
+	@DisplayName("getDay() expands recurring events for the day being built")
+	void testGetDay_WithRecurringEvent() {
+		Event event = new Event("title", "description", "location", date.atTime(0, 15), 30);
+		event.setRecurrence(new Recurrence(RecurrenceFrequency.WEEKLY, null, null));
+		user.addCalendarEvent(event);
+		AvailabilityBitmap bitmap = new AvailabilityBitmap(user.getBusyIndex(), 15);
+
+		assertEquals(0b110L, bitmap.getDay(date.plusWeeks(30).toEpochDay())[0]);
+		assertEquals(0L, bitmap.getDay(date.plusDays(1).toEpochDay())[0]);
+	}
+
+	@Test
+	@DisplayName("User rebuilds only the days touched by an added or removed event")
+	void testGetAvailabilityBitmap_AfterCalendarChanges() {
+		Event event = new Event("title", "description", "location", date.atTime(9, 0), 15);
+		AvailabilityBitmap bitmap = user.getAvailabilityBitmap();
+		long[] otherDay = bitmap.getDay(date.plusDays(3).toEpochDay());
+		assertEquals(0L, bitmap.getDay(date.toEpochDay())[0]);
+
+		user.addCalendarEvent(event);
+		assertSame(bitmap, user.getAvailabilityBitmap());
+		assertEquals(1L << 36, bitmap.getDay(date.toEpochDay())[0]);
+		assertSame(otherDay, bitmap.getDay(date.plusDays(3).toEpochDay()));
+
+		user.removeCalendarEvent(event);
+		assertEquals(0L, bitmap.getDay(date.toEpochDay())[0]);
+	}
+}
@@ -0,0 +1,75 @@
+package com.fdmgroup.schedulingproject.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class AvailabilityGridTest {
+
+	private LocalDateTime start;
+	private long startMinute;
+	private User user1, user2;
+
+	@BeforeEach
+	void setUp() {
+		start = LocalDateTime.of(2024, 5, 6, 9, 0);
+		startMinute = BusyIntervalIndex.toEpochMinute(start);
+		user1 = new User();
+		user2 = new User();
+	}
+
+	@Test
+	@DisplayName("supports() only accepts searches starting on a bucket boundary")
+	void testSupports() {
+		assertTrue(AvailabilityGrid.supports(startMinute, 15));
+		assertFalse(AvailabilityGrid.supports(startMinute + 5, 15));
+		assertFalse(AvailabilityGrid.supports(startMinute, 7));
+	}
+
+	@Test
+	@DisplayName("isFree() treats a bucket as busy if any participant is busy for part of it")
+	void testIsFree() {
+		user1.addCalendarEvent(new Event("title", "description", "location", start, 30));
+		user2.addCalendarEvent(new Event("title", "description", "location", start.plusMinutes(50), 5));
+		AvailabilityGrid grid = new AvailabilityGrid(
+				List.of(user1.getAvailabilityBitmap(), user2.getAvailabilityBitmap()));
+
+		assertFalse(grid.isFree(startMinute + 15, startMinute + 45));
+		assertTrue(grid.isFree(startMinute + 30, startMinute + 45));
+		assertFalse(grid.isFree(startMinute + 30, startMinute + 60));
+		assertTrue(grid.isFree(startMinute + 60, startMinute + 600));
+	}
+
+	@Test
+	@DisplayName("findFreeSlotForward() finds the first run of free buckets long enough for the slot")
+	void testFindFreeSlotForward() {
+		user1.addCalendarEvent(new Event("title", "description", "location", start, 30));
+		user2.addEventInvite(new Event("title", "description", "location", start.plusMinutes(45), 15));
+		AvailabilityGrid grid = new AvailabilityGrid(
+				List.of(user1.getAvailabilityBitmap(), user2.getAvailabilityBitmap()));
+
+		assertEquals(startMinute + 30, grid.findFreeSlotForward(startMinute, 15, 15));
+		assertEquals(startMinute + 60, grid.findFreeSlotForward(startMinute, 30, 15));
+	}
+
+	@Test
+	@DisplayName("findFreeSlotBackward() finds the latest run of free buckets, including on an earlier day")
+	void testFindFreeSlotBackward() {
+		user1.addCalendarEvent(new Event("title", "description", "location", start.minusHours(9), 540));
+		AvailabilityGrid grid = new AvailabilityGrid(List.of(user1.getAvailabilityBitmap()));
+
+		assertEquals(startMinute - 600, grid.findFreeSlotBackward(startMinute - 15, 60, 15));
+	}
+
+	@Test
+	@DisplayName("findFreeSlotForward() rejects searches that are not aligned to buckets")
+	void testFindFreeSlotForward_WithUnalignedStart() {
+		AvailabilityGrid grid = new AvailabilityGrid(List.of(user1.getAvailabilityBitmap()));
+		assertThrows(IllegalArgumentException.class, () -> grid.findFreeSlotForward(startMinute + 1, 30, 15));
+	}
+}
@@ -0,0 +1,114 @@
+package com.fdmgroup.schedulingproject.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BusyIntervalIndexTest {
+
+	private BusyIntervalIndex index;
+	private LocalDateTime start;
+	private long startMinute;
+
+	@BeforeEach
+	void setUp() {
+		index = new BusyIntervalIndex();
+		start = LocalDateTime.of(2024, 5, 6, 9, 0);
+		startMinute = BusyIntervalIndex.toEpochMinute(start);
+	}
+
+	@Test
+	@DisplayName("overlaps() returns false for an empty index")
+	void testOverlaps_WithEmptyIndex() {
+		assertFalse(index.overlaps(startMinute, startMinute + 30));
+	}
+
+	@Test
+	@DisplayName("overlaps() treats intervals as half-open so back-to-back events do not clash")
+	void testOverlaps_WithSequentialInterval() {
+		index.add(new Event("title", "description", "location", start, 60));
+		assertFalse(index.overlaps(startMinute + 60, startMinute + 90));
+		assertFalse(index.overlaps(startMinute - 30, startMinute));
+		assertTrue(index.overlaps(startMinute + 59, startMinute + 90));
+	}
+
+	@Test
+	@DisplayName("overlaps() finds a long event that started before shorter later events")
+	void testOverlaps_WithLongEarlierEvent() {
+		index.add(new Event("title", "description", "location", start, 480));
+		index.add(new Event("title", "description", "location", start.plusMinutes(30), 15));
+		index.add(new Event("title", "description", "location", start.plusMinutes(60), 15));
+		assertTrue(index.overlaps(startMinute + 300, startMinute + 330));
+		assertFalse(index.overlaps(startMinute + 480, startMinute + 500));
+	}
+
+	@Test
+	@DisplayName("remove() removes an event so it no longer causes an overlap")
+	void testRemove() {
+		Event longEvent = new Event("title", "description", "location", start, 480);
+		index.add(longEvent);
+		index.add(new Event("title", "description", "location", start.plusMinutes(60), 15));
+		assertTrue(index.remove(longEvent));
+		assertFalse(index.remove(longEvent));
+		assertEquals(1, index.size());
+		assertFalse(index.overlaps(startMinute + 300, startMinute + 330));
+		assertTrue(index.overlaps(startMinute + 60, startMinute + 61));
+	}
+
+	@Test
+	@DisplayName("findOverlapping() returns only overlapping events ordered by start time")
+	void testFindOverlapping() {
+		Event event1 = new Event("title", "description", "location", start.plusMinutes(120), 30);
+		Event event2 = new Event("title", "description", "location", start, 180);
+		Event event3 = new Event("title", "description", "location", start.plusMinutes(200), 30);
+		Event event4 = new Event("title", "description", "location", start.plusMinutes(30), 30);
+		index.add(event1);
+		index.add(event2);
+		index.add(event3);
+		index.add(event4);
+		List<Event> overlapping = index.findOverlapping(startMinute + 45, startMinute + 130);
+		assertIterableEquals(List.of(event2, event4, event1), overlapping);
+	}
+
+	@Test
+	@DisplayName("overlaps() checks recurring events without expanding them into the index")
+	void testOverlaps_WithRecurringEvent() {
+		Event event = new Event("title", "description", "location", start, 30);
+		event.setRecurrence(new Recurrence(RecurrenceFrequency.DAILY, null, null));
+		index.add(event);
+		assertEquals(0, index.size());
+		assertEquals(1, index.getEventCount());
+		assertTrue(index.overlaps(startMinute + 100 * 24 * 60, startMinute + 100 * 24 * 60 + 15));
+		assertFalse(index.overlaps(startMinute + 30, startMinute + 24 * 60));
+		assertEquals(Long.MAX_VALUE, index.getLatestEndMinute());
+	}
+
+	@Test
+	@DisplayName("expand() adds the occurrences of recurring events within the range as intervals")
+	void testExpand() {
+		Event oneOff = new Event("title", "description", "location", start.plusMinutes(60), 30);
+		Event daily = new Event("title", "description", "location", start, 30);
+		daily.setRecurrence(new Recurrence(RecurrenceFrequency.DAILY, null, null));
+		index.add(oneOff);
+		index.add(daily);
+
+		BusyIntervalIndex expanded = index.expand(startMinute + 24 * 60, startMinute + 3 * 24 * 60);
+		assertEquals(3, expanded.size());
+		assertFalse(expanded.hasRecurringEvents());
+		assertEquals(startMinute + 60, expanded.getEarliestStartMinute());
+		assertEquals(startMinute + 2 * 24 * 60 + 30, expanded.getLatestEndMinute());
+		assertTrue(expanded.overlaps(startMinute + 2 * 24 * 60, startMinute + 2 * 24 * 60 + 1));
+	}
+
+	@Test
+	@DisplayName("expand() returns the same index if there are no recurring events")
+	void testExpand_WithoutRecurringEvents() {
+		index.add(new Event("title", "description", "location", start, 30));
+		assertSame(index, index.expand(startMinute, startMinute + 60));
+	}
+}
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -43,6 +44,17 @@ class EventTest {
 		assertFalse(event.getAttendees().contains(mockUser));
 	}
 
+	@Test
+	@DisplayName("setEndTime() adjusts the duration so the end time is start time plus duration")
+	void testSetEndTime() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		event.setStartTime(now);
+		event.setEndTime(now.plusMinutes(45));
+
+		assertEquals(45, event.getDurationMinutes());
+		assertEquals(now.plusMinutes(45), event.getEndTime());
+	}
+
 	@Test
 	@DisplayName("addInvitee() adds a given User object to the invitees List<User>")
 	void testAddInvitee() {
@@ -124,10 +136,169 @@ class EventTest {
 		int durationMinutes = 120;
 		event.setStartTime(LocalDateTime.now());
 		event.setDurationMinutes(60);
-		when(mockTimeslot.getStart()).thenReturn(startTime);
-		when(mockTimeslot.getEnd()).thenReturn(startTime.plusMinutes(durationMinutes));
+		long startMinute = BusyIntervalIndex.toEpochMinute(startTime);
+		when(mockTimeslot.getStartMinute()).thenReturn(startMinute);
+		when(mockTimeslot.getEndMinute()).thenReturn(startMinute + durationMinutes);
 
 		assertTrue(event.doesEventClash(mockTimeslot));
 	}
 
+	@Test
+	@DisplayName("overlaps() treats the event as half-open, so intervals touching either end do not overlap")
+	void testOverlaps() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		event.setStartTime(now);
+		event.setDurationMinutes(60);
+		long startMinute = BusyIntervalIndex.toEpochMinute(now);
+
+		assertEquals(startMinute, event.getStartMinute());
+		assertEquals(startMinute + 60, event.getEndMinute());
+		assertTrue(event.overlaps(startMinute + 59, startMinute + 90));
+		assertTrue(event.overlaps(startMinute - 30, startMinute + 1));
+		assertFalse(event.overlaps(startMinute + 60, startMinute + 90));
+		assertFalse(event.overlaps(startMinute - 30, startMinute));
+	}
+
+	@Test
+	@DisplayName("overlaps() on a weekly event matches later occurrences and skips cancelled ones")
+	void testOverlaps_WithWeeklyRecurrence() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		event = new Event("title", "description", "location", now, 30);
+		Recurrence recurrence = new Recurrence(RecurrenceFrequency.WEEKLY, null, null);
+		recurrence.addException(now.plusWeeks(2));
+		event.setRecurrence(recurrence);
+		long startMinute = BusyIntervalIndex.toEpochMinute(now);
+		long week = 7 * 24 * 60;
+
+		assertTrue(event.overlaps(startMinute + 10 * week + 29, startMinute + 10 * week + 60));
+		assertFalse(event.overlaps(startMinute + 10 * week + 30, startMinute + 10 * week + 60));
+		assertFalse(event.overlaps(startMinute + 2 * week, startMinute + 2 * week + 30));
+		assertFalse(event.overlaps(startMinute - week, startMinute));
+		assertTrue(event.doesEventClash(now.plusWeeks(52), 15));
+	}
+
+	@Test
+	@DisplayName("getOccurrences() expands a daily event only within the range, up to its count")
+	void testGetOccurrences_WithDailyCount() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		event = new Event("title", "description", "location", now, 60);
+		event.setRecurrence(new Recurrence(RecurrenceFrequency.DAILY, 5, null));
+
+		List<Timeslot> occurrences = event.getOccurrences(now.plusDays(2).plusMinutes(30), now.plusDays(10));
+		assertEquals(List.of(now.plusDays(2), now.plusDays(3), now.plusDays(4)),
+				occurrences.stream().map(Timeslot::getStart).toList());
+		assertEquals(now.plusDays(4).plusMinutes(60), event.getSeriesEnd());
+	}
+
+	@Test
+	@DisplayName("getOccurrences() on a monthly event keeps the day of the month after shorter months")
+	void testGetOccurrences_WithMonthlyUntil() {
+		LocalDateTime start = LocalDateTime.of(2024, 1, 31, 9, 0);
+		event = new Event("title", "description", "location", start, 30);
+		event.setRecurrence(new Recurrence(RecurrenceFrequency.MONTHLY, null, LocalDateTime.of(2024, 4, 30, 9, 0)));
+
+		List<Timeslot> occurrences = event.getOccurrences(start, start.plusYears(1));
+		assertEquals(List.of(start, LocalDateTime.of(2024, 2, 29, 9, 0), LocalDateTime.of(2024, 3, 31, 9, 0),
+				LocalDateTime.of(2024, 4, 30, 9, 0)), occurrences.stream().map(Timeslot::getStart).toList());
+		assertEquals(LocalDateTime.of(2024, 4, 30, 9, 30), event.getSeriesEnd());
+	}
+
+	@Test
+	@DisplayName("getOccurrences() on a one-off event returns the event's own time if it overlaps the range")
+	void testGetOccurrences_WithOneOffEvent() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		event = new Event("title", "description", "location", now, 30);
+
+		assertEquals(1, event.getOccurrences(now.minusHours(1), now.plusMinutes(1)).size());
+		assertTrue(event.getOccurrences(now.plusMinutes(30), now.plusHours(1)).isEmpty());
+		assertEquals(event.getEndTime(), event.getSeriesEnd());
+	}
+
+	@Test
+	@DisplayName("hasOccurrenceAfter() is true for a series that started in the past until its last occurrence")
+	void testHasOccurrenceAfter() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		event = new Event("title", "description", "location", now, 30);
+		event.setRecurrence(new Recurrence(RecurrenceFrequency.DAILY, 3, null));
+
+		assertTrue(event.hasOccurrenceAfter(now.plusDays(1)));
+		assertFalse(event.hasOccurrenceAfter(now.plusDays(2)));
+	}
+
+	@Test
+	@DisplayName("isUpcomingAt() is true before a one-off event starts and until the last occurrence of a series ends")
+	void testIsUpcomingAt() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		event = new Event("title", "description", "location", now, 30);
+		assertTrue(event.isUpcomingAt(now.minusMinutes(1)));
+		assertFalse(event.isUpcomingAt(now));
+
+		event.setRecurrence(new Recurrence(RecurrenceFrequency.DAILY, 3, null));
+		assertTrue(event.isUpcomingAt(now.plusDays(2)));
+		assertFalse(event.isUpcomingAt(now.plusDays(2).plusMinutes(30)));
+	}
+
+	@Test
+	@DisplayName("getOccurrencesFrom() returns the first occurrences starting at or after a time, skipping cancelled ones")
+	void testGetOccurrencesFrom() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		event = new Event("title", "description", "location", now.minusDays(100), 30);
+		Recurrence daily = new Recurrence(RecurrenceFrequency.DAILY, null, null);
+		daily.addException(now.plusDays(1));
+		event.setRecurrence(daily);
+
+		assertEquals(List.of(now, now.plusDays(2), now.plusDays(3)),
+				event.getOccurrencesFrom(now, 3).stream().map(Timeslot::getStart).toList());
+		assertEquals(List.of(now.plusDays(2)),
+				event.getOccurrencesFrom(now.plusMinutes(1), 1).stream().map(Timeslot::getStart).toList());
+	}
+
+	@Test
+	@DisplayName("getOccurrencesFrom() stops at the end of a series")
+	void testGetOccurrencesFrom_WithCount() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		event = new Event("title", "description", "location", now, 30);
+		event.setRecurrence(new Recurrence(RecurrenceFrequency.WEEKLY, 3, null));
+
+		assertEquals(List.of(now.plusWeeks(1), now.plusWeeks(2)),
+				event.getOccurrencesFrom(now.plusDays(1), 10).stream().map(Timeslot::getStart).toList());
+	}
+
+	@Test
+	@DisplayName("getOccurrencesUntil() returns the last occurrences starting at or before a time in start order")
+	void testGetOccurrencesUntil() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		event = new Event("title", "description", "location", now.minusDays(100), 30);
+		event.setRecurrence(new Recurrence(RecurrenceFrequency.DAILY, null, null));
+
+		assertEquals(List.of(now.minusDays(2), now.minusDays(1), now),
+				event.getOccurrencesUntil(now, 3).stream().map(Timeslot::getStart).toList());
+		assertEquals(List.of(now.minusDays(100)),
+				event.getOccurrencesUntil(now.minusDays(100), 3).stream().map(Timeslot::getStart).toList());
+		assertTrue(event.getOccurrencesUntil(now.minusDays(101), 3).isEmpty());
+	}
+
+	@Test
+	@DisplayName("getOccurrencesUntil() counts back from the end of a series that ended before the time")
+	void testGetOccurrencesUntil_WithEndedSeries() {
+		LocalDateTime start = LocalDateTime.of(2024, 1, 31, 9, 0);
+		event = new Event("title", "description", "location", start, 30);
+		event.setRecurrence(new Recurrence(RecurrenceFrequency.MONTHLY, 4, null));
+
+		assertEquals(List.of(LocalDateTime.of(2024, 3, 31, 9, 0), LocalDateTime.of(2024, 4, 30, 9, 0)),
+				event.getOccurrencesUntil(start.plusYears(5), 2).stream().map(Timeslot::getStart).toList());
+	}
+
+	@Test
+	@DisplayName("getOccurrencesFrom() and getOccurrencesUntil() on a one-off event compare its own start time")
+	void testGetOccurrencesFromAndUntil_WithOneOffEvent() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		event = new Event("title", "description", "location", now, 30);
+
+		assertEquals(1, event.getOccurrencesFrom(now, 5).size());
+		assertTrue(event.getOccurrencesFrom(now.plusMinutes(1), 5).isEmpty());
+		assertEquals(1, event.getOccurrencesUntil(now, 5).size());
+		assertTrue(event.getOccurrencesUntil(now.minusMinutes(1), 5).isEmpty());
+	}
+
 }
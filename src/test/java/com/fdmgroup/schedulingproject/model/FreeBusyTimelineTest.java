@@ -0,0 +1,74 @@
+package com.fdmgroup.schedulingproject.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class FreeBusyTimelineTest {
+
+	private LocalDateTime start;
+	private long startMinute;
+	private BusyIntervalIndex index1, index2;
+
+	@BeforeEach
+	void setUp() {
+		start = LocalDateTime.of(2024, 5, 6, 9, 0);
+		startMinute = BusyIntervalIndex.toEpochMinute(start);
+		index1 = new BusyIntervalIndex();
+		index2 = new BusyIntervalIndex();
+	}
+
+	@Test
+	@DisplayName("merge() coalesces overlapping and touching intervals from different indexes")
+	void testMerge() {
+		index1.add(new Event("title", "description", "location", start, 60));
+		index1.add(new Event("title", "description", "location", start.plusMinutes(180), 30));
+		index2.add(new Event("title", "description", "location", start.plusMinutes(30), 60));
+		index2.add(new Event("title", "description", "location", start.plusMinutes(90), 15));
+		FreeBusyTimeline timeline = FreeBusyTimeline.merge(List.of(index1, index2));
+
+		assertEquals(2, timeline.size());
+		assertArrayEquals(new long[] { startMinute, startMinute + 105 }, timeline.getBusyIntervals()[0]);
+		assertArrayEquals(new long[] { startMinute + 180, startMinute + 210 }, timeline.getBusyIntervals()[1]);
+	}
+
+	@Test
+	@DisplayName("isFree() only accepts intervals that fit entirely within a free gap")
+	void testIsFree() {
+		index1.add(new Event("title", "description", "location", start, 60));
+		index2.add(new Event("title", "description", "location", start.plusMinutes(90), 30));
+		FreeBusyTimeline timeline = FreeBusyTimeline.merge(List.of(index1, index2));
+
+		assertTrue(timeline.isFree(startMinute + 60, startMinute + 90));
+		assertFalse(timeline.isFree(startMinute + 60, startMinute + 91));
+		assertFalse(timeline.isFree(startMinute - 10, startMinute + 200));
+		assertTrue(timeline.isFree(startMinute + 120, startMinute + 200));
+	}
+
+	@Test
+	@DisplayName("findFreeSlotForward() skips busy intervals in whole steps")
+	void testFindFreeSlotForward() {
+		index1.add(new Event("title", "description", "location", start, 50));
+		index2.add(new Event("title", "description", "location", start.plusMinutes(75), 30));
+		FreeBusyTimeline timeline = FreeBusyTimeline.merge(List.of(index1, index2));
+
+		assertEquals(startMinute + 105, timeline.findFreeSlotForward(startMinute, 30, 15));
+		assertEquals(startMinute + 60, timeline.findFreeSlotForward(startMinute, 15, 15));
+	}
+
+	@Test
+	@DisplayName("findFreeSlotBackward() skips busy intervals in whole steps")
+	void testFindFreeSlotBackward() {
+		index1.add(new Event("title", "description", "location", start.minusMinutes(40), 40));
+		index2.add(new Event("title", "description", "location", start.minusMinutes(100), 30));
+		FreeBusyTimeline timeline = FreeBusyTimeline.merge(List.of(index1, index2));
+
+		assertEquals(startMinute - 135, timeline.findFreeSlotBackward(startMinute - 15, 30, 15));
+		assertEquals(startMinute - 60, timeline.findFreeSlotBackward(startMinute - 15, 15, 15));
+	}
+}
@@ -0,0 +1,33 @@
+package com.fdmgroup.schedulingproject.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LocalDateTimeSetConverterTest {
+
+	private LocalDateTimeSetConverter converter = new LocalDateTimeSetConverter();
+
+	@Test
+	@DisplayName("convertToDatabaseColumn() and convertToEntityAttribute() round trip a set of date-times")
+	void testRoundTrip() {
+		SortedSet<LocalDateTime> dateTimes = new TreeSet<>();
+		dateTimes.add(LocalDateTime.of(2024, 5, 13, 9, 0));
+		dateTimes.add(LocalDateTime.of(2024, 5, 6, 9, 30));
+		String column = converter.convertToDatabaseColumn(dateTimes);
+		assertEquals("2024-05-06T09:30,2024-05-13T09:00", column);
+		assertEquals(dateTimes, converter.convertToEntityAttribute(column));
+	}
+
+	@Test
+	@DisplayName("an empty set is stored as null and read back as an empty set")
+	void testEmptySet() {
+		assertNull(converter.convertToDatabaseColumn(new TreeSet<>()));
+		assertTrue(converter.convertToEntityAttribute(null).isEmpty());
+	}
+}
@@ -0,0 +1,72 @@
+package com.fdmgroup.schedulingproject.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LocationTest {
+
+	private Location location;
+	private LocalDateTime now;
+
+	@BeforeEach
+	void setUp() {
+		location = new Location("Room 1");
+		now = LocalDateTime.of(2024, 5, 6, 9, 0);
+	}
+
+	@Test
+	@DisplayName("isTimeslotAvailable() returns false for a timeslot overlapping a booked event")
+	void testIsTimeslotAvailable_WithBookedEvent() {
+		location.addEvent(new Event("title", "description", "Room 1", now, 30));
+		assertFalse(location.isTimeslotAvailable(new Timeslot(now.plusMinutes(15), 30)));
+		assertTrue(location.isTimeslotAvailable(new Timeslot(now.plusMinutes(30), 30)));
+	}
+
+	@Test
+	@DisplayName("addEvent() and removeEvent() keep an already built busy index up to date")
+	void testAddAndRemoveEvent_UpdateBusyIndex() {
+		Event event = new Event("title", "description", "Room 1", now, 30);
+		Timeslot timeslot = new Timeslot(now, 30);
+		assertTrue(location.isTimeslotAvailable(timeslot));
+		location.addEvent(event);
+		assertFalse(location.isTimeslotAvailable(timeslot));
+		location.removeEvent(event);
+		assertTrue(location.isTimeslotAvailable(timeslot));
+		assertTrue(location.getEvents().isEmpty());
+	}
+
+	@Test
+	@DisplayName("getEvents() cannot be modified around the busy interval index")
+	void testGetEvents_IsUnmodifiable() {
+		assertEquals(0, location.getBusyIndex().size());
+		assertThrows(UnsupportedOperationException.class,
+				() -> location.getEvents().add(new Event("title", "description", "Room 1", now, 30)));
+		assertEquals(0, location.getBusyIndex().size());
+	}
+
+	@Test
+	@DisplayName("equals() and hashCode() compare names, so do not change when a location is saved")
+	void testEqualsAndHashCode_UseName() {
+		Set<Location> locations = new HashSet<>(Set.of(location));
+		int hashCode = location.hashCode();
+		location.setId(4);
+		assertEquals(hashCode, location.hashCode());
+		assertTrue(locations.contains(location));
+		assertEquals(location, new Location("Room 1"));
+		assertNotEquals(location, new Location("Room 2"));
+	}
+
+	@Test
+	@DisplayName("toString() override is formatted correctly")
+	void testToString() {
+		location.setId(4);
+		assertEquals("Location [id=4, name=Room 1]", location.toString());
+	}
+}
@@ -0,0 +1,49 @@
+package com.fdmgroup.schedulingproject.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RecurrenceTest {
+
+	private LocalDateTime first;
+
+	@BeforeEach
+	void setUp() {
+		first = LocalDateTime.of(2024, 5, 6, 9, 0);
+	}
+
+	@Test
+	@DisplayName("getLastOccurrenceStart() returns null for a series without a count or end date")
+	void testGetLastOccurrenceStart_WithUnboundedSeries() {
+		Recurrence recurrence = new Recurrence(RecurrenceFrequency.WEEKLY, null, null);
+		assertFalse(recurrence.isBounded());
+		assertNull(recurrence.getLastOccurrenceStart(first));
+	}
+
+	@Test
+	@DisplayName("getLastOccurrenceStart() uses whichever of the count and end date is reached first")
+	void testGetLastOccurrenceStart_WithCountAndUntil() {
+		assertEquals(first.plusWeeks(3),
+				new Recurrence(RecurrenceFrequency.WEEKLY, 4, first.plusWeeks(10)).getLastOccurrenceStart(first));
+		assertEquals(first.plusWeeks(2), new Recurrence(RecurrenceFrequency.WEEKLY, 10, first.plusWeeks(3).minusMinutes(1))
+				.getLastOccurrenceStart(first));
+		assertEquals(first.plusDays(3),
+				new Recurrence(RecurrenceFrequency.DAILY, null, first.plusDays(3)).getLastOccurrenceStart(first));
+	}
+
+	@Test
+	@DisplayName("isInSeries() stops at the count and end date but not at cancelled occurrences")
+	void testIsInSeries() {
+		Recurrence recurrence = new Recurrence(RecurrenceFrequency.DAILY, 3, first.plusDays(5));
+		recurrence.addException(first.plusDays(1));
+		assertTrue(recurrence.isInSeries(1, first.plusDays(1)));
+		assertTrue(recurrence.isException(first.plusDays(1)));
+		assertFalse(recurrence.isInSeries(3, first.plusDays(3)));
+		assertFalse(new Recurrence(RecurrenceFrequency.DAILY, null, first.plusDays(5)).isInSeries(6, first.plusDays(6)));
+	}
+}
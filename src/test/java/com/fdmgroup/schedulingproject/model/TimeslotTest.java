@@ -19,6 +19,15 @@ class TimeslotTest {
 		assertEquals(now.plusHours(1), timeslot.getEnd());
 	}
 
+	@Test
+	@DisplayName("Timeslot(LocalDateTime, int) constructor caches start and end as epoch minutes")
+	void testConstructor_SetsEpochMinutes() {
+		LocalDateTime time = LocalDateTime.of(1970, 1, 2, 0, 30);
+		timeslot = new Timeslot(time, 45);
+		assertEquals(24 * 60 + 30, timeslot.getStartMinute());
+		assertEquals(24 * 60 + 75, timeslot.getEndMinute());
+	}
+
 	@Test
 	@DisplayName("toString() override is formatted correctly")
 	void testToString() {
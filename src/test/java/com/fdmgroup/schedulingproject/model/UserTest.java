@@ -4,7 +4,9 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -23,9 +25,6 @@ class UserTest {
 	@Mock
 	private User mockUser;
 	
-	@Mock
-	private Timeslot mockTimeslot;
-
 	@BeforeEach
 	void setUp() {
 		user = new User();
@@ -175,17 +174,124 @@ class UserTest {
 	@Test
 	@DisplayName("isTimeslotAvailable() checks events in calendar for clash")
 	void testIsTimeslotAvailable_CheckEventsInCalendar() {
-		user.addCalendarEvent(futureEvent);
-		when(futureEvent.doesEventClash(mockTimeslot)).thenReturn(false);
-		assertTrue(user.isTimeslotAvailable(mockTimeslot));
+		LocalDateTime now = LocalDateTime.now();
+		user.addCalendarEvent(new Event("title", "description", "location", now, 60));
+		assertTrue(user.isTimeslotAvailable(new Timeslot(now.plusMinutes(60), 30)));
+		assertFalse(user.isTimeslotAvailable(new Timeslot(now.plusMinutes(30), 30)));
 	}
 	
 	@Test
 	@DisplayName("isTimeslotAvailable() checks events in eventInvites for clash")
 	void testIsTimeslotAvailable_CheckEventsInEventInvites() {
-		user.addEventInvite(futureEvent);
-		when(futureEvent.doesEventClash(mockTimeslot)).thenReturn(true);
-		assertFalse(user.isTimeslotAvailable(mockTimeslot));
+		LocalDateTime now = LocalDateTime.now();
+		user.addEventInvite(new Event("title", "description", "location", now, 60));
+		assertFalse(user.isTimeslotAvailable(new Timeslot(now.minusMinutes(15), 30)));
+	}
+
+	@Test
+	@DisplayName("isTimeslotAvailable() reflects events removed from calendar and eventInvites")
+	void testIsTimeslotAvailable_AfterRemovingEvents() {
+		LocalDateTime now = LocalDateTime.now();
+		Event calendarEvent = new Event("title", "description", "location", now, 60);
+		Event invitedEvent = new Event("title", "description", "location", now.plusMinutes(60), 60);
+		user.addCalendarEvent(calendarEvent);
+		user.addEventInvite(invitedEvent);
+		Timeslot timeslot = new Timeslot(now.plusMinutes(30), 60);
+		assertFalse(user.isTimeslotAvailable(timeslot));
+		user.removeCalendarEvent(calendarEvent);
+		assertFalse(user.isTimeslotAvailable(timeslot));
+		user.removeEventInvite(invitedEvent);
+		assertTrue(user.isTimeslotAvailable(timeslot));
+	}
+
+	@Test
+	@DisplayName("isTimeslotAvailable() reflects a calendar replaced by one with the same number of events")
+	void testIsTimeslotAvailable_AfterReplacingCalendar() {
+		LocalDateTime now = LocalDateTime.now();
+		user.addCalendarEvent(new Event("title", "description", "location", now, 60));
+		Timeslot timeslot = new Timeslot(now.plusMinutes(120), 30);
+		assertTrue(user.isTimeslotAvailable(timeslot));
+		user.setCalendar(
+				new LinkedHashSet<>(Set.of(new Event("title", "description", "location", now.plusMinutes(120), 60))));
+		assertFalse(user.isTimeslotAvailable(timeslot));
+		user.setEventInvites(new LinkedHashSet<>());
+		// changes after the index is out of date are picked up when it is rebuilt
+		user.addEventInvite(new Event("title", "description", "location", now, 60));
+		assertFalse(user.isTimeslotAvailable(new Timeslot(now, 30)));
+		assertFalse(user.isTimeslotAvailable(timeslot));
+	}
+
+	@Test
+	@DisplayName("getCalendar() and getEventInvites() cannot be modified around the busy interval index")
+	void testGetCalendarAndEventInvites_AreUnmodifiable() {
+		Event event = new Event("title", "description", "location", LocalDateTime.now(), 60);
+		assertThrows(UnsupportedOperationException.class, () -> user.getCalendar().add(event));
+		assertThrows(UnsupportedOperationException.class, () -> user.getEventInvites().add(event));
+	}
+
+	@Test
+	@DisplayName("getCalendarOccurrences() expands recurring events within the range in start order")
+	void testGetCalendarOccurrences() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		Event weekly = new Event("weekly", "description", "location", now.minusWeeks(10), 15);
+		weekly.setRecurrence(new Recurrence(RecurrenceFrequency.WEEKLY, null, null));
+		Event oneOff = new Event("one-off", "description", "location", now.plusDays(1), 60);
+		user.addCalendarEvent(weekly);
+		user.addCalendarEvent(oneOff);
+
+		List<EventOccurrence> occurrences = user.getCalendarOccurrences(now, now.plusWeeks(2));
+		assertEquals(List.of(now, now.plusDays(1), now.plusWeeks(1)),
+				occurrences.stream().map(EventOccurrence::getStartTime).toList());
+		assertEquals(List.of("weekly", "one-off", "weekly"),
+				occurrences.stream().map(EventOccurrence::getTitle).toList());
+	}
+
+	@Test
+	@DisplayName("getFutureCalendar keeps a series that started in the past while it has occurrences to come")
+	void testGetFutureCalendar_WithRecurringEvent() {
+		LocalDateTime now = LocalDateTime.now();
+		Event ongoing = new Event("title", "description", "location", now.minusDays(3), 15);
+		ongoing.setRecurrence(new Recurrence(RecurrenceFrequency.DAILY, null, null));
+		Event finished = new Event("title", "description", "location", now.minusDays(3), 15);
+		finished.setRecurrence(new Recurrence(RecurrenceFrequency.DAILY, 2, null));
+		user.addCalendarEvent(ongoing);
+		user.addCalendarEvent(finished);
+
+		assertEquals(List.of(ongoing), user.getFutureCalendar());
+	}
+
+	@Test
+	@DisplayName("equals() compares users by username and ignores their other fields and collections")
+	void testEquals_WithSameUsername() {
+		User stored = new User("username", "password", "displayName");
+		stored.addContact(new User("contact", "password", "displayName"));
+		stored.addCalendarEvent(new Event("title", "description", "location", LocalDateTime.now(), 15));
+		User loaded = new User("username", "otherPassword", "otherDisplayName");
+
+		assertEquals(stored, loaded);
+		assertEquals(stored.hashCode(), loaded.hashCode());
+		assertNotEquals(stored, new User("otherUsername", "password", "displayName"));
+	}
+
+	@Test
+	@DisplayName("equals() treats a user without a username as equal only to itself")
+	void testEquals_WithoutUsername() {
+		assertEquals(user, user);
+		assertNotEquals(user, new User());
+		assertNotEquals(new User("username", "password", "displayName"), user);
+	}
+
+	@Test
+	@DisplayName("buildBusyIndex() returns a new index that is not changed with the calendar")
+	void testBuildBusyIndex() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		Event event = new Event("title", "description", "location", now, 60);
+		user.addCalendarEvent(event);
+		BusyIntervalIndex index = user.buildBusyIndex();
+		assertNotSame(user.getBusyIndex(), index);
+		user.removeCalendarEvent(event);
+		assertEquals(1, index.getEventCount());
+		assertEquals(0, user.getBusyIndex().getEventCount());
 	}
 
 }
@@ -0,0 +1,261 @@
+package com.fdmgroup.schedulingproject.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import com.fdmgroup.schedulingproject.dto.EventSummary;
+import com.fdmgroup.schedulingproject.dto.SlotOccupancy;
+import com.fdmgroup.schedulingproject.dto.UserBusyInterval;
+import com.fdmgroup.schedulingproject.model.Event;
+import com.fdmgroup.schedulingproject.model.Recurrence;
+import com.fdmgroup.schedulingproject.model.RecurrenceFrequency;
+import com.fdmgroup.schedulingproject.model.User;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+public class EventRepositoryTest {
+	@Autowired
+	private EventRepository eventRepo;
+	@Autowired
+	private UserRepository userRepo;
+
+	private LocalDateTime start;
+	private User organiser, attendee, invitee;
+	private Event event;
+
+	@BeforeEach
+	void setUp() {
+		start = LocalDateTime.of(2024, 5, 6, 9, 0);
+		organiser = userRepo.save(new User("organiser", "password", "displayName"));
+		attendee = userRepo.save(new User("attendee", "password", "displayName"));
+		invitee = userRepo.save(new User("invitee", "password", "displayName"));
+		event = new Event("title", "description", "location", start, 60);
+		event.setOrganiser(organiser);
+		event.addAttendee(attendee);
+		event.addInvitee(invitee);
+		event = eventRepo.save(event);
+	}
+
+	@Test
+	@DisplayName("Verify end time is persisted from start time and duration")
+	void testSave_PersistsEndTime() {
+		eventRepo.flush();
+		assertEquals(start.plusMinutes(60), eventRepo.findById(event.getId()).get().getEndTime());
+	}
+
+	@Test
+	@DisplayName("Verify overlap queries find events by attendee, invitee and organiser")
+	void testFindOverlapping() {
+		assertEquals(List.of(event), eventRepo.findOverlappingByAttendee(attendee.getId(), start.plusMinutes(30),
+				start.plusMinutes(90)));
+		assertEquals(List.of(event), eventRepo.findOverlappingByInvitee(invitee.getId(), start.minusMinutes(30),
+				start.plusMinutes(1)));
+		assertEquals(List.of(event), eventRepo.findOverlappingByOrganiser(organiser.getId(), start, start.plusMinutes(60)));
+		assertTrue(eventRepo.findOverlappingByOrganiser(attendee.getId(), start, start.plusMinutes(60)).isEmpty());
+	}
+
+	@Test
+	@DisplayName("Verify overlap queries treat intervals as half-open")
+	void testFindOverlapping_WithTouchingInterval() {
+		assertTrue(eventRepo.findOverlappingByAttendee(attendee.getId(), start.plusMinutes(60), start.plusMinutes(90))
+				.isEmpty());
+		assertTrue(eventRepo.findOverlappingByAttendee(attendee.getId(), start.minusMinutes(30), start).isEmpty());
+	}
+
+	@Test
+	@DisplayName("Verify existsAttendeeOrInvitee finds attendees and invitees only")
+	void testExistsAttendeeOrInvitee() {
+		eventRepo.flush();
+		assertTrue(eventRepo.existsAttendeeOrInvitee(event.getId(), attendee.getId()));
+		assertTrue(eventRepo.existsAttendeeOrInvitee(event.getId(), invitee.getId()));
+		assertFalse(eventRepo.existsAttendeeOrInvitee(event.getId(), organiser.getId()));
+	}
+
+	@Test
+	@DisplayName("Verify findOccupancyInCalendar ignores pending invites")
+	void testFindOccupancyInCalendar() {
+		assertEquals(1, eventRepo.findOccupancyInCalendar(organiser.getId(), start, start.plusMinutes(30))
+				.getOneOffEvents());
+		assertEquals(1, eventRepo.findOccupancyInCalendar(attendee.getId(), start, start.plusMinutes(30))
+				.getOneOffEvents());
+		SlotOccupancy invited = eventRepo.findOccupancyInCalendar(invitee.getId(), start, start.plusMinutes(30));
+		assertEquals(0, invited.getOneOffEvents());
+		assertEquals(0, invited.getSeries());
+	}
+
+	@Test
+	@DisplayName("Verify findOccupancyForAnyUser includes pending invites")
+	void testFindOccupancyForAnyUser() {
+		User other = userRepo.save(new User("other", "password", "displayName"));
+		assertTrue(eventRepo.findOccupancyForAnyUser(List.of(other.getId(), invitee.getId()), start,
+				start.plusMinutes(30)).getOneOffEvents() > 0);
+		assertEquals(0, eventRepo.findOccupancyForAnyUser(List.of(other.getId()), start, start.plusMinutes(30))
+				.getOneOffEvents());
+		assertEquals(0, eventRepo.findOccupancyForAnyUser(List.of(invitee.getId()), start.plusMinutes(60),
+				start.plusMinutes(90)).getOneOffEvents());
+	}
+
+	@Test
+	@DisplayName("Verify streamBusyIntervalsForUsers returns a row for every role a user has in an event, by username")
+	void testStreamBusyIntervalsForUsers() {
+		Event later = new Event("later", "description", "location", start.plusMinutes(15), 30);
+		later.setOrganiser(organiser);
+		eventRepo.save(later);
+		List<UserBusyInterval> rows;
+		try (Stream<UserBusyInterval> stream = eventRepo.streamBusyIntervalsForUsers(
+				List.of("organiser", "attendee", "invitee", "unknown"), start.minusHours(1), start.plusMinutes(30))) {
+			rows = stream.toList();
+		}
+		assertEquals(List.of("attendee", "invitee", "organiser", "organiser"),
+				rows.stream().map(UserBusyInterval::getUsername).toList());
+		assertEquals(List.of(start, start, start, start.plusMinutes(15)),
+				rows.stream().map(UserBusyInterval::getStartTime).toList());
+		try (Stream<UserBusyInterval> stream = eventRepo.streamBusyIntervalsForUsers(List.of("organiser"),
+				start.plusMinutes(60), start.plusMinutes(90))) {
+			assertEquals(0, stream.count());
+		}
+	}
+
+	@Test
+	@DisplayName("Verify recurring events are found by span queries and counted as series rather than one-off events")
+	void testFindSpanningInCalendar_WithRecurringEvent() {
+		Event standUp = new Event("standUp", "description", "location", start.minusWeeks(4), 15);
+		standUp.setOrganiser(attendee);
+		standUp.setRecurrence(new Recurrence(RecurrenceFrequency.WEEKLY, 10, null));
+		standUp = eventRepo.save(standUp);
+		LocalDateTime from = start.plusWeeks(2).minusMinutes(5);
+		SlotOccupancy occupancy = eventRepo.findOccupancyInCalendar(attendee.getId(), from, from.plusMinutes(30));
+		assertEquals(0, occupancy.getOneOffEvents());
+		assertEquals(1, occupancy.getSeries());
+		assertEquals(List.of(standUp), eventRepo.findSpanningInCalendar(attendee.getId(), from, from.plusMinutes(30)));
+		assertTrue(eventRepo.findSpanningInCalendar(attendee.getId(), start.plusWeeks(6), start.plusWeeks(7))
+				.isEmpty());
+		assertEquals(2, eventRepo.findSpanningInCalendar(attendee.getId(), start, start.plusMinutes(30)).size());
+		assertEquals(List.of(standUp),
+				eventRepo.findRecurringSpanningInCalendar(attendee.getId(), start, start.plusMinutes(30)));
+	}
+
+	@Test
+	@DisplayName("Verify findCalendarSummariesAfter and Before seek past a position in start time and id order")
+	void testFindCalendarSummariesAfterAndBefore() {
+		Event sameStart = new Event("sameStart", "description", "location", start, 30);
+		sameStart.setOrganiser(organiser);
+		sameStart.addAttendee(attendee);
+		sameStart = eventRepo.save(sameStart);
+		Event later = new Event("later", "description", "location", start.plusHours(2), 30);
+		later.setOrganiser(organiser);
+		later.addAttendee(attendee);
+		later = eventRepo.save(later);
+		eventRepo.flush();
+
+		List<EventSummary> firstPage = eventRepo.findCalendarSummariesAfter(attendee.getId(), start.minusHours(1), 0,
+				PageRequest.ofSize(2));
+		assertEquals(List.of(event.getId(), sameStart.getId()), firstPage.stream().map(EventSummary::getId).toList());
+		List<EventSummary> nextPage = eventRepo.findCalendarSummariesAfter(attendee.getId(), start, event.getId(),
+				PageRequest.ofSize(2));
+		assertEquals(List.of(sameStart.getId(), later.getId()), nextPage.stream().map(EventSummary::getId).toList());
+		List<EventSummary> previousPage = eventRepo.findCalendarSummariesBefore(attendee.getId(), later.getStartTime(),
+				later.getId(), PageRequest.ofSize(1));
+		assertEquals(List.of(sameStart.getId()), previousPage.stream().map(EventSummary::getId).toList());
+		assertTrue(eventRepo.findCalendarSummariesAfter(attendee.getId(), later.getStartTime(), later.getId(),
+				PageRequest.ofSize(2)).isEmpty());
+		assertTrue(eventRepo.findCalendarSummariesAfter(organiser.getId(), start.minusHours(1), 0,
+				PageRequest.ofSize(2)).isEmpty());
+	}
+
+	@Test
+	@DisplayName("Verify calendar entries follow the start time of their event when it moves")
+	void testFindCalendarSummariesAfter_WithMovedEvent() {
+		Event later = new Event("later", "description", "location", start.plusHours(2), 30);
+		later.setOrganiser(organiser);
+		later.addAttendee(attendee);
+		later = eventRepo.save(later);
+		eventRepo.flush();
+		event.setStartTime(start.plusHours(4));
+		eventRepo.saveAndFlush(event);
+
+		assertEquals(List.of(later.getId(), event.getId()), eventRepo
+				.findCalendarSummariesAfter(attendee.getId(), start.minusHours(1), 0, PageRequest.ofSize(2)).stream()
+				.map(EventSummary::getId).toList());
+	}
+
+	@Test
+	@DisplayName("Verify one-off calendar queries skip recurring events, which the series queries return")
+	void testFindCalendarSeriesSummaries() {
+		Event standUp = new Event("standUp", "description", "location", start.minusWeeks(4), 15);
+		standUp.setOrganiser(organiser);
+		standUp.setRecurrence(new Recurrence(RecurrenceFrequency.WEEKLY, 10, null));
+		standUp.addAttendee(attendee);
+		standUp = eventRepo.save(standUp);
+		eventRepo.flush();
+
+		assertEquals(List.of(event.getId()), eventRepo
+				.findCalendarSummariesAfter(attendee.getId(), start.minusWeeks(5), 0, PageRequest.ofSize(2)).stream()
+				.map(EventSummary::getId).toList());
+		assertEquals(standUp.getId(), eventRepo
+				.findCalendarSeriesSummariesAfter(attendee.getId(), start, PageRequest.ofSize(2)).get(0).getId());
+		assertTrue(eventRepo
+				.findCalendarSeriesSummariesAfter(attendee.getId(), start.plusWeeks(6), PageRequest.ofSize(2)).isEmpty());
+		assertEquals(standUp.getId(), eventRepo
+				.findCalendarSeriesSummariesBefore(attendee.getId(), start, PageRequest.ofSize(2)).get(0).getId());
+		assertTrue(eventRepo
+				.findCalendarSeriesSummariesBefore(attendee.getId(), start.minusWeeks(4), PageRequest.ofSize(2)).isEmpty());
+	}
+
+	@Test
+	@DisplayName("Verify findCalendarSeriesSummariesBefore returns series that never end first, then latest ending")
+	void testFindCalendarSeriesSummariesBefore_OrderedBySeriesEnd() {
+		Event retro = new Event("retro", "description", "location", start.minusWeeks(10), 60);
+		retro.setRecurrence(new Recurrence(RecurrenceFrequency.WEEKLY, 2, null));
+		Event standUp = new Event("standUp", "description", "location", start.minusWeeks(4), 15);
+		standUp.setRecurrence(new Recurrence(RecurrenceFrequency.WEEKLY, 10, null));
+		Event oneToOne = new Event("oneToOne", "description", "location", start.minusWeeks(8), 30);
+		oneToOne.setRecurrence(new Recurrence(RecurrenceFrequency.MONTHLY, null, null));
+		List<Long> ids = new ArrayList<>();
+		for (Event series : List.of(retro, standUp, oneToOne)) {
+			series.setOrganiser(organiser);
+			series.addAttendee(attendee);
+			ids.add(eventRepo.save(series).getId());
+		}
+		eventRepo.flush();
+
+		assertEquals(List.of(ids.get(2), ids.get(1)), eventRepo
+				.findCalendarSeriesSummariesBefore(attendee.getId(), start, PageRequest.of(0, 2)).stream()
+				.map(EventSummary::getId).toList());
+		assertEquals(List.of(ids.get(0)), eventRepo
+				.findCalendarSeriesSummariesBefore(attendee.getId(), start, PageRequest.of(1, 2)).stream()
+				.map(EventSummary::getId).toList());
+	}
+
+	@Test
+	@DisplayName("Verify findInviteSummariesAfter and Before only return invites after the given time")
+	void testFindInviteSummariesAfterAndBefore() {
+		eventRepo.flush();
+
+		LocalDateTime beginning = LocalDateTime.of(1970, 1, 1, 0, 0);
+		assertEquals(event.getId(), eventRepo.findInviteSummariesAfter("invitee", start.minusHours(1), beginning, 0,
+				PageRequest.ofSize(2)).get(0).getId());
+		assertNull(eventRepo.findInviteSummariesAfter("invitee", start, beginning, 0, PageRequest.ofSize(2)).get(0)
+				.getId());
+		assertEquals(event.getId(), eventRepo.findInviteSummariesBefore("invitee", start.minusHours(1),
+				start.plusHours(1), 0, PageRequest.ofSize(2)).get(0).getId());
+		assertNull(eventRepo.findInviteSummariesBefore("invitee", start.minusHours(1), start, event.getId(),
+				PageRequest.ofSize(2)).get(0).getId());
+	}
+}
@@ -0,0 +1,90 @@
+package com.fdmgroup.schedulingproject.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fdmgroup.schedulingproject.model.Event;
+import com.fdmgroup.schedulingproject.model.User;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+public class SchemaMigrationTest {
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private UserRepository userRepo;
+	@Autowired
+	private EventRepository eventRepo;
+
+	private List<String> findKeyColumns(String table, String key) {
+		return jdbcTemplate.queryForList("select column_name from information_schema.statistics"
+				+ " where table_schema = database() and table_name = ? and index_name = ? order by seq_in_index",
+				String.class, table, key);
+	}
+
+	@Test
+	@DisplayName("Verify the migrations add the event columns and rooms the baseline schema lacks")
+	void testColumnsAddedSinceBaseline() {
+		assertEquals(List.of("end_time", "recurrence_count", "recurrence_exceptions", "recurrence_frequency",
+				"recurrence_until", "room_id", "series_end"),
+				jdbcTemplate.queryForList("select column_name from information_schema.columns"
+						+ " where table_schema = database() and table_name = 'event' and column_name in ('end_time',"
+						+ " 'recurrence_frequency', 'recurrence_count', 'recurrence_until', 'recurrence_exceptions',"
+						+ " 'series_end', 'room_id') order by column_name", String.class));
+		assertEquals("location", jdbcTemplate.queryForObject("select referenced_table_name"
+				+ " from information_schema.key_column_usage where table_schema = database() and table_name = 'event'"
+				+ " and column_name = 'room_id' and referenced_table_name is not null", String.class));
+	}
+
+	@Test
+	@DisplayName("Verify the migrations create the event indexes")
+	void testEventIndexes() {
+		assertEquals(List.of("start_time", "end_time"), findKeyColumns("event", "idx_event_start_end"));
+		assertEquals(List.of("start_time", "id"), findKeyColumns("event", "idx_event_start_id"));
+		assertEquals(List.of("organiser_id", "start_time", "end_time"),
+				findKeyColumns("event", "idx_event_organiser_start_end"));
+		assertEquals(List.of("room_id", "start_time", "end_time"), findKeyColumns("event", "idx_event_room_start_end"));
+	}
+
+	@Test
+	@DisplayName("Verify the migrations key and index join tables from both sides")
+	void testJoinTableKeys() {
+		assertEquals(List.of("event_id", "user_id"), findKeyColumns("event_attendees", "PRIMARY"));
+		assertEquals(List.of("user_id", "event_id"), findKeyColumns("event_attendees", "idx_event_attendees_user_id"));
+		assertEquals(List.of("user_id", "contact_id"), findKeyColumns("user_contacts", "PRIMARY"));
+		assertEquals(List.of("contact_id", "user_id"), findKeyColumns("user_contacts", "idx_user_contacts_contact_id"));
+		assertEquals(List.of("event_id", "user_id"), findKeyColumns("event_invitees", "PRIMARY"));
+		assertEquals(List.of("user_id", "event_id"), findKeyColumns("event_invitees", "idx_event_invitees_user_id"));
+	}
+
+	@Test
+	@DisplayName("Verify an event can be in the invites of more than one user")
+	void testEventInvites_WithManyUsers() {
+		User first = userRepo.save(new User("firstInvitee", "password", "displayName"));
+		User second = userRepo.save(new User("secondInvitee", "password", "displayName"));
+		Event event = new Event("title", "description", "location", null, 30);
+		event.addInvitee(first);
+		event.addInvitee(second);
+		event = eventRepo.saveAndFlush(event);
+
+		assertEquals(2, jdbcTemplate.queryForObject("select count(*) from event_invitees where event_id = ?",
+				Integer.class, event.getId()));
+	}
+
+	@Test
+	@DisplayName("Verify the user side join tables mirroring attendees and invitees are dropped")
+	void testMirroredJoinTablesDropped() {
+		assertEquals(0, jdbcTemplate.queryForObject("select count(*) from information_schema.tables"
+				+ " where table_schema = database() and table_name in ('user_calendar', 'user_event_invites')",
+				Integer.class));
+	}
+}
@@ -0,0 +1,114 @@
+package com.fdmgroup.schedulingproject.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fdmgroup.schedulingproject.model.User;
+import com.fdmgroup.schedulingproject.service.UserContactService;
+import com.fdmgroup.schedulingproject.service.UserDetailsService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// not transactional, so each lookup runs in its own session and can only be
+// answered from the second-level cache or the database
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class UserCacheTest {
+	private static final List<String> USERNAMES = List.of("cacheSender", "cacheReceiver", "cacheBystander");
+
+	@Autowired
+	private UserRepository userRepo;
+	@Autowired
+	private UserDetailsService userDetailsService;
+	@Autowired
+	private UserContactService userContactService;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		for (String username : USERNAMES) {
+			userRepo.save(new User(username, "password", "displayName"));
+		}
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@AfterEach
+	void tearDown() {
+		transactionTemplate.executeWithoutResult(status -> USERNAMES
+				.forEach(username -> userRepo.findByUsername(username).ifPresent(user -> {
+					user.getSentContactInvites().clear();
+					user.getContacts().clear();
+				})));
+		transactionTemplate.executeWithoutResult(status -> USERNAMES
+				.forEach(username -> userRepo.findByUsername(username).ifPresent(userRepo::delete)));
+	}
+
+	private int countReceivedContactInvites(String username) {
+		return transactionTemplate
+				.execute(status -> userRepo.findByUsername(username).get().getReceivedContactInvites().size());
+	}
+
+	@Test
+	@DisplayName("Verify findByUsername resolves a user it has seen from the cache without a query")
+	void testFindByUsername_ResolvesFromCache() {
+		userRepo.findByUsername("cacheSender");
+		statistics.clear();
+
+		assertEquals("cacheSender", userRepo.findByUsername("cacheSender").get().getUsername());
+		assertEquals(0, statistics.getPrepareStatementCount());
+		assertTrue(statistics.getNaturalIdCacheHitCount() > 0);
+	}
+
+	@Test
+	@DisplayName("Verify findByUsername sees a new display name and password after they are updated")
+	void testFindByUsername_AfterUpdate() throws Exception {
+		userRepo.findByUsername("cacheSender");
+		userDetailsService.updateDisplayName("cacheSender", "newDisplayName");
+		userDetailsService.updatePassword("cacheSender", "password", "newPassword");
+
+		User user = userRepo.findByUsername("cacheSender").get();
+		assertEquals("newDisplayName", user.getDisplayName());
+		assertEquals("newPassword", user.getPassword());
+	}
+
+	@Test
+	@DisplayName("Verify cached contact invites are refreshed when an invite is sent and cancelled")
+	void testReceivedContactInvites_AfterContactChanges() throws Exception {
+		assertEquals(0, countReceivedContactInvites("cacheReceiver"));
+		userContactService.sendContactInvite("cacheSender", "cacheReceiver");
+		assertEquals(1, countReceivedContactInvites("cacheReceiver"));
+		userContactService.cancelContactInvite("cacheSender", "cacheReceiver");
+		assertEquals(0, countReceivedContactInvites("cacheReceiver"));
+	}
+
+	@Test
+	@DisplayName("Verify a contact invite evicts only the users whose counts it changes from the cache")
+	void testSendContactInvite_EvictsOnlyChangedUsers() throws Exception {
+		userRepo.findByUsername("cacheReceiver");
+		userRepo.findByUsername("cacheBystander");
+		userContactService.sendContactInvite("cacheSender", "cacheReceiver");
+		statistics.clear();
+
+		assertEquals("cacheBystander", userRepo.findByUsername("cacheBystander").get().getUsername());
+		assertEquals(0, statistics.getPrepareStatementCount());
+		assertEquals(1, userRepo.findByUsername("cacheReceiver").get().getPendingContactInvites());
+		assertTrue(statistics.getPrepareStatementCount() > 0);
+	}
+}
@@ -3,13 +3,20 @@ package com.fdmgroup.schedulingproject.repository;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
+import com.fdmgroup.schedulingproject.dto.UserContactRow;
+import com.fdmgroup.schedulingproject.model.Event;
 import com.fdmgroup.schedulingproject.model.User;
 
 @DataJpaTest
@@ -17,6 +24,10 @@ import com.fdmgroup.schedulingproject.model.User;
 public class UserRepositoryTest {
 	@Autowired
 	private UserRepository userRepo;
+	@Autowired
+	private EventRepository eventRepo;
+	@Autowired
+	private TestEntityManager entityManager;
 
 	@Test
 	@DisplayName("Verify findByUsername returns empty optional for invalid username")
@@ -24,6 +35,29 @@ public class UserRepositoryTest {
 		assertTrue(userRepo.findByUsername("invalid").isEmpty());
 	}
 
+	@Test
+	@DisplayName("Verify findAllByUsernameIn returns the users found and leaves out unknown usernames")
+	void testFindAllByUsernameIn() {
+		User first = userRepo.save(new User("first", "password", "displayName"));
+		User second = userRepo.save(new User("second", "password", "displayName"));
+		userRepo.save(new User("third", "password", "displayName"));
+		assertEquals(Set.of(first, second), Set.copyOf(userRepo.findAllByUsernameIn(List.of("first", "second", "unknown"))));
+	}
+
+	@Test
+	@DisplayName("Verify a user's version changes with their display name but not with their invite counts")
+	void testFindVersionById() {
+		User user = userRepo.saveAndFlush(new User("username", "password", "displayName"));
+		long version = userRepo.findVersionById(user.getId()).get();
+		userRepo.adjustPendingContactInvites(user.getId(), 1);
+		user = userRepo.saveAndFlush(user);
+		assertEquals(version, userRepo.findVersionById(user.getId()).get());
+		user.setDisplayName("newDisplayName");
+		userRepo.saveAndFlush(user);
+		assertEquals(version + 1, userRepo.findVersionById(user.getId()).get());
+		assertTrue(userRepo.findVersionById(-1).isEmpty());
+	}
+
 	@Test
 	@DisplayName("Verify findByUsername returns correct user")
 	void testFindByUsername_ValidUsername() {
@@ -31,4 +65,86 @@ public class UserRepositoryTest {
 		userRepo.save(user);
 		assertEquals(user, userRepo.findByUsername("username").get());
 	}
+
+	@Test
+	@DisplayName("Verify adjusting invite counts is relative, never negative and not undone by saving the user")
+	void testAdjustPendingInviteCounts() {
+		User user = userRepo.saveAndFlush(new User("username", "password", "displayName"));
+		userRepo.adjustPendingContactInvites(user.getId(), 1);
+		userRepo.adjustPendingContactInvites(user.getId(), 1);
+		userRepo.adjustPendingEventInvites(user.getId(), -1);
+		// the loaded user still holds the counts from before the adjustments
+		user.setDisplayName("newDisplayName");
+		userRepo.saveAndFlush(user);
+		entityManager.clear();
+		User adjusted = userRepo.findByUsername("username").get();
+		assertEquals(2, adjusted.getPendingContactInvites());
+		assertEquals(0, adjusted.getPendingEventInvites());
+	}
+
+	@Test
+	@DisplayName("Verify incrementCalendarVersions moves on each user's version and is not undone by saving the user")
+	void testIncrementCalendarVersions() {
+		User user = userRepo.saveAndFlush(new User("username", "password", "displayName"));
+		User other = userRepo.saveAndFlush(new User("other", "password", "displayName"));
+		userRepo.incrementCalendarVersions(List.of(user.getId(), other.getId()));
+		userRepo.incrementCalendarVersions(List.of(user.getId()));
+		user.setDisplayName("newDisplayName");
+		userRepo.saveAndFlush(user);
+		entityManager.clear();
+		assertEquals(2, userRepo.findByUsername("username").get().getCalendarVersion());
+		assertEquals(1, userRepo.findByUsername("other").get().getCalendarVersion());
+	}
+
+	@Test
+	@DisplayName("Verify reconcileExpiredEventInvites recounts only the users invited to events that expired in the range")
+	void testReconcileExpiredEventInvites() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User user = userRepo.save(new User("username", "password", "displayName"));
+		User other = userRepo.save(new User("other", "password", "displayName"));
+		// counts that include invites to events that have since started
+		user.setPendingEventInvites(5);
+		other.setPendingEventInvites(5);
+		Event future = new Event("future", "description", "location", now.plusDays(1), 30);
+		future.addInvitee(user);
+		Event expired = new Event("expired", "description", "location", now.minusMinutes(10), 30);
+		expired.addInvitee(user);
+		Event longPast = new Event("longPast", "description", "location", now.minusDays(1), 30);
+		longPast.addInvitee(other);
+		eventRepo.saveAll(List.of(future, expired, longPast));
+		userRepo.saveAll(List.of(user, other));
+		userRepo.flush();
+
+		assertEquals(1, userRepo.reconcileExpiredEventInvites(now.minusMinutes(15), now));
+		entityManager.clear();
+		assertEquals(1, userRepo.findByUsername("username").get().getPendingEventInvites());
+		assertEquals(5, userRepo.findByUsername("other").get().getPendingEventInvites());
+	}
+
+	@Test
+	@DisplayName("Verify findContactRowsByUsername tags the user, contacts and contact invites")
+	void testFindContactRowsByUsername() {
+		User user = userRepo.save(new User("username", "password", "displayName"));
+		User contact = userRepo.save(new User("contact", "password", "displayName"));
+		User recipient = userRepo.save(new User("recipient", "password", "displayName"));
+		User sender = userRepo.save(new User("sender", "password", "displayName"));
+		user.addContact(contact);
+		contact.addContact(user);
+		user.addSentContactInvite(recipient);
+		sender.addSentContactInvite(user);
+		userRepo.saveAll(List.of(user, contact, recipient, sender));
+		userRepo.flush();
+
+		List<UserContactRow> rows = userRepo.findContactRowsByUsername("username");
+		assertEquals(4, rows.size());
+		assertTrue(rows.stream().anyMatch(
+				row -> row.getRelation() == UserContactRow.Relation.SELF && row.getUsername().equals("username")));
+		assertTrue(rows.stream().anyMatch(
+				row -> row.getRelation() == UserContactRow.Relation.CONTACT && row.getUsername().equals("contact")));
+		assertTrue(rows.stream().anyMatch(row -> row.getRelation() == UserContactRow.Relation.SENT_INVITE
+				&& row.getUsername().equals("recipient")));
+		assertTrue(rows.stream().anyMatch(row -> row.getRelation() == UserContactRow.Relation.RECEIVED_INVITE
+				&& row.getUsername().equals("sender")));
+		assertTrue(userRepo.findContactRowsByUsername("invalid").isEmpty());
+	}
 }
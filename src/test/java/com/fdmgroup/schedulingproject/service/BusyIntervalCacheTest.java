@@ -0,0 +1,165 @@
+package com.fdmgroup.schedulingproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fdmgroup.schedulingproject.model.BusyIntervalIndex;
+import com.fdmgroup.schedulingproject.model.Event;
+import com.fdmgroup.schedulingproject.model.Location;
+import com.fdmgroup.schedulingproject.model.User;
+
+class BusyIntervalCacheTest {
+
+	private BusyIntervalCache cache;
+	private User user;
+	private Event event;
+
+	@BeforeEach
+	void setUp() {
+		cache = new BusyIntervalCache(100);
+		user = new User("username", "password", "displayName");
+		user.setId(1);
+		event = new Event("title", "description", "location", LocalDateTime.of(2024, 5, 6, 9, 0), 60);
+	}
+
+	@Test
+	@DisplayName("getBusyIndex() builds a user's index once for each calendar version")
+	void testGetBusyIndex_WithSameVersion() {
+		user.addCalendarEvent(event);
+		BusyIntervalIndex index = cache.getBusyIndex(user);
+		assertEquals(1, index.getEventCount());
+		assertSame(index, cache.getBusyIndex(user));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	@DisplayName("getBusyIndex() rebuilds an index built from another calendar version")
+	void testGetBusyIndex_WithNewVersion() {
+		BusyIntervalIndex before = cache.getBusyIndex(user);
+		user.addEventInvite(event);
+		user.setCalendarVersion(1);
+		BusyIntervalIndex after = cache.getBusyIndex(user);
+		assertNotSame(before, after);
+		assertEquals(0, before.getEventCount());
+		assertEquals(1, after.getEventCount());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	@DisplayName("getBusyIndex() does not cache unsaved users or rooms")
+	void testGetBusyIndex_WithUncachedParticipants() {
+		User unsaved = new User("unsaved", "password", "displayName");
+		Location room = new Location();
+		assertFalse(cache.caches(unsaved));
+		assertFalse(cache.caches(room));
+		assertTrue(cache.caches(user));
+		assertSame(unsaved.getBusyIndex(), cache.getBusyIndex(unsaved));
+		assertSame(room.getBusyIndex(), cache.getBusyIndex(room));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	@DisplayName("getRoomBusyIndex() reads a room's bookings around a window once for each booking version")
+	void testGetRoomBusyIndex() {
+		Location room = new Location("Room 1");
+		// the same id as the user, which must not share its entry
+		room.setId(1);
+		long windowStart = BusyIntervalIndex.toEpochMinute(LocalDateTime.of(2024, 5, 6, 0, 0));
+		long windowEnd = windowStart + 24 * 60;
+		List<LocalDateTime> reads = new ArrayList<>();
+		BiFunction<LocalDateTime, LocalDateTime, List<Event>> findBookings = (from, to) -> {
+			reads.add(from);
+			reads.add(to);
+			return List.of(event);
+		};
+		BusyIntervalIndex index = cache.getRoomBusyIndex(room, windowStart, windowEnd, findBookings);
+		assertTrue(cache.caches(room));
+		assertEquals(1, index.getEventCount());
+		// the window widened by its length on each side
+		assertEquals(List.of(LocalDateTime.of(2024, 5, 5, 0, 0), LocalDateTime.of(2024, 5, 8, 0, 0)), reads);
+		assertSame(index, cache.getRoomBusyIndex(room, windowStart + 60, windowEnd + 60, findBookings));
+		assertEquals(0, cache.getBusyIndex(user).getEventCount());
+		assertEquals(2, cache.size());
+
+		room.setBookingVersion(1);
+		assertNotSame(index, cache.getRoomBusyIndex(room, windowStart, windowEnd, findBookings));
+		assertEquals(4, reads.size());
+		// a window outside the range read is read again
+		cache.getRoomBusyIndex(room, windowEnd * 2, windowEnd * 2 + 60, findBookings);
+		assertEquals(6, reads.size());
+	}
+
+	@Test
+	@DisplayName("getRoomBusyIndex() does not cache unsaved rooms or read their bookings")
+	void testGetRoomBusyIndex_WithUnsavedRoom() {
+		Location room = new Location("Room 1");
+		room.addEvent(event);
+		assertSame(room.getBusyIndex(), cache.getRoomBusyIndex(room, 0, 60, (from, to) -> {
+			throw new AssertionError("bookings read for an unsaved room");
+		}));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	@DisplayName("evictRoom() inside a transaction removes the room's index once it commits")
+	void testEvictRoom_InTransaction() {
+		Location room = new Location("Room 1");
+		room.setId(1);
+		BiFunction<LocalDateTime, LocalDateTime, List<Event>> findBookings = (from, to) -> List.of();
+		BusyIntervalIndex before = cache.getRoomBusyIndex(room, 0, 60, findBookings);
+		cache.getBusyIndex(user);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			cache.evictRoom(1);
+			assertSame(before, cache.getRoomBusyIndex(room, 0, 60, findBookings));
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertEquals(1, cache.size());
+		assertNotSame(before, cache.getRoomBusyIndex(room, 0, 60, findBookings));
+	}
+
+	@Test
+	@DisplayName("evict() outside a transaction removes the indexes of the given users only")
+	void testEvict() {
+		User other = new User("other", "password", "displayName");
+		other.setId(2);
+		cache.getBusyIndex(user);
+		cache.getBusyIndex(other);
+		cache.evict(List.of(1L));
+		assertEquals(1, cache.size());
+		cache.evict(List.of(2L, 3L));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	@DisplayName("evict() inside a transaction removes the indexes once it commits")
+	void testEvict_InTransaction() {
+		BusyIntervalIndex before = cache.getBusyIndex(user);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			cache.evict(List.of(1L));
+			// a search running before the commit still sees the old calendar
+			assertSame(before, cache.getBusyIndex(user));
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertEquals(0, cache.size());
+	}
+}
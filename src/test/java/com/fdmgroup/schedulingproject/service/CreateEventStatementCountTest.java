@@ -0,0 +1,88 @@
+package com.fdmgroup.schedulingproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fdmgroup.schedulingproject.model.Event;
+import com.fdmgroup.schedulingproject.model.User;
+import com.fdmgroup.schedulingproject.repository.EventRepository;
+import com.fdmgroup.schedulingproject.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+public class CreateEventStatementCountTest {
+
+	private static final int INVITEES = 500;
+	// the organiser lookup, clash and room checks, id allocation, the event row,
+	// the organiser's own collections and their calendar version
+	private static final int FIXED_STATEMENTS = 16;
+	// looking up the invitees' ids, inserting every invitation and updating
+	// every calendar version and pending invite count, however many invitees
+	// there are
+	private static final int MAX_STATEMENTS = FIXED_STATEMENTS + 3;
+
+	@Autowired
+	private EventService eventService;
+	@Autowired
+	private UserRepository userRepo;
+	@Autowired
+	private EventRepository eventRepo;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private List<String> invitees;
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		userRepo.save(new User("createOrganiser", "password", "displayName"));
+		List<User> users = new ArrayList<>();
+		invitees = new ArrayList<>();
+		for (int i = 0; i < INVITEES; i++) {
+			users.add(new User("createInvitee" + i, "password", "displayName"));
+			invitees.add("createInvitee" + i);
+		}
+		userRepo.saveAll(users);
+		entityManager.flush();
+		entityManager.clear();
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	@DisplayName("createEvent() with 500 invitees runs a bounded number of SQL statements")
+	void testCreateEvent_WithManyInvitees_RunsBoundedStatements() throws Exception {
+		Event event = new Event("title", "description", "location",
+				LocalDateTime.now().plusDays(1).withSecond(0).withNano(0), 30);
+		eventService.createEvent("createOrganiser", invitees, event);
+		entityManager.flush();
+
+		long statements = statistics.getPrepareStatementCount();
+		assertTrue(statements <= MAX_STATEMENTS,
+				"creating an event with " + INVITEES + " invitees ran " + statements + " statements");
+		// at most the organiser is loaded, never the invitees
+		assertTrue(statistics.getEntityLoadCount() <= 1,
+				"creating an event loaded " + statistics.getEntityLoadCount() + " entities");
+		entityManager.clear();
+		assertEquals(INVITEES, eventRepo.findById(event.getId()).get().getInvitees().size());
+		assertEquals(1, userRepo.findByUsername("createInvitee0").get().getPendingEventInvites());
+	}
+}
@@ -1,17 +1,34 @@
 package com.fdmgroup.schedulingproject.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -19,16 +36,35 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
+import com.fdmgroup.schedulingproject.dto.EventSummary;
+import com.fdmgroup.schedulingproject.dto.SlotOccupancy;
+import com.fdmgroup.schedulingproject.dto.UserBusyInterval;
+import com.fdmgroup.schedulingproject.dto.UserRecurringEvent;
 import com.fdmgroup.schedulingproject.exception.EventAlreadyInCalendarException;
 import com.fdmgroup.schedulingproject.exception.EventClashException;
 import com.fdmgroup.schedulingproject.exception.EventNotFoundException;
+import com.fdmgroup.schedulingproject.exception.OccurrenceNotFoundException;
+import com.fdmgroup.schedulingproject.exception.RoomAlreadyExistsException;
+import com.fdmgroup.schedulingproject.exception.RoomUnavailableException;
 import com.fdmgroup.schedulingproject.exception.UserNotFoundException;
 import com.fdmgroup.schedulingproject.exception.UserNotInvitedException;
+import com.fdmgroup.schedulingproject.exception.UserNotOrganiserException;
+import com.fdmgroup.schedulingproject.model.BusyIntervalIndex;
 import com.fdmgroup.schedulingproject.model.Event;
+import com.fdmgroup.schedulingproject.model.EventOccurrence;
+import com.fdmgroup.schedulingproject.model.KeysetPage;
+import com.fdmgroup.schedulingproject.model.Location;
+import com.fdmgroup.schedulingproject.model.PageCursor;
+import com.fdmgroup.schedulingproject.model.Recurrence;
+import com.fdmgroup.schedulingproject.model.RecurrenceFrequency;
+import com.fdmgroup.schedulingproject.model.Schedulable;
 import com.fdmgroup.schedulingproject.model.Timeslot;
+import com.fdmgroup.schedulingproject.model.TimeslotSearchResult;
 import com.fdmgroup.schedulingproject.model.User;
 import com.fdmgroup.schedulingproject.repository.EventRepository;
+import com.fdmgroup.schedulingproject.repository.LocationRepository;
 import com.fdmgroup.schedulingproject.repository.UserRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,13 +76,15 @@ public class EventServiceTest {
 	EventRepository mockEventRepo;
 	@Mock
 	UserRepository mockUserRepo;
+	@Mock
+	LocationRepository mockLocationRepo;
 
 	@Mock
 	Event mockEvent1, mockEvent2;
 	@Mock
 	User mockUser1, mockUser2;
 
-	List<Event> listContainingMockEvent1, listContainingMockEvent2;
+	Set<Event> setContainingMockEvent1, setContainingMockEvent2;
 
 	List<User> listContainingMockUser2;
 
@@ -55,12 +93,18 @@ public class EventServiceTest {
 		eventService = new EventService();
 		eventService.setUserRepository(mockUserRepo);
 		eventService.setEventRepository(mockEventRepo);
-		listContainingMockEvent1 = new ArrayList<>();
-		listContainingMockEvent1.add(mockEvent1);
-		listContainingMockEvent2 = new ArrayList<>();
-		listContainingMockEvent2.add(mockEvent2);
+		eventService.setLocationRepository(mockLocationRepo);
+		eventService.setBusyIntervalCache(new BusyIntervalCache(100));
+		setContainingMockEvent1 = new LinkedHashSet<>();
+		setContainingMockEvent1.add(mockEvent1);
+		setContainingMockEvent2 = new LinkedHashSet<>();
+		setContainingMockEvent2.add(mockEvent2);
 		listContainingMockUser2 = new ArrayList<>();
 		listContainingMockUser2.add(mockUser2);
+		// nothing takes up a slot unless a test says otherwise
+		lenient().when(mockEventRepo.findOccupancyInCalendar(anyLong(), any(), any())).thenReturn(occupancy(0, 0));
+		lenient().when(mockEventRepo.findOccupancyForAnyUser(any(), any(), any())).thenReturn(occupancy(0, 0));
+		lenient().when(mockEventRepo.findOccupancyInRoom(anyLong(), any(), any())).thenReturn(occupancy(0, 0));
 	}
 
 	@Test
@@ -87,7 +131,7 @@ public class EventServiceTest {
 	void testAcceptEventInvite_WithEventAlreadyInCalendar() {
 		when(mockEventRepo.findById((long) 5)).thenReturn(Optional.ofNullable(mockEvent1));
 		when(mockUserRepo.findByUsername("username")).thenReturn(Optional.ofNullable(mockUser1));
-		when(mockUser1.getCalendar()).thenReturn(listContainingMockEvent1);
+		when(mockUser1.getCalendar()).thenReturn(setContainingMockEvent1);
 		assertThrows(EventAlreadyInCalendarException.class, () -> eventService.acceptEventInvite("username", "5"));
 	}
 
@@ -104,9 +148,9 @@ public class EventServiceTest {
 	void testAcceptEventInvite_WithClashingEvent() {
 		when(mockEventRepo.findById((long) 5)).thenReturn(Optional.ofNullable(mockEvent1));
 		when(mockUserRepo.findByUsername("username")).thenReturn(Optional.ofNullable(mockUser1));
-		when(mockUser1.getEventInvites()).thenReturn(listContainingMockEvent1);
-		when(mockUser1.getCalendar()).thenReturn(listContainingMockEvent2);
-		when(mockEvent2.doesEventClash(mockEvent1.getStartTime(), mockEvent1.getDurationMinutes())).thenReturn(true);
+		when(mockUser1.getEventInvites()).thenReturn(setContainingMockEvent1);
+		when(mockEventRepo.findOccupancyInCalendar(mockUser1.getId(), mockEvent1.getStartTime(),
+				mockEvent1.getEndTime())).thenReturn(occupancy(1, 0));
 		assertThrows(EventClashException.class, () -> eventService.acceptEventInvite("username", "5"));
 	}
 
@@ -115,12 +159,17 @@ public class EventServiceTest {
 	void testAcceptEventInvite_WithValidEvent() {
 		when(mockEventRepo.findById((long) 5)).thenReturn(Optional.ofNullable(mockEvent1));
 		when(mockUserRepo.findByUsername("username")).thenReturn(Optional.ofNullable(mockUser1));
-		when(mockUser1.getEventInvites()).thenReturn(listContainingMockEvent1);
+		when(mockUser1.getEventInvites()).thenReturn(setContainingMockEvent1);
+		when(mockEvent1.isUpcomingAt(any())).thenReturn(true);
 		eventService.acceptEventInvite("username", "5");
 		verify(mockUser1).removeEventInvite(mockEvent1);
 		verify(mockUser1).addCalendarEvent(mockEvent1);
 		verify(mockEvent1).addAttendee(mockUser1);
 		verify(mockEvent1).removeInvitee(mockUser1);
+		verify(mockUserRepo).incrementCalendarVersions(List.of(mockUser1.getId()));
+		verify(mockUserRepo).adjustPendingEventInvites(mockUser1.getId(), -1);
+		verify(mockEventRepo).save(mockEvent1);
+		verify(mockUserRepo, never()).save(any());
 	}
 
 	@Test
@@ -128,9 +177,10 @@ public class EventServiceTest {
 	void testAcceptEventInvite_WithValidNonClashingEvent() {
 		when(mockEventRepo.findById((long) 5)).thenReturn(Optional.ofNullable(mockEvent1));
 		when(mockUserRepo.findByUsername("username")).thenReturn(Optional.ofNullable(mockUser1));
-		when(mockUser1.getEventInvites()).thenReturn(listContainingMockEvent1);
-		when(mockUser1.getCalendar()).thenReturn(listContainingMockEvent2);
-		when(mockEvent2.doesEventClash(mockEvent1.getStartTime(), mockEvent1.getDurationMinutes())).thenReturn(false);
+		when(mockUser1.getEventInvites()).thenReturn(setContainingMockEvent1);
+		when(mockUser1.getCalendar()).thenReturn(setContainingMockEvent2);
+		when(mockEventRepo.findOccupancyInCalendar(mockUser1.getId(), mockEvent1.getStartTime(),
+				mockEvent1.getEndTime())).thenReturn(occupancy(0, 0));
 		eventService.acceptEventInvite("username", "5");
 		verify(mockUser1).removeEventInvite(mockEvent1);
 		verify(mockUser1).addCalendarEvent(mockEvent1);
@@ -138,6 +188,272 @@ public class EventServiceTest {
 		verify(mockEvent1).removeInvitee(mockUser1);
 	}
 
+	@Test
+	@DisplayName("createEvent throws EventClashException if the organiser or an invitee is busy")
+	void testCreateEvent_WithClashingEvent() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User organiser = new User("organiser", "password", "displayName");
+		organiser.setId(1);
+		Event event = new Event("title", "description", "location", now, 30);
+		when(mockUserRepo.findByUsername("organiser")).thenReturn(Optional.of(organiser));
+		when(mockUserRepo.findIdsByUsernameIn(Set.of("invitee"))).thenReturn(List.of(2L));
+		when(mockEventRepo.findOccupancyForAnyUser(List.of(1L, 2L), now, now.plusMinutes(30)))
+				.thenReturn(occupancy(1, 0));
+		assertThrows(EventClashException.class, () -> eventService.createEvent("organiser", List.of("invitee"), event));
+		verify(mockEventRepo, never()).saveAndFlush(any());
+		verify(mockEventRepo, never()).findRecurringSpanningForAnyUser(any(), any(), any());
+	}
+
+	@Test
+	@DisplayName("createEvent checks a one-off event with a single query when no series covers its slot")
+	void testCreateEvent_WithNoSeriesCoveringSlot() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User organiser = new User("organiser", "password", "displayName");
+		organiser.setId(1);
+		Event event = new Event("title", "description", "location", now, 30);
+		when(mockUserRepo.findByUsername("organiser")).thenReturn(Optional.of(organiser));
+		eventService.createEvent("organiser", new ArrayList<>(), event);
+		verify(mockEventRepo).findOccupancyForAnyUser(List.of(1L), now, now.plusMinutes(30));
+		verify(mockEventRepo, never()).findSpanningForAnyUser(any(), any(), any());
+		verify(mockEventRepo, never()).findRecurringSpanningForAnyUser(any(), any(), any());
+		verify(mockEventRepo).saveAndFlush(event);
+	}
+
+	@Test
+	@DisplayName("createEvent throws UserNotFoundException if an invitee is not found")
+	void testCreateEvent_WithUnknownInvitee() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User organiser = new User("organiser", "password", "displayName");
+		Event event = new Event("title", "description", "location", now, 30);
+		when(mockUserRepo.findByUsername("organiser")).thenReturn(Optional.of(organiser));
+		when(mockUserRepo.findIdsByUsernameIn(Set.of("invitee", "unknown"))).thenReturn(List.of(2L));
+		assertThrows(UserNotFoundException.class,
+				() -> eventService.createEvent("organiser", List.of("invitee", "unknown"), event));
+		verify(mockEventRepo, never()).saveAndFlush(any());
+	}
+
+	@Test
+	@DisplayName("createEvent adds event to organiser's calendar and inserts the invitations without loading invitees")
+	void testCreateEvent_WithFreeTimeslot() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User organiser = new User("organiser", "password", "displayName");
+		Event event = new Event("title", "description", "location", now, 30);
+		event.setId(7);
+		when(mockUserRepo.findByUsername("organiser")).thenReturn(Optional.of(organiser));
+		when(mockUserRepo.findIdsByUsernameIn(Set.of("invitee1", "invitee2"))).thenReturn(List.of(2L, 3L));
+		eventService.createEvent("organiser", List.of("invitee1", "invitee2", "invitee1"), event);
+		assertEquals(organiser, event.getOrganiser());
+		assertEquals(Set.of(event), organiser.getCalendar());
+		assertEquals(Set.of(organiser), event.getAttendees());
+		verify(mockEventRepo).saveAndFlush(event);
+		verify(mockEventRepo).insertInvitations(7, List.of(2L, 3L));
+		verify(mockUserRepo).incrementCalendarVersions(List.of(organiser.getId()));
+		verify(mockUserRepo).recordEventInvites(List.of(2L, 3L), 0);
+		verify(mockUserRepo, never()).save(any());
+	}
+
+	@Test
+	@DisplayName("createEvent counts an upcoming event in the invitees' pending invites")
+	void testCreateEvent_WithUpcomingEvent() {
+		LocalDateTime start = LocalDateTime.now().plusDays(1).withSecond(0).withNano(0);
+		User organiser = new User("organiser", "password", "displayName");
+		Event event = new Event("title", "description", "location", start, 30);
+		event.setId(7);
+		when(mockUserRepo.findByUsername("organiser")).thenReturn(Optional.of(organiser));
+		when(mockUserRepo.findIdsByUsernameIn(Set.of("invitee"))).thenReturn(List.of(2L));
+		eventService.createEvent("organiser", List.of("invitee"), event);
+		verify(mockEventRepo).insertInvitations(7, List.of(2L));
+		verify(mockUserRepo).recordEventInvites(List.of(2L), 1);
+		assertEquals(0, organiser.getPendingEventInvites());
+	}
+
+	@Test
+	@DisplayName("createEvent writes no invitations for an event without invitees")
+	void testCreateEvent_WithNoInvitees() {
+		LocalDateTime start = LocalDateTime.now().plusDays(1).withSecond(0).withNano(0);
+		User organiser = new User("organiser", "password", "displayName");
+		Event event = new Event("title", "description", "location", start, 30);
+		when(mockUserRepo.findByUsername("organiser")).thenReturn(Optional.of(organiser));
+		eventService.createEvent("organiser", List.of(), event);
+		verify(mockEventRepo).saveAndFlush(event);
+		verify(mockUserRepo, never()).findIdsByUsernameIn(any());
+		verify(mockEventRepo, never()).insertInvitations(anyLong(), any());
+		verify(mockUserRepo, never()).recordEventInvites(any(), anyInt());
+	}
+
+	@Test
+	@DisplayName("createEvent throws EventClashException if a later occurrence of a recurring event clashes")
+	void testCreateEvent_WithRecurringEventClash() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User organiser = new User("organiser", "password", "displayName");
+		organiser.setId(1);
+		Event event = new Event("title", "description", "location", now, 30);
+		event.setRecurrence(new Recurrence(RecurrenceFrequency.WEEKLY, 4, null));
+		Event clashing = new Event("title", "description", "location", now.plusWeeks(2).plusMinutes(15), 30);
+		when(mockUserRepo.findByUsername("organiser")).thenReturn(Optional.of(organiser));
+		when(mockEventRepo.findSpanningForAnyUser(List.of(1L), now, now.plusWeeks(3).plusMinutes(30)))
+				.thenReturn(List.of(clashing));
+		assertThrows(EventClashException.class,
+				() -> eventService.createEvent("organiser", new ArrayList<>(), event));
+	}
+
+	@Test
+	@DisplayName("createEvent throws EventClashException if an occurrence of a recurring calendar event clashes")
+	void testCreateEvent_WithClashingRecurringCalendarEvent() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User organiser = new User("organiser", "password", "displayName");
+		organiser.setId(1);
+		Event standUp = new Event("title", "description", "location", now.minusWeeks(20), 15);
+		standUp.setRecurrence(new Recurrence(RecurrenceFrequency.WEEKLY, null, null));
+		Event event = new Event("title", "description", "location", now, 30);
+		when(mockUserRepo.findByUsername("organiser")).thenReturn(Optional.of(organiser));
+		when(mockEventRepo.findOccupancyForAnyUser(List.of(1L), now, now.plusMinutes(30))).thenReturn(occupancy(0, 1));
+		when(mockEventRepo.findRecurringSpanningForAnyUser(List.of(1L), now, now.plusMinutes(30)))
+				.thenReturn(List.of(standUp));
+		assertThrows(EventClashException.class,
+				() -> eventService.createEvent("organiser", new ArrayList<>(), event));
+	}
+
+	@Test
+	@DisplayName("createEvent throws RoomUnavailableException if the room is already booked")
+	void testCreateEvent_WithRoomBooked() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User organiser = new User("organiser", "password", "displayName");
+		Location room = new Location("Room 1");
+		room.setId(3);
+		Event event = new Event("title", "description", "Room 1", now, 30);
+		when(mockUserRepo.findByUsername("organiser")).thenReturn(Optional.of(organiser));
+		when(mockLocationRepo.findByNameForUpdate("Room 1")).thenReturn(Optional.of(room));
+		when(mockEventRepo.findOccupancyInRoom(3, now, now.plusMinutes(30))).thenReturn(occupancy(1, 0));
+		assertThrows(RoomUnavailableException.class,
+				() -> eventService.createEvent("organiser", new ArrayList<>(), event));
+	}
+
+	@Test
+	@DisplayName("createEvent books the event into the room named by its location")
+	void testCreateEvent_WithRoomFree() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User organiser = new User("organiser", "password", "displayName");
+		Location room = new Location("Room 1");
+		room.setId(7);
+		Event event = new Event("title", "description", "Room 1", now, 30);
+		when(mockUserRepo.findByUsername("organiser")).thenReturn(Optional.of(organiser));
+		when(mockLocationRepo.findByNameForUpdate("Room 1")).thenReturn(Optional.of(room));
+		eventService.createEvent("organiser", new ArrayList<>(), event);
+		assertEquals(room, event.getRoom());
+		assertEquals(Set.of(event), room.getEvents());
+		verify(mockLocationRepo).incrementBookingVersion(7);
+		// the room is only found through the lock
+		verify(mockLocationRepo, never()).findByName(any());
+	}
+
+	@Test
+	@DisplayName("isUserInvolved is true for the organiser without querying the attendees or invitees")
+	void testIsUserInvolved_ForOrganiser() {
+		User organiser = new User("organiser", "password", "displayName");
+		organiser.setId(1);
+		Event event = new Event("title", "description", "location", LocalDateTime.of(2024, 5, 6, 9, 0), 30);
+		event.setOrganiser(organiser);
+		assertTrue(eventService.isUserInvolved(event, 1));
+		verifyNoInteractions(mockEventRepo);
+	}
+
+	@Test
+	@DisplayName("isUserInvolved looks up any other user among the attendees and invitees in the database")
+	void testIsUserInvolved_ForOtherUser() {
+		User organiser = new User("organiser", "password", "displayName");
+		organiser.setId(1);
+		Event event = new Event("title", "description", "location", LocalDateTime.of(2024, 5, 6, 9, 0), 30);
+		event.setId(7);
+		event.setOrganiser(organiser);
+		when(mockEventRepo.existsAttendeeOrInvitee(7, 2)).thenReturn(true);
+		assertTrue(eventService.isUserInvolved(event, 2));
+		assertFalse(eventService.isUserInvolved(event, 3));
+	}
+
+	@Test
+	@DisplayName("createRoom saves a room with the given name")
+	void testCreateRoom() {
+		when(mockLocationRepo.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		Location room = eventService.createRoom(" Room 1 ");
+		assertEquals("Room 1", room.getName());
+		verify(mockLocationRepo).save(room);
+	}
+
+	@Test
+	@DisplayName("createRoom throws RoomAlreadyExistsException if a room with the name exists")
+	void testCreateRoom_WithExistingRoom() {
+		when(mockLocationRepo.findByName("Room 1")).thenReturn(Optional.of(new Location("Room 1")));
+		assertThrows(RoomAlreadyExistsException.class, () -> eventService.createRoom("Room 1"));
+		verify(mockLocationRepo, never()).save(any());
+	}
+
+	@Test
+	@DisplayName("cancelOccurrence throws UserNotOrganiserException for a user who does not organise the event")
+	void testCancelOccurrence_WithUserNotOrganiser() {
+		LocalDateTime start = LocalDateTime.of(2024, 5, 6, 9, 0);
+		Event event = new Event("title", "description", "location", start, 30);
+		event.setRecurrence(new Recurrence(RecurrenceFrequency.WEEKLY, 4, null));
+		event.setOrganiser(new User("organiser", "password", "displayName"));
+		when(mockEventRepo.findById((long) 5)).thenReturn(Optional.of(event));
+		assertThrows(UserNotOrganiserException.class,
+				() -> eventService.cancelOccurrence("username", "5", start.plusWeeks(1)));
+		assertTrue(event.getRecurrence().getExceptions().isEmpty());
+	}
+
+	@Test
+	@DisplayName("cancelOccurrence throws OccurrenceNotFoundException for a time with no occurrence")
+	void testCancelOccurrence_WithNoOccurrence() {
+		LocalDateTime start = LocalDateTime.of(2024, 5, 6, 9, 0);
+		Event event = new Event("title", "description", "location", start, 30);
+		event.setRecurrence(new Recurrence(RecurrenceFrequency.WEEKLY, 4, null));
+		event.setOrganiser(new User("organiser", "password", "displayName"));
+		when(mockEventRepo.findById((long) 5)).thenReturn(Optional.of(event));
+		assertThrows(OccurrenceNotFoundException.class,
+				() -> eventService.cancelOccurrence("organiser", "5", start.plusDays(1)));
+		// after the last occurrence of the series
+		assertThrows(OccurrenceNotFoundException.class,
+				() -> eventService.cancelOccurrence("organiser", "5", start.plusWeeks(4)));
+	}
+
+	@Test
+	@DisplayName("cancelOccurrence throws OccurrenceNotFoundException for a one-off event")
+	void testCancelOccurrence_WithOneOffEvent() {
+		LocalDateTime start = LocalDateTime.of(2024, 5, 6, 9, 0);
+		Event event = new Event("title", "description", "location", start, 30);
+		event.setOrganiser(new User("organiser", "password", "displayName"));
+		when(mockEventRepo.findById((long) 5)).thenReturn(Optional.of(event));
+		assertThrows(OccurrenceNotFoundException.class, () -> eventService.cancelOccurrence("organiser", "5", start));
+	}
+
+	@Test
+	@DisplayName("cancelOccurrence cancels one occurrence and moves on the versions of everyone and the room involved")
+	void testCancelOccurrence() {
+		LocalDateTime start = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User organiser = new User("organiser", "password", "displayName");
+		organiser.setId(1);
+		User invitee = new User("invitee", "password", "displayName");
+		invitee.setId(2);
+		Event event = new Event("title", "description", "location", start, 30);
+		event.setRecurrence(new Recurrence(RecurrenceFrequency.WEEKLY, 4, null));
+		event.setOrganiser(organiser);
+		event.addAttendee(organiser);
+		event.addInvitee(invitee);
+		Location room = new Location("location");
+		room.setId(7);
+		event.setRoom(room);
+		when(mockEventRepo.findById((long) 5)).thenReturn(Optional.of(event));
+		eventService.cancelOccurrence("organiser", "5", start.plusWeeks(1));
+		assertEquals(List.of(start, start.plusWeeks(2), start.plusWeeks(3)),
+				event.getOccurrences(start, start.plusWeeks(4)).stream().map(Timeslot::getStart).toList());
+		verify(mockUserRepo).incrementCalendarVersions(List.of(1L, 2L));
+		verify(mockLocationRepo).incrementBookingVersion(7);
+		verify(mockEventRepo).save(event);
+		// an occurrence that is already cancelled cannot be cancelled again
+		assertThrows(OccurrenceNotFoundException.class,
+				() -> eventService.cancelOccurrence("organiser", "5", start.plusWeeks(1)));
+	}
+
 	@Test
 	@DisplayName("findTimeslots provides correct correct selection for attendees with no other events in calendar")
 	void testFindTimeslots_WithNoOtherEvents() {
@@ -150,9 +466,7 @@ public class EventServiceTest {
 		expectedTimeslots.add(timeslot2);
 		expectedTimeslots.add(timeslot3);
 
-		when(mockUser1.isTimeslotAvailable(any())).thenReturn(true);
-		when(mockUser2.isTimeslotAvailable(any())).thenReturn(true);
-		List<Timeslot> retrievedTimeslots = eventService.findTimeslots(mockUser1, now, 30, listContainingMockUser2);
+		List<Timeslot> retrievedTimeslots = eventService.findTimeslots(new User(), now, 30, List.of(new User()));
 		assertEquals(expectedTimeslots.size(), retrievedTimeslots.size());
 		for (int i = 0; i < expectedTimeslots.size(); i++) {
 			// timeslots are different instances so can't use assertIterableEquals()
@@ -174,10 +488,10 @@ public class EventServiceTest {
 		expectedTimeslots.add(timeslot1);
 		expectedTimeslots.add(timeslot2);
 		expectedTimeslots.add(timeslot3);
-		
-		lenient().when(mockUser1.isTimeslotAvailable(argThat(ts -> ts != null && ts.getStart().isAfter(now.plusMinutes(29))))).thenReturn(true);
-		lenient().when(mockUser1.isTimeslotAvailable(argThat(ts -> ts != null && ts.getStart().isBefore(now.minusMinutes(29))))).thenReturn(true);
-		List<Timeslot> retrievedTimeslots = eventService.findTimeslots(mockUser1, now, 30, new ArrayList<>());
+
+		User organiser = new User();
+		organiser.addCalendarEvent(new Event("title", "description", "location", now, 30));
+		List<Timeslot> retrievedTimeslots = eventService.findTimeslots(organiser, now, 30, new ArrayList<>());
 		assertEquals(expectedTimeslots.size(), retrievedTimeslots.size());
 		for (int i = 0; i < expectedTimeslots.size(); i++) {
 			// timeslots are different instances so can't use assertIterableEquals()
@@ -185,4 +499,538 @@ public class EventServiceTest {
 			assertEquals(expectedTimeslots.get(i).getEnd(), retrievedTimeslots.get(i).getEnd());
 		}
 	}
+
+	@Test
+	@DisplayName("findTimeslots merges busy times of organiser and invitees")
+	void testFindTimeslots_WithClashingInvitees() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User organiser = new User();
+		organiser.addCalendarEvent(new Event("title", "description", "location", now, 60));
+		User invitee1 = new User();
+		invitee1.addEventInvite(new Event("title", "description", "location", now.plusMinutes(60), 30));
+		User invitee2 = new User();
+		invitee2.addCalendarEvent(new Event("title", "description", "location", now.plusMinutes(105), 15));
+		invitee2.addCalendarEvent(new Event("title", "description", "location", now.minusMinutes(60), 45));
+		List<LocalDateTime> expectedStarts = List.of(now.minusMinutes(120), now.minusMinutes(105), now.minusMinutes(90),
+				now.plusMinutes(120), now.plusMinutes(135), now.plusMinutes(150));
+
+		List<Timeslot> retrievedTimeslots = eventService.findTimeslots(organiser, now, 30,
+				List.of(invitee1, invitee2));
+		assertEquals(expectedStarts, retrievedTimeslots.stream().map(Timeslot::getStart).toList());
+	}
+
+	@Test
+	@DisplayName("findTimeslots treats each occurrence of a recurring event near the requested time as busy")
+	void testFindTimeslots_WithRecurringEvent() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User organiser = new User();
+		Event daily = new Event("title", "description", "location", now.minusDays(100), 30);
+		daily.setRecurrence(new Recurrence(RecurrenceFrequency.DAILY, null, null));
+		organiser.addCalendarEvent(daily);
+		List<LocalDateTime> expectedStarts = List.of(now.minusMinutes(30), now.plusMinutes(30), now.plusMinutes(45),
+				now.plusMinutes(60));
+
+		List<Timeslot> retrievedTimeslots = eventService.findTimeslots(organiser, now, 30, new ArrayList<>());
+		assertEquals(expectedStarts, retrievedTimeslots.stream().map(Timeslot::getStart).toList());
+		eventService.setUseAvailabilityBitmaps(true);
+		retrievedTimeslots = eventService.findTimeslots(organiser, now, 30, new ArrayList<>());
+		assertEquals(expectedStarts, retrievedTimeslots.stream().map(Timeslot::getStart).toList());
+	}
+
+	@Test
+	@DisplayName("findTimeslots with availability bitmaps gives the same selection for aligned events")
+	void testFindTimeslots_WithAvailabilityBitmaps() {
+		eventService.setUseAvailabilityBitmaps(true);
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 23, 0);
+		User organiser = new User();
+		organiser.addCalendarEvent(new Event("title", "description", "location", now, 90));
+		User invitee = new User();
+		invitee.addEventInvite(new Event("title", "description", "location", now.plusMinutes(90), 15));
+		List<LocalDateTime> expectedStarts = List.of(now.minusMinutes(30), now.minusMinutes(45), now.minusMinutes(60),
+				now.minusMinutes(75), now.minusMinutes(90), now.minusMinutes(105), now.plusMinutes(105),
+				now.plusMinutes(120), now.plusMinutes(135));
+
+		List<Timeslot> retrievedTimeslots = eventService.findTimeslots(organiser, now, 30, List.of(invitee));
+		assertEquals(expectedStarts.stream().sorted().toList(),
+				retrievedTimeslots.stream().map(Timeslot::getStart).toList());
+	}
+
+	@Test
+	@DisplayName("searchTimeslots treats the room named by the location as a participant")
+	void testSearchTimeslots_WithBookedRoom() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		Location room = new Location("Room 1");
+		room.addEvent(new Event("title", "description", "Room 1", now, 30));
+		when(mockLocationRepo.findByName("Room 1")).thenReturn(Optional.of(room));
+		List<LocalDateTime> expectedStarts = List.of(now.minusMinutes(30), now.plusMinutes(30), now.plusMinutes(45),
+				now.plusMinutes(60));
+
+		TimeslotSearchResult result = eventService.searchTimeslots(new User(), now, 30, new ArrayList<>(),
+				" Room 1 ");
+		assertEquals(expectedStarts, result.getTimeslots().stream().map(Timeslot::getStart).toList());
+	}
+
+	@Test
+	@DisplayName("searchTimeslots reads a saved room's bookings within the search window once for all searches")
+	void testSearchTimeslots_WithSavedRoom() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		Location room = new Location("Room 1");
+		room.setId(7);
+		when(mockLocationRepo.findByName("Room 1")).thenReturn(Optional.of(room));
+		when(mockEventRepo.findSpanningInRoom(eq(7L), any(), any()))
+				.thenReturn(List.of(new Event("title", "description", "Room 1", now, 30)));
+		List<LocalDateTime> expectedStarts = List.of(now.minusMinutes(30), now.plusMinutes(30), now.plusMinutes(45),
+				now.plusMinutes(60));
+
+		TimeslotSearchResult first = eventService.searchTimeslots(new User(), now, 30, new ArrayList<>(), "Room 1");
+		TimeslotSearchResult second = eventService.searchTimeslots(new User(), now, 30, new ArrayList<>(), "Room 1");
+		assertEquals(expectedStarts, first.getTimeslots().stream().map(Timeslot::getStart).toList());
+		assertEquals(expectedStarts, second.getTimeslots().stream().map(Timeslot::getStart).toList());
+		verify(mockEventRepo).findSpanningInRoom(eq(7L), any(), any());
+	}
+
+	@Test
+	@DisplayName("searchTimeslots is not exhausted when every suggestion is found")
+	void testSearchTimeslots_WithNoOtherEvents() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+
+		TimeslotSearchResult result = eventService.searchTimeslots(new User(), now, 30, List.of(new User()));
+		assertFalse(result.isExhausted());
+		assertEquals(3, result.getTimeslots().size());
+	}
+
+	@Test
+	@DisplayName("searchTimeslots returns the earlier slots within the horizon when no later slot is free")
+	void testSearchTimeslots_WithNoFreeSlotWithinHorizon() {
+		eventService.setSearchHorizonDays(1);
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User organiser = new User();
+		organiser.addCalendarEvent(new Event("title", "description", "location", now, 3 * 24 * 60));
+
+		TimeslotSearchResult result = eventService.searchTimeslots(organiser, now, 30, new ArrayList<>());
+		assertTrue(result.isExhausted());
+		assertEquals(95, result.getTimeslots().size());
+		assertEquals(now.minusDays(1), result.getTimeslots().get(0).getStart());
+		assertEquals(now.minusMinutes(30), result.getTimeslots().get(94).getStart());
+	}
+
+	@Test
+	@DisplayName("searchTimeslots stops at the maximum number of candidates")
+	void testSearchTimeslots_WithMaxCandidates() {
+		eventService.setSearchMaxCandidates(10);
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User organiser = new User();
+		organiser.addCalendarEvent(new Event("title", "description", "location", now, 24 * 60));
+
+		TimeslotSearchResult result = eventService.searchTimeslots(organiser, now, 30, new ArrayList<>());
+		assertTrue(result.isExhausted());
+		assertEquals(10, result.getTimeslots().size());
+		assertEquals(now.minusMinutes(120), result.getTimeslots().get(0).getStart());
+		assertEquals(now.plusDays(1).plusMinutes(30), result.getTimeslots().get(9).getStart());
+	}
+
+	@Test
+	@DisplayName("searchTimeslots returns no suggestions once the deadline has passed")
+	void testSearchTimeslots_WithDeadlinePassed() {
+		eventService.setSearchDeadlineMillis(0);
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+
+		TimeslotSearchResult result = eventService.searchTimeslots(new User(), now, 30, List.of(new User()));
+		assertTrue(result.isExhausted());
+		assertTrue(result.getTimeslots().isEmpty());
+	}
+
+	@Test
+	@DisplayName("searchTimeslots shares one run between identical searches made at the same time")
+	void testSearchTimeslots_WithConcurrentIdenticalSearches() throws Exception {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger indexLookups = new AtomicInteger();
+		eventService.setBusyIntervalCache(new BusyIntervalCache(100) {
+			@Override
+			public BusyIntervalIndex getBusyIndex(Schedulable participant) {
+				if (indexLookups.getAndIncrement() == 0) {
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return super.getBusyIndex(participant);
+			}
+		});
+		User organiser = new User("organiser", "password", "displayName");
+		organiser.setId(1);
+		User invitee = new User("invitee", "password", "displayName");
+		invitee.setId(2);
+		AtomicReference<TimeslotSearchResult> first = new AtomicReference<>();
+		AtomicReference<TimeslotSearchResult> second = new AtomicReference<>();
+		Thread organiserSearch = new Thread(
+				() -> first.set(eventService.searchTimeslots(organiser, now, 30, List.of(invitee))));
+		// the invitee proposes the same meeting while the organiser's search runs
+		Thread inviteeSearch = new Thread(
+				() -> second.set(eventService.searchTimeslots(invitee, now, 30, List.of(organiser))));
+		organiserSearch.start();
+		while (indexLookups.get() == 0) {
+			Thread.onSpinWait();
+		}
+		inviteeSearch.start();
+		while (inviteeSearch.getState() != Thread.State.WAITING
+				&& inviteeSearch.getState() != Thread.State.TERMINATED) {
+			Thread.onSpinWait();
+		}
+		release.countDown();
+		organiserSearch.join();
+		inviteeSearch.join();
+		assertSame(first.get(), second.get());
+		assertEquals(2, indexLookups.get());
+	}
+
+	@Test
+	@DisplayName("searchTimeslots runs again once an identical search has finished")
+	void testSearchTimeslots_WithSequentialIdenticalSearches() {
+		LocalDateTime now = LocalDateTime.of(2024, 5, 6, 9, 0);
+		User organiser = new User("organiser", "password", "displayName");
+		organiser.setId(1);
+
+		TimeslotSearchResult first = eventService.searchTimeslots(organiser, now, 30, List.of());
+		organiser.addCalendarEvent(new Event("title", "description", "location", now, 30));
+		// as the user would be reloaded after their calendar changed
+		organiser.setCalendarVersion(1);
+		TimeslotSearchResult second = eventService.searchTimeslots(organiser, now, 30, List.of());
+		assertEquals(now, first.getTimeslots().get(0).getStart());
+		assertNotEquals(now, second.getTimeslots().get(0).getStart());
+	}
+
+	@Test
+	@DisplayName("streamBusyIntervals hands over each user's merged busy intervals clipped to the range and returns unknown users")
+	void testStreamBusyIntervals() {
+		LocalDateTime start = LocalDateTime.of(2024, 5, 6, 0, 0);
+		LocalDateTime end = start.plusDays(1);
+		List<String> usernames = List.of("user3", "unknown", "user2", "user1");
+		// in the order of the query, by username and then start time
+		when(mockEventRepo.streamBusyIntervalsForUsers(usernames, start, end)).thenReturn(Stream.of(
+				busyRow("user1", start.minusMinutes(30), start.plusMinutes(30)),
+				busyRow("user1", start.plusHours(9), start.plusHours(10)),
+				busyRow("user1", start.plusMinutes(570), start.plusMinutes(660)),
+				busyRow("user1", start.plusHours(11), start.plusMinutes(690)),
+				busyRow("USER2", start.plusHours(12), start.plusHours(13))));
+
+		when(mockUserRepo.findUsernamesIn(List.of("user3", "unknown"))).thenReturn(List.of("USER3"));
+
+		Map<String, List<Timeslot>> busyIntervals = new LinkedHashMap<>();
+		assertEquals(List.of("unknown"), eventService.streamBusyIntervals(usernames, start, end, busyIntervals::put));
+		assertEquals(List.of("user1", "user2", "user3"), List.copyOf(busyIntervals.keySet()));
+		List<Timeslot> user1Busy = busyIntervals.get("user1");
+		assertEquals(2, user1Busy.size());
+		assertEquals(start, user1Busy.get(0).getStart());
+		assertEquals(start.plusMinutes(30), user1Busy.get(0).getEnd());
+		assertEquals(start.plusHours(9), user1Busy.get(1).getStart());
+		assertEquals(start.plusMinutes(690), user1Busy.get(1).getEnd());
+		assertEquals(start.plusHours(12), busyIntervals.get("user2").get(0).getStart());
+		assertTrue(busyIntervals.get("user3").isEmpty());
+	}
+
+	@Test
+	@DisplayName("streamBusyIntervals hands over each user before the rest of the rows are read")
+	void testStreamBusyIntervals_HandsOverEachUserAsRowsArrive() {
+		LocalDateTime start = LocalDateTime.of(2024, 5, 6, 0, 0);
+		LocalDateTime end = start.plusDays(1);
+		List<String> usernames = List.of("user1", "user2");
+		List<String> steps = new ArrayList<>();
+		when(mockEventRepo.streamBusyIntervalsForUsers(usernames, start, end)).thenReturn(Stream.of(
+				busyRow("user1", start.plusHours(9), start.plusHours(10)),
+				busyRow("user2", start.plusHours(12), start.plusHours(13)),
+				busyRow("user2", start.plusHours(14), start.plusHours(15)))
+				.peek(row -> steps.add("read " + row.getUsername())));
+
+		eventService.streamBusyIntervals(usernames, start, end, (username, busy) -> steps.add("handed " + username));
+		assertEquals(List.of("read user1", "read user2", "handed user1", "read user2", "handed user2"), steps);
+	}
+
+	@Test
+	@DisplayName("streamBusyIntervals expands recurring events over the range and merges them with one-off events")
+	void testStreamBusyIntervals_WithRecurringEvent() {
+		LocalDateTime start = LocalDateTime.of(2024, 5, 6, 0, 0);
+		LocalDateTime end = start.plusDays(3);
+		List<String> usernames = List.of("user1");
+		Event daily = new Event("title", "description", "location", start.minusDays(30).plusHours(9), 60);
+		daily.setRecurrence(new Recurrence(RecurrenceFrequency.DAILY, null, null));
+		when(mockEventRepo.streamBusyIntervalsForUsers(usernames, start, end))
+				.thenReturn(Stream.of(busyRow("user1", start.plusHours(10), start.plusHours(11))));
+		when(mockEventRepo.findRecurringEventsForUsers(usernames, start, end))
+				.thenReturn(List.of(recurringRow("user1", daily)));
+
+		Map<String, List<Timeslot>> busyIntervals = new LinkedHashMap<>();
+		eventService.streamBusyIntervals(usernames, start, end, busyIntervals::put);
+		List<Timeslot> busy = busyIntervals.get("user1");
+		assertEquals(List.of(start.plusHours(9), start.plusDays(1).plusHours(9), start.plusDays(2).plusHours(9)),
+				busy.stream().map(Timeslot::getStart).toList());
+		assertEquals(start.plusHours(11), busy.get(0).getEnd());
+	}
+
+	@Test
+	@DisplayName("getCalendarPageAfter throws UserNotFoundException for invalid username")
+	void testGetCalendarPageAfter_WithInvalidUsername() {
+		PageCursor after = new PageCursor(LocalDateTime.of(2024, 5, 6, 0, 0), 0);
+		when(mockUserRepo.findByUsername("invalid")).thenReturn(Optional.empty());
+		assertThrows(UserNotFoundException.class, () -> eventService.getCalendarPageAfter("invalid", after, 3));
+		verifyNoInteractions(mockEventRepo);
+	}
+
+	@Test
+	@DisplayName("getCalendarPageAfter merges one-off rows with the next occurrences of recurring rows")
+	void testGetCalendarPageAfter_WithRecurringRow() throws Exception {
+		LocalDateTime from = LocalDateTime.of(2024, 5, 6, 0, 0);
+		PageCursor after = new PageCursor(from, 0);
+		Recurrence daily = new Recurrence(RecurrenceFrequency.DAILY, null, null);
+		long userId = stubCalendarUser();
+		when(mockEventRepo.findCalendarSummariesAfter(userId, from, 0, PageRequest.ofSize(4)))
+				.thenReturn(List.of(summaryRow(2L, from.plusDays(1).plusHours(8), null)));
+		when(mockEventRepo.findCalendarSeriesSummariesAfter(userId, from, PageRequest.of(0, 4)))
+				.thenReturn(List.of(summaryRow(1L, from.minusDays(30).plusHours(9), daily)));
+
+		KeysetPage<EventOccurrence> page = eventService.getCalendarPageAfter("username", after, 3);
+		assertEquals(List.of(from.plusHours(9), from.plusDays(1).plusHours(8), from.plusDays(1).plusHours(9)),
+				page.getItems().stream().map(EventOccurrence::getStartTime).toList());
+		assertEquals(2L, page.getItems().get(1).getId());
+		assertEquals(new PageCursor(from.plusHours(9), 1), page.getPrevious());
+		assertEquals(new PageCursor(from.plusDays(1).plusHours(9), 1), page.getNext());
+	}
+
+	@Test
+	@DisplayName("getCalendarPageAfter stops reading series once the page is filled before the last one read starts")
+	void testGetCalendarPageAfter_StopsAfterFilledBatchOfSeries() throws Exception {
+		LocalDateTime from = LocalDateTime.of(2024, 5, 6, 9, 0);
+		PageCursor after = new PageCursor(from, 0);
+		Recurrence daily = new Recurrence(RecurrenceFrequency.DAILY, null, null);
+		long userId = stubCalendarUser();
+		// earliest starting first, as the query orders them
+		when(mockEventRepo.findCalendarSeriesSummariesAfter(userId, from, PageRequest.of(0, 3)))
+				.thenReturn(List.of(summaryRow(1L, from.minusDays(5), daily), summaryRow(2L, from.minusDays(4), daily),
+						summaryRow(3L, from.plusDays(2), daily)));
+
+		KeysetPage<EventOccurrence> page = eventService.getCalendarPageAfter("username", after, 2);
+		assertEquals(List.of(from, from), page.getItems().stream().map(EventOccurrence::getStartTime).toList());
+		assertEquals(new PageCursor(from, 2), page.getNext());
+		verify(mockEventRepo, never()).findCalendarSeriesSummariesAfter(userId, from, PageRequest.of(1, 3));
+	}
+
+	@Test
+	@DisplayName("getCalendarPageAfter reads another batch of series while the page is not yet filled")
+	void testGetCalendarPageAfter_ReadsNextBatchOfSeries() throws Exception {
+		LocalDateTime from = LocalDateTime.of(2024, 5, 6, 9, 0);
+		PageCursor after = new PageCursor(from, 0);
+		Recurrence weekly = new Recurrence(RecurrenceFrequency.WEEKLY, null, null);
+		long userId = stubCalendarUser();
+		when(mockEventRepo.findCalendarSeriesSummariesAfter(userId, from, PageRequest.of(0, 2)))
+				.thenReturn(List.of(summaryRow(1L, from.minusWeeks(4).plusHours(1), weekly),
+						summaryRow(2L, from.minusWeeks(3).plusHours(1), weekly)));
+		when(mockEventRepo.findCalendarSeriesSummariesAfter(userId, from, PageRequest.of(1, 2))).thenReturn(
+				List.of(summaryRow(3L, from.plusMinutes(30), new Recurrence(RecurrenceFrequency.DAILY, 1, null))));
+
+		KeysetPage<EventOccurrence> page = eventService.getCalendarPageAfter("username", after, 1);
+		assertEquals(List.of(from.plusMinutes(30)),
+				page.getItems().stream().map(EventOccurrence::getStartTime).toList());
+	}
+
+	@Test
+	@DisplayName("getCalendarPageAfter has no next page once every occurrence fits and keeps the cursor when empty")
+	void testGetCalendarPageAfter_WithLastPage() throws Exception {
+		PageCursor after = new PageCursor(LocalDateTime.of(2024, 5, 6, 0, 0), 7);
+		stubCalendarUser();
+
+		KeysetPage<EventOccurrence> page = eventService.getCalendarPageAfter("username", after, 3);
+		assertTrue(page.getItems().isEmpty());
+		assertEquals(after, page.getPrevious());
+		assertNull(page.getNext());
+	}
+
+	@Test
+	@DisplayName("getCalendarPageBefore throws UserNotFoundException for invalid username")
+	void testGetCalendarPageBefore_WithInvalidUsername() {
+		PageCursor before = new PageCursor(LocalDateTime.of(2024, 5, 6, 0, 0), 0);
+		when(mockUserRepo.findByUsername("invalid")).thenReturn(Optional.empty());
+		assertThrows(UserNotFoundException.class, () -> eventService.getCalendarPageBefore("invalid", before, 3));
+		verifyNoInteractions(mockEventRepo);
+	}
+
+	@Test
+	@DisplayName("getCalendarPageBefore returns the occurrences nearest before the cursor in start order")
+	void testGetCalendarPageBefore() throws Exception {
+		LocalDateTime to = LocalDateTime.of(2024, 5, 6, 9, 0);
+		PageCursor before = new PageCursor(to, 1);
+		Recurrence daily = new Recurrence(RecurrenceFrequency.DAILY, null, null);
+		long userId = stubCalendarUser();
+		when(mockEventRepo.findCalendarSummariesBefore(userId, to, 1, PageRequest.ofSize(3)))
+				.thenReturn(List.of(summaryRow(2L, to.minusHours(1), null), summaryRow(3L, to.minusDays(3), null)));
+		when(mockEventRepo.findCalendarSeriesSummariesBefore(userId, to, PageRequest.of(0, 3)))
+				.thenReturn(List.of(summaryRow(1L, to.minusDays(30), daily)));
+
+		KeysetPage<EventOccurrence> page = eventService.getCalendarPageBefore("username", before, 2);
+		assertEquals(List.of(to.minusDays(1), to.minusHours(1)),
+				page.getItems().stream().map(EventOccurrence::getStartTime).toList());
+		assertEquals(new PageCursor(to.minusDays(1), 1), page.getPrevious());
+		assertEquals(new PageCursor(to.minusHours(1), 2), page.getNext());
+	}
+
+	@Test
+	@DisplayName("getCalendarPageBefore stops reading series once the page is filled after the end of the last one read")
+	void testGetCalendarPageBefore_StopsAfterFilledBatchOfSeries() throws Exception {
+		LocalDateTime to = LocalDateTime.of(2024, 5, 6, 9, 0);
+		PageCursor before = new PageCursor(to, 0);
+		Recurrence fiveDays = new Recurrence(RecurrenceFrequency.DAILY, 5, null);
+		long userId = stubCalendarUser();
+		// latest ending first, as the query orders them
+		when(mockEventRepo.findCalendarSeriesSummariesBefore(userId, to, PageRequest.of(0, 3)))
+				.thenReturn(List.of(summaryRow(1L, to.minusDays(5), fiveDays), summaryRow(2L, to.minusDays(6), fiveDays),
+						summaryRow(3L, to.minusDays(7), fiveDays)));
+
+		KeysetPage<EventOccurrence> page = eventService.getCalendarPageBefore("username", before, 2);
+		assertEquals(List.of(to.minusDays(2), to.minusDays(1)),
+				page.getItems().stream().map(EventOccurrence::getStartTime).toList());
+		assertEquals(new PageCursor(to.minusDays(2), 2), page.getPrevious());
+		verify(mockEventRepo, never()).findCalendarSeriesSummariesBefore(userId, to, PageRequest.of(1, 3));
+	}
+
+	@Test
+	@DisplayName("getCalendarPageBefore reads another batch of series while the last one read never ends")
+	void testGetCalendarPageBefore_ReadsNextBatchAfterUnboundedSeries() throws Exception {
+		LocalDateTime to = LocalDateTime.of(2024, 5, 6, 9, 0);
+		PageCursor before = new PageCursor(to, 0);
+		Recurrence weekly = new Recurrence(RecurrenceFrequency.WEEKLY, null, null);
+		long userId = stubCalendarUser();
+		when(mockEventRepo.findCalendarSeriesSummariesBefore(userId, to, PageRequest.of(0, 2)))
+				.thenReturn(List.of(summaryRow(1L, to.minusWeeks(3), weekly), summaryRow(2L, to.minusWeeks(4), weekly)));
+		when(mockEventRepo.findCalendarSeriesSummariesBefore(userId, to, PageRequest.of(1, 2)))
+				.thenReturn(List.of(summaryRow(3L, to.minusHours(2), new Recurrence(RecurrenceFrequency.DAILY, 1, null))));
+
+		KeysetPage<EventOccurrence> page = eventService.getCalendarPageBefore("username", before, 1);
+		assertEquals(List.of(to.minusHours(2)), page.getItems().stream().map(EventOccurrence::getStartTime).toList());
+	}
+
+	@Test
+	@DisplayName("getEventInvitesAfter drops the null row of a user with no invites and has no previous first page")
+	void testGetEventInvitesAfter_WithNoInvites() {
+		when(mockEventRepo.findInviteSummariesAfter(eq("username"), any(), any(), anyLong(), any()))
+				.thenReturn(List.of(summaryRow(null, null, null)));
+
+		KeysetPage<EventSummary> page = eventService.getEventInvitesAfter("username", null, 3);
+		assertTrue(page.getItems().isEmpty());
+		assertNull(page.getPrevious());
+		assertNull(page.getNext());
+	}
+
+	@Test
+	@DisplayName("getEventInvitesBefore puts the nearest invites back in start order")
+	void testGetEventInvitesBefore() {
+		LocalDateTime to = LocalDateTime.of(2024, 5, 6, 9, 0);
+		PageCursor before = new PageCursor(to, 5);
+		when(mockEventRepo.findInviteSummariesBefore(eq("username"), any(), eq(to), eq(5L), eq(PageRequest.ofSize(3))))
+				.thenReturn(List.of(summaryRow(4L, to.minusHours(1), null), summaryRow(3L, to.minusHours(2), null),
+						summaryRow(2L, to.minusHours(3), null)));
+
+		KeysetPage<EventSummary> page = eventService.getEventInvitesBefore("username", before, 2);
+		assertEquals(List.of(3L, 4L), page.getItems().stream().map(EventSummary::getId).toList());
+		assertEquals(new PageCursor(to.minusHours(2), 3), page.getPrevious());
+		assertEquals(new PageCursor(to.minusHours(1), 4), page.getNext());
+	}
+
+	/**
+	 * Stubs the lookup of the user whose calendar is read.
+	 *
+	 * @return the ID of the user
+	 */
+	private long stubCalendarUser() {
+		User user = new User("username", "password", "displayName");
+		user.setId(5);
+		when(mockUserRepo.findByUsername("username")).thenReturn(Optional.of(user));
+		return 5;
+	}
+
+	private static SlotOccupancy occupancy(long oneOffEvents, long series) {
+		return new SlotOccupancy() {
+			@Override
+			public long getOneOffEvents() {
+				return oneOffEvents;
+			}
+
+			@Override
+			public long getSeries() {
+				return series;
+			}
+		};
+	}
+
+	private static EventSummary summaryRow(Long id, LocalDateTime startTime, Recurrence recurrence) {
+		return new EventSummary() {
+			@Override
+			public Long getId() {
+				return id;
+			}
+
+			@Override
+			public String getTitle() {
+				return "title";
+			}
+
+			@Override
+			public LocalDateTime getStartTime() {
+				return startTime;
+			}
+
+			@Override
+			public int getDurationMinutes() {
+				return 60;
+			}
+
+			@Override
+			public LocalDateTime getEndTime() {
+				return startTime == null ? null : startTime.plusMinutes(60);
+			}
+
+			@Override
+			public String getLocation() {
+				return "location";
+			}
+
+			@Override
+			public Recurrence getRecurrence() {
+				return recurrence;
+			}
+		};
+	}
+
+	private static UserRecurringEvent recurringRow(String username, Event event) {
+		return new UserRecurringEvent() {
+			@Override
+			public String getUsername() {
+				return username;
+			}
+
+			@Override
+			public Event getEvent() {
+				return event;
+			}
+		};
+	}
+
+	private static UserBusyInterval busyRow(String username, LocalDateTime startTime, LocalDateTime endTime) {
+		return new UserBusyInterval() {
+			@Override
+			public String getUsername() {
+				return username;
+			}
+
+			@Override
+			public LocalDateTime getStartTime() {
+				return startTime;
+			}
+
+			@Override
+			public LocalDateTime getEndTime() {
+				return endTime;
+			}
+		};
+	}
 }
@@ -0,0 +1,112 @@
+package com.fdmgroup.schedulingproject.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fdmgroup.schedulingproject.exception.RoomUnavailableException;
+import com.fdmgroup.schedulingproject.model.Event;
+import com.fdmgroup.schedulingproject.model.Location;
+import com.fdmgroup.schedulingproject.model.User;
+import com.fdmgroup.schedulingproject.repository.EventRepository;
+import com.fdmgroup.schedulingproject.repository.LocationRepository;
+import com.fdmgroup.schedulingproject.repository.UserRepository;
+
+// books the same room from two transactions at once, which needs committed
+// data, so the test is not run in a rolled back transaction
+@SpringBootTest
+public class RoomBookingLockTest {
+	private static final String ROOM = "Lock Test Room";
+
+	@Autowired
+	private EventService eventService;
+	@Autowired
+	private EventRepository eventRepo;
+	@Autowired
+	private LocationRepository locationRepo;
+	@Autowired
+	private UserRepository userRepo;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void setUp() {
+		userRepo.save(new User("lockOrganiser1", "password", "displayName"));
+		userRepo.save(new User("lockOrganiser2", "password", "displayName"));
+		eventService.createRoom(ROOM);
+	}
+
+	@AfterEach
+	void tearDown() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			Location room = locationRepo.findByName(ROOM).get();
+			eventRepo.deleteAll(room.getEvents());
+			locationRepo.delete(room);
+			userRepo.deleteAll(List.of(userRepo.findByUsername("lockOrganiser1").get(),
+					userRepo.findByUsername("lockOrganiser2").get()));
+		});
+	}
+
+	@Test
+	@DisplayName("Verify a booking of a room waits for an uncommitted booking of it and then finds the room taken")
+	void testCreateEvent_WaitsForConcurrentBookingOfRoom() throws Exception {
+		LocalDateTime start = LocalDateTime.of(2030, 5, 6, 9, 0);
+		CountDownLatch firstBooked = new CountDownLatch(1);
+		CountDownLatch secondStarted = new CountDownLatch(1);
+		AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+		AtomicReference<Throwable> secondFailure = new AtomicReference<>();
+
+		Thread first = new Thread(() -> {
+			try {
+				new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+					eventService.createEvent("lockOrganiser1", List.of(), new Event("first", null, ROOM, start, 60));
+					firstBooked.countDown();
+					try {
+						// keeps the room locked while the second booking starts
+						secondStarted.await(5, TimeUnit.SECONDS);
+						Thread.sleep(500);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				});
+			} catch (Throwable e) {
+				firstFailure.set(e);
+				firstBooked.countDown();
+			}
+		});
+		Thread second = new Thread(() -> {
+			try {
+				firstBooked.await(5, TimeUnit.SECONDS);
+				secondStarted.countDown();
+				eventService.createEvent("lockOrganiser2", List.of(),
+						new Event("second", null, ROOM, start.plusMinutes(30), 60));
+			} catch (Throwable e) {
+				secondFailure.set(e);
+			}
+		});
+		first.start();
+		second.start();
+		first.join();
+		second.join();
+
+		assertNull(firstFailure.get());
+		assertInstanceOf(RoomUnavailableException.class, secondFailure.get());
+		assertEquals(1, new TransactionTemplate(transactionManager)
+				.execute(status -> locationRepo.findByName(ROOM).get().getEvents().size()));
+	}
+}
@@ -2,12 +2,16 @@ package com.fdmgroup.schedulingproject.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,6 +20,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.fdmgroup.schedulingproject.dto.UserContactRow;
 import com.fdmgroup.schedulingproject.exception.CannotInviteSelfException;
 import com.fdmgroup.schedulingproject.exception.UserAlreadyInContactsException;
 import com.fdmgroup.schedulingproject.exception.UserAlreadyInvitedException;
@@ -35,16 +40,19 @@ public class UserContactServiceTest {
 	@Mock
 	User mockUser1, mockUser2;
 
-	List<User> listContainingUser1, listContainingUser2;
+	@Mock
+	UserContactRow mockSelfRow, mockContactRow;
+
+	Set<User> setContainingUser1, setContainingUser2;
 
 	@BeforeEach
 	void setUp() {
 		userContactService = new UserContactService();
 		userContactService.setUserRepository(mockUserRepo);
-		listContainingUser1 = new ArrayList<>();
-		listContainingUser1.add(mockUser1);
-		listContainingUser2 = new ArrayList<>();
-		listContainingUser2.add(mockUser2);
+		setContainingUser1 = new LinkedHashSet<>();
+		setContainingUser1.add(mockUser1);
+		setContainingUser2 = new LinkedHashSet<>();
+		setContainingUser2.add(mockUser2);
 	}
 
 	@Test
@@ -66,7 +74,7 @@ public class UserContactServiceTest {
 	void testSendContactInvite_ToContact() {
 		when(mockUserRepo.findByUsername("user1")).thenReturn(Optional.ofNullable(mockUser1));
 		when(mockUserRepo.findByUsername("user2")).thenReturn(Optional.ofNullable(mockUser2));
-		when(mockUser1.getContacts()).thenReturn(listContainingUser2);
+		when(mockUser1.getContacts()).thenReturn(setContainingUser2);
 		assertThrows(UserAlreadyInContactsException.class,
 				() -> userContactService.sendContactInvite("user1", "user2"));
 	}
@@ -76,7 +84,7 @@ public class UserContactServiceTest {
 	void testSendContactInvite_ToAlreadyInvitedContact() {
 		when(mockUserRepo.findByUsername("user1")).thenReturn(Optional.ofNullable(mockUser1));
 		when(mockUserRepo.findByUsername("user2")).thenReturn(Optional.ofNullable(mockUser2));
-		when(mockUser1.getSentContactInvites()).thenReturn(listContainingUser2);
+		when(mockUser1.getSentContactInvites()).thenReturn(setContainingUser2);
 		assertThrows(UserAlreadyInvitedException.class, () -> userContactService.sendContactInvite("user1", "user2"));
 	}
 
@@ -85,12 +93,14 @@ public class UserContactServiceTest {
 	void testSendContactInvite_ToContactWithPendingInvite() {
 		when(mockUserRepo.findByUsername("user1")).thenReturn(Optional.ofNullable(mockUser1));
 		when(mockUserRepo.findByUsername("user2")).thenReturn(Optional.ofNullable(mockUser2));
-		when(mockUser1.getContacts()).thenReturn(new ArrayList<>());
-		when(mockUser2.getContacts()).thenReturn(new ArrayList<>());
-		when(mockUser1.getSentContactInvites()).thenReturn(new ArrayList<>());
-		when(mockUser2.getSentContactInvites()).thenReturn(listContainingUser1);
+		when(mockUser1.getContacts()).thenReturn(new LinkedHashSet<>());
+		when(mockUser2.getContacts()).thenReturn(new LinkedHashSet<>());
+		when(mockUser1.getSentContactInvites()).thenReturn(new LinkedHashSet<>());
+		when(mockUser2.getSentContactInvites()).thenReturn(setContainingUser1);
+		when(mockUser1.getId()).thenReturn(1L);
 		userContactService.sendContactInvite("user1", "user2");
 		verify(mockUser2).removeSentContactInvite(mockUser1);
+		verify(mockUserRepo).adjustPendingContactInvites(1, -1);
 		verify(mockUser1).addContact(mockUser2);
 		verify(mockUser2).addContact(mockUser1);
 		verify(mockUserRepo).saveAll(List.of(mockUser1, mockUser2));
@@ -101,11 +111,13 @@ public class UserContactServiceTest {
 	void testSendContactInvite_ToNewContact() {
 		when(mockUserRepo.findByUsername("user1")).thenReturn(Optional.ofNullable(mockUser1));
 		when(mockUserRepo.findByUsername("user2")).thenReturn(Optional.ofNullable(mockUser2));
-		when(mockUser1.getSentContactInvites()).thenReturn(new ArrayList<>());
-		when(mockUser2.getSentContactInvites()).thenReturn(new ArrayList<>());
+		when(mockUser1.getSentContactInvites()).thenReturn(new LinkedHashSet<>());
+		when(mockUser2.getSentContactInvites()).thenReturn(new LinkedHashSet<>());
+		when(mockUser2.getId()).thenReturn(2L);
 		userContactService.sendContactInvite("user1", "user2");
 		verify(mockUser1).addSentContactInvite(mockUser2);
 		verify(mockUser2).addReceivedContactInvite(mockUser1);
+		verify(mockUserRepo).adjustPendingContactInvites(2, 1);
 		verify(mockUserRepo).saveAll(List.of(mockUser1, mockUser2));
 	}
 
@@ -147,13 +159,15 @@ public class UserContactServiceTest {
 	void testAcceptContact_WithValidUsername() {
 		when(mockUserRepo.findByUsername("user1")).thenReturn(Optional.ofNullable(mockUser1));
 		when(mockUserRepo.findByUsername("user2")).thenReturn(Optional.ofNullable(mockUser2));
-		when(mockUser1.getReceivedContactInvites()).thenReturn(listContainingUser2);
-		when(mockUser2.getSentContactInvites()).thenReturn(listContainingUser1);
+		when(mockUser1.getReceivedContactInvites()).thenReturn(setContainingUser2);
+		when(mockUser2.getSentContactInvites()).thenReturn(setContainingUser1);
+		when(mockUser1.getId()).thenReturn(1L);
 		userContactService.acceptContact("user1", "user2");
 		verify(mockUser1).addContact(mockUser2);
 		verify(mockUser2).addContact(mockUser1);
 		verify(mockUser1).removeReceivedContactInvite(mockUser2);
 		verify(mockUser2).removeSentContactInvite(mockUser1);
+		verify(mockUserRepo).adjustPendingContactInvites(1, -1);
 		verify(mockUserRepo).saveAll(List.of(mockUser1, mockUser2));
 	}
 
@@ -177,26 +191,48 @@ public class UserContactServiceTest {
 	void testCancelContactInvite_WithValidInvite() {
 		when(mockUserRepo.findByUsername("user1")).thenReturn(Optional.ofNullable(mockUser1));
 		when(mockUserRepo.findByUsername("user2")).thenReturn(Optional.ofNullable(mockUser2));
-		when(mockUser1.getSentContactInvites()).thenReturn(listContainingUser2);
-		when(mockUser2.getReceivedContactInvites()).thenReturn(listContainingUser1);
+		when(mockUser1.getSentContactInvites()).thenReturn(setContainingUser2);
+		when(mockUser2.getReceivedContactInvites()).thenReturn(setContainingUser1);
+		when(mockUser2.getId()).thenReturn(2L);
 		userContactService.cancelContactInvite("user1", "user2");
 		verify(mockUser1).removeSentContactInvite(mockUser2);
 		verify(mockUser2).removeReceivedContactInvite(mockUser1);
+		verify(mockUserRepo).adjustPendingContactInvites(2, -1);
 		verify(mockUserRepo).saveAll(List.of(mockUser1, mockUser2));
 	}
 
 	@Test
 	@DisplayName("getContacts throws UserNotFoundException for invalid username")
 	void testGetContacts_WithInvalidUsername() {
-		when(mockUserRepo.findByUsername("user1")).thenReturn(Optional.empty());
+		when(mockUserRepo.findWithContactsByUsername("user1")).thenReturn(Optional.empty());
 		assertThrows(UserNotFoundException.class, () -> userContactService.getContacts("user1"));
 	}
 
 	@Test
 	@DisplayName("getContacts returns correct list for valid username")
 	void testGetContacts_WithIValidUsername() {
-		when(mockUserRepo.findByUsername("user1")).thenReturn(Optional.ofNullable(mockUser1));
-		when(mockUser1.getContacts()).thenReturn(listContainingUser2);
-		assertEquals(listContainingUser2, userContactService.getContacts("user1"));
+		when(mockUserRepo.findWithContactsByUsername("user1")).thenReturn(Optional.ofNullable(mockUser1));
+		when(mockUser1.getContacts()).thenReturn(setContainingUser2);
+		assertEquals(List.of(mockUser2), userContactService.getContacts("user1"));
+	}
+
+	@Test
+	@DisplayName("getContactLists throws UserNotFoundException for invalid username")
+	void testGetContactLists_WithInvalidUsername() {
+		when(mockUserRepo.findContactRowsByUsername("user1")).thenReturn(List.of());
+		assertThrows(UserNotFoundException.class, () -> userContactService.getContactLists("user1"));
+	}
+
+	@Test
+	@DisplayName("getContactLists groups rows by relation with empty lists for missing relations")
+	void testGetContactLists_WithValidUsername() {
+		when(mockSelfRow.getRelation()).thenReturn(UserContactRow.Relation.SELF);
+		when(mockContactRow.getRelation()).thenReturn(UserContactRow.Relation.CONTACT);
+		when(mockUserRepo.findContactRowsByUsername("user1")).thenReturn(List.of(mockSelfRow, mockContactRow));
+		Map<UserContactRow.Relation, List<UserContactRow>> contactLists = userContactService.getContactLists("user1");
+		assertEquals(List.of(mockContactRow), contactLists.get(UserContactRow.Relation.CONTACT));
+		assertTrue(contactLists.get(UserContactRow.Relation.SENT_INVITE).isEmpty());
+		assertTrue(contactLists.get(UserContactRow.Relation.RECEIVED_INVITE).isEmpty());
+		verify(mockUserRepo, never()).findByUsername("user1");
 	}
 }
@@ -3,24 +3,34 @@ package com.fdmgroup.schedulingproject.service;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.fdmgroup.schedulingproject.dto.UserHomeSummary;
 import com.fdmgroup.schedulingproject.exception.PasswordDoesNotMatchException;
 import com.fdmgroup.schedulingproject.exception.UserAlreadyExistsException;
 import com.fdmgroup.schedulingproject.exception.UserNotFoundException;
+import com.fdmgroup.schedulingproject.exception.UsersNotFoundException;
 import com.fdmgroup.schedulingproject.model.User;
+import com.fdmgroup.schedulingproject.model.UserPrincipal;
 import com.fdmgroup.schedulingproject.repository.UserRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -48,6 +58,20 @@ public class UserDetailsServiceTest {
 		assertDoesNotThrow(() -> userService.verifyCredentials("username", "password"));
 	}
 
+	@Test
+	@DisplayName("verifyCredentials with correct credentials returns a snapshot of the user")
+	void testVerifyCredentials_ReturnsPrincipal() {
+		User user = new User("username", "password", "displayName");
+		user.setId(1);
+		user.setVersion(3);
+		when(mockUserRepo.findByUsername("username")).thenReturn(Optional.of(user));
+		UserPrincipal principal = userService.verifyCredentials("username", "password");
+		assertEquals(1, principal.getId());
+		assertEquals("username", principal.getUsername());
+		assertEquals("displayName", principal.getDisplayName());
+		assertEquals(3, principal.getVersion());
+	}
+
 	@Test
 	@DisplayName("verifyCredentials with incorrect username throws a UserNotFoundException")
 	void testVerifyCredentials_WithIncorrectUsername() {
@@ -99,6 +123,103 @@ public class UserDetailsServiceTest {
 		assertEquals(mockUser, retrievedUser);
 	}
 
+	@Test
+	@DisplayName("findUsers looks up every username in one query and returns the users in the order given")
+	void findUsers_WithValidUsernames() {
+		User first = new User("first", "password", "displayName");
+		User second = new User("second", "password", "displayName");
+		when(mockUserRepo.findAllByUsernameIn(Set.of("second", "first", "First"))).thenReturn(List.of(first, second));
+		assertEquals(List.of(second, first), userService.findUsers(List.of("second", "first", "First", "second")));
+		verifyNoMoreInteractions(mockUserRepo);
+	}
+
+	@Test
+	@DisplayName("findUsers with unknown usernames throws a UsersNotFoundException naming all of them")
+	void findUsers_WithInvalidUsernames() {
+		User first = new User("first", "password", "displayName");
+		when(mockUserRepo.findAllByUsernameIn(Set.of("unknown1", "first", "unknown2"))).thenReturn(List.of(first));
+		UsersNotFoundException e = assertThrows(UsersNotFoundException.class,
+				() -> userService.findUsers(List.of("unknown1", "first", "unknown2")));
+		assertEquals(List.of("unknown1", "unknown2"), e.getUsernames());
+	}
+
+	@Test
+	@DisplayName("findUsers with no usernames does not query userRepo")
+	void findUsers_WithNoUsernames() {
+		assertEquals(List.of(), userService.findUsers(List.of()));
+		verifyNoMoreInteractions(mockUserRepo);
+	}
+
+	@Test
+	@DisplayName("getHomeSummary with incorrect username throws a UserNotFoundException")
+	void getHomeSummary_WithInvalidUsername() {
+		when(mockUserRepo.findByUsername("username")).thenReturn(Optional.empty());
+		assertThrows(UserNotFoundException.class, () -> userService.getHomeSummary("username"));
+	}
+
+	@Test
+	@DisplayName("getHomeSummary with correct username returns the user's counts without loading any invites")
+	void getHomeSummary_WithValidUsername() {
+		User user = new User("username", "password", "displayName");
+		user.setPendingContactInvites(2);
+		user.setPendingEventInvites(3);
+		when(mockUserRepo.findByUsername("username")).thenReturn(Optional.of(user));
+		UserHomeSummary summary = userService.getHomeSummary("username");
+		assertEquals("displayName", summary.getDisplayName());
+		assertEquals(2, summary.getPendingContactInvites());
+		assertEquals(3, summary.getPendingEventInvites());
+		verifyNoMoreInteractions(mockUserRepo);
+	}
+
+	@Test
+	@DisplayName("reconcilePendingInviteCounts recounts invites expired since the previous recount")
+	void reconcilePendingInviteCounts() {
+		userService.setReconcileStartupLookbackHours(24);
+		ArgumentCaptor<LocalDateTime> from = ArgumentCaptor.forClass(LocalDateTime.class);
+		ArgumentCaptor<LocalDateTime> to = ArgumentCaptor.forClass(LocalDateTime.class);
+		userService.reconcilePendingInviteCounts();
+		userService.reconcilePendingInviteCounts();
+		verify(mockUserRepo, times(2)).reconcileExpiredEventInvites(from.capture(), to.capture());
+		assertEquals(to.getAllValues().get(0).minusHours(24), from.getAllValues().get(0));
+		assertEquals(to.getAllValues().get(0), from.getAllValues().get(1));
+	}
+
+	@Test
+	@DisplayName("revalidatePrincipal with an unchanged version only reads the version")
+	void revalidatePrincipal_WithUnchangedVersion() {
+		Instant validatedAt = Instant.now().minusSeconds(120);
+		UserPrincipal principal = new UserPrincipal(1, "username", "displayName", 3, validatedAt);
+		when(mockUserRepo.findVersionById(1)).thenReturn(Optional.of(3L));
+		UserPrincipal revalidated = userService.revalidatePrincipal(principal);
+		assertEquals("displayName", revalidated.getDisplayName());
+		assertEquals(3, revalidated.getVersion());
+		assertTrue(revalidated.getValidatedAt().isAfter(validatedAt));
+		verify(mockUserRepo).findVersionById(1);
+		verifyNoMoreInteractions(mockUserRepo);
+	}
+
+	@Test
+	@DisplayName("revalidatePrincipal with a changed version takes a new snapshot of the user")
+	void revalidatePrincipal_WithChangedVersion() {
+		User user = new User("username", "password", "newDisplayName");
+		user.setId(1);
+		user.setVersion(4);
+		when(mockUserRepo.findVersionById(1)).thenReturn(Optional.of(4L));
+		when(mockUserRepo.findById(1L)).thenReturn(Optional.of(user));
+		UserPrincipal revalidated = userService
+				.revalidatePrincipal(new UserPrincipal(1, "username", "displayName", 3, Instant.now()));
+		assertEquals("newDisplayName", revalidated.getDisplayName());
+		assertEquals(4, revalidated.getVersion());
+	}
+
+	@Test
+	@DisplayName("revalidatePrincipal for a deleted user throws a UserNotFoundException")
+	void revalidatePrincipal_WithDeletedUser() {
+		when(mockUserRepo.findVersionById(1)).thenReturn(Optional.empty());
+		assertThrows(UserNotFoundException.class, () -> userService
+				.revalidatePrincipal(new UserPrincipal(1, "username", "displayName", 3, Instant.now())));
+	}
+
 	@Test
 	@DisplayName("updateDisplayName with incorrect username throws a UserNotFoundException")
 	void updateDisplayName_WithInvalidUsername() {
@@ -110,9 +231,12 @@ public class UserDetailsServiceTest {
 	@DisplayName("updateDisplayName with correct username calls userRepo with correct params")
 	void updateDisplayName_WithValidUsername() {
 		when(mockUserRepo.findByUsername("username")).thenReturn(Optional.ofNullable(mockUser));
-		userService.updateDisplayName("username", "newDisplayName");
+		when(mockUserRepo.saveAndFlush(mockUser)).thenReturn(mockUser);
+		when(mockUser.getDisplayName()).thenReturn("newDisplayName");
+		UserPrincipal principal = userService.updateDisplayName("username", "newDisplayName");
 		verify(mockUser).setDisplayName("newDisplayName");
-		verify(mockUserRepo).save(mockUser);
+		verify(mockUserRepo).saveAndFlush(mockUser);
+		assertEquals("newDisplayName", principal.getDisplayName());
 	}
 
 	@Test